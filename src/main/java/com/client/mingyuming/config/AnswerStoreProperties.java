@@ -0,0 +1,31 @@
+package com.client.mingyuming.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 最终答案持久化存储配置（answer.store.*）
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "answer.store")
+public class AnswerStoreProperties {
+    // 是否启用
+    private boolean enabled = true;
+    // 存储目录（answers.log 与 answers.idx）
+    private String dir = "./data/answer-store";
+    // 批量 fsync 间隔（毫秒），崩溃最多丢失该间隔内写入的答案
+    private long fsyncIntervalMs = 200;
+    // 压缩检查间隔（毫秒）
+    private long compactIntervalMs = 60_000;
+    // 日志达到该大小且垃圾占比达到 compact-garbage-ratio 时压缩
+    private long compactMinBytes = 1024 * 1024;
+    private double compactGarbageRatio = 0.5;
+    // 答案有效期（毫秒），过期后按未命中处理并在下次保存时覆盖；0 表示不过期
+    private long ttlMs = 24 * 60 * 60 * 1000L;
+    // 兜底答案（正则，匹配整个答案）不写入：是否写入主要由请求结果标记（RequestOutcome）决定，此处只作补充拦截
+    private String skipAnswerPattern = "系统繁忙.*|我没找到答案|无结果|.*(调用失败|执行失败|快速失败).*";
+    // 答案随日期或实时数据变化的问题（正则，在问题与补充内容中查找）不写入也不查询
+    private String volatileQuestionPattern = "今天|今日|现在|当前|目前|本月|本周|今年|昨天|明天|最新|实时|汇率|下单|支付订单";
+}
@@ -0,0 +1,43 @@
+package com.client.mingyuming.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 大模型多实例路由配置（llm.routing.*）
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "llm.routing")
+public class LlmRoutingProperties {
+    // 是否启用多实例路由（关闭时使用各自配置的 base-url）
+    private boolean enabled = false;
+    // 路由策略：least-outstanding（最少在途）/ ewma（延迟加权）
+    private String strategy = "least-outstanding";
+    // 健康探测间隔（毫秒）
+    private long healthCheckIntervalMs = 5000;
+    // 健康探测超时（毫秒）
+    private int probeTimeoutMs = 2000;
+    // 连续失败次数达到后摘除
+    private int failureThreshold = 3;
+    // 调用延迟 EWMA 超过该值即视为慢节点摘除（0 表示不按延迟摘除）
+    private long slowEjectionMs = 0;
+    // 慢节点摘除后的冷却时间（毫秒）：健康探测只能说明实例存活，不能说明已不慢，冷却期内探测成功也不重新加入
+    private long slowEjectionCooldownMs = 30000;
+    // 逻辑模型 → 实例池：openai（本地大模型）、ragflow（RAGFlow，各实例需部署相同的 chat-id）
+    private Map<String, Pool> pools = new LinkedHashMap<>();
+
+    @Data
+    public static class Pool {
+        // 实例地址（与原 base-url 同格式，如 http://10.0.0.2:8000）
+        private List<String> endpoints = new ArrayList<>();
+        // 健康探测路径（llama.cpp 为 /health）
+        private String healthPath = "/health";
+    }
+}
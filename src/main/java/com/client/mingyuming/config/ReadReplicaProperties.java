@@ -0,0 +1,39 @@
+package com.client.mingyuming.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 读库路由配置（sql.replica.*）
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "sql.replica")
+public class ReadReplicaProperties {
+    // 是否启用读库路由（关闭时所有查询走主库）
+    private boolean enabled = false;
+    // 路由策略：least-in-flight / latency-weighted
+    private String strategy = "least-in-flight";
+    // 健康检查间隔（毫秒）
+    private long healthCheckIntervalMs = 5000;
+    // 连续失败次数达到后摘除
+    private int failureThreshold = 3;
+    // 读库节点
+    private List<Node> nodes = new ArrayList<>();
+
+    @Data
+    public static class Node {
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+        private int maxPoolSize = 10;
+        // 可选：启动时执行的初始化脚本（本地嵌入式库调试用，如 classpath:db/replica-local.sql）
+        private String initScript;
+    }
+}
@@ -0,0 +1,46 @@
+package com.client.mingyuming.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 本地大模型 / RAGFlow 替身服务配置（stub.*，仅 stub profile 生效）
+ */
+@Data
+@Configuration
+@Profile("stub")
+@ConfigurationProperties(prefix = "stub")
+public class StubProperties {
+    // 首 token 延迟（模拟提示词评估，毫秒）
+    private long firstTokenMs = 100;
+    // 生成速度（token/秒，<=0 表示不模拟生成耗时）
+    private double tokensPerSecond = 50;
+    // 本地大模型（/v1/chat/completions）的规则，按顺序匹配最后一条用户消息
+    private List<Rule> openai = new ArrayList<>();
+    // RAGFlow chat-id → 规则
+    private Map<String, Chat> ragflow = new LinkedHashMap<>();
+
+    @Data
+    public static class Chat {
+        // 名称（仅用于日志）
+        private String name;
+        // 无规则命中时的回答
+        private String defaultAnswer = "我没找到答案";
+        private List<Rule> rules = new ArrayList<>();
+    }
+
+    @Data
+    public static class Rule {
+        // 正则（find 匹配）
+        private String match;
+        // 回答；可用 $1 等引用 match 的分组
+        private String answer;
+    }
+}
@@ -1,9 +1,18 @@
 package com.client.mingyuming.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Configuration
 public class ThreadPoolConfig {
@@ -12,7 +21,28 @@ public class ThreadPoolConfig {
      * 定义固定大小线程池（处理两个并发查询）
      */
     @Bean
-    public ExecutorService executorService() {
-        return Executors.newFixedThreadPool(2); // 刚好处理两个并发任务
+    @Primary
+    public ExecutorService executorService(MeterRegistry meterRegistry) {
+        // 刚好处理两个并发任务；executor.* 指标以 name=query 区分
+        return ExecutorServiceMetrics.monitor(meterRegistry, Executors.newFixedThreadPool(2), "query");
+    }
+
+    /**
+     * 多工具并行调用线程池：有界队列，队列满时由提交线程执行（背压，不丢任务）
+     */
+    @Bean
+    public ExecutorService toolCallExecutor(@Value("${tool.parallel.threads:4}") int threads,
+                                            @Value("${tool.parallel.queue-capacity:32}") int queueCapacity,
+                                            MeterRegistry meterRegistry) {
+        AtomicInteger index = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "tool-call-" + index.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "toolCall");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,26 @@
+package com.client.mingyuming.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 工具 API 响应缓存配置（tool.cache.*）
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "tool.cache")
+public class ToolCacheProperties {
+    // 是否启用
+    private boolean enabled = true;
+    // 缓存总容量上限（字节，按字符串长度估算）
+    private long maxBytes = 4 * 1024 * 1024;
+    // 工具名 → 存活时间（未配置的工具不缓存；payment-order-tool 始终不缓存）
+    private Map<String, Duration> ttl = new LinkedHashMap<>();
+    // 查询已结账月份（month 早于当前月）的账单时使用的存活时间
+    private Duration closedMonthTtl = Duration.ofHours(6);
+}
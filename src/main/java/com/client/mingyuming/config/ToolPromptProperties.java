@@ -0,0 +1,21 @@
+package com.client.mingyuming.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 工具调用助手提示词配置（llm.system.*）
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "llm.system")
+public class ToolPromptProperties {
+    // 固定规则（提示词前缀）
+    private String prompt;
+    // 工具名 → 工具说明（按检索结果拼接在规则之后）
+    private Map<String, String> toolDocs = new LinkedHashMap<>();
+}
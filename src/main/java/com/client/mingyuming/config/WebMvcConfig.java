@@ -1,21 +1,24 @@
 package com.client.mingyuming.config;
 
+import com.client.mingyuming.interceptor.DeadlineInterceptor;
 import com.client.mingyuming.interceptor.LogIdInterceptor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 /**
- * Web配置：注册LogID拦截器
+ * Web配置：注册LogID拦截器、请求截止时间拦截器
  */
 @Configuration
 public class WebMvcConfig implements WebMvcConfigurer {
 
     private final LogIdInterceptor logIdInterceptor;
+    private final DeadlineInterceptor deadlineInterceptor;
 
-    // 注入LogID拦截器（Spring自动扫描@Component注解的Bean）
-    public WebMvcConfig(LogIdInterceptor logIdInterceptor) {
+    // 注入拦截器（Spring自动扫描@Component注解的Bean）
+    public WebMvcConfig(LogIdInterceptor logIdInterceptor, DeadlineInterceptor deadlineInterceptor) {
         this.logIdInterceptor = logIdInterceptor;
+        this.deadlineInterceptor = deadlineInterceptor;
     }
 
     @Override
@@ -24,5 +27,8 @@ public class WebMvcConfig implements WebMvcConfigurer {
         registry.addInterceptor(logIdInterceptor)
                 .addPathPatterns("/**")  // 所有请求都拦截
                 .excludePathPatterns("/favicon.ico", "/static/**");  // 排除无需拦截的路径
+        // 业务接口设置请求截止时间（重试、排队据此判断剩余时间）
+        registry.addInterceptor(deadlineInterceptor)
+                .addPathPatterns("/api/**");
     }
 }
\ No newline at end of file
@@ -1,18 +1,29 @@
 package com.client.mingyuming.controller;
 
+import com.client.mingyuming.config.ToolPromptProperties;
 import com.client.mingyuming.dto.ChatRequest;
 import com.client.mingyuming.dto.ChatRequest.Message;
 import com.client.mingyuming.dto.ExamRequestDTO;
 import com.client.mingyuming.dto.ExamResponseDTO;
+import com.client.mingyuming.service.AnswerShaper;
+import com.client.mingyuming.service.AnswerStore;
 import com.client.mingyuming.service.ChatService;
+import com.client.mingyuming.service.IntentClassifierService;
 import com.client.mingyuming.service.LLMService;
-import com.client.mingyuming.util.LlmHttpUtil;
+import com.client.mingyuming.service.ToolCatalogRetriever;
+import com.client.mingyuming.service.ToolParamExtractor;
+import com.client.mingyuming.service.ToolRegistry;
+import com.client.mingyuming.service.ToolSchemaBuilder;
+import com.client.mingyuming.util.AdmissionGate;
+import com.client.mingyuming.util.AdmissionRejectedException;
+import com.client.mingyuming.util.RequestOutcome;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -22,6 +33,7 @@ import org.springframework.web.bind.annotation.RestController;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * 比赛专用接口控制器（核心入口）
@@ -31,38 +43,48 @@ import java.util.Map;
 @RequestMapping("/api")
 public class ExamController {
 
-    // 分类模型参数
-    @Value("${llm.classify.base-url}")
-    private String classifyBaseUrl;
-    @Value("${llm.classify.chat-id}")
-    private String classifyChatId;
-    @Value("${llm.classify.session-id}")
-    private String classifySessionId;
-    @Value("${llm.classify.authorization}")
-    private String classifyAuth;
-
     // 工具结果处理提示词
     @Value("${llm.tool-result-prompt}")
     private String toolResultPrompt;
 
-    // 其他配置参数（保持不变）
-    @Value("${llm.system.prompt}")
-    private String systemPrompt;
-
     // 工具和服务
     private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
     private final LLMService llmService;
     private final ChatService chatService;
-    private final LlmHttpUtil llmHttpUtil;
+    private final IntentClassifierService intentClassifierService;
+    private final ToolParamExtractor toolParamExtractor;
+    private final AnswerShaper answerShaper;
+    private final ToolRegistry toolRegistry;
+    private final ToolCatalogRetriever toolCatalogRetriever;
+    private final ToolPromptProperties toolPromptProperties;
+    private final ToolSchemaBuilder toolSchemaBuilder;
+    private final AdmissionGate admissionGate;
+    private final AnswerStore answerStore;
 
     // 构造方法注入
     @Autowired
     public ExamController(LLMService llmService,
                           ChatService chatService,
-                          LlmHttpUtil llmHttpUtil) {
+                          IntentClassifierService intentClassifierService,
+                          ToolParamExtractor toolParamExtractor,
+                          AnswerShaper answerShaper,
+                          ToolRegistry toolRegistry,
+                          ToolCatalogRetriever toolCatalogRetriever,
+                          ToolPromptProperties toolPromptProperties,
+                          ToolSchemaBuilder toolSchemaBuilder,
+                          AdmissionGate admissionGate,
+                          AnswerStore answerStore) {
         this.llmService = llmService;
         this.chatService = chatService;
-        this.llmHttpUtil = llmHttpUtil;
+        this.intentClassifierService = intentClassifierService;
+        this.toolParamExtractor = toolParamExtractor;
+        this.answerShaper = answerShaper;
+        this.toolRegistry = toolRegistry;
+        this.toolCatalogRetriever = toolCatalogRetriever;
+        this.toolPromptProperties = toolPromptProperties;
+        this.toolSchemaBuilder = toolSchemaBuilder;
+        this.admissionGate = admissionGate;
+        this.answerStore = answerStore;
     }
 
     /**
@@ -77,31 +99,46 @@ public class ExamController {
         responseDTO.setPaper(requestDTO.getPaper());
         responseDTO.setId(requestDTO.getId());
 
+        // 答案库命中时直接返回（不排队、不调用任何上游）
+        Optional<String> storedAnswer = answerStore.lookup(requestDTO);
+        if (storedAnswer.isPresent()) {
+            responseDTO.setAnswer(storedAnswer.get());
+            log.info("答案库命中，返回应答：{}", gson.toJson(responseDTO));
+            return ResponseEntity.ok(responseDTO);
+        }
+
+        // 准入控制：超出处理名额时按截止时间排队，无法按时完成的请求直接卸载（503 + Retry-After，客户端按状态码识别）
+        AdmissionGate.Permit permit;
+        try {
+            permit = admissionGate.acquire();
+        } catch (AdmissionRejectedException e) {
+            responseDTO.setAnswer("系统繁忙，请稍后重试：" + e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(admissionGate.retryAfterSeconds()))
+                    .body(responseDTO);
+        }
+        RequestOutcome.begin();
         try {
             String paperType = requestDTO.getPaper();
             if ("TEST_HARD".equals(paperType) || "EXAM_HARD".equals(paperType)) {
-                // HARD难度：动态工具选择
-                String toolSelectionPrompt = buildToolSelectionPrompt(originalQuestion, requestDTO.getContent());
-                String toolDecisionJson = llmService.generateToolDecision(toolSelectionPrompt);
+                // HARD难度：动态工具选择（参数可本地确定时不调用决策大模型）
+                String toolDecisionJson = toolParamExtractor.extractDecision(originalQuestion, requestDTO.getContent())
+                        .orElseGet(() -> {
+                            String userContent = "用户问题：" + originalQuestion + "\n补充信息："
+                                    + (requestDTO.getContent() == null ? "无" : requestDTO.getContent());
+                            List<String> tools = toolCatalogRetriever.select(userContent,
+                                    toolRegistry.all().stream().map(ToolRegistry.ToolSpec::name).toList(),
+                                    List.of(ChatService.KNOWLEDGE_QA_TOOL));
+                            Map<String, Object> schema = toolSchemaBuilder.decisionSchema(tools, true);
+                            return llmService.generateToolDecision(buildToolSelectionPrompt(tools), userContent,
+                                    schema, toolSchemaBuilder.estimateMaxTokens(schema));
+                        });
                 log.info("HARD难度决策结果：{}", toolDecisionJson);
                 String toolResult = chatService.executeToolByDecision(toolDecisionJson, originalQuestion, requestDTO.getContent());
                 responseDTO.setAnswer(toolResult);
             } else {
-                // 非HARD难度：原有分类逻辑
-                String requestType = llmHttpUtil.call(
-                        "意图识别大模型",
-                        classifyBaseUrl,
-                        classifyChatId,
-                        classifySessionId,
-                        classifyAuth,
-                        originalQuestion,
-                        trimmedAnswer -> {
-                            Map<String, String> answerJson = gson.fromJson(trimmedAnswer, new TypeToken<Map<String, String>>() {}.getType());
-                            String type = answerJson.getOrDefault("requestType", "").trim();
-                            return ("knowledge_qa".equals(type) || "tool_call".equals(type) || "data_query".equals(type))
-                                    ? type : "knowledge_qa";
-                        }
-                );
+                // 非HARD难度：本地意图识别，置信度不足时调用分类大模型
+                String requestType = intentClassifierService.classify(originalQuestion).requestType();
 
                 switch (requestType) {
                     case "data_query" -> responseDTO = handleDataQuery(requestDTO).getBody();
@@ -110,6 +147,12 @@ public class ExamController {
                 }
             }
 
+            // 只保存全流程成功的答案（任一步骤以失败提示或兜底内容代替结果时不写入）
+            if (RequestOutcome.failed()) {
+                log.info("答案含失败/兜底内容（{}），不写入答案库", RequestOutcome.failure());
+            } else {
+                answerStore.save(requestDTO, responseDTO.getAnswer());
+            }
             log.info("返回应答：{}", gson.toJson(responseDTO));
             return ResponseEntity.ok(responseDTO);
 
@@ -117,6 +160,9 @@ public class ExamController {
             log.error("请求处理异常", e);
             responseDTO.setAnswer("系统繁忙，请稍后重试：" + e.getMessage());
             return ResponseEntity.ok(responseDTO);
+        } finally {
+            RequestOutcome.clear();
+            permit.close();
         }
     }
 
@@ -128,6 +174,7 @@ public class ExamController {
             return chatService.executeKnowledgeQaTool(question);
         } catch (Exception e) {
             log.error("知识问答处理失败：{}", question, e);
+            RequestOutcome.fail("知识问答处理失败");
             return "我没找到答案";
         }
     }
@@ -144,6 +191,7 @@ public class ExamController {
         try {
             String toolResult = chatService.executeDataQueryTool(requestDTO.getQuestion(), requestDTO.getContent());
             if (toolResult.contains("路径1执行失败") && toolResult.contains("路径2执行失败")) {
+                RequestOutcome.fail("数据查询两条路径均失败");
                 responseDTO.setAnswer("无结果");
             } else if ("00".equals(toolResult.trim())) {
                 responseDTO.setAnswer(toolResult);
@@ -152,6 +200,7 @@ public class ExamController {
             }
         } catch (Exception e) {
             log.error("数据查询处理失败：{}", requestDTO.getId(), e);
+            RequestOutcome.fail("数据查询处理失败");
             responseDTO.setAnswer("无结果");
         }
 
@@ -162,40 +211,16 @@ public class ExamController {
      * 工具调用逻辑
      */
     private ResponseEntity<ExamResponseDTO> handleToolCall(ExamRequestDTO requestDTO) {
-        ChatRequest chatRequest = new ChatRequest();
-        List<Message> messages = new ArrayList<>();
-
-        // 系统提示
-        Message systemMsg = new Message();
-        systemMsg.setRole("system");
-        systemMsg.setContent(systemPrompt);
-        messages.add(systemMsg);
-
-        // 用户问题
-        Message userMsg = new Message();
-        String userQuestion = requestDTO.getQuestion() + (requestDTO.getContent() != null ? "\n补充信息：" + requestDTO.getContent() : "");
-        userMsg.setRole("user");
-        userMsg.setContent(userQuestion);
-        messages.add(userMsg);
-
-        chatRequest.setMessages(messages);
-
-        // 调用工具
-        String toolCmd = llmService.generateResponse(chatRequest);
+        // 调用工具（参数可本地确定时直接构造工具指令，不调用大模型）
+        String toolCmd = toolParamExtractor.extractToolCommand(requestDTO.getQuestion(), requestDTO.getContent())
+                .orElseGet(() -> generateToolCommand(requestDTO));
         log.info("工具指令：{}", toolCmd);
         String toolResult = chatService.callToolApi(toolCmd);
         log.info("工具原始结果：{}", toolResult);
 
-        // 处理结果
-        String questionType = requestDTO.getCategory();
-        String formattedPrompt = String.format(toolResultPrompt, questionType, toolResult);
-        ChatRequest resultProcessRequest = new ChatRequest();
-        List<Message> resultMessages = new ArrayList<>();
-        resultMessages.add(new Message("system", formattedPrompt));
-        resultMessages.add(new Message("user", "请根据上述规则处理结果并返回最终答案"));
-        resultProcessRequest.setMessages(resultMessages);
-
-        String finalAnswer = llmService.generateResponse(resultProcessRequest);
+        // 处理结果（能本地确定取值/选项时不调用结果处理大模型）
+        String finalAnswer = answerShaper.shape(requestDTO.getCategory(), requestDTO.getQuestion(), requestDTO.getContent(), toolResult)
+                .orElseGet(() -> formatToolResult(requestDTO.getCategory(), toolResult));
         log.info("格式化后答案：{}", finalAnswer);
 
         // 封装响应
@@ -209,32 +234,63 @@ public class ExamController {
     }
 
     /**
-     * 构建工具选择提示词
+     * 调用结果处理大模型生成最终答案
+     */
+    private String formatToolResult(String questionType, String toolResult) {
+        // 规则固定放在系统消息，题目类型和工具结果放在用户消息末尾
+        ChatRequest resultProcessRequest = new ChatRequest();
+        List<Message> resultMessages = new ArrayList<>();
+        resultMessages.add(new Message("system", toolResultPrompt));
+        resultMessages.add(new Message("user", "题目类型：" + questionType + "\n工具执行结果：" + toolResult
+                + "\n请根据上述规则处理结果并返回最终答案"));
+        resultProcessRequest.setMessages(resultMessages);
+        return llmService.generateResponse(resultProcessRequest, "tool-result");
+    }
+
+    /**
+     * 调用工具调用助手大模型生成工具指令
+     */
+    private String generateToolCommand(ExamRequestDTO requestDTO) {
+        ChatRequest chatRequest = new ChatRequest();
+        List<Message> messages = new ArrayList<>();
+
+        // 系统提示：固定规则 + 按问题裁剪后的工具说明
+        String userQuestion = requestDTO.getQuestion() + (requestDTO.getContent() != null ? "\n补充信息：" + requestDTO.getContent() : "");
+        Map<String, String> toolDocs = toolPromptProperties.getToolDocs();
+        List<String> tools = toolCatalogRetriever.select(userQuestion, toolDocs.keySet(), List.of());
+        StringBuilder systemPrompt = new StringBuilder(toolPromptProperties.getPrompt());
+        tools.forEach(tool -> systemPrompt.append(toolDocs.get(tool)));
+        Message systemMsg = new Message();
+        systemMsg.setRole("system");
+        systemMsg.setContent(systemPrompt.toString());
+        messages.add(systemMsg);
+
+        // 用户问题
+        Message userMsg = new Message();
+        userMsg.setRole("user");
+        userMsg.setContent(userQuestion);
+        messages.add(userMsg);
+
+        chatRequest.setMessages(messages);
+        // 按所列工具约束输出（参数与 toolName 同级）
+        Map<String, Object> schema = toolSchemaBuilder.decisionSchema(tools, false);
+        return llmService.generateStructuredResponse(chatRequest, "tool-call", schema, toolSchemaBuilder.estimateMaxTokens(schema));
+    }
+
+    /**
+     * 构建工具选择提示词：固定的输出格式要求在前，按问题裁剪后的工具清单在后（问题本身放在用户消息末尾）；
+     * 多工具调用格式只在 Schema 允许 toolCalls 时说明
      */
-    private String buildToolSelectionPrompt(String question, String content) {
-        return String.format("""
-                请根据用户问题选择合适的工具执行，可用工具如下：
-                1. %s：处理需要查询数据库的问题，参数为用户问题和补充信息
-                2. %s：处理常识性问题，参数为用户问题
-                3. credit-card-tool：查询信用卡账单，参数需包含卡号、月份
-                4. exchange-rate-tool：查询汇率，参数需包含源货币、目标货币、金额
-                5. utility-bill-tool：查询水电煤账单，参数需包含户号、类型、月份
-                6. user-asset-tool：查询用户资产，参数需包含用户ID
-                7. payment-order-tool：创建支付订单，参数需包含金额、商户号
-                8. %s：获取当前日期，无参数
-                9. %s：计算数学表达式，参数为表达式字符串
-                
-                用户问题：%s
-                补充信息：%s
-                
-                请返回JSON格式：{"toolName":"工具名","parameters":{"参数名":"参数值"}}，若无需工具直接返回{"toolName":"none","message":"回答内容"}
-                """,
-                ChatService.DATA_QUERY_TOOL,
-                ChatService.KNOWLEDGE_QA_TOOL,
-                ChatService.CURRENT_DATE_TOOL,
-                ChatService.CALCULATOR_TOOL,
-                question,
-                (content == null ? "无" : content)
-        );
+    private String buildToolSelectionPrompt(List<String> tools) {
+        StringBuilder prompt = new StringBuilder("""
+                请根据用户问题选择合适的工具执行，返回JSON格式：{"toolName":"工具名","parameters":{"参数名":"参数值"}}，若无需工具直接返回{"toolName":"none","message":"回答内容"}
+                """);
+        if (toolSchemaBuilder.allowsToolCalls(tools)) {
+            prompt.append("""
+                    若需要多个工具配合，返回{"toolCalls":[{"id":"调用标识","toolName":"工具名","parameters":{...},"dependsOn":["依赖的调用标识"]}]}，参数值可用"${调用标识.结果字段}"引用前序调用结果，例如：
+                    {"toolCalls":[{"id":"bill","toolName":"credit-card-tool","parameters":{"cardNumber":"6211111111111111","month":"2025-09"}},{"id":"fx","toolName":"exchange-rate-tool","parameters":{"fromCurrency":"CNY","toCurrency":"USD","amount":"${bill.total_amount}"},"dependsOn":["bill"]}]}
+                    """);
+        }
+        return prompt.append("可用工具如下：\n").append(toolCatalogRetriever.buildCatalog(tools)).toString();
     }
-}
\ No newline at end of file
+}
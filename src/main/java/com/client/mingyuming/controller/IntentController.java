@@ -0,0 +1,121 @@
+package com.client.mingyuming.controller;
+
+import com.client.mingyuming.dto.ExamRequestDTO;
+import com.client.mingyuming.service.IntentClassifierService;
+import com.client.mingyuming.service.IntentClassifierService.IntentResult;
+import com.google.gson.Gson;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 本地意图识别的评估与训练接口：接口无鉴权且训练会覆盖线上模型，默认不注册，
+ * 需显式开启 intent.admin.enabled=true（离线调参时使用）
+ */
+@Slf4j
+@RestController
+@ConditionalOnProperty(name = "intent.admin.enabled", havingValue = "true")
+@RequestMapping("/api/intent")
+public class IntentController {
+
+    private static final int MAX_MISMATCH_SAMPLES = 20;
+    // 单次评估的题目数上限（每题都会调用一次分类大模型）
+    private static final int MAX_EVALUATE_LINES = 2000;
+    private static final int MAX_EPOCHS = 200;
+
+    private final IntentClassifierService intentClassifierService;
+    private final Gson gson = new Gson();
+
+    public IntentController(IntentClassifierService intentClassifierService) {
+        this.intentClassifierService = intentClassifierService;
+    }
+
+    /**
+     * 评估模式：对题目（每行一个 /api/exam 请求 JSON）逐题比较本地结果与分类大模型结果
+     * @param body 题目内容（requests.jsonl 文件内容，如 curl --data-binary @requests.jsonl）
+     */
+    @PostMapping("/evaluate")
+    public ResponseEntity<Map<String, Object>> evaluate(@RequestBody String body) {
+        List<String> lines = body.lines().filter(line -> !line.isBlank()).toList();
+        if (lines.size() > MAX_EVALUATE_LINES) {
+            return ResponseEntity.badRequest().body(Map.of("error", "题目数 " + lines.size() + " 超过上限 " + MAX_EVALUATE_LINES));
+        }
+        double threshold = intentClassifierService.getConfidenceThreshold();
+        int total = 0;
+        int agree = 0;
+        int confident = 0;
+        int confidentAgree = 0;
+        Map<String, Integer> confusion = new TreeMap<>();
+        List<Map<String, Object>> mismatches = new ArrayList<>();
+
+        for (String line : lines) {
+            ExamRequestDTO request = gson.fromJson(line, ExamRequestDTO.class);
+            // HARD 试卷不走意图分类
+            if (request.getQuestion() == null || (request.getPaper() != null && request.getPaper().endsWith("_HARD"))) {
+                continue;
+            }
+            IntentResult local = intentClassifierService.classifyLocally(request.getQuestion());
+            String llmType;
+            try {
+                llmType = intentClassifierService.classifyByLlm(request.getQuestion());
+            } catch (Exception e) {
+                log.warn("评估题目 {} 大模型分类失败，跳过：{}", request.getId(), e.getMessage());
+                continue;
+            }
+
+            total++;
+            boolean same = local.requestType().equals(llmType);
+            boolean isConfident = local.confidence() >= threshold;
+            agree += same ? 1 : 0;
+            confident += isConfident ? 1 : 0;
+            confidentAgree += (isConfident && same) ? 1 : 0;
+            confusion.merge(local.requestType() + "->" + llmType, 1, Integer::sum);
+            if (!same && mismatches.size() < MAX_MISMATCH_SAMPLES) {
+                Map<String, Object> mismatch = new LinkedHashMap<>();
+                mismatch.put("id", request.getId());
+                mismatch.put("question", request.getQuestion());
+                mismatch.put("local", local.requestType());
+                mismatch.put("confidence", local.confidence());
+                mismatch.put("llm", llmType);
+                mismatches.add(mismatch);
+            }
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("total", total);
+        report.put("agreement", total == 0 ? 0.0 : (double) agree / total);
+        report.put("threshold", threshold);
+        // 未训练时评估的是规则初始权重，线上不会据此短路
+        report.put("trainedModel", intentClassifierService.isTrained());
+        // 达到阈值的题目占比 = 可省去的分类调用比例
+        report.put("localCoverage", total == 0 ? 0.0 : (double) confident / total);
+        report.put("confidentAgreement", confident == 0 ? 0.0 : (double) confidentAgree / confident);
+        report.put("confusion", confusion);
+        report.put("mismatches", mismatches);
+        log.info("意图识别评估：{}", gson.toJson(report));
+        return ResponseEntity.ok(report);
+    }
+
+    /**
+     * 用决策日志重新训练线性模型（epochs 取值 1~200，learningRate 取值 (0, 1]）
+     */
+    @PostMapping("/train")
+    public ResponseEntity<Map<String, Object>> train(@RequestParam(value = "epochs", defaultValue = "30") int epochs,
+                                                     @RequestParam(value = "learningRate", defaultValue = "0.1") double learningRate) throws Exception {
+        if (epochs < 1 || epochs > MAX_EPOCHS || !(learningRate > 0 && learningRate <= 1)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "epochs 或 learningRate 超出范围"));
+        }
+        return ResponseEntity.ok(intentClassifierService.train(epochs, learningRate));
+    }
+}
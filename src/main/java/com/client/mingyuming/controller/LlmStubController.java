@@ -0,0 +1,256 @@
+package com.client.mingyuming.controller;
+
+import com.client.mingyuming.config.StubProperties;
+import com.client.mingyuming.config.StubProperties.Rule;
+import com.google.gson.Gson;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 本地大模型（OpenAI 兼容 /v1/chat/completions，含流式）与 RAGFlow（/api/v1/chats/{chatId}/completions、会话接口）的进程内替身，
+ * 仅 stub profile 启用：按配置规则或内置规则返回答案，并按首 token 延迟 + 生成速度模拟耗时，
+ * 用于离线跑通、压测完整的 ExamController 流程（配置见 application-stub.yml）
+ */
+@Slf4j
+@RestController
+@Profile("stub")
+@RequestMapping("/stub")
+public class LlmStubController {
+
+    private static final String TOOL_RESULT_MARKER = "工具执行结果：";
+    // 每个流式分片的字符数
+    private static final int STREAM_CHUNK_CHARS = 4;
+
+    private final StubProperties properties;
+    private final Gson gson = new Gson();
+    private final Map<String, Pattern> patterns = new ConcurrentHashMap<>();
+    // 已评估过的系统提示词（模拟 llama.cpp 按前缀相似度选槽后的缓存命中）
+    private final Set<String> cachedPrefixes = ConcurrentHashMap.newKeySet();
+
+    public LlmStubController(StubProperties properties) {
+        this.properties = properties;
+    }
+
+    // -------------------------- 本地大模型（OpenAI 兼容） --------------------------
+    @PostMapping("/openai/v1/chat/completions")
+    @SuppressWarnings("unchecked")
+    public ResponseEntity<?> chatCompletions(@RequestBody Map<String, Object> request,
+                                             HttpServletResponse servletResponse) throws IOException {
+        List<Map<String, Object>> messages = (List<Map<String, Object>>) request.getOrDefault("messages", List.of());
+        String system = messages.isEmpty() ? "" : String.valueOf(messages.get(0).get("content"));
+        String user = messages.isEmpty() ? "" : String.valueOf(messages.get(messages.size() - 1).get("content"));
+        String answer = openaiAnswer(user, request.get("response_format"));
+
+        int promptTokens = messages.stream().mapToInt(m -> estimateTokens(String.valueOf(m.get("content")))).sum();
+        int cachedTokens = Boolean.TRUE.equals(request.get("cache_prompt"))
+                && !cachedPrefixes.add(system)
+                ? estimateTokens(system) : 0;
+        int completionTokens = estimateTokens(answer);
+        long promptMs = promptTokens == 0 ? 0 : properties.getFirstTokenMs() * (promptTokens - cachedTokens) / promptTokens;
+        String model = String.valueOf(request.getOrDefault("model", "stub"));
+        String id = "chatcmpl-" + UUID.randomUUID();
+
+        if (Boolean.TRUE.equals(request.get("stream"))) {
+            // 直接写响应流逐片 flush（ResponseEntity<?> 无法按泛型匹配 StreamingResponseBody）
+            servletResponse.setContentType(MediaType.TEXT_EVENT_STREAM_VALUE);
+            servletResponse.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            OutputStream out = servletResponse.getOutputStream();
+            sleep(promptMs);
+            for (int i = 0; i < answer.length(); i += STREAM_CHUNK_CHARS) {
+                String piece = answer.substring(i, Math.min(answer.length(), i + STREAM_CHUNK_CHARS));
+                sleep(generationMs(estimateTokens(piece)));
+                Map<String, Object> chunk = Map.of("id", id, "object", "chat.completion.chunk", "model", model,
+                        "choices", List.of(Map.of("index", 0, "delta", Map.of("content", piece))));
+                out.write(("data: " + gson.toJson(chunk) + "\n\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+            Map<String, Object> last = Map.of("id", id, "object", "chat.completion.chunk", "model", model,
+                    "choices", List.of(Map.of("index", 0, "delta", Map.of(), "finish_reason", "stop")));
+            out.write(("data: " + gson.toJson(last) + "\n\ndata: [DONE]\n\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            return null;
+        }
+
+        long predictedMs = generationMs(completionTokens);
+        sleep(promptMs + predictedMs);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("id", id);
+        response.put("object", "chat.completion");
+        response.put("model", model);
+        response.put("choices", List.of(Map.of("index", 0, "finish_reason", "stop",
+                "message", Map.of("role", "assistant", "content", answer))));
+        response.put("usage", Map.of("prompt_tokens", promptTokens, "completion_tokens", completionTokens,
+                "total_tokens", promptTokens + completionTokens));
+        response.put("timings", Map.of("prompt_n", promptTokens - cachedTokens, "cache_n", cachedTokens,
+                "prompt_ms", promptMs, "predicted_n", completionTokens, "predicted_ms", predictedMs));
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/openai/health")
+    public Map<String, Object> openaiHealth() {
+        return Map.of("status", "ok");
+    }
+
+    // -------------------------- RAGFlow --------------------------
+    @PostMapping("/ragflow/api/v1/chats/{chatId}/completions")
+    public Map<String, Object> ragflowCompletions(@PathVariable("chatId") String chatId,
+                                                  @RequestBody Map<String, Object> request) {
+        String question = String.valueOf(request.getOrDefault("question", ""));
+        StubProperties.Chat chat = properties.getRagflow().get(chatId);
+        String answer = chat == null ? "我没找到答案" : match(chat.getRules(), question, chat.getDefaultAnswer());
+        log.debug("Stub RAGFlow[{}]：{} → {}", chat == null ? chatId : chat.getName(), question, answer);
+
+        sleep(properties.getFirstTokenMs() + generationMs(estimateTokens(answer)));
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("answer", answer);
+        data.put("reference", Map.of());
+        data.put("session_id", request.getOrDefault("session_id", ""));
+        return Map.of("code", 0, "data", data);
+    }
+
+    @PostMapping("/ragflow/api/v1/chats/{chatId}/sessions")
+    public Map<String, Object> createSession(@PathVariable("chatId") String chatId,
+                                             @RequestBody(required = false) Map<String, Object> request) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("id", UUID.randomUUID().toString().replace("-", ""));
+        data.put("chat_id", chatId);
+        data.put("name", request == null ? "stub" : request.getOrDefault("name", "stub"));
+        return Map.of("code", 0, "data", data);
+    }
+
+    @DeleteMapping("/ragflow/api/v1/chats/{chatId}/sessions")
+    public Map<String, Object> deleteSessions(@PathVariable("chatId") String chatId) {
+        return Map.of("code", 0);
+    }
+
+    @GetMapping("/ragflow/v1/system/healthz")
+    public Map<String, Object> ragflowHealth() {
+        return Map.of("status", "ok");
+    }
+
+    // -------------------------- 回答规则 --------------------------
+
+    /**
+     * 本地大模型回答：配置规则优先；否则带 response_format 时按 Schema 生成最简合法 JSON（优先 toolName=none），
+     * 工具结果处理提示词原样返回工具结果，其余返回 stub
+     */
+    @SuppressWarnings("unchecked")
+    private String openaiAnswer(String user, Object responseFormat) {
+        String scripted = match(properties.getOpenai(), user, null);
+        if (scripted != null) {
+            return scripted;
+        }
+        if (responseFormat instanceof Map<?, ?> format && format.get("json_schema") instanceof Map<?, ?> jsonSchema
+                && jsonSchema.get("schema") instanceof Map<?, ?> schema) {
+            return gson.toJson(sample((Map<String, Object>) schema));
+        }
+        int marker = user.indexOf(TOOL_RESULT_MARKER);
+        if (marker >= 0) {
+            String result = user.substring(marker + TOOL_RESULT_MARKER.length());
+            int end = result.indexOf('\n');
+            return (end >= 0 ? result.substring(0, end) : result).trim();
+        }
+        return "stub";
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object sample(Map<String, Object> schema) {
+        if (schema.get("anyOf") instanceof List<?> anyOf) {
+            List<Object> variants = (List<Object>) anyOf;
+            return sample((Map<String, Object>) variants.stream()
+                    .filter(v -> v instanceof Map<?, ?> m && m.get("properties") instanceof Map<?, ?> props
+                            && props.get("toolName") instanceof Map<?, ?> name && "none".equals(name.get("const")))
+                    .findFirst()
+                    .orElse(variants.get(0)));
+        }
+        if (schema.containsKey("const")) {
+            return schema.get("const");
+        }
+        if (schema.get("enum") instanceof List<?> values && !values.isEmpty()) {
+            return values.get(0);
+        }
+        String type = String.valueOf(schema.get("type"));
+        switch (type) {
+            case "object": {
+                Map<String, Object> value = new LinkedHashMap<>();
+                Map<String, Object> properties = (Map<String, Object>) schema.getOrDefault("properties", Map.of());
+                for (Object name : (List<?>) schema.getOrDefault("required", List.of())) {
+                    value.put(name.toString(), sample((Map<String, Object>) properties.get(name.toString())));
+                }
+                if ("none".equals(value.get("toolName")) && properties.containsKey("message")) {
+                    value.put("message", "非工具调用类问题");
+                }
+                return value;
+            }
+            case "array":
+                return List.of();
+            case "number":
+            case "integer":
+                return 0;
+            case "boolean":
+                return false;
+            default:
+                return "stub";
+        }
+    }
+
+    private String match(List<Rule> rules, String text, String defaultAnswer) {
+        for (Rule rule : rules) {
+            Matcher matcher = patterns.computeIfAbsent(rule.getMatch(), Pattern::compile).matcher(text);
+            if (matcher.find()) {
+                // appendReplacement 先追加匹配前的文本，截掉后即为展开分组引用后的回答
+                StringBuilder answer = new StringBuilder();
+                matcher.appendReplacement(answer, rule.getAnswer());
+                return answer.substring(matcher.start());
+            }
+        }
+        return defaultAnswer;
+    }
+
+    /**
+     * token 数粗略估算：中文约 1 字 1 token，其余约 4 字符 1 token
+     */
+    private int estimateTokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int cjk = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.UnicodeScript.of(text.charAt(i)) == Character.UnicodeScript.HAN) {
+                cjk++;
+            }
+        }
+        return Math.max(1, cjk + (text.length() - cjk + 3) / 4);
+    }
+
+    private long generationMs(int tokens) {
+        return properties.getTokensPerSecond() <= 0 ? 0 : (long) (tokens * 1000 / properties.getTokensPerSecond());
+    }
+
+    private void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
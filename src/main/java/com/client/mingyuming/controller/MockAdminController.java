@@ -0,0 +1,63 @@
+package com.client.mingyuming.controller;
+
+import com.client.mingyuming.service.MockFaultInjector;
+import com.client.mingyuming.service.MockFaultInjector.FaultProfile;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Mock 工具 API 的压测配置（故障注入、数据种子）：接口无鉴权，仅 stub / mock profile 注册，
+ * 生产（prod）与默认启动不暴露
+ * 端点名：credit-card / exchange-rate / utility-bill / user-assets / payment-order，* 为默认
+ */
+@RestController
+@Profile({"stub", "mock"})
+@RequestMapping("/mock/admin")
+public class MockAdminController {
+
+    private final MockFaultInjector faultInjector;
+
+    public MockAdminController(MockFaultInjector faultInjector) {
+        this.faultInjector = faultInjector;
+    }
+
+    @GetMapping("/faults")
+    public Map<String, Object> getFaults() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("profiles", faultInjector.getProfiles());
+        result.put("dataSeed", faultInjector.getDataSeed());
+        return result;
+    }
+
+    /**
+     * 设置端点故障配置（越界取值会被截断，返回实际生效的配置）
+     */
+    @PutMapping("/faults/{endpoint}")
+    public FaultProfile setFault(@PathVariable("endpoint") String endpoint, @RequestBody FaultProfile profile) {
+        return faultInjector.setProfile(endpoint, profile);
+    }
+
+    @DeleteMapping("/faults/{endpoint}")
+    public Map<String, Object> resetFault(@PathVariable("endpoint") String endpoint) {
+        faultInjector.reset(endpoint);
+        return getFaults();
+    }
+
+    @DeleteMapping("/faults")
+    public Map<String, Object> resetAll() {
+        faultInjector.reset(null);
+        return getFaults();
+    }
+
+    /**
+     * 设置数据种子（不传 seed 则恢复固定数据）
+     */
+    @PutMapping("/seed")
+    public Map<String, Object> setSeed(@RequestParam(value = "seed", required = false) Long seed) {
+        faultInjector.setDataSeed(seed);
+        return getFaults();
+    }
+}
@@ -0,0 +1,28 @@
+package com.client.mingyuming.controller;
+
+import com.client.mingyuming.service.MysqlQueryService;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 生成SQL参数化模板命中统计：GET /actuator/sqltemplates
+ */
+@Component
+@Endpoint(id = "sqltemplates")
+public class SqlTemplateEndpoint {
+
+    private final MysqlQueryService mysqlQueryService;
+
+    public SqlTemplateEndpoint(MysqlQueryService mysqlQueryService) {
+        this.mysqlQueryService = mysqlQueryService;
+    }
+
+    @ReadOperation
+    public List<Map<String, Object>> templates() {
+        return mysqlQueryService.getTemplateStats();
+    }
+}
@@ -1,22 +1,31 @@
 package com.client.mingyuming.controller;
 
+import com.client.mingyuming.service.MockFaultInjector;
+import com.client.mingyuming.service.MockFaultInjector.InjectedFaultException;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 /**
  * 完全对齐组委会 API 格式的 Mock 服务
  * 1. 支持 GET 请求 + URL 参数
  * 2. 校验鉴权头（X-App-Id/X-App-Key）
  * 3. 响应字段与文档完全一致（含脱敏、时间格式）
+ * 4. 压测支持：按端点注入延迟/错误/超时，按种子为任意卡号、户号、用户ID生成确定性数据（由 MockAdminController 运行时配置）
  */
 @Slf4j
 @RestController
@@ -30,6 +39,19 @@ public class ToolMockController {
     // 东八区时间格式化器
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+    // 种子数据取值范围
+    private static final String[] NAMES = {"张三", "李四", "王五", "赵六", "钱七", "孙八"};
+    private static final String[] BANKS = {"中国银行", "工商银行", "建设银行", "招商银行", "农业银行"};
+    private static final String[] CARD_TYPES = {"Unionpay", "Visa", "Mastercard"};
+    private static final String[] PAYMENT_STATUSES = {"paid", "unpaid", "overdue"};
+    private static final String[] ADDRESSES = {"北京市朝阳区建国门外大街1号", "上海市浦东新区世纪大道100号",
+            "广州市天河区珠江新城花城大道8号", "深圳市南山区科技园南路18号"};
+
+    private final MockFaultInjector faultInjector;
+
+    public ToolMockController(MockFaultInjector faultInjector) {
+        this.faultInjector = faultInjector;
+    }
 
 //    // -------------------------- 鉴权拦截（所有接口通用） --------------------------
 //    @ModelAttribute
@@ -48,10 +70,28 @@ public class ToolMockController {
             @RequestParam("month") @DateTimeFormat(pattern = "yyyy-MM") String month) { // 必选：账单月
 
         log.info("Mock 信用卡账单查询：卡号={}，月份={}", cardNumber, month);
+        faultInjector.apply("credit-card");
 
         // 模拟脱敏卡号（前4位+****+后4位）
         String maskedCard = cardNumber.substring(0, 4) + "****" + cardNumber.substring(cardNumber.length() - 4);
 
+        // 设置了数据种子：按卡号+月份生成确定性账单
+        Random random = faultInjector.dataRandom("credit-card", cardNumber, month);
+        if (random != null) {
+            BigDecimal totalAmount = randomAmount(random, 100, 50000);
+            return Map.of(
+                    "card_number", maskedCard,
+                    "cardholder_name", pick(random, NAMES),
+                    "bank", pick(random, BANKS),
+                    "bill_month", month,
+                    "total_amount", totalAmount,
+                    "minimum_payment", totalAmount.divide(BigDecimal.TEN, 2, RoundingMode.HALF_UP),
+                    "payment_status", pick(random, PAYMENT_STATUSES),
+                    "due_date", dueDate(month).format(DATE_FORMATTER),
+                    "currency", "CNY"
+            );
+        }
+
         // 构造文档一致的响应
         return Map.of(
                 "card_number", maskedCard,
@@ -74,9 +114,13 @@ public class ToolMockController {
             @RequestParam(value = "amount", defaultValue = "1") BigDecimal amount) { // 可选：金额，默认1
 
         log.info("Mock 汇率查询：源货币={}，目标货币={}，金额={}", fromCurrency, toCurrency, amount);
+        faultInjector.apply("exchange-rate");
 
-        // 模拟实时汇率（固定值用于测试，实际由组委会返回）
-        BigDecimal rate = new BigDecimal("7.25");
+        // 模拟实时汇率（固定值用于测试，实际由组委会返回；设置了数据种子时按币种对生成）
+        Random random = faultInjector.dataRandom("exchange-rate", fromCurrency, toCurrency);
+        BigDecimal rate = random == null ? new BigDecimal("7.25")
+                : fromCurrency.equals(toCurrency) ? BigDecimal.ONE
+                : BigDecimal.valueOf(0.01 + random.nextDouble() * 10).setScale(4, RoundingMode.HALF_UP);
         BigDecimal convertedAmount = amount.multiply(rate).setScale(2, BigDecimal.ROUND_HALF_UP);
 
         // 构造文档一致的响应
@@ -98,6 +142,7 @@ public class ToolMockController {
             @RequestParam(value = "utilityType", defaultValue = "electricity") String utilityType) { // 可选：类型，默认电费
 
         log.info("Mock 水电煤账单查询：户号={}，月份={}，类型={}", householdId, month, utilityType);
+        faultInjector.apply("utility-bill");
 
         // 按账单类型模拟不同数据
         String usageUnit = switch (utilityType) {
@@ -115,18 +160,32 @@ public class ToolMockController {
             case "gas" -> new BigDecimal("114.0");
             default -> new BigDecimal("206.8"); // electricity
         };
+        String customerName = "张三";
+        String address = "北京市朝阳区建国门外大街1号";
+        String paymentStatus = "unpaid";
+
+        // 设置了数据种子：按户号+月份+类型生成确定性账单（单价与固定数据一致）
+        Random random = faultInjector.dataRandom("utility-bill", householdId, month, utilityType);
+        if (random != null) {
+            BigDecimal unitPrice = billAmount.divide(usageAmount, 4, RoundingMode.HALF_UP);
+            usageAmount = randomAmount(random, 1, usageAmount.doubleValue() * 3).setScale(1, RoundingMode.HALF_UP);
+            billAmount = usageAmount.multiply(unitPrice).setScale(2, RoundingMode.HALF_UP);
+            customerName = pick(random, NAMES);
+            address = pick(random, ADDRESSES);
+            paymentStatus = pick(random, PAYMENT_STATUSES);
+        }
 
         // 构造文档一致的响应
         return Map.of(
                 "household_id", householdId,
-                "customer_name", "张三",
-                "address", "北京市朝阳区建国门外大街1号",
+                "customer_name", customerName,
+                "address", address,
                 "utility_type", utilityType,
                 "bill_month", month,
                 "usage_amount", usageAmount,
                 "usage_unit", usageUnit,
                 "bill_amount", billAmount,
-                "payment_status", "unpaid",
+                "payment_status", paymentStatus,
                 "currency", "CNY"
         );
     }
@@ -138,10 +197,35 @@ public class ToolMockController {
             @RequestParam(value = "assetType", defaultValue = "card") String assetType) { // 可选：资产类型，默认信用卡
 
         log.info("Mock 用户资产查询：用户ID={}，资产类型={}", customerId, assetType);
+        faultInjector.apply("user-assets");
 
         // 模拟脱敏用户ID（前4位+****+后4位）
         String maskedCustomerId = customerId.substring(0, 4) + "****" + customerId.substring(customerId.length() - 4);
 
+        // 设置了数据种子：按用户ID生成确定性资产（1~3 项）
+        Random random = faultInjector.dataRandom("user-assets", customerId, assetType);
+        if (random != null) {
+            String name = pick(random, NAMES);
+            int count = 1 + random.nextInt(3);
+            if ("household".equals(assetType)) {
+                List<HouseAsset> households = new ArrayList<>();
+                for (int i = 0; i < count; i++) {
+                    households.add(new HouseAsset(String.format("BJ%09d", random.nextInt(1_000_000_000)), name,
+                            pick(random, ADDRESSES), random.nextBoolean() ? "住宅" : "商铺",
+                            randomAmount(random, 40, 200), random.nextBoolean() ? "个人" : "共有",
+                            LocalDate.of(2005 + random.nextInt(20), 1 + random.nextInt(12), 1 + random.nextInt(28)).format(DATE_FORMATTER)));
+                }
+                return Map.of("customer_id", maskedCustomerId, "households", households);
+            }
+            List<CardAsset> cards = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                cards.add(new CardAsset(String.format("62%07d%07d", random.nextInt(10_000_000), random.nextInt(10_000_000)),
+                        name, pick(random, BANKS), pick(random, CARD_TYPES),
+                        BigDecimal.valueOf(10_000L * (1 + random.nextInt(10))).setScale(1, RoundingMode.UNNECESSARY)));
+            }
+            return Map.of("customer_id", maskedCustomerId, "cards", cards);
+        }
+
         // 信用卡资产响应
         List<CardAsset> cards = List.of(
                 new CardAsset("4111111111111111", "张三", "中国银行", "Unionpay", new BigDecimal("50000.0")),
@@ -161,6 +245,7 @@ public class ToolMockController {
             @RequestParam(value = "amount", defaultValue = "0.00") BigDecimal amount) { // 可选：金额
 
         log.info("Mock 支付订单创建：商户号={}，订单号={}，金额={}", merchantId, orderId, amount);
+        faultInjector.apply("payment-order");
 
         // 模拟系统生成支付订单ID、过期时间（创建后30分钟）
         String paymentOrderId = "PO_" + System.currentTimeMillis();
@@ -179,6 +264,25 @@ public class ToolMockController {
         );
     }
 
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static BigDecimal randomAmount(Random random, double min, double max) {
+        return BigDecimal.valueOf(min + random.nextDouble() * (max - min)).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * 还款日：账单月次月 15 日（月份无法解析时沿用固定日期）
+     */
+    private static LocalDate dueDate(String month) {
+        try {
+            return YearMonth.parse(month).plusMonths(1).atDay(15);
+        } catch (DateTimeParseException e) {
+            return LocalDate.of(2025, 10, 15);
+        }
+    }
+
     // -------------------------- 内部辅助类（匹配响应结构） --------------------------
     @Data
     static class CardAsset {
@@ -219,6 +323,16 @@ public class ToolMockController {
     }
 
     // -------------------------- 全局异常处理（返回友好错误） --------------------------
+    @ExceptionHandler(InjectedFaultException.class)
+    public ResponseEntity<Map<String, Object>> handleInjectedFault(InjectedFaultException e) {
+        log.warn("Mock {}", e.getMessage());
+        return ResponseEntity.status(e.getStatus()).body(Map.of(
+                "code", e.getStatus(),
+                "message", e.getMessage(),
+                "timestamp", LocalDateTime.now().format(DATETIME_FORMATTER)
+        ));
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public Map<String, Object> handleError(RuntimeException e) {
         log.error("Mock 服务错误：", e);
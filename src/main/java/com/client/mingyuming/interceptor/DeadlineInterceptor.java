@@ -0,0 +1,39 @@
+package com.client.mingyuming.interceptor;
+
+import com.client.mingyuming.util.RequestDeadline;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * 请求截止时间拦截器：按配置的单题超时（可被请求头 X-Request-Timeout-Ms 缩短）设置截止时间
+ */
+@Component
+public class DeadlineInterceptor implements HandlerInterceptor {
+    private static final String TIMEOUT_HEADER = "X-Request-Timeout-Ms";
+
+    @Value("${exam.request-timeout-ms:60000}")
+    private long requestTimeoutMs;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        long timeout = requestTimeoutMs;
+        String header = request.getHeader(TIMEOUT_HEADER);
+        if (header != null) {
+            try {
+                timeout = Math.min(timeout, Long.parseLong(header.trim()));
+            } catch (NumberFormatException ignored) {
+                // 非法请求头忽略，使用默认超时
+            }
+        }
+        RequestDeadline.set(System.currentTimeMillis() + timeout);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) throws Exception {
+        RequestDeadline.clear();
+    }
+}
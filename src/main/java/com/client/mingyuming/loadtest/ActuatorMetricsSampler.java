@@ -0,0 +1,144 @@
+package com.client.mingyuming.loadtest;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 压测期间定时拉取被测服务的 /actuator/metrics：线程池、连接池与上游相关指标，
+ * 瞬时量（Gauge）取阶梯内峰值，累计量（Counter / Timer 次数）取阶梯内增量，用于与饱和点对照
+ */
+public class ActuatorMetricsSampler {
+
+    /**
+     * 采集项
+     * @param label     报告中的列名
+     * @param metric    指标名，可带 ?tag=name:value 过滤
+     * @param statistic VALUE / COUNT / TOTAL_TIME / MAX
+     * @param delta     true 取阶梯内增量，false 取阶梯内峰值
+     */
+    public record Probe(String label, String metric, String statistic, boolean delta) {
+    }
+
+    public static final List<Probe> DEFAULT_PROBES = List.of(
+            new Probe("tomcat.busy", "tomcat.threads.busy", "VALUE", false),
+            new Probe("query.active", "executor.active?tag=name:query", "VALUE", false),
+            new Probe("query.queued", "executor.queued?tag=name:query", "VALUE", false),
+            new Probe("tool.active", "executor.active?tag=name:toolCall", "VALUE", false),
+            new Probe("tool.queued", "executor.queued?tag=name:toolCall", "VALUE", false),
+            new Probe("db.active", "hikaricp.connections.active", "VALUE", false),
+            new Probe("db.pending", "hikaricp.connections.pending", "VALUE", false),
+            new Probe("sql.inflight", "sql.replica.inflight", "VALUE", false),
+            new Probe("up.inflight", "upstream.limiter.inflight", "VALUE", false),
+            new Probe("up.limit", "upstream.limiter.limit", "VALUE", false),
+            new Probe("up.rejected", "upstream.rejected", "COUNT", true),
+            new Probe("llm.inflight", "llm.routing.inflight", "VALUE", false),
+            new Probe("rf.leaseMax", "ragflow.session.lease.wait", "MAX", false),
+            new Probe("answer.hit", "answer.store.requests?tag=result:hit", "COUNT", true),
+            new Probe("cpu", "process.cpu.usage", "VALUE", false),
+            new Probe("threads", "jvm.threads.live", "VALUE", false));
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final List<Probe> probes;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "metrics-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // 当前阶梯：峰值 / 起始值 / 最新值（null 表示指标不存在或拉取失败）
+    private final Map<String, Double> peak = new LinkedHashMap<>();
+    private final Map<String, Double> first = new LinkedHashMap<>();
+    private final Map<String, Double> last = new LinkedHashMap<>();
+
+    public ActuatorMetricsSampler(HttpClient client, String baseUrl, List<Probe> probes, long intervalMs) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.probes = probes;
+        scheduler.scheduleWithFixedDelay(this::sample, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public List<Probe> probes() {
+        return probes;
+    }
+
+    /**
+     * 结束当前阶梯并返回其统计（label → 峰值或增量，不可用的指标不出现），同时开始新阶梯
+     */
+    public synchronized Map<String, Double> snapshotAndReset() {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (Probe probe : probes) {
+            Double value = probe.delta()
+                    ? (last.containsKey(probe.label()) && first.containsKey(probe.label())
+                    ? last.get(probe.label()) - first.get(probe.label()) : null)
+                    : peak.get(probe.label());
+            if (value != null) {
+                result.put(probe.label(), value);
+            }
+        }
+        peak.clear();
+        first.clear();
+        first.putAll(last);
+        return result;
+    }
+
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void sample() {
+        for (Probe probe : probes) {
+            Double value = fetch(probe);
+            if (value == null) {
+                continue;
+            }
+            synchronized (this) {
+                peak.merge(probe.label(), value, Math::max);
+                first.putIfAbsent(probe.label(), value);
+                last.put(probe.label(), value);
+            }
+        }
+    }
+
+    /**
+     * 拉取单个指标的统计值（多个标签的同名指标由 actuator 汇总）
+     */
+    private Double fetch(Probe probe) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/metrics/" + probe.metric()))
+                    .timeout(Duration.ofSeconds(2))
+                    .GET()
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return null;
+            }
+            JsonArray measurements = JsonParser.parseString(response.body()).getAsJsonObject().getAsJsonArray("measurements");
+            for (JsonElement element : measurements) {
+                JsonObject measurement = element.getAsJsonObject();
+                if (probe.statistic().equals(measurement.get("statistic").getAsString())) {
+                    return measurement.get("value").getAsDouble();
+                }
+            }
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.client.mingyuming.loadtest;
+
+import com.client.mingyuming.dto.ExamRequestDTO;
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 压测请求组合：按试卷类型（TEST / EXAM / TEST_HARD / EXAM_HARD）的权重抽取 ExamRequestDTO；
+ * 题目来自 JSON Lines 文件（每行一个 ExamRequestDTO），未提供时使用内置样题
+ */
+public class ExamWorkload {
+
+    private static final List<String> PAPERS = List.of("TEST", "EXAM", "TEST_HARD", "EXAM_HARD");
+
+    // 非 HARD 试卷：覆盖数据查询、工具调用、知识问答三类意图
+    private static final List<String[]> NORMAL_QUESTIONS = List.of(
+            new String[]{"问答题", "2025年3月信用卡账单总额是多少？", null},
+            new String[]{"问答题", "统计各账单月份的信用卡账单平均金额", null},
+            new String[]{"问答题", "查询卡号6211111111111111在2025-03的信用卡账单", null},
+            new String[]{"问答题", "100美元按当前汇率等于多少人民币？", null},
+            new String[]{"问答题", "信用卡逾期会有什么影响？", null},
+            new String[]{"选择题", "以下哪项属于个人征信报告的内容？", "A.账户信息 B.天气预报 C.电影评分 D.菜谱"});
+
+    // HARD 试卷：动态工具选择，含多工具组合
+    private static final List<String[]> HARD_QUESTIONS = List.of(
+            new String[]{"问答题", "查询卡号6211111111111111在2025-09的信用卡账单，并换算成美元", null},
+            new String[]{"问答题", "查询户号1000001在2025-08的电费账单", null},
+            new String[]{"问答题", "查询身份证号110101199001011234的用户资产", null},
+            new String[]{"问答题", "计算(1200+350)*0.85等于多少", null},
+            new String[]{"问答题", "今天是几号？", null});
+
+    private final Gson gson = new Gson();
+    private final List<String> papers = new ArrayList<>();
+    private final double[] cumulative;
+    private final Map<String, List<ExamRequestDTO>> questions = new LinkedHashMap<>();
+
+    private ExamWorkload(Map<String, Double> weights, List<ExamRequestDTO> loaded) {
+        double total = weights.values().stream().mapToDouble(Double::doubleValue).sum();
+        if (total <= 0) {
+            throw new IllegalArgumentException("试卷权重之和必须大于0：" + weights);
+        }
+        cumulative = new double[weights.size()];
+        double sum = 0;
+        for (Map.Entry<String, Double> entry : weights.entrySet()) {
+            sum += entry.getValue() / total;
+            cumulative[papers.size()] = sum;
+            papers.add(entry.getKey());
+        }
+
+        for (String paper : papers) {
+            List<ExamRequestDTO> candidates = loaded.stream().filter(q -> paper.equals(q.getPaper())).toList();
+            if (candidates.isEmpty()) {
+                List<String[]> samples = paper.endsWith("_HARD") ? HARD_QUESTIONS : NORMAL_QUESTIONS;
+                candidates = samples.stream().map(s -> question(paper, s[0], s[1], s[2])).toList();
+            }
+            questions.put(paper, candidates);
+        }
+    }
+
+    /**
+     * @param mix           试卷权重，如 TEST:4,EXAM:4,TEST_HARD:1,EXAM_HARD:1
+     * @param questionsFile 题目文件（JSON Lines），可为 null
+     */
+    public static ExamWorkload load(String mix, Path questionsFile) throws IOException {
+        Map<String, Double> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] kv = part.trim().split(":");
+            String paper = kv[0].trim().toUpperCase();
+            if (!PAPERS.contains(paper)) {
+                throw new IllegalArgumentException("未知试卷类型：" + paper + "，可选：" + PAPERS);
+            }
+            double weight = kv.length > 1 ? Double.parseDouble(kv[1].trim()) : 1;
+            if (weight > 0) {
+                weights.put(paper, weight);
+            }
+        }
+
+        List<ExamRequestDTO> loaded = new ArrayList<>();
+        if (questionsFile != null) {
+            Gson gson = new Gson();
+            for (String line : Files.readAllLines(questionsFile, StandardCharsets.UTF_8)) {
+                if (!line.isBlank()) {
+                    loaded.add(gson.fromJson(line, ExamRequestDTO.class));
+                }
+            }
+        }
+        return new ExamWorkload(weights, loaded);
+    }
+
+    /**
+     * 按权重抽取一道题，返回请求体 JSON
+     * @param id 请求序号（写入试题编号，便于在服务端日志中对应）
+     */
+    public String next(Random random, int id) {
+        double roll = random.nextDouble();
+        int index = 0;
+        while (index < cumulative.length - 1 && roll >= cumulative[index]) {
+            index++;
+        }
+        List<ExamRequestDTO> candidates = questions.get(papers.get(index));
+        ExamRequestDTO template = candidates.get(random.nextInt(candidates.size()));
+        ExamRequestDTO request = question(template.getPaper(), template.getCategory(), template.getQuestion(), template.getContent());
+        request.setSegments(template.getSegments() == null ? "初赛" : template.getSegments());
+        request.setId(id);
+        return gson.toJson(request);
+    }
+
+    public List<String> papers() {
+        return papers;
+    }
+
+    private static ExamRequestDTO question(String paper, String category, String question, String content) {
+        ExamRequestDTO request = new ExamRequestDTO();
+        request.setSegments("初赛");
+        request.setPaper(paper);
+        request.setCategory(category);
+        request.setQuestion(question);
+        request.setContent(content);
+        return request;
+    }
+}
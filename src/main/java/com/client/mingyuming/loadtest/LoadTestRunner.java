@@ -0,0 +1,313 @@
+package com.client.mingyuming.loadtest;
+
+import com.google.gson.JsonParser;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * /api/exam 开环压测：按固定（或泊松）到达率发送请求，不等待前一个请求完成；
+ * 延迟从“计划发送时刻”起算（校正协调遗漏），同时记录从实际发送起算的服务时间作对照。
+ * 到达率按阶梯递增，直到错误率、p99 或吞吐不达标（饱和），报告各阶梯的延迟分位与服务端指标。
+ * <p>
+ * 被测服务默认开启答案库（answer.store.enabled）：内置题目只有十余道，首轮作答后即全部命中答案库，
+ * 之后测到的只是答案库查询而非完整流水线。压测流水线时被测服务应以 --answer.store.enabled=false 启动；
+ * 阶梯内出现答案库命中（answer.hit）时会打印提醒。
+ * <p>
+ * 用法（参数均可省略）：
+ * <pre>
+ * java -cp app.jar -Dloader.main=com.client.mingyuming.loadtest.LoadTestRunner \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher \
+ *     --target=http://localhost:10000 --mix=TEST:4,EXAM:4,TEST_HARD:1,EXAM_HARD:1 \
+ *     --start-rps=2 --step-rps=2 --max-rps=40 --step-seconds=30 --slo-p99-ms=10000 --out=./loadtest
+ * </pre>
+ */
+public final class LoadTestRunner {
+
+    // 直方图上限 10 分钟（微秒），3 位有效数字
+    private static final long HIGHEST_TRACKABLE_US = TimeUnit.MINUTES.toMicros(10);
+    private static final String BUSY_ANSWER_PREFIX = "系统繁忙";
+
+    private final Map<String, String> options;
+    private final HttpClient client;
+    private final ExamWorkload workload;
+    private final Random random;
+    private final URI endpoint;
+    private final Duration timeout;
+    private int nextId = 1;
+
+    /**
+     * 单个阶梯的结果
+     */
+    private record StepResult(double targetRps, double achievedRps, long sent, long ok, Map<String, Long> errors,
+                              Histogram corrected, Histogram service, Map<String, Double> metrics) {
+        long errorCount() {
+            return errors.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        double errorRate() {
+            return sent == 0 ? 0 : (double) errorCount() / sent;
+        }
+    }
+
+    private LoadTestRunner(Map<String, String> options) throws IOException {
+        this.options = options;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        String questions = options.get("questions");
+        this.workload = ExamWorkload.load(option("mix", "TEST:4,EXAM:4,TEST_HARD:1,EXAM_HARD:1"),
+                questions == null ? null : Path.of(questions));
+        this.random = new Random(Long.parseLong(option("seed", "42")));
+        this.endpoint = URI.create(option("target", "http://localhost:10000") + option("path", "/api/exam"));
+        this.timeout = Duration.ofMillis(Long.parseLong(option("timeout-ms", "60000")));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("参数格式应为 --name=value：" + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        new LoadTestRunner(options).run();
+    }
+
+    private void run() throws Exception {
+        double startRps = Double.parseDouble(option("start-rps", "2"));
+        double stepRps = Double.parseDouble(option("step-rps", "2"));
+        double maxRps = Double.parseDouble(option("max-rps", "40"));
+        long stepSeconds = Long.parseLong(option("step-seconds", "30"));
+        long warmupSeconds = Long.parseLong(option("warmup-seconds", "10"));
+        long sloP99Ms = Long.parseLong(option("slo-p99-ms", "10000"));
+        double maxErrorRate = Double.parseDouble(option("max-error-rate", "0.01"));
+        Path out = options.containsKey("out") ? Files.createDirectories(Path.of(options.get("out"))) : null;
+
+        System.out.printf("压测目标：%s，试卷组合：%s，阶梯：%.1f → %.1f rps（+%.1f，每阶梯 %ds），SLO p99 ≤ %dms，错误率 ≤ %.2f%%%n",
+                endpoint, workload.papers(), startRps, maxRps, stepRps, stepSeconds, sloP99Ms, maxErrorRate * 100);
+
+        ActuatorMetricsSampler sampler = new ActuatorMetricsSampler(client, option("metrics-url", option("target", "http://localhost:10000")),
+                ActuatorMetricsSampler.DEFAULT_PROBES, Long.parseLong(option("sample-interval-ms", "1000")));
+        try {
+            if (warmupSeconds > 0) {
+                System.out.printf("预热 %ds @ %.1f rps%n", warmupSeconds, startRps);
+                runStep(startRps, warmupSeconds, sampler);
+            }
+
+            List<StepResult> results = new ArrayList<>();
+            StepResult saturated = null;
+            for (double rps = startRps; rps <= maxRps + 1e-9; rps += stepRps) {
+                StepResult result = runStep(rps, stepSeconds, sampler);
+                results.add(result);
+                printStep(result);
+                if (out != null) {
+                    writeHistogram(out.resolve(String.format("step-%.1frps.hgrm", rps)), result.corrected());
+                    writeHistogram(out.resolve(String.format("step-%.1frps-service.hgrm", rps)), result.service());
+                }
+                if (isSaturated(result, sloP99Ms, maxErrorRate)) {
+                    saturated = result;
+                    break;
+                }
+            }
+            printReport(results, saturated, sampler.probes());
+        } finally {
+            sampler.close();
+        }
+    }
+
+    /**
+     * 按到达率发送 stepSeconds 秒的请求，再等待本阶梯的请求全部结束（最长一个超时时间），
+     * 使每个阶梯的直方图只反映该到达率下的表现
+     */
+    private StepResult runStep(double rps, long stepSeconds, ActuatorMetricsSampler sampler) throws Exception {
+        ConcurrentHistogram corrected = new ConcurrentHistogram(HIGHEST_TRACKABLE_US, 3);
+        ConcurrentHistogram service = new ConcurrentHistogram(HIGHEST_TRACKABLE_US, 3);
+        LongAdder ok = new LongAdder();
+        Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+        boolean poisson = "poisson".equals(option("arrival", "fixed"));
+        long intervalNs = (long) (TimeUnit.SECONDS.toNanos(1) / rps);
+
+        sampler.snapshotAndReset();
+        List<CompletableFuture<?>> inflight = new ArrayList<>();
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(stepSeconds);
+        long intended = start;
+        while (intended < end) {
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            // 落后于计划时不跳过，按计划时刻补发（开环），延迟从计划时刻起算
+            long scheduledAt = intended;
+            long sentAt = System.nanoTime();
+            HttpRequest request = HttpRequest.newBuilder(endpoint)
+                    .timeout(timeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(workload.next(random, nextId++), StandardCharsets.UTF_8))
+                    .build();
+            inflight.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+                    .handle((response, error) -> {
+                        long now = System.nanoTime();
+                        corrected.recordValue(Math.min(HIGHEST_TRACKABLE_US, (now - scheduledAt) / 1000));
+                        service.recordValue(Math.min(HIGHEST_TRACKABLE_US, (now - sentAt) / 1000));
+                        String failure = classify(response, error);
+                        if (failure == null) {
+                            ok.increment();
+                        } else {
+                            errors.computeIfAbsent(failure, k -> new LongAdder()).increment();
+                        }
+                        return null;
+                    }));
+            intended += poisson ? (long) (-Math.log(1 - random.nextDouble()) * intervalNs) : intervalNs;
+        }
+        // 吞吐按发送窗口计算：本阶梯发出的请求（计划时刻都在窗口内）中成功的个数 / 窗口时长，
+        // 不计入等待收尾的时间（否则高延迟下每个阶梯的吞吐都会被低估）
+        double sendSeconds = (System.nanoTime() - start) / 1e9;
+
+        try {
+            CompletableFuture.allOf(inflight.toArray(CompletableFuture[]::new))
+                    .get(timeout.toMillis() + 5_000, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            long pending = inflight.stream().filter(f -> !f.isDone()).count();
+            errors.computeIfAbsent("undrained", k -> new LongAdder()).add(pending);
+        }
+
+        Map<String, Long> errorCounts = new TreeMap<>();
+        errors.forEach((reason, count) -> errorCounts.put(reason, count.sum()));
+        return new StepResult(rps, ok.sum() / sendSeconds, inflight.size(), ok.sum(), errorCounts,
+                corrected, service, sampler.snapshotAndReset());
+    }
+
+    /**
+     * 失败原因：准入卸载（503）、其他非 200、超时、连接异常，或接口兜底返回的“系统繁忙”；成功返回 null
+     */
+    private String classify(HttpResponse<String> response, Throwable error) {
+        if (error != null) {
+            Throwable cause = error.getCause() == null ? error : error.getCause();
+            return cause instanceof HttpTimeoutException ? "timeout" : "io";
+        }
+        if (response.statusCode() == 503) {
+            return "shed";
+        }
+        if (response.statusCode() != 200) {
+            return "http" + response.statusCode();
+        }
+        try {
+            var answer = JsonParser.parseString(response.body()).getAsJsonObject().get("answer");
+            if (answer != null && !answer.isJsonNull() && answer.getAsString().startsWith(BUSY_ANSWER_PREFIX)) {
+                return "busy";
+            }
+        } catch (RuntimeException e) {
+            return "malformed";
+        }
+        return null;
+    }
+
+    private boolean isSaturated(StepResult result, long sloP99Ms, double maxErrorRate) {
+        return result.errorRate() > maxErrorRate
+                || result.corrected().getValueAtPercentile(99) / 1000 > sloP99Ms
+                || result.achievedRps() < result.targetRps() * 0.9;
+    }
+
+    private void printStep(StepResult result) {
+        Histogram h = result.corrected();
+        System.out.printf("%6.1f rps → 吞吐 %6.2f/s，成功 %d/%d，错误 %s | 校正延迟(ms) p50=%d p90=%d p99=%d p99.9=%d max=%d | 服务时间 p99=%dms | %s%n",
+                result.targetRps(), result.achievedRps(), result.ok(), result.sent(), result.errors(),
+                ms(h, 50), ms(h, 90), ms(h, 99), ms(h, 99.9), h.getMaxValue() / 1000,
+                ms(result.service(), 99), formatMetrics(result.metrics()));
+        Double answerHits = result.metrics().get("answer.hit");
+        if (answerHits != null && answerHits > 0) {
+            System.out.printf("  注意：本阶梯 %.0f 个请求命中答案库，未经过完整流水线（被测服务以 --answer.store.enabled=false 启动可排除）%n",
+                    answerHits);
+        }
+    }
+
+    /**
+     * 汇总：饱和点取最后一个达标阶梯；对比饱和阶梯与其前一阶梯，列出明显上升的服务端指标
+     * （等待、拒绝类指标出现非零即列出），作为瓶颈线索
+     */
+    private void printReport(List<StepResult> results, StepResult saturated, List<ActuatorMetricsSampler.Probe> probes) {
+        System.out.println();
+        System.out.println("========== 压测报告 ==========");
+        System.out.printf("%8s %9s %8s %8s %8s %8s %8s %8s%n", "目标rps", "吞吐/s", "错误率", "p50", "p90", "p99", "p99.9", "服务p99");
+        for (StepResult r : results) {
+            System.out.printf("%8.1f %9.2f %7.2f%% %8d %8d %8d %8d %8d%n", r.targetRps(), r.achievedRps(), r.errorRate() * 100,
+                    ms(r.corrected(), 50), ms(r.corrected(), 90), ms(r.corrected(), 99), ms(r.corrected(), 99.9),
+                    ms(r.service(), 99));
+        }
+
+        if (saturated == null) {
+            System.out.printf("未达到饱和：最高阶梯 %.1f rps 仍满足 SLO，可提高 --max-rps 继续%n",
+                    results.isEmpty() ? 0 : results.get(results.size() - 1).targetRps());
+            return;
+        }
+        int index = results.indexOf(saturated);
+        StepResult lastGood = index > 0 ? results.get(index - 1) : null;
+        System.out.printf("饱和点：%s（%.1f rps 时超出 SLO：错误率 %.2f%%，p99 %dms，吞吐 %.2f/s）%n",
+                lastGood == null ? "低于起始到达率" : String.format("%.1f rps", lastGood.targetRps()),
+                saturated.targetRps(), saturated.errorRate() * 100, ms(saturated.corrected(), 99), saturated.achievedRps());
+
+        System.out.println("饱和阶梯的服务端指标（峰值 / 增量，括号内为前一阶梯）：");
+        for (ActuatorMetricsSampler.Probe probe : probes) {
+            Double now = saturated.metrics().get(probe.label());
+            if (now == null) {
+                continue;
+            }
+            Double before = lastGood == null ? null : lastGood.metrics().get(probe.label());
+            boolean queueing = probe.label().matches(".*(pending|rejected)") && now > 0;
+            boolean jumped = before != null && now > 0 && now >= before * 1.5 && now - before >= 1;
+            System.out.printf("  %-14s %10.2f (%s)%s%n", probe.label(), now,
+                    before == null ? "-" : String.format("%.2f", before),
+                    queueing || jumped ? "  ← 可能的瓶颈" : "");
+        }
+    }
+
+    private static String formatMetrics(Map<String, Double> metrics) {
+        StringBuilder builder = new StringBuilder();
+        metrics.forEach((label, value) -> builder.append(label).append('=')
+                .append(value == Math.rint(value) ? String.valueOf(value.longValue()) : String.format("%.2f", value)).append(' '));
+        return builder.toString().trim();
+    }
+
+    private static long ms(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000;
+    }
+
+    /**
+     * 输出 HdrHistogram 分位分布（.hgrm，单位毫秒），可用 HdrHistogram 绘图工具对比各阶梯
+     */
+    private static void writeHistogram(Path file, Histogram histogram) throws IOException {
+        try (PrintStream stream = new PrintStream(Files.newOutputStream(file), true, StandardCharsets.UTF_8)) {
+            histogram.outputPercentileDistribution(stream, 1000.0);
+        }
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+}
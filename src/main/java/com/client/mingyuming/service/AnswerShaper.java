@@ -0,0 +1,256 @@
+package com.client.mingyuming.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 工具结果本地整形：从 ChatService 格式化后的工具结果中取出问题所问的字段值（问答题），
+ * 或与 content 中的选项比对得出选项字母（选择题）；无法唯一确定时返回空，交由结果处理大模型
+ */
+@Slf4j
+@Service
+public class AnswerShaper {
+
+    // 格式化结果中的 字段=值（值截止到中文逗号/括号）
+    private static final Pattern FIELD = Pattern.compile("([\\u4e00-\\u9fa5A-Za-z]+)=([^，,（(]+)");
+    private static final Pattern CALC_RESULT = Pattern.compile("计算结果：\\s*(\\S+)");
+    private static final Pattern CURRENT_DATE = Pattern.compile("当前系统日期（东八区）：\\s*(\\S+)");
+    private static final Pattern EXCHANGE = Pattern.compile("=\\s*([\\d.]+)[A-Z]{3}（汇率：([\\d.]+)）");
+    private static final Pattern ASSET_COUNT = Pattern.compile("共(\\d+)个");
+    // 选项：行首或空白后的 A. / A、 / A： / A）
+    private static final Pattern OPTION = Pattern.compile("(?:^|\\s)([A-H])\\s*[.．、:：)）]");
+    private static final Pattern NUMBER = Pattern.compile("-?\\d+(?:\\.\\d+)?");
+    // 数值 + 单位/币种（如 15680.50CNY、286.80kWh（度））
+    private static final Pattern NUMBER_WITH_UNIT = Pattern.compile("^(-?\\d+(?:\\.\\d+)?)\\s*[A-Za-z\\u4e00-\\u9fa5³（）()]*$");
+
+    // 问题关键词 → 结果字段（按顺序匹配，同一问题命中多个不同字段视为歧义）
+    private static final List<Map.Entry<Pattern, String>> QUESTION_FIELDS = List.of(
+            Map.entry(Pattern.compile("能换|换成|兑换成|可兑换|兑换后|折合"), "兑换金额"),
+            Map.entry(Pattern.compile("汇率"), "汇率"),
+            Map.entry(Pattern.compile("截止|到期|最后还款|还款日"), "截止日期"),
+            Map.entry(Pattern.compile("过期"), "过期时间"),
+            Map.entry(Pattern.compile("状态|是否(已)?(还款|支付|缴费|缴纳)|还了吗|付了吗"), "状态"),
+            Map.entry(Pattern.compile("用量|用了多少|多少度|多少立方|多少方"), "用量"),
+            Map.entry(Pattern.compile("总金额|账单金额|应还|欠款|多少钱|金额|费用|花了多少|交了多少|缴了多少"), "金额"),
+            Map.entry(Pattern.compile("几张|几个|几套|多少张|多少个|多少套|数量"), "数量"),
+            Map.entry(Pattern.compile("支付订单ID|支付订单号|订单ID"), "订单ID"),
+            Map.entry(Pattern.compile("日期|几号|哪天"), "日期"),
+            Map.entry(Pattern.compile("等于|结果|多少"), "结果")
+    );
+
+    // 结果字段别名（不同工具的同义字段）
+    private static final Map<String, List<String>> FIELD_ALIASES = Map.of(
+            "金额", List.of("总金额", "金额"),
+            "日期", List.of("日期", "截止日期")
+    );
+
+    // 状态值 → 选项中可能出现的中文说法
+    private static final Map<String, List<String>> STATUS_TEXT = Map.of(
+            "unpaid", List.of("未支付", "未还款", "未缴费", "未缴纳", "待支付", "未付"),
+            "paid", List.of("已支付", "已还款", "已缴费", "已缴纳", "已付"),
+            "pending", List.of("待支付", "处理中", "未支付"),
+            "overdue", List.of("逾期", "已逾期")
+    );
+
+    @Value("${tool.answer-shaper.enabled:true}")
+    private boolean enabled;
+
+    private final MeterRegistry meterRegistry;
+
+    public AnswerShaper(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 本地整形
+     * @param category   题目类型（选择题/问答题）
+     * @param question   题目
+     * @param content    补充内容（选择题选项）
+     * @param toolResult ChatService 格式化后的工具结果
+     * @return 最终答案；歧义或无法识别时为空
+     */
+    public Optional<String> shape(String category, String question, String content, String toolResult) {
+        if (!enabled || toolResult == null || question == null) {
+            return Optional.empty();
+        }
+        Map<String, String> fields = parseFields(toolResult);
+        if (fields.isEmpty()) {
+            return miss("no_field");
+        }
+        String value = selectValue(question, fields);
+        // 选择题的干扰项常取自同一条记录的其他字段，确定不了所问字段时不能拿全部字段去比对
+        if (value == null) {
+            return miss("ambiguous_field");
+        }
+
+        if ("选择题".equals(category)) {
+            Map<String, String> options = parseOptions(content);
+            if (options.isEmpty()) {
+                return miss("no_option");
+            }
+            Set<String> letters = matchOptions(options, value);
+            if (letters.size() != 1) {
+                return miss("ambiguous_option");
+            }
+            return hit(letters.iterator().next());
+        }
+        return hit(bareValue(value));
+    }
+
+    private Optional<String> hit(String answer) {
+        meterRegistry.counter("tool.answer.shaper", "result", "hit").increment();
+        log.info("本地整形答案：{}", answer);
+        return Optional.of(answer);
+    }
+
+    private Optional<String> miss(String reason) {
+        meterRegistry.counter("tool.answer.shaper", "result", reason).increment();
+        return Optional.empty();
+    }
+
+    /**
+     * 解析格式化结果中的字段
+     */
+    Map<String, String> parseFields(String toolResult) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        Matcher matcher = FIELD.matcher(toolResult);
+        while (matcher.find()) {
+            fields.put(matcher.group(1), matcher.group(2).trim());
+        }
+        matcher = CALC_RESULT.matcher(toolResult);
+        if (matcher.find()) {
+            fields.put("结果", matcher.group(1));
+        }
+        matcher = CURRENT_DATE.matcher(toolResult);
+        if (matcher.find()) {
+            fields.put("日期", matcher.group(1));
+        }
+        matcher = EXCHANGE.matcher(toolResult);
+        if (matcher.find()) {
+            fields.put("兑换金额", matcher.group(1));
+            fields.put("汇率", matcher.group(2));
+        }
+        matcher = ASSET_COUNT.matcher(toolResult);
+        if (matcher.find()) {
+            fields.put("数量", matcher.group(1));
+        }
+        return fields;
+    }
+
+    /**
+     * 按问题关键词选择字段：只有一个可用字段时直接取用；命中多个不同字段视为歧义
+     */
+    String selectValue(String question, Map<String, String> fields) {
+        if (fields.size() == 1) {
+            return fields.values().iterator().next();
+        }
+        Set<String> values = new LinkedHashSet<>();
+        Set<String> matchedFields = new LinkedHashSet<>();
+        for (Map.Entry<Pattern, String> rule : QUESTION_FIELDS) {
+            if (!rule.getKey().matcher(question).find()) {
+                continue;
+            }
+            for (String field : FIELD_ALIASES.getOrDefault(rule.getValue(), List.of(rule.getValue()))) {
+                String value = fields.get(field);
+                if (value != null) {
+                    matchedFields.add(rule.getValue());
+                    values.add(value);
+                    break;
+                }
+            }
+            // “兑换金额”比泛化的“汇率”“结果”更具体，命中即停止
+            if (!matchedFields.isEmpty() && "兑换金额".equals(rule.getValue())) {
+                break;
+            }
+        }
+        // 泛化的“结果/多少”只在没有其他字段命中时使用
+        if (matchedFields.size() > 1 && matchedFields.remove("结果")) {
+            values.remove(fields.get("结果"));
+        }
+        return values.size() == 1 ? values.iterator().next() : null;
+    }
+
+    /**
+     * 解析选项：{"A": "选项内容", ...}
+     */
+    Map<String, String> parseOptions(String content) {
+        Map<String, String> options = new LinkedHashMap<>();
+        if (content == null) {
+            return options;
+        }
+        Matcher matcher = OPTION.matcher(content);
+        List<int[]> marks = new ArrayList<>();
+        List<String> letters = new ArrayList<>();
+        while (matcher.find()) {
+            marks.add(new int[]{matcher.start(1), matcher.end()});
+            letters.add(matcher.group(1));
+        }
+        for (int i = 0; i < marks.size(); i++) {
+            int end = i + 1 < marks.size() ? marks.get(i + 1)[0] : content.length();
+            options.putIfAbsent(letters.get(i), content.substring(marks.get(i)[1], end).trim());
+        }
+        return options;
+    }
+
+    private Set<String> matchOptions(Map<String, String> options, String value) {
+        Set<String> letters = new LinkedHashSet<>();
+        options.forEach((letter, text) -> {
+            if (optionMatches(text, value)) {
+                letters.add(letter);
+            }
+        });
+        return letters;
+    }
+
+    /**
+     * 选项与结果值比对：数值按大小相等比较（容差 0.005），否则按文本包含（含状态值的中文说法）
+     */
+    private boolean optionMatches(String option, String value) {
+        String bare = bareValue(value);
+        BigDecimal number = toNumber(bare);
+        if (number != null) {
+            Matcher matcher = NUMBER.matcher(option.replace(",", ""));
+            while (matcher.find()) {
+                if (new BigDecimal(matcher.group()).subtract(number).abs().compareTo(new BigDecimal("0.005")) <= 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        String lowerOption = option.toLowerCase();
+        if (lowerOption.contains(bare.toLowerCase())) {
+            return true;
+        }
+        return STATUS_TEXT.getOrDefault(bare.toLowerCase(), List.of()).stream().anyMatch(option::contains);
+    }
+
+    /**
+     * 去掉数值后的单位/币种（如 15680.50CNY → 15680.50）；非数值原样返回
+     */
+    private String bareValue(String value) {
+        String trimmed = value.trim();
+        Matcher matcher = NUMBER_WITH_UNIT.matcher(trimmed);
+        return matcher.matches() ? matcher.group(1) : trimmed;
+    }
+
+    private BigDecimal toNumber(String value) {
+        try {
+            return value.matches("-?\\d+(\\.\\d+)?") ? new BigDecimal(value) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.client.mingyuming.service;
+
+import com.client.mingyuming.config.AnswerStoreProperties;
+import com.client.mingyuming.dto.ExamRequestDTO;
+import com.client.mingyuming.util.MappedLogStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * 最终答案持久化存储：按（试卷类型、题目类型、归一化后的问题、补充内容）保存 /api/exam 的最终答案，
+ * 重复出现的题目在调用任何上游前直接返回；存储为追加日志 + 内存映射索引（MappedLogStore），重启后无需预热。
+ * 只保存全流程成功的答案（由调用方按 RequestOutcome 判断），兜底答案与随日期/实时数据变化的题目不写入；
+ * 值带保存时间，超过有效期按未命中处理
+ */
+@Slf4j
+@Service
+public class AnswerStore {
+
+    private static final char SEPARATOR = '\u0001';
+    // 已保存的值：保存时间（毫秒时间戳）+ VALUE_SEPARATOR + 答案
+    private static final char VALUE_SEPARATOR = '\u0002';
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern TRAILING_PUNCTUATION = Pattern.compile("[?？。.!！]+$");
+
+    private final AnswerStoreProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Pattern skipAnswer;
+    private final Pattern volatileQuestion;
+    private volatile MappedLogStore store;
+
+    public AnswerStore(AnswerStoreProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.skipAnswer = Pattern.compile(properties.getSkipAnswerPattern(), Pattern.DOTALL);
+        this.volatileQuestion = Pattern.compile(properties.getVolatileQuestionPattern());
+    }
+
+    @PostConstruct
+    public void open() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            store = MappedLogStore.open(Path.of(properties.getDir()), "answers");
+            log.info("答案库已加载：{} 条，日志 {} 字节，耗时 {}ms", store.size(), store.logBytes(), System.currentTimeMillis() - start);
+            Gauge.builder("answer.store.size", store, MappedLogStore::size).register(meterRegistry);
+            Gauge.builder("answer.store.log.bytes", store, MappedLogStore::logBytes).baseUnit("bytes").register(meterRegistry);
+            Gauge.builder("answer.store.live.bytes", store, MappedLogStore::liveBytes).baseUnit("bytes").register(meterRegistry);
+        } catch (IOException | RuntimeException e) {
+            log.error("答案库加载失败，本次运行不使用答案库：{}", properties.getDir(), e);
+            store = null;
+        }
+    }
+
+    /**
+     * 查询已保存的答案
+     * @return 未命中、未启用或题目随日期变化时为空
+     */
+    public Optional<String> lookup(ExamRequestDTO request) {
+        MappedLogStore current = store;
+        if (current == null || isVolatile(request)) {
+            return Optional.empty();
+        }
+        try {
+            String value = current.get(key(request));
+            if (value == null) {
+                record("miss");
+                return Optional.empty();
+            }
+            String answer = unwrap(value, System.currentTimeMillis());
+            record(answer == null ? "expired" : "hit");
+            return Optional.ofNullable(answer);
+        } catch (IOException e) {
+            log.warn("答案库读取失败：{}", e.getMessage());
+            record("error");
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 保存最终答案（兜底答案、空答案及随日期变化的题目跳过），在下一次批量 fsync 时落盘；
+     * 调用方须先确认本次请求未以失败/兜底内容作答（RequestOutcome）
+     */
+    public void save(ExamRequestDTO request, String answer) {
+        MappedLogStore current = store;
+        if (current == null || answer == null || answer.isBlank() || isVolatile(request)
+                || skipAnswer.matcher(answer.trim()).matches()) {
+            return;
+        }
+        try {
+            current.put(key(request), System.currentTimeMillis() + String.valueOf(VALUE_SEPARATOR) + answer);
+        } catch (IOException | RuntimeException e) {
+            log.warn("答案库写入失败：{}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${answer.store.fsync-interval-ms:200}")
+    public void flush() {
+        MappedLogStore current = store;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.sync();
+        } catch (IOException e) {
+            log.warn("答案库落盘失败：{}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${answer.store.compact-interval-ms:60000}")
+    public void compact() {
+        MappedLogStore current = store;
+        if (current == null) {
+            return;
+        }
+        try {
+            if (current.compactIfNeeded(properties.getCompactMinBytes(), properties.getCompactGarbageRatio())) {
+                Counter.builder("answer.store.compactions").register(meterRegistry).increment();
+            }
+        } catch (IOException e) {
+            log.error("答案库压缩失败", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        MappedLogStore current = store;
+        store = null;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.close();
+        } catch (IOException e) {
+            log.warn("答案库关闭失败：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 取出未过期的答案：过期或无保存时间（旧格式）且启用有效期时返回 null
+     */
+    String unwrap(String value, long now) {
+        int separator = value.indexOf(VALUE_SEPARATOR);
+        long savedAt = -1;
+        if (separator > 0) {
+            try {
+                savedAt = Long.parseLong(value.substring(0, separator));
+            } catch (NumberFormatException e) {
+                separator = -1;
+            }
+        }
+        String answer = separator > 0 ? value.substring(separator + 1) : value;
+        long ttlMs = properties.getTtlMs();
+        if (ttlMs > 0 && (savedAt < 0 || now - savedAt > ttlMs)) {
+            return null;
+        }
+        return answer;
+    }
+
+    private boolean isVolatile(ExamRequestDTO request) {
+        String text = (request.getQuestion() == null ? "" : request.getQuestion())
+                + (request.getContent() == null ? "" : request.getContent());
+        return volatileQuestion.matcher(text).find();
+    }
+
+    /**
+     * 存储键：试卷类型 + 题目类型 + 归一化问题 + 归一化补充内容（试题编号不参与，同一题目跨场次复用）
+     */
+    static String key(ExamRequestDTO request) {
+        return String.valueOf(request.getPaper()) + SEPARATOR + request.getCategory() + SEPARATOR
+                + normalize(request.getQuestion()) + SEPARATOR + normalize(request.getContent());
+    }
+
+    /**
+     * 归一化：全角转半角（NFKC）、去除空白、英文小写、去掉末尾标点
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC);
+        normalized = WHITESPACE.matcher(normalized).replaceAll("").toLowerCase();
+        return TRAILING_PUNCTUATION.matcher(normalized).replaceAll("");
+    }
+
+    private void record(String result) {
+        Counter.builder("answer.store.requests").tag("result", result).register(meterRegistry).increment();
+    }
+}
@@ -1,6 +1,11 @@
 package com.client.mingyuming.service;
 
 import com.client.mingyuming.util.LlmHttpUtil;
+import com.client.mingyuming.util.PipelineEvents;
+import com.client.mingyuming.util.RequestDeadline;
+import com.client.mingyuming.util.RequestOutcome;
+import com.client.mingyuming.util.ToolCallGraph;
+import com.client.mingyuming.util.UpstreamGuard;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonSyntaxException;
@@ -11,6 +16,7 @@ import org.springframework.ai.mcp.SyncMcpToolCallbackProvider;
 import org.springframework.ai.tool.ToolCallback;
 import org.springframework.ai.tool.ToolCallbackProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
@@ -20,12 +26,20 @@ import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -75,6 +89,10 @@ public class ChatService {
     private String sqlSessionId;
     @Value("${llm.sql-generate.authorization}")
     private String sqlAuth;
+    @Value("${tool.parallel.max-calls:4}")
+    private int maxToolCalls;
+    @Value("${sql.schema.max-regenerate:1}")
+    private int sqlMaxRegenerate;
     @Value("${llm.data-query.base-url}")
     private String dataQueryBaseUrl;
     @Value("${llm.data-query.chat-id}")
@@ -104,11 +122,24 @@ public class ChatService {
     @Autowired
     private MysqlQueryService mysqlQueryService;
     @Autowired
+    private SqlGuardService sqlGuardService;
+    @Autowired
+    private SchemaCatalogService schemaCatalogService;
+    @Autowired
     private LlmHttpUtil llmHttpUtil;
     @Autowired
+    private UpstreamGuard upstreamGuard;
+    @Autowired
     private ToolService toolService;
     @Autowired
+    private ToolResponseCache toolResponseCache;
+    @Autowired
+    private DataQueryPathSelector dataQueryPathSelector;
+    @Autowired
     private ExecutorService executorService; // 注入全局线程池
+    @Autowired
+    @Qualifier("toolCallExecutor")
+    private ExecutorService toolCallExecutor; // 多工具并行调用线程池（有界）
     private final RestTemplate restTemplate;
     @Getter
     private final ToolCallback[] toolCallbacks;
@@ -128,56 +159,78 @@ public class ChatService {
      * 调用工具 API（原工具调用入口）
      */
     public String callToolApi(String toolJson) {
+        PipelineEvents.ToolDispatch event = new PipelineEvents.ToolDispatch();
+        event.begin();
+        event.input(toolJson);
         try {
             Map<String, Object> toolData = parseToolParams(toolJson);
             String toolName = (String) toolData.get("toolName");
-
-            if ("none".equals(toolName)) {
-                return (String) toolData.getOrDefault("message", "非工具调用类问题");
-            }
-
-            // 本地工具处理
-            if (CURRENT_DATE_TOOL.equals(toolName)) {
-                return "当前系统日期（东八区）：" + toolService.getCurrentDate();
-            }
-            if (CALCULATOR_TOOL.equals(toolName)) {
-                String expression = (String) toolData.get("expression");
-                return "计算结果：" + toolService.calculate(expression);
-            }
-
-            // API工具处理
-            if (!TOOL_API_MAP.containsKey(toolName)) {
-                throw new IllegalArgumentException("不支持的工具：" + toolName);
-            }
-            toolData.remove("toolName");
-            if (toolData.isEmpty()) {
-                throw new IllegalArgumentException(PARAM_ERROR_MSG + "：工具参数为空");
-            }
-
-            String apiPath = TOOL_API_MAP.get(toolName);
-            String apiUrl = teamApiBaseUrl + apiPath;
-            return callGetApi(apiUrl, toolData, teamAppId, teamAppKey);
+            event.toolName = toolName;
+            String result = invokeToolApi(toolName, toolData);
+            event.finish(toolOutcome(result), result);
+            return result;
 
         } catch (JsonSyntaxException e) {
+            event.fail(e);
             log.error("JSON解析失败：{}", toolJson, e);
+            RequestOutcome.fail("工具指令JSON无效");
             return PARAM_ERROR_MSG + "：JSON格式无效";
         } catch (HttpClientErrorException e) {
+            event.fail(e);
             log.error("工具API调用错误：{}", e.getStatusCode(), e);
+            RequestOutcome.fail("工具API " + e.getStatusCode());
             return e.getStatusCode().is4xxClientError()
                     ? (e.getMessage().contains("鉴权") ? AUTH_ERROR_MSG : PARAM_ERROR_MSG)
                     : API_ERROR_MSG;
         } catch (Exception e) {
+            event.fail(e);
             log.error("工具调用异常", e);
+            RequestOutcome.fail("工具调用异常");
             return e.getMessage().contains("超时") ? API_TIMEOUT_MSG : SYSTEM_ERROR_MSG;
         }
     }
 
     /**
-     * 根据大模型决策执行工具（HARD难度入口）
+     * 按工具指令执行单个工具（本地工具直接计算，API 工具调用团队接口）
+     */
+    private String invokeToolApi(String toolName, Map<String, Object> toolData) {
+        if ("none".equals(toolName)) {
+            return (String) toolData.getOrDefault("message", "非工具调用类问题");
+        }
+
+        // 本地工具处理
+        if (CURRENT_DATE_TOOL.equals(toolName)) {
+            return "当前系统日期（东八区）：" + toolService.getCurrentDate();
+        }
+        if (CALCULATOR_TOOL.equals(toolName)) {
+            String expression = (String) toolData.get("expression");
+            return "计算结果：" + toolService.calculate(expression);
+        }
+
+        // API工具处理
+        if (!TOOL_API_MAP.containsKey(toolName)) {
+            throw new IllegalArgumentException("不支持的工具：" + toolName);
+        }
+        toolData.remove("toolName");
+        if (toolData.isEmpty()) {
+            throw new IllegalArgumentException(PARAM_ERROR_MSG + "：工具参数为空");
+        }
+
+        String apiPath = TOOL_API_MAP.get(toolName);
+        String apiUrl = teamApiBaseUrl + apiPath;
+        return callGetApi(toolName, apiUrl, toolData, teamAppId, teamAppKey);
+    }
+
+    /**
+     * 根据大模型决策执行工具（HARD难度入口）：单个 toolName，或带依赖关系的 toolCalls 列表
      */
     public String executeToolByDecision(String toolDecisionJson, String question, String content) {
         try {
-            Map<String, Object> decision = parseToolParams(toolDecisionJson);
+            Map<String, Object> decision = gson.fromJson(toolDecisionJson, Map.class);
+            if (decision != null && decision.get("toolCalls") instanceof List<?> toolCalls) {
+                return executeToolCalls(toolCalls, question, content);
+            }
+            decision = parseToolParams(toolDecisionJson);
             String toolName = (String) decision.get("toolName");
 
             if ("none".equals(toolName)) {//TODO
@@ -185,35 +238,149 @@ public class ChatService {
             }
 
             // 执行对应工具
-            switch (toolName) {
-                case DATA_QUERY_TOOL:
-                    return executeDataQueryTool(question, content);
-                case KNOWLEDGE_QA_TOOL:
-                    return executeKnowledgeQaTool(question);
-                case CURRENT_DATE_TOOL:
-                    return "当前系统日期（东八区）：" + toolService.getCurrentDate();
-                case CALCULATOR_TOOL:
-                    Map<String, Object> calcParams = (Map<String, Object>) decision.get("parameters");
-                    String expression = (String) calcParams.get("expression");
-                    return "计算结果：" + toolService.calculate(expression);
-                case "credit-card-tool":
-                case "exchange-rate-tool":
-                case "utility-bill-tool":
-                case "user-asset-tool":
-                case "payment-order-tool":
-                    return callApiTool(toolName, (Map<String, Object>) decision.get("parameters"));
-                default:
-                    throw new IllegalArgumentException("不支持的工具：" + toolName);
-            }
+            return runTool(toolName, (Map<String, Object>) decision.get("parameters"), question, content).text();
         } catch (JsonSyntaxException e) {
             log.error("决策JSON解析失败：{}", toolDecisionJson, e);
+            RequestOutcome.fail("决策JSON无效");
             return PARAM_ERROR_MSG + "：决策JSON格式无效";
         } catch (Exception e) {
             log.error("工具执行异常", e);
+            RequestOutcome.fail("工具执行异常");
             return SYSTEM_ERROR_MSG + "：" + e.getMessage();
         }
     }
 
+    /**
+     * 单个工具的执行结果
+     * @param text   格式化后的结果文本
+     * @param fields 结构化字段（API 工具为原始响应），供后续调用以 ${id.field} 引用
+     */
+    public record ToolOutput(String text, Map<String, Object> fields) {
+    }
+
+    /**
+     * 执行单个工具
+     */
+    private ToolOutput runTool(String toolName, Map<String, Object> parameters, String question, String content) {
+        PipelineEvents.ToolDispatch event = new PipelineEvents.ToolDispatch();
+        event.begin();
+        event.toolName = toolName;
+        if (event.isEnabled()) {
+            event.input(parameters == null ? question : parameters.toString());
+        }
+        try {
+            ToolOutput output = dispatchTool(toolName, parameters, question, content);
+            event.finish(toolOutcome(output.text()), output.text());
+            return output;
+        } catch (RuntimeException e) {
+            event.fail(e);
+            throw e;
+        }
+    }
+
+    /**
+     * 工具结果归类：失败提示或兜底内容记为 fallback
+     */
+    private static String toolOutcome(String text) {
+        return DataQueryPathSelector.failed(text) || text.contains(PARAM_ERROR_MSG) || text.contains(SYSTEM_ERROR_MSG)
+                ? PipelineEvents.FALLBACK : PipelineEvents.SUCCESS;
+    }
+
+    private ToolOutput dispatchTool(String toolName, Map<String, Object> parameters, String question, String content) {
+        switch (toolName) {
+            case DATA_QUERY_TOOL: {
+                String answer = executeDataQueryTool(question, content);
+                return new ToolOutput(answer, Map.of("answer", answer));
+            }
+            case KNOWLEDGE_QA_TOOL: {
+                String answer = executeKnowledgeQaTool(question);
+                return new ToolOutput(answer, Map.of("answer", answer));
+            }
+            case CURRENT_DATE_TOOL: {
+                String date = toolService.getCurrentDate();
+                return new ToolOutput("当前系统日期（东八区）：" + date, Map.of("date", date));
+            }
+            case CALCULATOR_TOOL: {
+                Object expression = parameters == null ? null : parameters.get("expression");
+                String result = toolService.calculate(expression == null ? null : expression.toString());
+                return new ToolOutput("计算结果：" + result, Map.of("result", result));
+            }
+            case "credit-card-tool":
+            case "exchange-rate-tool":
+            case "utility-bill-tool":
+            case "user-asset-tool":
+            case "payment-order-tool": {
+                Map<String, Object> response = callApiTool(toolName, parameters);
+                return new ToolOutput(formatResponse(response), response == null ? Map.of() : response);
+            }
+            default:
+                throw new IllegalArgumentException("不支持的工具：" + toolName);
+        }
+    }
+
+    /**
+     * 多工具执行：按依赖图调度，无依赖的调用在工具线程池并发执行，依赖就绪后立即执行后续调用；
+     * 依赖失败的调用跳过，全部完成后合并为一份结果
+     */
+    private String executeToolCalls(List<?> toolCalls, String question, String content) throws Exception {
+        List<ToolCallGraph.Node> nodes = ToolCallGraph.parse(toolCalls, maxToolCalls);
+        log.info("多工具调用：{}", nodes);
+
+        Map<String, Map<String, Object>> results = new ConcurrentHashMap<>();
+        Map<String, CompletableFuture<ToolOutput>> futures = new LinkedHashMap<>();
+        for (ToolCallGraph.Node node : nodes) {
+            // 拓扑序保证依赖的 future 已创建
+            CompletableFuture<?>[] deps = node.dependsOn().stream().map(futures::get).toArray(CompletableFuture[]::new);
+            Callable<ToolOutput> task = RequestDeadline.wrap(() -> {
+                Map<String, Object> params = ToolCallGraph.resolve(node.parameters(), results);
+                ToolOutput output = runTool(node.toolName(), params, question, content);
+                results.put(node.id(), output.fields());
+                return output;
+            });
+            futures.put(node.id(), CompletableFuture.allOf(deps).thenApplyAsync(ignored -> {
+                try {
+                    return task.call();
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, toolCallExecutor));
+        }
+
+        long timeoutMs = Math.max(1, Math.min(30_000, RequestDeadline.remainingMillis()));
+        try {
+            CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new)).get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            // 单个调用失败或超时不影响其他调用，结果中逐个说明
+        }
+
+        StringBuilder combined = new StringBuilder();
+        for (ToolCallGraph.Node node : nodes) {
+            CompletableFuture<ToolOutput> future = futures.get(node.id());
+            String text;
+            if (!future.isDone()) {
+                // CompletableFuture.cancel 不会中断执行中的调用，只让仍在等待依赖或排队的节点不再执行
+                future.cancel(false);
+                RequestOutcome.fail("工具调用 " + node.id() + " 超时");
+                text = API_TIMEOUT_MSG;
+            } else if (future.isCompletedExceptionally()) {
+                Throwable cause = future.handle((r, e) -> e).join();
+                while (cause instanceof CompletionException && cause.getCause() != null) {
+                    cause = cause.getCause();
+                }
+                log.warn("工具调用 {}（{}）失败：{}", node.id(), node.toolName(), cause.getMessage());
+                RequestOutcome.fail("工具调用 " + node.id() + " 失败");
+                text = SYSTEM_ERROR_MSG + "：" + cause.getMessage();
+            } else {
+                text = future.join().text();
+            }
+            if (!combined.isEmpty()) {
+                combined.append('\n');
+            }
+            combined.append('[').append(node.id()).append("] ").append(text);
+        }
+        return combined.toString();
+    }
+
     /**
      * 数据查询工具实现（复用大模型调用和线程池）
      */
@@ -225,26 +392,29 @@ public class ChatService {
             // 路径1：生成SQL并执行
             AtomicReference<String> executeSql = new AtomicReference<>("");
             Callable<String> sqlLocalTask = () -> {
-                String sql = llmHttpUtil.call(
-                        "SQL生成大模型",
-                        sqlBaseUrl,
-                        sqlChatId,
-                        sqlSessionId,
-                        sqlAuth,
-                        userQuestion,
-                        trimmedAnswer -> {
-                            final String SQL_PREFIX = "```sql";
-                            final String SQL_SUFFIX = "```";
-                            int prefixEnd = trimmedAnswer.indexOf(SQL_PREFIX);
-                            int suffixStart = trimmedAnswer.indexOf(SQL_SUFFIX, prefixEnd + SQL_PREFIX.length());
-                            if (prefixEnd == -1 || suffixStart == -1) {
-                                throw new RuntimeException("SQL格式错误");
-                            }
-                            return trimmedAnswer.substring(prefixEnd + SQL_PREFIX.length(), suffixStart).trim();
-                        }
-                );
+                // 本地 Schema 校验：引用了不存在的表/字段时带上错误信息重新生成，不访问数据库
+                String sql = generateSql(userQuestion);
+                SchemaCatalogService.ValidationResult validation = schemaCatalogService.validate(sql);
+                for (int attempt = 0; !validation.valid() && attempt < sqlMaxRegenerate; attempt++) {
+                    log.info("生成SQL未通过Schema校验，重新生成（第{}次）：{}", attempt + 1, validation.errors());
+                    sql = generateSql(userQuestion + "\n注意：上次生成的SQL（" + sql + "）未通过校验："
+                            + String.join("；", validation.errors()) + "，请仅使用数据库中已存在的表和字段重新生成");
+                    validation = schemaCatalogService.validate(sql);
+                }
                 executeSql.set(sql);
-                return mysqlQueryService.executeQuery(sql);
+                if (!validation.valid()) {
+                    return "路径1执行失败：" + validation.message();
+                }
+                // 执行前防护：只读校验、LIMIT 封顶、EXPLAIN 代价评估
+                String guardedSql;
+                try {
+                    guardedSql = sqlGuardService.guard(sql);
+                } catch (IllegalArgumentException e) {
+                    log.warn("生成SQL被拦截：{}，原因：{}", sql, e.getMessage());
+                    return "路径1执行失败：" + e.getMessage();
+                }
+                executeSql.set(guardedSql);
+                return mysqlQueryService.executeQuery(guardedSql);
             };
 
             // 路径2：直接调用数据查询模型
@@ -258,21 +428,39 @@ public class ChatService {
                     trimmedAnswer -> trimmedAnswer
             );
 
-            // 并发执行
-            List<Future<String>> futures = executorService.invokeAll(
-                    Arrays.asList(sqlLocalTask, dataQueryModelTask),
-                    30, TimeUnit.SECONDS
-            );
-            String result1 = futures.get(0).get();
-            String result2 = futures.get(1).get();
-            log.info("双路径结果：result1={}, result2={}", result1, result2);
+            // 按问题形态的历史胜率选择执行方式：双路径并发，或只执行胜出路径（失败时回退另一路径）
+            DataQueryPathSelector.Plan plan = dataQueryPathSelector.choose(question);
+            String result1 = DataQueryPathSelector.NOT_RUN;
+            String result2 = DataQueryPathSelector.NOT_RUN;
+            if (plan.mode() == DataQueryPathSelector.Mode.BOTH) {
+                // 并发执行（传递请求截止时间，等待时长不超过剩余时间）
+                List<Future<String>> futures = executorService.invokeAll(
+                        Arrays.asList(RequestDeadline.wrap(sqlLocalTask), RequestDeadline.wrap(dataQueryModelTask)),
+                        Math.max(1, Math.min(30_000, RequestDeadline.remainingMillis())), TimeUnit.MILLISECONDS
+                );
+                result1 = pathResult("路径1", futures.get(0));
+                result2 = pathResult("路径2", futures.get(1));
+            } else if (plan.mode() == DataQueryPathSelector.Mode.SQL) {
+                result1 = runPath("路径1", sqlLocalTask);
+                if (DataQueryPathSelector.failed(result1)) {
+                    dataQueryPathSelector.recordSingleFailure(plan);
+                    result2 = runPath("路径2", dataQueryModelTask);
+                }
+            } else {
+                result2 = runPath("路径2", dataQueryModelTask);
+                if (DataQueryPathSelector.failed(result2)) {
+                    dataQueryPathSelector.recordSingleFailure(plan);
+                    result1 = runPath("路径1", sqlLocalTask);
+                }
+            }
+            log.info("数据查询结果（{}）：result1={}, result2={}", plan.mode(), result1, result2);
 
             // 整合结果
             String finalQuestion = String.format(
                     "用户问题：%s\n结果1：%s, 执行SQL：%s\n结果2：%s",
                     userQuestion, result1, executeSql.get(), result2
             );
-            return llmHttpUtil.call(
+            String finalAnswer = llmHttpUtil.call(
                     "数据比对拼接大模型",
                     finalResultBaseUrl,
                     finalResultChatId,
@@ -281,12 +469,72 @@ public class ChatService {
                     finalQuestion,
                     trimmedAnswer -> trimmedAnswer
             );
+            if (plan.mode() == DataQueryPathSelector.Mode.BOTH) {
+                dataQueryPathSelector.recordBoth(plan, result1, result2, finalAnswer);
+            }
+            // 单条路径失败不影响答案；两条都没有有效结果时答案只是对失败信息的拼接
+            if (DataQueryPathSelector.failed(result1) && DataQueryPathSelector.failed(result2)) {
+                RequestOutcome.fail("数据查询两条路径均失败");
+            }
+            return finalAnswer;
         } catch (Exception e) {
             log.error("数据查询工具异常", e);
+            RequestOutcome.fail("数据查询工具异常");
             return "数据查询工具执行失败：" + e.getMessage();
         }
     }
 
+    /**
+     * 在当前线程执行单条数据查询路径（截止时间已在当前线程上），异常转为该路径的失败结果
+     */
+    private String runPath(String pathName, Callable<String> task) {
+        try {
+            return task.call();
+        } catch (Exception e) {
+            log.warn("{}执行失败：{}", pathName, e.getMessage());
+            return pathName + "执行失败：" + e.getMessage();
+        }
+    }
+
+    /**
+     * 取并发执行的数据查询路径结果：超时被取消或执行异常转为该路径的失败结果，不影响另一路径
+     */
+    private String pathResult(String pathName, Future<String> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (CancellationException e) {
+            log.warn("{}执行超时，已取消", pathName);
+            return pathName + "执行失败：执行超时";
+        } catch (ExecutionException e) {
+            log.warn("{}执行失败：{}", pathName, e.getCause().getMessage());
+            return pathName + "执行失败：" + e.getCause().getMessage();
+        }
+    }
+
+    /**
+     * 调用SQL生成模型，提取```sql```代码块中的SQL
+     */
+    private String generateSql(String userQuestion) {
+        return llmHttpUtil.call(
+                "SQL生成大模型",
+                sqlBaseUrl,
+                sqlChatId,
+                sqlSessionId,
+                sqlAuth,
+                userQuestion,
+                trimmedAnswer -> {
+                    final String SQL_PREFIX = "```sql";
+                    final String SQL_SUFFIX = "```";
+                    int prefixEnd = trimmedAnswer.indexOf(SQL_PREFIX);
+                    int suffixStart = trimmedAnswer.indexOf(SQL_SUFFIX, prefixEnd + SQL_PREFIX.length());
+                    if (prefixEnd == -1 || suffixStart == -1) {
+                        throw new RuntimeException("SQL格式错误");
+                    }
+                    return trimmedAnswer.substring(prefixEnd + SQL_PREFIX.length(), suffixStart).trim();
+                }
+        );
+    }
+
     /**
      * 知识问答工具实现（复用大模型调用）
      */
@@ -312,12 +560,17 @@ public class ChatService {
                         question,
                         trimmedAnswer -> trimmedAnswer
                 );
-                return (secondAnswer == null || secondAnswer.contains("没找到答案")) ? "我没找到答案" : secondAnswer;
+                if (secondAnswer == null || secondAnswer.contains("没找到答案")) {
+                    RequestOutcome.fail("知识问答未找到答案");
+                    return "我没找到答案";
+                }
+                return secondAnswer;
             } else {
                 return firstAnswer;
             }
         } catch (Exception e) {
             log.error("知识问答工具异常：{}", question, e);
+            RequestOutcome.fail("知识问答工具异常");
             return "我没找到答案";
         }
     }
@@ -338,9 +591,9 @@ public class ChatService {
     }
 
     /**
-     * 调用API工具（复用）
+     * 调用API工具（复用），返回原始响应
      */
-    private String callApiTool(String toolName, Map<String, Object> parameters) {
+    private Map<String, Object> callApiTool(String toolName, Map<String, Object> parameters) {
         if (!TOOL_API_MAP.containsKey(toolName)) {
             throw new IllegalArgumentException("不支持的API工具：" + toolName);
         }
@@ -350,13 +603,27 @@ public class ChatService {
 
         String apiPath = TOOL_API_MAP.get(toolName);
         String apiUrl = teamApiBaseUrl + apiPath;
-        return callGetApi(apiUrl, parameters, teamAppId, teamAppKey);
+        return getApiResponse(toolName, apiUrl, parameters, teamAppId, teamAppKey);
     }
 
     /**
      * GET请求调用工具API（复用）
      */
-    private String callGetApi(String apiUrl, Map<String, Object> params, String appId, String appKey) {
+    private String callGetApi(String toolName, String apiUrl, Map<String, Object> params, String appId, String appKey) {
+        return formatResponse(getApiResponse(toolName, apiUrl, params, appId, appKey));
+    }
+
+    /**
+     * GET请求调用工具API，返回原始响应（幂等查询按工具配置的 TTL 缓存）
+     */
+    private Map<String, Object> getApiResponse(String toolName, String apiUrl, Map<String, Object> params,
+                                               String appId, String appKey) {
+        Optional<Map<String, Object>> cached = toolResponseCache.get(toolName, params);
+        if (cached.isPresent()) {
+            log.info("工具API缓存命中：{} {}", toolName, params);
+            return cached.get();
+        }
+
         HttpHeaders headers = new HttpHeaders();
         headers.set("X-App-Id", appId);
         headers.set("X-App-Key", appKey);
@@ -367,8 +634,14 @@ public class ChatService {
         String fullUrl = buildGetUrl(apiUrl, urlParams);
         log.info("调用工具API：{}", fullUrl);
 
-        Map<String, Object> response = restTemplate.getForObject(fullUrl, Map.class);
-        return formatResponse(response);
+        // 每个工具 API 独立熔断与并发限制
+        Map<String, Object> response = upstreamGuard.execute("tool:" + apiUrl.replace(teamApiBaseUrl, ""),
+                () -> restTemplate.getForObject(fullUrl, Map.class));
+        // 错误响应（含 error 或 code 字段）不缓存
+        if (response != null && !response.containsKey("error") && !response.containsKey("code")) {
+            toolResponseCache.put(toolName, params, response);
+        }
+        return response;
     }
 
     /**
@@ -388,6 +661,7 @@ public class ChatService {
      */
     private String formatResponse(Map<String, Object> response) {
         if (response == null) {
+            RequestOutcome.fail("工具API响应为空");
             return SYSTEM_ERROR_MSG;
         }
         if (response.containsKey("card_number")) {
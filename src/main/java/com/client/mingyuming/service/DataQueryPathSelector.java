@@ -0,0 +1,261 @@
+package com.client.mingyuming.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 数据查询双路径的自适应选择：按问题形态（聚合/排名/比较/编号/时间/业务领域等特征）统计两条路径
+ * （路径1 SQL 生成执行、路径2 数据查询模型）各自产出最终答案的胜率；某条路径的胜率置信下界达到阈值后
+ * 只执行该路径（失败时回退另一路径），并按探索率随机双路径执行以保持统计新鲜；统计按衰减系数逐步淡化旧结果
+ */
+@Slf4j
+@Service
+public class DataQueryPathSelector {
+
+    public static final String NOT_RUN = "未执行";
+
+    private static final Pattern NUMBER = Pattern.compile("-?\\d+(?:\\.\\d+)?");
+    private static final Pattern ID = Pattern.compile("\\d{6,}");
+    private static final Pattern DATE = Pattern.compile("\\d{4}\\s*[-年/]\\s*\\d{1,2}|\\d{1,2}\\s*月|季度|年度");
+    private static final Pattern AGGREGATE = Pattern.compile("多少|几|统计|总|合计|平均|数量|占比|比例");
+    private static final Pattern RANKING = Pattern.compile("最高|最低|最多|最少|最大|最小|排名|前\\s*\\d+|top", Pattern.CASE_INSENSITIVE);
+    private static final Pattern COMPARISON = Pattern.compile("大于|小于|超过|不足|以上|以下|高于|低于|之间");
+    private static final Pattern GROUPING = Pattern.compile("各|每个|每月|每年|分别|按.{1,6}(分组|统计)");
+
+    /**
+     * 本次执行计划
+     * @param shape  问题形态
+     * @param mode   执行方式
+     * @param reason learning（样本不足）/ uncertain（胜率不够确定）/ explore（探索）/ confident（只跑胜出路径）/ disabled
+     */
+    public record Plan(String shape, Mode mode, String reason) {
+    }
+
+    public enum Mode {
+        BOTH, SQL, MODEL
+    }
+
+    /**
+     * 单个形态的统计（衰减计数）：trials 为该路径被执行的次数，wins 为其结果被最终答案采纳的次数
+     */
+    private static final class ShapeStats {
+        private final double[] trials = new double[2];
+        private final double[] wins = new double[2];
+
+        /**
+         * 记录一次执行（旧统计先整体衰减一次）
+         * @param won 各路径是否被采纳，null 表示该路径本次未执行
+         */
+        synchronized void record(Boolean[] won, double decay) {
+            for (int i = 0; i < 2; i++) {
+                trials[i] *= decay;
+                wins[i] *= decay;
+                if (won[i] != null) {
+                    trials[i] += 1;
+                    wins[i] += won[i] ? 1 : 0;
+                }
+            }
+        }
+
+        synchronized double trials(int path) {
+            return trials[path];
+        }
+
+        synchronized double wins(int path) {
+            return wins[path];
+        }
+    }
+
+    @Value("${data-query.path.enabled:true}")
+    private boolean enabled;
+    // 每条路径至少执行这么多次（衰减后）才可能只跑单路径
+    @Value("${data-query.path.min-samples:10}")
+    private double minSamples;
+    // 胜率的 Wilson 置信下界达到该值才只跑单路径
+    @Value("${data-query.path.confidence:0.8}")
+    private double confidence;
+    // 已确定胜出路径时仍双路径执行的概率
+    @Value("${data-query.path.explore-rate:0.1}")
+    private double exploreRate;
+    // 每次记录时旧统计乘以该系数（0.98 约等于只看最近 50 次）
+    @Value("${data-query.path.decay:0.98}")
+    private double decay;
+    // 业务领域关键词（问题形态的一部分，通常对应所查的表）
+    @Value("${data-query.path.domain-keywords:信用卡,账单,还款,交易,消费,电费,水费,燃气,资产,存款,贷款,理财,订单,客户,用户,汇率}")
+    private List<String> domainKeywords;
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ShapeStats> stats = new ConcurrentHashMap<>();
+
+    public DataQueryPathSelector(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 选择本次执行方式
+     */
+    public Plan choose(String question) {
+        String shape = shape(question);
+        Plan plan;
+        if (!enabled) {
+            plan = new Plan(shape, Mode.BOTH, "disabled");
+        } else {
+            ShapeStats shapeStats = stats.computeIfAbsent(shape, k -> new ShapeStats());
+            int best = lowerBound(shapeStats, 0) >= lowerBound(shapeStats, 1) ? 0 : 1;
+            if (shapeStats.trials(best) < minSamples) {
+                plan = new Plan(shape, Mode.BOTH, "learning");
+            } else if (lowerBound(shapeStats, best) < confidence) {
+                plan = new Plan(shape, Mode.BOTH, "uncertain");
+            } else if (ThreadLocalRandom.current().nextDouble() < exploreRate) {
+                plan = new Plan(shape, Mode.BOTH, "explore");
+            } else {
+                plan = new Plan(shape, best == 0 ? Mode.SQL : Mode.MODEL, "confident");
+            }
+        }
+        Counter.builder("data.query.path.plan").tag("mode", plan.mode().name().toLowerCase()).tag("reason", plan.reason())
+                .register(meterRegistry).increment();
+        log.info("数据查询路径选择：形态={}，方式={}（{}）", shape, plan.mode(), plan.reason());
+        return plan;
+    }
+
+    /**
+     * 双路径执行后归因：结果失败的路径不得分；两条都有效时按与最终答案的吻合程度（数字重合、文本包含）判定，
+     * 吻合程度相同视为两者都可采纳
+     */
+    public void recordBoth(Plan plan, String result1, String result2, String finalAnswer) {
+        if (!enabled || failed(finalAnswer)) {
+            return;
+        }
+        boolean ok1 = !failed(result1);
+        boolean ok2 = !failed(result2);
+        boolean win1 = ok1;
+        boolean win2 = ok2;
+        if (ok1 && ok2) {
+            double score1 = agreement(result1, finalAnswer);
+            double score2 = agreement(result2, finalAnswer);
+            win1 = score1 >= score2;
+            win2 = score2 >= score1;
+        }
+        record(plan.shape(), new Boolean[]{win1, win2});
+        log.info("数据查询路径归因：形态={}，路径1{}，路径2{}", plan.shape(), win1 ? "采纳" : "未采纳", win2 ? "采纳" : "未采纳");
+    }
+
+    /**
+     * 单路径执行失败：计为该路径未被采纳（胜率下降，置信不足后恢复双路径）。
+     * 单路径成功不计入：没有另一路径作对照，成功不代表会被最终答案采纳，计为胜出会让已选路径自我强化
+     */
+    public void recordSingleFailure(Plan plan) {
+        if (enabled) {
+            record(plan.shape(), plan.mode() == Mode.SQL ? new Boolean[]{false, null} : new Boolean[]{null, false});
+        }
+    }
+
+    /**
+     * 路径结果或最终答案是否为失败/兜底内容
+     */
+    public static boolean failed(String result) {
+        if (result == null || result.isBlank()) {
+            return true;
+        }
+        String trimmed = result.trim();
+        return trimmed.startsWith("路径1执行失败") || trimmed.startsWith("路径2执行失败")
+                || trimmed.startsWith("数据查询工具执行失败") || trimmed.equals(NOT_RUN)
+                || trimmed.equals("无结果") || trimmed.equals("我没找到答案")
+                || trimmed.contains("调用失败") || trimmed.contains("快速失败");
+    }
+
+    /**
+     * 问题形态：命中的结构特征 + 首个命中的业务领域关键词
+     */
+    String shape(String question) {
+        String text = question == null ? "" : question;
+        StringJoiner shape = new StringJoiner("|");
+        if (AGGREGATE.matcher(text).find()) {
+            shape.add("agg");
+        }
+        if (RANKING.matcher(text).find()) {
+            shape.add("rank");
+        }
+        if (COMPARISON.matcher(text).find()) {
+            shape.add("cmp");
+        }
+        if (GROUPING.matcher(text).find()) {
+            shape.add("group");
+        }
+        if (ID.matcher(text).find()) {
+            shape.add("id");
+        }
+        if (DATE.matcher(text).find()) {
+            shape.add("date");
+        }
+        String domain = domainKeywords.stream().filter(text::contains).findFirst().orElse("other");
+        return domain + ":" + (shape.length() == 0 ? "plain" : shape.toString());
+    }
+
+    private void record(String shape, Boolean[] won) {
+        stats.computeIfAbsent(shape, k -> new ShapeStats()).record(won, decay);
+        for (int path = 0; path < 2; path++) {
+            if (won[path] != null) {
+                Counter.builder("data.query.path.outcome").tag("path", path == 0 ? "sql" : "model")
+                        .tag("result", won[path] ? "win" : "loss").register(meterRegistry).increment();
+            }
+        }
+    }
+
+    /**
+     * 胜率的 Wilson 置信下界（z=1.64，单侧 95%）
+     */
+    private static double lowerBound(ShapeStats shapeStats, int path) {
+        return lowerBound(shapeStats.wins(path), shapeStats.trials(path));
+    }
+
+    static double lowerBound(double wins, double n) {
+        if (n <= 0) {
+            return 0;
+        }
+        double p = wins / n;
+        double z = 1.64;
+        double z2 = z * z;
+        return (p + z2 / (2 * n) - z * Math.sqrt(p * (1 - p) / n + z2 / (4 * n * n))) / (1 + z2 / n);
+    }
+
+    /**
+     * 路径结果与最终答案的吻合程度：最终答案中的数字有多少出现在该结果中，加上文本包含关系
+     */
+    private static double agreement(String result, String finalAnswer) {
+        String normalizedResult = result.replaceAll("\\s+", "");
+        String normalizedAnswer = finalAnswer.replaceAll("\\s+", "");
+        double score = normalizedResult.contains(normalizedAnswer) || normalizedAnswer.contains(normalizedResult) ? 1 : 0;
+        Set<String> answerNumbers = numbers(finalAnswer);
+        if (!answerNumbers.isEmpty()) {
+            Set<String> resultNumbers = numbers(result);
+            score += (double) answerNumbers.stream().filter(resultNumbers::contains).count() / answerNumbers.size();
+        }
+        return score;
+    }
+
+    private static Set<String> numbers(String text) {
+        Set<String> numbers = new HashSet<>();
+        Matcher matcher = NUMBER.matcher(text);
+        while (matcher.find()) {
+            // 统一数字形式（100.00 与 100 视为相同）
+            String number = matcher.group();
+            numbers.add(number.contains(".") ? number.replaceAll("0+$", "").replaceAll("\\.$", "") : number);
+        }
+        return numbers;
+    }
+
+}
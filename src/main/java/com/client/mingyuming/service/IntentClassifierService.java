@@ -0,0 +1,326 @@
+package com.client.mingyuming.service;
+
+import com.client.mingyuming.util.IntentModel;
+import com.client.mingyuming.util.IntentModel.Prediction;
+import com.client.mingyuming.util.IntentModel.Sample;
+import com.client.mingyuming.util.KeywordTrie;
+import com.client.mingyuming.util.KeywordTrie.Match;
+import com.client.mingyuming.util.LlmHttpUtil;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * 意图识别：本地规则（关键词字典树 + 正则）与线性模型先行打分，置信度达到阈值直接返回，
+ * 否则再调用分类大模型；大模型的分类结果写入决策日志，作为线性模型的训练数据。
+ * 规则初始权重只用于训练起点，不直接短路：须先用决策日志训练出模型（并经 /api/intent/evaluate 核对）后本地识别才生效；
+ * 本地确定的题目按 audit-rate 抽样仍交给大模型，使决策日志也覆盖高置信度样本
+ */
+@Slf4j
+@Service
+public class IntentClassifierService {
+
+    public static final String KNOWLEDGE_QA = "knowledge_qa";
+    public static final String TOOL_CALL = "tool_call";
+    public static final String DATA_QUERY = "data_query";
+
+    // 关键词 → 类别及初始权重
+    private static final Map<String, Map<String, Double>> SEED_KEYWORDS = Map.of(
+            TOOL_CALL, Map.ofEntries(
+                    Map.entry("信用卡账单", 3.0), Map.entry("账单", 3.0), Map.entry("汇率", 3.5), Map.entry("兑换", 2.0),
+                    Map.entry("换算", 1.5), Map.entry("户号", 3.5), Map.entry("水费", 3.0), Map.entry("电费", 3.0),
+                    Map.entry("燃气费", 3.0), Map.entry("资产", 2.5), Map.entry("身份证", 2.0), Map.entry("支付订单", 3.5),
+                    Map.entry("商户号", 3.5), Map.entry("订单号", 3.0), Map.entry("当前日期", 3.5), Map.entry("今天几号", 3.5),
+                    Map.entry("今天是", 2.0), Map.entry("计算", 2.0), Map.entry("等于多少", 2.5), Map.entry("平方根", 3.0)),
+            DATA_QUERY, Map.ofEntries(
+                    Map.entry("统计", 2.0), Map.entry("交易金额", 2.5), Map.entry("交易笔数", 3.0), Map.entry("总金额", 2.0),
+                    Map.entry("平均", 1.5), Map.entry("最多", 1.5), Map.entry("最高", 1.5), Map.entry("最低", 1.5),
+                    Map.entry("排名", 2.0), Map.entry("占比", 2.0), Map.entry("多少笔", 3.0), Map.entry("数据库", 3.0),
+                    Map.entry("客户数", 2.5), Map.entry("商户数", 2.5), Map.entry("同比", 2.0), Map.entry("环比", 2.0),
+                    Map.entry("汇总", 2.0)),
+            KNOWLEDGE_QA, Map.ofEntries(
+                    Map.entry("是什么", 2.0), Map.entry("什么是", 2.0), Map.entry("定义", 2.0), Map.entry("含义", 2.0),
+                    Map.entry("规定", 2.0), Map.entry("属于", 1.5), Map.entry("哪些", 1.0), Map.entry("为什么", 2.0),
+                    Map.entry("如何", 1.5), Map.entry("概念", 2.0), Map.entry("区别", 2.0), Map.entry("原则", 2.0))
+    );
+
+    // 参数形态正则（均指向工具调用）
+    private static final Map<String, Pattern> PATTERNS = Map.of(
+            "card", Pattern.compile("(?<!\\d)\\d{16,19}(?!\\d)"),
+            "id_card", Pattern.compile("(?<![0-9A-Za-z])\\d{17}[0-9Xx](?![0-9A-Za-z])"),
+            "household", Pattern.compile("(?<![0-9A-Za-z])[A-Z]{2}\\d{6,}"),
+            "merchant", Pattern.compile("(?<![0-9A-Za-z])M\\d{4,}"),
+            "order", Pattern.compile("ORD\\d+"),
+            "currency", Pattern.compile("\\b(USD|CNY|EUR|JPY|GBP|KRW)\\b"),
+            "month", Pattern.compile("(?<!\\d)\\d{4}-(0[1-9]|1[0-2])(?!\\d)"),
+            "expression", Pattern.compile("\\d+(\\.\\d+)?\\s*[+\\-*/^×÷]\\s*\\(?\\d+")
+    );
+    private static final Map<String, Double> SEED_PATTERN_WEIGHTS = Map.of(
+            "card", 4.0, "id_card", 4.0, "household", 3.5, "merchant", 3.0,
+            "order", 3.0, "currency", 3.0, "month", 1.0, "expression", 2.5
+    );
+
+    @Value("${llm.classify.base-url}")
+    private String classifyBaseUrl;
+    @Value("${llm.classify.chat-id}")
+    private String classifyChatId;
+    @Value("${llm.classify.session-id}")
+    private String classifySessionId;
+    @Value("${llm.classify.authorization}")
+    private String classifyAuth;
+
+    @Value("${intent.local.enabled:false}")
+    private boolean localEnabled;
+    @Value("${intent.local.confidence-threshold:0.9}")
+    private double confidenceThreshold;
+    @Value("${intent.local.audit-rate:0.1}")
+    private double auditRate;
+    @Value("${intent.local.model-path:./data/intent-model.json}")
+    private String modelPath;
+    @Value("${intent.local.decision-log:./data/intent-decisions.jsonl}")
+    private String decisionLogPath;
+
+    private final LlmHttpUtil llmHttpUtil;
+    private final MeterRegistry meterRegistry;
+    private final Gson gson = new Gson();
+    private final KeywordTrie<String> keywordTrie = new KeywordTrie<>();
+
+    // 当前模型（训练后整体替换）
+    private volatile IntentModel model;
+    // 当前模型是否由决策日志训练得到（规则初始权重不参与短路）
+    private volatile boolean trained;
+
+    public IntentClassifierService(LlmHttpUtil llmHttpUtil, MeterRegistry meterRegistry) {
+        this.llmHttpUtil = llmHttpUtil;
+        this.meterRegistry = meterRegistry;
+        SEED_KEYWORDS.values().forEach(keywords -> keywords.keySet().forEach(k -> keywordTrie.put(k, k)));
+    }
+
+    /**
+     * 分类结果
+     * @param requestType knowledge_qa / tool_call / data_query
+     * @param confidence  本地打分置信度（大模型结果为 1）
+     * @param source      local / llm
+     */
+    public record IntentResult(String requestType, double confidence, String source) {
+    }
+
+    @PostConstruct
+    public void init() {
+        model = loadModel();
+    }
+
+    /**
+     * 意图识别入口：本地置信度达标直接返回（抽样部分仍交给大模型复核），否则调用分类大模型
+     */
+    public IntentResult classify(String question) {
+        Prediction local = confidentLocal(question);
+        if (local != null) {
+            if (ThreadLocalRandom.current().nextDouble() >= auditRate) {
+                log.info("本地意图识别：{}（置信度 {}）", local.label(), String.format("%.3f", local.confidence()));
+                meterRegistry.counter("intent.classify", "source", "local", "type", local.label()).increment();
+                return new IntentResult(local.label(), local.confidence(), "local");
+            }
+            // 抽样复核：以大模型结果为准，并进入决策日志
+            String type = classifyByLlm(question);
+            meterRegistry.counter("intent.local.audit", "result", type.equals(local.label()) ? "agree" : "disagree").increment();
+            meterRegistry.counter("intent.classify", "source", "llm", "type", type).increment();
+            return new IntentResult(type, 1.0, "llm");
+        }
+        String type = classifyByLlm(question);
+        meterRegistry.counter("intent.classify", "source", "llm", "type", type).increment();
+        return new IntentResult(type, 1.0, "llm");
+    }
+
+    /**
+     * 可直接采用的本地结果：需开启本地识别、已加载训练后的模型且置信度达到阈值，否则返回 null
+     */
+    Prediction confidentLocal(String question) {
+        if (!localEnabled || !trained) {
+            return null;
+        }
+        Prediction local = model.predict(extractFeatures(question));
+        return local.confidence() >= confidenceThreshold ? local : null;
+    }
+
+    /**
+     * 仅本地打分（评估用，不调用大模型）
+     */
+    public IntentResult classifyLocally(String question) {
+        Prediction local = model.predict(extractFeatures(question));
+        return new IntentResult(local.label(), local.confidence(), "local");
+    }
+
+    /**
+     * 调用分类大模型，并把结果追加到决策日志
+     */
+    public String classifyByLlm(String question) {
+        String type = llmHttpUtil.call(
+                "意图识别大模型",
+                classifyBaseUrl,
+                classifyChatId,
+                classifySessionId,
+                classifyAuth,
+                question,
+                trimmedAnswer -> {
+                    Map<String, String> answerJson = gson.fromJson(trimmedAnswer, new TypeToken<Map<String, String>>() {}.getType());
+                    String t = answerJson.getOrDefault("requestType", "").trim();
+                    return IntentModel.LABELS.contains(t) ? t : KNOWLEDGE_QA;
+                }
+        );
+        appendDecision(question, type);
+        return type;
+    }
+
+    public double getConfidenceThreshold() {
+        return confidenceThreshold;
+    }
+
+    public boolean isTrained() {
+        return trained;
+    }
+
+    /**
+     * 用决策日志训练线性模型：在规则初始权重基础上 SGD 更新，保存后替换当前模型
+     * @return 训练摘要
+     */
+    public Map<String, Object> train(int epochs, double learningRate) throws IOException {
+        Path logPath = Paths.get(decisionLogPath);
+        if (!Files.exists(logPath)) {
+            throw new IllegalArgumentException("决策日志不存在：" + decisionLogPath);
+        }
+        // 同一问题以最后一次大模型结果为准
+        Map<String, String> labeled = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(logPath, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            Map<String, String> record = gson.fromJson(line, new TypeToken<Map<String, String>>() {}.getType());
+            if (record.get("question") != null && IntentModel.LABELS.contains(record.get("requestType"))) {
+                labeled.put(record.get("question"), record.get("requestType"));
+            }
+        }
+        List<Sample> samples = new ArrayList<>();
+        labeled.forEach((question, label) -> samples.add(new Sample(extractFeatures(question), label)));
+
+        IntentModel trained = seedModel();
+        trained.train(samples, epochs, learningRate, 1e-4);
+
+        int correct = 0;
+        for (Sample sample : samples) {
+            if (trained.predict(sample.features()).label().equals(sample.label())) {
+                correct++;
+            }
+        }
+        Path path = Paths.get(modelPath);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Files.writeString(path, gson.toJson(trained), StandardCharsets.UTF_8);
+        model = trained;
+        this.trained = true;
+        log.info("意图模型训练完成：样本 {}，特征 {}，训练集准确率 {}/{}", samples.size(), trained.featureCount(), correct, samples.size());
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("samples", samples.size());
+        summary.put("features", trained.featureCount());
+        summary.put("trainAccuracy", samples.isEmpty() ? 0.0 : (double) correct / samples.size());
+        summary.put("modelPath", path.toAbsolutePath().toString());
+        return summary;
+    }
+
+    /**
+     * 特征：关键词命中（kw:）、参数形态正则（re:）、汉字二元组（bi:，仅训练后的模型有权重）
+     */
+    Set<String> extractFeatures(String question) {
+        Set<String> features = new LinkedHashSet<>();
+        if (question == null) {
+            return features;
+        }
+        for (Match<String> match : keywordTrie.findAll(question)) {
+            features.add("kw:" + match.keyword());
+        }
+        PATTERNS.forEach((name, pattern) -> {
+            if (pattern.matcher(question).find()) {
+                features.add("re:" + name);
+            }
+        });
+        for (int i = 0; i + 1 < question.length(); i++) {
+            char a = question.charAt(i);
+            char b = question.charAt(i + 1);
+            if (Character.isIdeographic(a) && Character.isIdeographic(b)) {
+                features.add("bi:" + a + b);
+            }
+        }
+        return features;
+    }
+
+    /**
+     * 规则初始模型（训练起点）：无命中时偏向知识问答
+     */
+    IntentModel seedModel() {
+        IntentModel seed = new IntentModel();
+        seed.setBias(KNOWLEDGE_QA, 0.5);
+        SEED_KEYWORDS.forEach((label, keywords) -> keywords.forEach((k, w) -> seed.addWeight("kw:" + k, label, w)));
+        SEED_PATTERN_WEIGHTS.forEach((name, w) -> seed.addWeight("re:" + name, TOOL_CALL, w));
+        return seed;
+    }
+
+    private IntentModel loadModel() {
+        Path path = Paths.get(modelPath);
+        if (Files.exists(path)) {
+            try {
+                IntentModel loaded = gson.fromJson(Files.readString(path, StandardCharsets.UTF_8), IntentModel.class);
+                log.info("加载意图模型：{}（特征 {}）", path, loaded.featureCount());
+                trained = true;
+                return loaded;
+            } catch (Exception e) {
+                log.warn("意图模型加载失败，使用规则初始权重：{}", e.getMessage());
+            }
+        }
+        if (localEnabled) {
+            log.warn("本地意图识别已开启但没有训练后的模型，全部交给分类大模型：{}", path);
+        }
+        return seedModel();
+    }
+
+    private synchronized void appendDecision(String question, String type) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("timestamp", System.currentTimeMillis());
+        record.put("question", question);
+        record.put("requestType", type);
+        try {
+            Path path = Paths.get(decisionLogPath);
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                writer.write(gson.toJson(record));
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            log.warn("意图决策日志写入失败：{}", e.getMessage());
+        }
+    }
+}
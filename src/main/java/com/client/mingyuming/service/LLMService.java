@@ -1,6 +1,14 @@
 package com.client.mingyuming.service;
 
 import com.client.mingyuming.dto.ChatRequest;
+import com.client.mingyuming.util.JsonExtractor;
+import com.client.mingyuming.util.LlmEndpointRouter;
+import com.client.mingyuming.util.PipelineEvents;
+import com.client.mingyuming.util.UpstreamCallCoalescer;
+import com.client.mingyuming.util.UpstreamGuard;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
@@ -15,6 +23,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -45,32 +54,49 @@ public class LLMService {
     @Value("${spring.ai.openai.chat.options.enable-thinking}")
     private Boolean enableThinking;
 
+    @Value("${llm-server.prompt-cache.enabled:true}")
+    private boolean promptCacheEnabled;
+
     private final RestTemplate restTemplate;
+    private final UpstreamGuard upstreamGuard;
+    private final UpstreamCallCoalescer upstreamCallCoalescer;
+    private final LlmEndpointRouter llmEndpointRouter;
+    private final MeterRegistry meterRegistry;
 
-    // 仅依赖 RestTemplate，构造方法注入
-    public LLMService(RestTemplate restTemplate) {
+    // 构造方法注入
+    public LLMService(RestTemplate restTemplate, UpstreamGuard upstreamGuard,
+                      UpstreamCallCoalescer upstreamCallCoalescer, LlmEndpointRouter llmEndpointRouter,
+                      MeterRegistry meterRegistry) {
         this.restTemplate = restTemplate;
+        this.upstreamGuard = upstreamGuard;
+        this.upstreamCallCoalescer = upstreamCallCoalescer;
+        this.llmEndpointRouter = llmEndpointRouter;
+        this.meterRegistry = meterRegistry;
     }
     /**
      * 调用大模型生成工具决策
+     * @param toolCatalog 固定的工具清单提示词（与系统提示拼接为稳定前缀）
+     * @param userContent 用户问题及补充信息
+     * @param schema      决策 JSON Schema（由工具清单生成，约束模型只输出合法决策）
+     * @param maxTokens   按 Schema 估算的最大生成 token 数
      */
-    public String generateToolDecision(String prompt) {
+    public String generateToolDecision(String toolCatalog, String userContent, Map<String, Object> schema, int maxTokens) {
         ChatRequest chatRequest = new ChatRequest();
         List<Message> messages = new ArrayList<>();
-        // 系统提示：要求返回工具决策JSON
+        // 系统提示：要求返回工具决策JSON，附工具清单
         Message systemMsg = new Message();
         systemMsg.setRole("system");
-        systemMsg.setContent("你是工具选择助手，请严格按照指定格式返回工具决策结果，仅返回JSON，不添加额外内容。");
+        systemMsg.setContent("你是工具选择助手，请严格按照指定格式返回工具决策结果，仅返回JSON，不添加额外内容。\n\n" + toolCatalog);
         messages.add(systemMsg);
-        // 用户提示：包含问题和工具列表
+        // 用户提示：问题放在最后
         Message userMsg = new Message();
         userMsg.setRole("user");
-        userMsg.setContent(prompt);
+        userMsg.setContent(userContent);
         messages.add(userMsg);
         chatRequest.setMessages(messages);
 
         // 调用大模型并返回结果
-        return generateResponse(chatRequest);
+        return generateStructuredResponse(chatRequest, "tool-decision", schema, maxTokens);
     }
 
     /**
@@ -79,6 +105,35 @@ public class LLMService {
      * @return 大模型生成的文本结果
      */
     public String generateResponse(ChatRequest chatRequest) {
+        return generateResponse(chatRequest, "default");
+    }
+
+    /**
+     * 调用大模型生成响应
+     * @param chatRequest 包含 messages 列表的请求体（角色+内容）
+     * @param promptName  提示词名称（用于区分各提示词的缓存命中指标）
+     * @return 大模型生成的文本结果
+     */
+    public String generateResponse(ChatRequest chatRequest, String promptName) {
+        return chat(chatRequest, promptName, null, maxTokens);
+    }
+
+    /**
+     * 约束解码：请求携带 response_format（json_schema），模型服务按 Schema 生成语法约束，只输出合法 JSON
+     * @param schema       输出 JSON Schema
+     * @param maxNewTokens 最大生成 token 数（不超过全局 max-tokens）
+     */
+    public String generateStructuredResponse(ChatRequest chatRequest, String promptName,
+                                             Map<String, Object> schema, int maxNewTokens) {
+        return chat(chatRequest, promptName, schema, Math.min(maxNewTokens, maxTokens));
+    }
+
+    private String chat(ChatRequest chatRequest, String promptName, Map<String, Object> schema, int requestMaxTokens) {
+        PipelineEvents.LlmGenerate event = new PipelineEvents.LlmGenerate();
+        event.begin();
+        event.modelName = modelId;
+        event.promptName = promptName;
+        event.structured = schema != null;
         try {
             // 1. 构建大模型所需的请求体（包含 model 和 messages）
             Map<String, Object> llmRequest = new HashMap<>();
@@ -94,14 +149,26 @@ public class LLMService {
                     })
                     .collect(Collectors.toList());
             llmRequest.put("messages", llmMessages);
+            if (event.isEnabled()) {
+                event.input(llmMessages.stream().map(m -> m.get("content")).collect(Collectors.joining()));
+            }
 
-            llmRequest.put("max_tokens", maxTokens);       // 最大 tokens
+            llmRequest.put("max_tokens", requestMaxTokens); // 最大 tokens
+            if (schema != null) {
+                llmRequest.put("response_format", Map.of(
+                        "type", "json_schema",
+                        "json_schema", Map.of("name", promptName, "strict", true, "schema", schema)));
+            }
             llmRequest.put("temperature", temperature);   // 随机性温度
             llmRequest.put("stream", stream);             // 流式返回开关
             // 添加 chat_template_kwargs 配置（思考模式关）
             Map<String, Object> chatTemplateKwargs = new HashMap<>();
             chatTemplateKwargs.put("enable_thinking", enableThinking);
             llmRequest.put("chat_template_kwargs", chatTemplateKwargs);
+            // llama.cpp 前缀缓存：复用 KV 缓存；不指定 id_slot，由服务端按前缀相似度选槽（固定槽位会让同一前缀的并发请求排队）
+            if (promptCacheEnabled) {
+                llmRequest.put("cache_prompt", true);
+            }
 
             // 3. 构建请求头（包含鉴权信息）
             HttpHeaders headers = new HttpHeaders();
@@ -111,7 +178,14 @@ public class LLMService {
             // 4. 发送 POST 请求到大模型服务
             String llmApiUrl = openAiBaseUrl + "/v1/chat/completions";
             HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(llmRequest, headers);
-            ResponseEntity<Map> response = restTemplate.postForEntity(llmApiUrl, requestEntity, Map.class);
+            // 相同请求（消息、Schema、max_tokens 均一致）的并发调用合并为一次；配置多实例时按路由选择实例（重试会重新选择）
+            String coalesceEndpoint = llmApiUrl + "|" + modelId + "|" + requestMaxTokens + "|"
+                    + (schema == null ? "-" : Integer.toHexString(schema.hashCode()));
+            ResponseEntity<Map> response = upstreamCallCoalescer.execute("openai", coalesceEndpoint,
+                    llmMessages.toString(),
+                    () -> upstreamGuard.execute("openai",
+                            () -> llmEndpointRouter.execute("openai", openAiBaseUrl, endpoint -> restTemplate.postForEntity(
+                                    endpoint + "/v1/chat/completions", requestEntity, Map.class))));
 
             // 5. 解析大模型响应（提取 content 字段）
             Map<String, Object> responseBody = response.getBody();
@@ -119,6 +193,8 @@ public class LLMService {
                 throw new RuntimeException("大模型响应格式错误：" + responseBody);
             }
 
+            recordTimings(promptName, responseBody);
+
             List<Map<String, Object>> choices = (List<Map<String, Object>>) responseBody.get("choices");
             Map<String, Object> firstChoice = choices.get(0);
             Map<String, Object> message = (Map<String, Object>) firstChoice.get("message");
@@ -130,49 +206,61 @@ public class LLMService {
             String jsonResult = preprocessJson(rawContent);
 
             log.info("大模型调用成功，生成内容：{}",jsonResult);
+            event.finish(jsonResult == null || jsonResult.isBlank() ? PipelineEvents.EMPTY : PipelineEvents.SUCCESS, jsonResult);
             return jsonResult;
 
         } catch (Exception e) {
+            event.fail(e);
             log.error("大模型调用失败", e);
             throw new RuntimeException("大模型调用异常：" + e.getMessage());
         }
     }
 
     /**
-     * JSON 预处理：从末尾提取最后一个完整 JSON 串，清理格式后返回（适配大模型先描述后输出 JSON 的场景）
+     * 记录 llama.cpp 返回的 timings：提示词评估（prompt_n/prompt_ms）与生成（predicted_n/predicted_ms），
+     * cache_n 为命中前缀缓存而跳过评估的 token 数
+     */
+    private void recordTimings(String promptName, Map<String, Object> responseBody) {
+        if (!(responseBody.get("timings") instanceof Map<?, ?> timings)) {
+            return;
+        }
+        double promptTokens = toDouble(timings.get("prompt_n"));
+        double cachedTokens = toDouble(timings.get("cache_n"));
+        double promptMs = toDouble(timings.get("prompt_ms"));
+        double predictedTokens = toDouble(timings.get("predicted_n"));
+        double predictedMs = toDouble(timings.get("predicted_ms"));
+
+        DistributionSummary.builder("llm.prompt.tokens").tag("prompt", promptName).tag("phase", "evaluated")
+                .register(meterRegistry).record(promptTokens);
+        DistributionSummary.builder("llm.prompt.tokens").tag("prompt", promptName).tag("phase", "cached")
+                .register(meterRegistry).record(cachedTokens);
+        DistributionSummary.builder("llm.completion.tokens").tag("prompt", promptName)
+                .register(meterRegistry).record(predictedTokens);
+        Timer.builder("llm.prompt.eval").tag("prompt", promptName)
+                .register(meterRegistry).record((long) (promptMs * 1000), TimeUnit.MICROSECONDS);
+        Timer.builder("llm.generation").tag("prompt", promptName)
+                .register(meterRegistry).record((long) (predictedMs * 1000), TimeUnit.MICROSECONDS);
+        log.debug("【{}】提示词评估 {} token / {}ms（缓存命中 {} token），生成 {} token / {}ms",
+                promptName, (long) promptTokens, promptMs, (long) cachedTokens, (long) predictedTokens, predictedMs);
+    }
+
+    private double toDouble(Object value) {
+        return value instanceof Number number ? number.doubleValue() : 0;
+    }
+
+    /**
+     * JSON 预处理：提取最后一个完整的顶层 JSON 对象（适配大模型先描述后输出 JSON 的场景）
      */
     private String preprocessJson(String json) {
         if (json == null || json.trim().isEmpty()) {
             return json;
         }
-
-        // 1. 关键优化：从末尾反向查找最后一个完整的 JSON 片段（{} 包裹）
-        int lastJsonEnd = json.lastIndexOf("}"); // 先找最后一个 "}"（JSON 结束符）
-        int lastJsonStart = -1;
-        if (lastJsonEnd != -1) {
-            // 从最后一个 "}" 往前找第一个 "{"（匹配对应的 JSON 开始符）
-            lastJsonStart = json.lastIndexOf("{", lastJsonEnd);
-        }
-
-        // 验证找到的片段是否是完整 JSON（必须同时找到 { 和 }，且 { 在 } 前面）
-        if (lastJsonStart != -1 && lastJsonEnd != -1 && lastJsonStart < lastJsonEnd) {
-            // 提取最后一个 {} 包裹的内容（这是大模型最终输出的目标 JSON）
-            json = json.substring(lastJsonStart, lastJsonEnd + 1);
-            log.debug("从末尾提取到的纯 JSON 片段：{}", json);
-        } else {
+        CharSequence extracted = JsonExtractor.extractLastObject(json);
+        if (extracted == json) {
             // 未找到完整 JSON，返回原内容并告警（便于定位问题）
             log.warn("未找到完整 JSON 结构（输入：{}），可能不是有效 JSON", json.length() > 100 ? json.substring(0, 100) + "..." : json);
             return json;
         }
-
-        // 2. 保留原有格式清理逻辑（处理 JSON 内部的不规范格式）
-        String noCommentJson = json.replaceAll("//.*|/\\*[\\s\\S]*?\\*/", ""); // 去除单行/多行注释
-        String noSingleQuoteJson = noCommentJson.replaceAll("'", "\""); // 单引号转双引号（JSON 要求双引号）
-        String trimJson = noSingleQuoteJson.trim(); // 去除 JSON 内部首尾多余空格
-
-        // 3. 额外处理：去除 JSON 内部可能的换行符（避免 Gson 解析换行符报错）
-        String noLineBreakJson = trimJson.replaceAll("\\r?\\n", " ");
-
-        return noLineBreakJson;
+        return extracted.toString();
     }
 }
\ No newline at end of file
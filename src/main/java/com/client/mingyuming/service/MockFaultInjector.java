@@ -0,0 +1,174 @@
+package com.client.mingyuming.service;
+
+import lombok.Data;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Mock 工具 API 的故障注入：按端点配置延迟分布（fixed / normal / long-tail）、错误率与超时率，
+ * 运行时通过 /mock/admin 修改（stub / mock profile）；另提供按种子确定性生成的 Mock 数据（同一种子 + ID 每次结果相同）
+ */
+@Slf4j
+@Service
+public class MockFaultInjector {
+
+    // 未单独配置的端点使用该配置
+    public static final String DEFAULT_ENDPOINT = "*";
+    // 单次注入的延迟/挂起上限（毫秒），防止一次配置长时间占住 Tomcat 线程
+    static final long MAX_DELAY_MS = 60_000;
+    static final double MAX_SIGMA = 3.0;
+
+    private final Map<String, FaultProfile> profiles = new ConcurrentHashMap<>();
+    // 数据种子：为 null 时各端点返回原有的固定数据
+    @Getter
+    private volatile Long dataSeed;
+
+    /**
+     * 单个端点的故障配置（默认无延迟、无故障）
+     */
+    @Data
+    public static class FaultProfile {
+        // 延迟分布：none / fixed / normal / long-tail（对数正态）
+        private String distribution = "none";
+        // fixed 的延迟；normal 的均值；long-tail 的中位数（毫秒）
+        private long latencyMs = 0;
+        // normal 的标准差（毫秒）
+        private long stddevMs = 0;
+        // long-tail 的对数标准差（1.0 时 p99 约为中位数的 10 倍）
+        private double sigma = 1.0;
+        // 单次延迟上限（毫秒）
+        private long maxLatencyMs = 30_000;
+        // 返回错误的概率及状态码（500/503/429 等）
+        private double errorRate = 0;
+        private int errorStatus = 500;
+        // 超时的概率：挂起 timeoutMs 后返回 504（应大于调用方读取超时）
+        private double timeoutRate = 0;
+        private long timeoutMs = 10_000;
+    }
+
+    /**
+     * 注入的故障（由 ToolMockController 转为对应 HTTP 状态码）
+     */
+    @Getter
+    public static class InjectedFaultException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        public InjectedFaultException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /**
+     * 按端点配置施加延迟并按概率抛出故障，在 Mock 接口处理前调用
+     * @throws InjectedFaultException 命中错误或超时注入
+     */
+    public void apply(String endpoint) {
+        FaultProfile profile = profile(endpoint);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double roll = random.nextDouble();
+        if (roll < profile.getTimeoutRate()) {
+            sleep(profile.getTimeoutMs());
+            throw new InjectedFaultException(504, "注入超时：" + endpoint);
+        }
+        sleep(sampleLatency(profile, random));
+        if (roll < profile.getTimeoutRate() + profile.getErrorRate()) {
+            throw new InjectedFaultException(profile.getErrorStatus(), "注入错误：" + endpoint);
+        }
+    }
+
+    public FaultProfile profile(String endpoint) {
+        return profiles.getOrDefault(endpoint, profiles.getOrDefault(DEFAULT_ENDPOINT, new FaultProfile()));
+    }
+
+    public Map<String, FaultProfile> getProfiles() {
+        return new LinkedHashMap<>(profiles);
+    }
+
+    /**
+     * 更新端点配置：延迟与超时截断到 [0, MAX_DELAY_MS]，概率截断到 [0, 1]，状态码限定为 4xx/5xx
+     * @return 实际生效的配置
+     */
+    public FaultProfile setProfile(String endpoint, FaultProfile profile) {
+        profile.setLatencyMs(clamp(profile.getLatencyMs(), 0, MAX_DELAY_MS));
+        profile.setStddevMs(clamp(profile.getStddevMs(), 0, MAX_DELAY_MS));
+        profile.setMaxLatencyMs(clamp(profile.getMaxLatencyMs(), 0, MAX_DELAY_MS));
+        profile.setTimeoutMs(clamp(profile.getTimeoutMs(), 0, MAX_DELAY_MS));
+        profile.setSigma(Math.max(0, Math.min(profile.getSigma(), MAX_SIGMA)));
+        profile.setErrorRate(Math.max(0, Math.min(profile.getErrorRate(), 1)));
+        profile.setTimeoutRate(Math.max(0, Math.min(profile.getTimeoutRate(), 1)));
+        if (profile.getErrorStatus() < 400 || profile.getErrorStatus() > 599) {
+            profile.setErrorStatus(500);
+        }
+        profiles.put(endpoint, profile);
+        log.info("Mock 故障配置更新：{} → {}", endpoint, profile);
+        return profile;
+    }
+
+    /**
+     * 清除配置：endpoint 为 null 时清除全部并恢复固定数据
+     */
+    public void reset(String endpoint) {
+        if (endpoint == null) {
+            profiles.clear();
+            dataSeed = null;
+        } else {
+            profiles.remove(endpoint);
+        }
+        log.info("Mock 故障配置清除：{}", endpoint == null ? "全部" : endpoint);
+    }
+
+    public void setDataSeed(Long seed) {
+        this.dataSeed = seed;
+        log.info("Mock 数据种子：{}", seed);
+    }
+
+    /**
+     * 按种子 + 业务键生成确定性随机数（未设置种子返回 null，调用方使用固定数据）
+     */
+    public Random dataRandom(String... keys) {
+        Long seed = dataSeed;
+        if (seed == null) {
+            return null;
+        }
+        long hash = seed;
+        for (String key : keys) {
+            hash = hash * 31 + (key == null ? 0 : key.hashCode());
+        }
+        return new Random(hash);
+    }
+
+    private long sampleLatency(FaultProfile profile, ThreadLocalRandom random) {
+        double latency = switch (profile.getDistribution()) {
+            case "fixed" -> profile.getLatencyMs();
+            case "normal" -> profile.getLatencyMs() + random.nextGaussian() * profile.getStddevMs();
+            case "long-tail" -> profile.getLatencyMs() * Math.exp(profile.getSigma() * random.nextGaussian());
+            default -> 0;
+        };
+        return (long) Math.max(0, Math.min(latency, profile.getMaxLatencyMs()));
+    }
+
+    private static long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(value, max));
+    }
+
+    private void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,14 +1,25 @@
 package com.client.mingyuming.service;
 
+import com.client.mingyuming.util.PipelineEvents;
+import com.client.mingyuming.util.SqlParameterizer;
+import com.client.mingyuming.util.SqlParameterizer.SqlTemplate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.BadSqlGrammarException;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * MySQL 数据库查询服务：执行 SQL 并返回结构化结果
@@ -17,11 +28,55 @@ import java.util.List;
 @Service
 public class MysqlQueryService {
 
-    private final JdbcTemplate jdbcTemplate;
+    private static final String OTHER_TEMPLATE = "other";
 
-    // 注入 JdbcTemplate（需在配置文件中配置数据源）
-    public MysqlQueryService(JdbcTemplate jdbcTemplate) {
-        this.jdbcTemplate = jdbcTemplate;
+    // 每行所有列转为字符串
+    private static final RowMapper<List<String>> ROW_MAPPER = new RowMapper<List<String>>() {
+        @Override
+        public List<String> mapRow(ResultSet rs, int rowNum) throws SQLException {
+            List<String> row = new ArrayList<>();
+            // 获取当前行所有列的值（转为字符串）
+            int columnCount = rs.getMetaData().getColumnCount();
+            for (int i = 1; i <= columnCount; i++) {
+                row.add(rs.getString(i));
+            }
+            return row;
+        }
+    };
+
+    @Value("${sql.template.enabled:true}")
+    private boolean templateEnabled;
+    @Value("${sql.template.max-tracked:500}")
+    private int maxTrackedTemplates;
+
+    private final ReadReplicaRouter readReplicaRouter;
+    private final MeterRegistry meterRegistry;
+
+    // 模板 → 统计（模板首次出现即未命中，之后视为命中预编译语句缓存）
+    private final Map<String, TemplateStats> templateStats = new ConcurrentHashMap<>();
+
+    // 注入读库路由（未配置读库时直接使用主数据源）
+    public MysqlQueryService(ReadReplicaRouter readReplicaRouter, MeterRegistry meterRegistry) {
+        this.readReplicaRouter = readReplicaRouter;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 单个模板的执行统计
+     */
+    static final class TemplateStats {
+        final String id;
+        final String template;
+        final LongAdder executions = new LongAdder();
+        final Counter hitCounter;
+        final Counter missCounter;
+
+        TemplateStats(String id, String template, MeterRegistry registry) {
+            this.id = id;
+            this.template = template;
+            this.hitCounter = Counter.builder("sql.template.executions").tag("template", id).tag("cache", "hit").register(registry);
+            this.missCounter = Counter.builder("sql.template.executions").tag("template", id).tag("cache", "miss").register(registry);
+        }
     }
 
     /**
@@ -30,34 +85,97 @@ public class MysqlQueryService {
      * @return 结果集（二维列表字符串，如 "[[col1, col2], ...]"）；无结果返回 "无结果"
      */
     public String executeQuery(String sql) {
+        PipelineEvents.SqlQuery event = new PipelineEvents.SqlQuery();
+        event.begin();
+        event.input(sql);
         try {
             log.info("执行 MYSQL 查询：{}", sql);
 
-            // 执行查询并映射结果为二维列表
-            List<List<String>> resultList = jdbcTemplate.query(sql, new RowMapper<List<String>>() {
-                @Override
-                public List<String> mapRow(ResultSet rs, int rowNum) throws SQLException {
-                    List<String> row = new ArrayList<>();
-                    // 获取当前行所有列的值（转为字符串）
-                    int columnCount = rs.getMetaData().getColumnCount();
-                    for (int i = 1; i <= columnCount; i++) {
-                        row.add(rs.getString(i));
-                    }
-                    return row;
+            // 执行查询并映射结果为二维列表（字面量参数化后走预编译语句，失败则按原 SQL 执行）
+            List<List<String>> resultList;
+            SqlTemplate template = parameterize(sql);
+            if (template != null) {
+                event.parameterized = true;
+                recordExecution(template);
+                log.debug("参数化模板：{}，参数：{}", template.template(), template.params());
+                try {
+                    resultList = readReplicaRouter.read(jdbc -> jdbc.query(template.template(), ROW_MAPPER, template.params().toArray()));
+                } catch (BadSqlGrammarException e) {
+                    // 参数化改变了语义（如把未识别的别名替换成占位符）时按原 SQL 重试
+                    log.warn("参数化模板执行失败，按原 SQL 重试：{}", e.getMessage());
+                    event.parameterized = false;
+                    resultList = readReplicaRouter.read(jdbc -> jdbc.query(sql, ROW_MAPPER));
                 }
-            });
+            } else {
+                resultList = readReplicaRouter.read(jdbc -> jdbc.query(sql, ROW_MAPPER));
+            }
 
             // 处理无结果的情况
             if (resultList.isEmpty()) {
+                event.finish(PipelineEvents.EMPTY, null);
                 return "无结果";
             }
 
             // 转换为 JSON 风格的二维列表字符串（如 "[[v1,v2],[v3,v4]]"）
-            return resultList.toString();
+            String result = resultList.toString();
+            event.rows = resultList.size();
+            event.finish(PipelineEvents.SUCCESS, result);
+            return result;
 
         } catch (Exception e) {
+            event.fail(e);
             log.error("SQL 执行失败：{}，返回空串", sql, e);
             return "";
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 模板命中统计快照（按执行次数降序）
+     */
+    public List<Map<String, Object>> getTemplateStats() {
+        return templateStats.values().stream()
+                .sorted(Comparator.comparingLong((TemplateStats s) -> s.executions.sum()).reversed())
+                .map(s -> {
+                    long executions = s.executions.sum();
+                    long hits = (long) s.hitCounter.count();
+                    Map<String, Object> item = new LinkedHashMap<>();
+                    item.put("id", s.id);
+                    item.put("template", s.template);
+                    item.put("executions", executions);
+                    item.put("hits", hits);
+                    item.put("hitRate", executions == 0 ? 0.0 : (double) hits / executions);
+                    return item;
+                })
+                .toList();
+    }
+
+    private SqlTemplate parameterize(String sql) {
+        if (!templateEnabled) {
+            return null;
+        }
+        try {
+            return SqlParameterizer.parameterize(sql);
+        } catch (IllegalArgumentException e) {
+            log.warn("SQL 参数化失败，按原 SQL 执行：{}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void recordExecution(SqlTemplate template) {
+        TemplateStats stats = templateStats.get(template.key());
+        boolean hit = stats != null;
+        if (stats == null) {
+            String id = templateStats.size() < maxTrackedTemplates
+                    ? Integer.toHexString(template.key().hashCode())
+                    : OTHER_TEMPLATE;
+            stats = templateStats.computeIfAbsent(
+                    OTHER_TEMPLATE.equals(id) ? OTHER_TEMPLATE : template.key(),
+                    key -> new TemplateStats(id, key, meterRegistry));
+            if (!OTHER_TEMPLATE.equals(id)) {
+                log.info("新SQL模板[{}]：{}", id, template.key());
+            }
+        }
+        stats.executions.increment();
+        (hit ? stats.hitCounter : stats.missCounter).increment();
+    }
+}
@@ -0,0 +1,190 @@
+package com.client.mingyuming.service;
+
+import com.client.mingyuming.config.ReadReplicaProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 读库路由：数据查询（只读）流量在多个读库间负载均衡，
+ * 支持最少在途 / 延迟加权两种策略，健康检查摘除故障节点，无可用读库或连接失败时回退主库
+ */
+@Slf4j
+@Service
+public class ReadReplicaRouter {
+
+    private static final double EWMA_ALPHA = 0.2;
+
+    @Value("${spring.jdbc.template.query-timeout:30}")
+    private int queryTimeoutSeconds;
+
+    private final ReadReplicaProperties properties;
+    private final JdbcTemplate primary;
+    private final MeterRegistry meterRegistry;
+    private final ResourceLoader resourceLoader;
+    private final List<Replica> replicas = new ArrayList<>();
+
+    public ReadReplicaRouter(ReadReplicaProperties properties, JdbcTemplate primary,
+                             MeterRegistry meterRegistry, ResourceLoader resourceLoader) {
+        this.properties = properties;
+        this.primary = primary;
+        this.meterRegistry = meterRegistry;
+        this.resourceLoader = resourceLoader;
+    }
+
+    /**
+     * 单个读库节点状态
+     */
+    static final class Replica {
+        final String name;
+        final HikariDataSource dataSource;
+        final JdbcTemplate jdbcTemplate;
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger consecutiveFailures = new AtomicInteger();
+        volatile boolean healthy = true;
+        volatile double ewmaLatencyMs = 1.0;
+
+        Replica(String name, HikariDataSource dataSource, JdbcTemplate jdbcTemplate) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.jdbcTemplate = jdbcTemplate;
+        }
+
+        void recordLatency(long latencyMs) {
+            ewmaLatencyMs = ewmaLatencyMs * (1 - EWMA_ALPHA) + Math.max(latencyMs, 1) * EWMA_ALPHA;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        for (ReadReplicaProperties.Node node : properties.getNodes()) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("replica-" + node.getName());
+            dataSource.setJdbcUrl(node.getUrl());
+            dataSource.setUsername(node.getUsername());
+            dataSource.setPassword(node.getPassword());
+            if (node.getDriverClassName() != null) {
+                dataSource.setDriverClassName(node.getDriverClassName());
+            }
+            dataSource.setMaximumPoolSize(node.getMaxPoolSize());
+            dataSource.setReadOnly(true);
+            // 读库不可用时不阻塞启动，由健康检查摘除
+            dataSource.setInitializationFailTimeout(-1);
+            dataSource.setMetricRegistry(meterRegistry);
+
+            if (node.getInitScript() != null) {
+                try {
+                    new ResourceDatabasePopulator(resourceLoader.getResource(node.getInitScript())).execute(dataSource);
+                } catch (Exception e) {
+                    log.warn("读库[{}]初始化脚本执行失败：{}", node.getName(), e.getMessage());
+                }
+            }
+
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            jdbcTemplate.setQueryTimeout(queryTimeoutSeconds);
+            Replica replica = new Replica(node.getName(), dataSource, jdbcTemplate);
+            replicas.add(replica);
+
+            Gauge.builder("sql.replica.inflight", replica.inFlight, AtomicInteger::get)
+                    .tag("replica", replica.name).register(meterRegistry);
+            Gauge.builder("sql.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .tag("replica", replica.name).register(meterRegistry);
+            Gauge.builder("sql.replica.latency.ewma", replica, r -> r.ewmaLatencyMs)
+                    .tag("replica", replica.name).baseUnit("milliseconds").register(meterRegistry);
+        }
+        log.info("读库路由初始化完成：{} 个读库，策略={}", replicas.size(), properties.getStrategy());
+    }
+
+    /**
+     * 在选中的读库上执行只读操作；无可用读库或读库连接失败时回退主库
+     */
+    public <T> T read(Function<JdbcTemplate, T> action) {
+        Replica replica = select();
+        if (replica == null) {
+            return action.apply(primary);
+        }
+
+        replica.inFlight.incrementAndGet();
+        long start = System.currentTimeMillis();
+        try {
+            T result = action.apply(replica.jdbcTemplate);
+            replica.recordLatency(System.currentTimeMillis() - start);
+            replica.consecutiveFailures.set(0);
+            return result;
+        } catch (DataAccessResourceFailureException | TransientDataAccessResourceException e) {
+            // 连接级故障：计入失败并回退主库；SQL 语法等错误原样抛出，不影响节点健康
+            markFailure(replica, e.getMessage());
+            log.warn("读库[{}]执行失败，回退主库：{}", replica.name, e.getMessage());
+            return action.apply(primary);
+        } finally {
+            replica.inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * 选择读库：least-in-flight 取在途最少（平局取延迟低），latency-weighted 取 EWMA 延迟 ×（在途+1）最小
+     */
+    private Replica select() {
+        Comparator<Replica> comparator = "latency-weighted".equals(properties.getStrategy())
+                ? Comparator.comparingDouble(r -> r.ewmaLatencyMs * (r.inFlight.get() + 1))
+                : Comparator.<Replica>comparingInt(r -> r.inFlight.get()).thenComparingDouble(r -> r.ewmaLatencyMs);
+        return replicas.stream()
+                .filter(r -> r.healthy)
+                .min(comparator)
+                .orElse(null);
+    }
+
+    /**
+     * 健康检查：SELECT 1 失败累计达到阈值则摘除，恢复后重新加入
+     */
+    @Scheduled(fixedDelayString = "${sql.replica.health-check-interval-ms:5000}")
+    public void healthCheck() {
+        for (Replica replica : replicas) {
+            long start = System.currentTimeMillis();
+            try {
+                replica.jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+                replica.recordLatency(System.currentTimeMillis() - start);
+                replica.consecutiveFailures.set(0);
+                if (!replica.healthy) {
+                    replica.healthy = true;
+                    log.info("读库[{}]恢复，重新加入路由", replica.name);
+                }
+            } catch (Exception e) {
+                markFailure(replica, e.getMessage());
+            }
+        }
+    }
+
+    private void markFailure(Replica replica, String reason) {
+        int failures = replica.consecutiveFailures.incrementAndGet();
+        if (replica.healthy && failures >= properties.getFailureThreshold()) {
+            replica.healthy = false;
+            log.warn("读库[{}]连续失败 {} 次，摘除：{}", replica.name, failures, reason);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        replicas.forEach(r -> r.dataSource.close());
+    }
+}
@@ -0,0 +1,355 @@
+package com.client.mingyuming.service;
+
+import com.client.mingyuming.util.SqlTokenizer;
+import com.client.mingyuming.util.SqlTokenizer.Token;
+import com.client.mingyuming.util.SqlTokenizer.Type;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Schema 元数据缓存：启动时从 INFORMATION_SCHEMA 加载表/字段/类型/索引到内存，定时刷新，
+ * 用于在执行前本地校验生成 SQL 引用的表和字段，避免一次无效的数据库往返
+ */
+@Slf4j
+@Service
+public class SchemaCatalogService {
+
+    public static final String SCHEMA_REJECT_MSG = "Schema校验未通过";
+
+    // 非字段名的常见关键字/类型/时间单位（未加限定的标识符校验时跳过）
+    private static final Set<String> KEYWORDS = Set.of(
+            "SELECT", "FROM", "WHERE", "AND", "OR", "NOT", "IN", "IS", "NULL", "LIKE", "BETWEEN", "EXISTS",
+            "AS", "ON", "USING", "JOIN", "INNER", "LEFT", "RIGHT", "OUTER", "CROSS", "NATURAL", "STRAIGHT_JOIN",
+            "GROUP", "BY", "ORDER", "HAVING", "LIMIT", "OFFSET", "ASC", "DESC", "DISTINCT", "ALL", "ANY", "SOME",
+            "UNION", "INTERSECT", "EXCEPT", "WITH", "RECURSIVE", "CASE", "WHEN", "THEN", "ELSE", "END",
+            "TRUE", "FALSE", "UNKNOWN", "DIV", "MOD", "XOR", "REGEXP", "RLIKE", "ESCAPE", "COLLATE", "BINARY",
+            "INTERVAL", "MICROSECOND", "SECOND", "MINUTE", "HOUR", "DAY", "WEEK", "MONTH", "QUARTER", "YEAR",
+            "YEAR_MONTH", "DAY_HOUR", "DAY_MINUTE", "DAY_SECOND", "HOUR_MINUTE", "HOUR_SECOND", "MINUTE_SECOND",
+            "CURRENT_DATE", "CURRENT_TIME", "CURRENT_TIMESTAMP", "LOCALTIME", "LOCALTIMESTAMP",
+            "OVER", "PARTITION", "WINDOW", "ROWS", "RANGE", "PRECEDING", "FOLLOWING", "UNBOUNDED", "CURRENT", "ROW",
+            "SEPARATOR", "ROLLUP", "SIGNED", "UNSIGNED", "CHAR", "DATE", "DATETIME", "TIME", "DECIMAL",
+            "INTEGER", "INT", "DOUBLE", "FLOAT", "JSON", "USE", "FORCE", "IGNORE", "INDEX", "KEY", "FOR",
+            "SQL_CALC_FOUND_ROWS", "SQL_NO_CACHE", "HIGH_PRIORITY", "LATERAL", "DUAL"
+    );
+
+    @Value("${sql.schema.enabled:true}")
+    private boolean enabled;
+    @Value("${sql.schema.check-unqualified-columns:true}")
+    private boolean checkUnqualifiedColumns;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // 当前快照（整体替换，读无锁）
+    private volatile Map<String, TableMeta> catalog = Collections.emptyMap();
+    private volatile Set<String> allColumns = Collections.emptySet();
+
+    public SchemaCatalogService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 字段元数据
+     */
+    public record ColumnMeta(String name, String dataType) {
+    }
+
+    /**
+     * 表元数据（key 均为小写）
+     */
+    public record TableMeta(String name, Map<String, ColumnMeta> columns, Map<String, List<String>> indexes) {
+    }
+
+    /**
+     * 校验结果：valid=false 时 errors 给出具体原因，可直接回填给 SQL 生成模型重新生成
+     */
+    public record ValidationResult(boolean valid, List<String> errors) {
+
+        static final ValidationResult OK = new ValidationResult(true, List.of());
+
+        public String message() {
+            return SCHEMA_REJECT_MSG + "：" + String.join("；", errors);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            refresh();
+        }
+    }
+
+    /**
+     * 定时刷新 Schema 快照（加载失败时保留旧快照）
+     */
+    @Scheduled(initialDelayString = "${sql.schema.refresh-interval-ms:300000}",
+            fixedDelayString = "${sql.schema.refresh-interval-ms:300000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Map<String, TableMeta> tables = new LinkedHashMap<>();
+            jdbcTemplate.query(
+                    "SELECT TABLE_NAME, COLUMN_NAME, DATA_TYPE FROM INFORMATION_SCHEMA.COLUMNS "
+                            + "WHERE TABLE_SCHEMA = DATABASE() ORDER BY TABLE_NAME, ORDINAL_POSITION",
+                    rs -> {
+                        String table = rs.getString(1);
+                        String column = rs.getString(2);
+                        tables.computeIfAbsent(lower(table), k -> new TableMeta(table, new LinkedHashMap<>(), new LinkedHashMap<>()))
+                                .columns().put(lower(column), new ColumnMeta(column, rs.getString(3)));
+                    });
+            loadIndexes(tables);
+
+            Set<String> columns = new HashSet<>();
+            tables.values().forEach(t -> columns.addAll(t.columns().keySet()));
+            this.catalog = tables;
+            this.allColumns = columns;
+            log.info("Schema 元数据刷新完成：{} 张表，{} 个字段", tables.size(), columns.size());
+        } catch (Exception e) {
+            log.warn("Schema 元数据加载失败，保留旧快照（{} 张表）：{}", catalog.size(), e.getMessage());
+        }
+    }
+
+    private void loadIndexes(Map<String, TableMeta> tables) {
+        try {
+            jdbcTemplate.query(
+                    "SELECT TABLE_NAME, INDEX_NAME, COLUMN_NAME FROM INFORMATION_SCHEMA.STATISTICS "
+                            + "WHERE TABLE_SCHEMA = DATABASE() ORDER BY TABLE_NAME, INDEX_NAME, SEQ_IN_INDEX",
+                    rs -> {
+                        TableMeta table = tables.get(lower(rs.getString(1)));
+                        if (table != null) {
+                            table.indexes().computeIfAbsent(rs.getString(2), k -> new ArrayList<>()).add(rs.getString(3));
+                        }
+                    });
+        } catch (Exception e) {
+            log.debug("索引元数据加载失败（忽略）：{}", e.getMessage());
+        }
+    }
+
+    public Map<String, TableMeta> getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * 某字段是否为某索引的最左列
+     */
+    public boolean hasLeadingIndex(String table, String column) {
+        TableMeta meta = catalog.get(lower(table));
+        return meta != null && meta.indexes().values().stream()
+                .anyMatch(cols -> !cols.isEmpty() && cols.get(0).equalsIgnoreCase(column));
+    }
+
+    /**
+     * 本地校验 SQL 引用的表和字段是否存在（快照为空时直接通过）
+     */
+    public ValidationResult validate(String sql) {
+        Map<String, TableMeta> tables = this.catalog;
+        if (!enabled || tables.isEmpty() || sql == null) {
+            return ValidationResult.OK;
+        }
+        List<Token> tokens;
+        try {
+            tokens = SqlTokenizer.tokenize(sql);
+        } catch (IllegalArgumentException e) {
+            return new ValidationResult(false, List.of(e.getMessage()));
+        }
+
+        List<String> errors = new ArrayList<>();
+        Map<String, TableMeta> aliasToTable = new HashMap<>();  // 别名/表名 → 真实表
+        Set<String> virtualNames = new HashSet<>();             // CTE、派生表别名（字段未知，不校验）
+        Set<String> columnAliases = new HashSet<>();            // SELECT 列别名
+
+        Set<Integer> refPositions = new HashSet<>();            // 表名/别名所在下标
+        collectReferences(tokens, tables, aliasToTable, virtualNames, columnAliases, refPositions, errors);
+
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            if (!isIdentifier(token)) {
+                continue;
+            }
+            String name = lower(token.identifier());
+            boolean qualifier = i + 1 < tokens.size() && tokens.get(i + 1).isSymbol(".");
+            boolean qualified = i > 0 && tokens.get(i - 1).isSymbol(".");
+            if (qualifier && i + 2 < tokens.size()) {
+                // x.col：x 为真实表/别名时校验字段
+                Token column = tokens.get(i + 2);
+                TableMeta table = aliasToTable.get(name);
+                if (table != null && isIdentifier(column) && !table.columns().containsKey(lower(column.identifier()))) {
+                    errors.add("表 " + table.name() + " 不存在字段 " + column.identifier());
+                }
+                continue;
+            }
+            if (qualified || !checkUnqualifiedColumns || !virtualNames.isEmpty() || refPositions.contains(i)) {
+                continue;
+            }
+            boolean isCall = i + 1 < tokens.size() && tokens.get(i + 1).isSymbol("(");
+            boolean afterAs = i > 0 && tokens.get(i - 1).isWord("AS");
+            if (isCall || afterAs || isKeyword(token)
+                    || aliasToTable.containsKey(name) || columnAliases.contains(name) || tables.containsKey(name)) {
+                continue;
+            }
+            if (!referencedColumnExists(aliasToTable, name)) {
+                errors.add("引用的表中不存在字段 " + token.identifier());
+            }
+        }
+
+        if (errors.isEmpty()) {
+            return ValidationResult.OK;
+        }
+        List<String> distinct = errors.stream().distinct().toList();
+        log.info("SQL Schema 校验未通过：{}，SQL：{}", distinct, sql);
+        return new ValidationResult(false, distinct);
+    }
+
+    /**
+     * 收集 FROM/JOIN 后的表引用与别名、CTE 名、列别名；不存在的表记入 errors
+     */
+    private void collectReferences(List<Token> tokens, Map<String, TableMeta> tables,
+                                   Map<String, TableMeta> aliasToTable, Set<String> virtualNames,
+                                   Set<String> columnAliases, Set<Integer> refPositions, List<String> errors) {
+        // 括号栈：true 表示子查询括号，false 表示函数调用/表达式括号（EXTRACT(YEAR FROM d) 中的 FROM 不是表引用）
+        Deque<Boolean> parens = new ArrayDeque<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            if (token.isSymbol("(")) {
+                parens.push(i + 1 < tokens.size() && (tokens.get(i + 1).isWord("SELECT") || tokens.get(i + 1).isWord("WITH")));
+                continue;
+            }
+            if (token.isSymbol(")")) {
+                parens.poll();
+                continue;
+            }
+            // CTE：WITH name AS ( / , name AS (
+            if (i + 2 < tokens.size() && isIdentifier(token) && tokens.get(i + 1).isWord("AS")
+                    && tokens.get(i + 2).isSymbol("(") && i > 0
+                    && (tokens.get(i - 1).isWord("WITH") || tokens.get(i - 1).isWord("RECURSIVE") || tokens.get(i - 1).isSymbol(","))) {
+                virtualNames.add(lower(token.identifier()));
+                continue;
+            }
+            // 列别名：expr AS alias（非 CTE）
+            if (token.isWord("AS") && i + 1 < tokens.size() && isIdentifier(tokens.get(i + 1))) {
+                columnAliases.add(lower(tokens.get(i + 1).identifier()));
+                continue;
+            }
+            // 省略 AS 的列别名：紧跟在表达式末尾（右括号、标识符、字面量、END）之后的标识符
+            if (i > 0 && isIdentifier(token) && !isKeyword(token) && endsExpression(tokens.get(i - 1))) {
+                columnAliases.add(lower(token.identifier()));
+                continue;
+            }
+            if (!(token.isWord("FROM") || token.isWord("JOIN")) || Boolean.FALSE.equals(parens.peek())) {
+                continue;
+            }
+            // FROM a x, b AS y ... / JOIN c z
+            int j = i + 1;
+            while (j < tokens.size()) {
+                Token ref = tokens.get(j);
+                if (ref.isSymbol("(")) {
+                    // 派生表：跳过子查询，记录其别名
+                    j = skipParentheses(tokens, j);
+                    j = readAlias(tokens, j, refPositions, alias -> virtualNames.add(alias));
+                } else if (isIdentifier(ref)) {
+                    String schemaName = null;
+                    String tableName = ref.identifier();
+                    if (j + 2 < tokens.size() && tokens.get(j + 1).isSymbol(".") && isIdentifier(tokens.get(j + 2))) {
+                        schemaName = tableName;
+                        tableName = tokens.get(j + 2).identifier();
+                        j += 2;
+                    }
+                    String key = lower(tableName);
+                    TableMeta meta = tables.get(key);
+                    refPositions.add(j);
+                    j++;
+                    if (virtualNames.contains(key)) {
+                        j = readAlias(tokens, j, refPositions, alias -> virtualNames.add(alias));
+                    } else if (meta == null) {
+                        // 跨库引用无法校验，直接放过
+                        if (schemaName == null) {
+                            errors.add("表 " + tableName + " 不存在");
+                        }
+                        j = readAlias(tokens, j, refPositions, alias -> virtualNames.add(alias));
+                    } else {
+                        aliasToTable.put(key, meta);
+                        j = readAlias(tokens, j, refPositions, alias -> aliasToTable.put(alias, meta));
+                    }
+                } else {
+                    break;
+                }
+                if (token.isWord("FROM") && j < tokens.size() && tokens.get(j).isSymbol(",")) {
+                    j++;
+                    continue;
+                }
+                break;
+            }
+        }
+    }
+
+    /**
+     * 读取表引用后的可选别名（[AS] alias），返回别名之后的下标
+     */
+    private int readAlias(List<Token> tokens, int j, Set<Integer> refPositions, Consumer<String> aliasConsumer) {
+        if (j < tokens.size() && tokens.get(j).isWord("AS")) {
+            j++;
+        }
+        if (j < tokens.size() && isIdentifier(tokens.get(j)) && !isKeyword(tokens.get(j))) {
+            aliasConsumer.accept(lower(tokens.get(j).identifier()));
+            refPositions.add(j);
+            j++;
+        }
+        return j;
+    }
+
+    private int skipParentheses(List<Token> tokens, int start) {
+        int depth = 0;
+        for (int j = start; j < tokens.size(); j++) {
+            if (tokens.get(j).isSymbol("(")) {
+                depth++;
+            } else if (tokens.get(j).isSymbol(")") && --depth == 0) {
+                return j + 1;
+            }
+        }
+        return tokens.size();
+    }
+
+    private boolean referencedColumnExists(Map<String, TableMeta> aliasToTable, String column) {
+        if (aliasToTable.isEmpty()) {
+            // 无 FROM（如 SELECT 1）时仅做全库范围的宽松校验
+            return allColumns.contains(column);
+        }
+        return aliasToTable.values().stream().anyMatch(t -> t.columns().containsKey(column));
+    }
+
+    private boolean isKeyword(Token token) {
+        return token.type() == Type.WORD && KEYWORDS.contains(token.upper());
+    }
+
+    private boolean endsExpression(Token previous) {
+        return previous.isSymbol(")") || previous.isWord("END")
+                || previous.type() == Type.NUMBER || previous.type() == Type.STRING
+                || (isIdentifier(previous) && !isKeyword(previous));
+    }
+
+    private boolean isIdentifier(Token token) {
+        return token.type() == Type.WORD || token.type() == Type.QUOTED_IDENT;
+    }
+
+    private static String lower(String s) {
+        return s == null ? "" : s.toLowerCase(Locale.ROOT);
+    }
+}
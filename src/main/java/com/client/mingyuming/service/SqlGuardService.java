@@ -0,0 +1,253 @@
+package com.client.mingyuming.service;
+
+import com.client.mingyuming.util.SqlTokenizer;
+import com.client.mingyuming.util.SqlTokenizer.Token;
+import com.client.mingyuming.util.SqlTokenizer.Type;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 大模型生成 SQL 的执行前防护：只放行只读查询，自动注入/封顶 LIMIT，并用 EXPLAIN 拦截高代价查询
+ */
+@Slf4j
+@Service
+public class SqlGuardService {
+
+    public static final String GUARD_REJECT_MSG = "SQL安全校验未通过";
+
+    // 语句类关键字（不跟括号时出现即拒绝；INSERT/REPLACE 同名字符串函数允许）
+    private static final Set<String> FORBIDDEN_KEYWORDS = Set.of(
+            "INSERT", "UPDATE", "DELETE", "REPLACE", "MERGE", "DROP", "CREATE", "ALTER", "TRUNCATE",
+            "RENAME", "GRANT", "REVOKE", "LOCK", "UNLOCK", "CALL", "HANDLER", "INTO"
+    );
+    // 非保留字，仅在语句/加锁上下文中拒绝（LOAD DATA/XML、FOR SHARE、IN SHARE MODE），同名列允许
+    private static final Set<String> CONTEXTUAL_KEYWORDS = Set.of("LOAD", "SHARE");
+    // 危险函数（跟括号时拒绝）
+    private static final Set<String> FORBIDDEN_FUNCTIONS = Set.of(
+            "SLEEP", "BENCHMARK", "GET_LOCK", "RELEASE_LOCK", "LOAD_FILE"
+    );
+
+    @Value("${sql.guard.enabled:true}")
+    private boolean enabled;
+    @Value("${sql.guard.max-limit:1000}")
+    private long maxLimit;
+    @Value("${sql.guard.explain-enabled:true}")
+    private boolean explainEnabled;
+    @Value("${sql.guard.max-estimated-rows:1000000}")
+    private long maxEstimatedRows;
+    @Value("${sql.guard.max-full-scan-rows:100000}")
+    private long maxFullScanRows;
+    @Value("${sql.guard.max-execution-time-ms:10000}")
+    private long maxExecutionTimeMs;
+
+    private final ReadReplicaRouter readReplicaRouter;
+
+    // EXPLAIN 与实际执行走同一套读库路由
+    public SqlGuardService(ReadReplicaRouter readReplicaRouter) {
+        this.readReplicaRouter = readReplicaRouter;
+    }
+
+    /**
+     * 校验并改写 SQL
+     * @param sql 大模型生成的 SQL
+     * @return 改写后可安全执行的 SQL（已注入/封顶 LIMIT、执行时长提示）
+     * @throws IllegalArgumentException 非只读语句、多语句或 EXPLAIN 代价超限
+     */
+    public String guard(String sql) {
+        if (!enabled) {
+            return sql;
+        }
+        if (sql == null || sql.trim().isEmpty()) {
+            throw new IllegalArgumentException(GUARD_REJECT_MSG + "：SQL为空");
+        }
+
+        List<Token> tokens;
+        try {
+            tokens = SqlTokenizer.tokenize(sql);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(GUARD_REJECT_MSG + "：" + e.getMessage());
+        }
+        // 去掉末尾分号，中间出现分号视为多语句
+        int end = tokens.size();
+        while (end > 0 && tokens.get(end - 1).isSymbol(";")) {
+            end--;
+        }
+        if (end == 0) {
+            throw new IllegalArgumentException(GUARD_REJECT_MSG + "：SQL为空");
+        }
+        tokens = tokens.subList(0, end);
+        String body = sql.substring(0, tokens.get(end - 1).end());
+
+        // 1. 只读校验
+        checkReadOnly(tokens);
+
+        // 2. LIMIT 注入/封顶
+        String limited = applyLimit(body, tokens);
+
+        // 3. 注入执行时长提示（MySQL 5.7.8+ 优化器提示）
+        String hinted = applyExecutionTimeHint(limited);
+
+        // 4. EXPLAIN 代价评估
+        if (explainEnabled) {
+            checkExplainCost(hinted);
+        }
+
+        if (!hinted.equals(sql)) {
+            log.info("SQL防护改写：{} → {}", sql, hinted);
+        }
+        return hinted;
+    }
+
+    /**
+     * 只读校验：首个关键字必须是 SELECT/WITH（或括号包裹的查询），且不含写入/加锁/危险函数
+     */
+    private void checkReadOnly(List<Token> tokens) {
+        Token first = tokens.get(0);
+        if (!(first.isWord("SELECT") || first.isWord("WITH") || first.isSymbol("("))) {
+            throw new IllegalArgumentException(GUARD_REJECT_MSG + "：仅允许SELECT查询，实际为 " + first.text());
+        }
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            if (token.isSymbol(";")) {
+                throw new IllegalArgumentException(GUARD_REJECT_MSG + "：不允许多条语句");
+            }
+            if (token.type() != Type.WORD) {
+                continue;
+            }
+            boolean isCall = i + 1 < tokens.size() && tokens.get(i + 1).isSymbol("(");
+            String word = token.upper();
+            if (!isCall && (FORBIDDEN_KEYWORDS.contains(word)
+                    || CONTEXTUAL_KEYWORDS.contains(word) && inStatementContext(tokens, i))) {
+                throw new IllegalArgumentException(GUARD_REJECT_MSG + "：包含不允许的关键字 " + word);
+            }
+            if (isCall && FORBIDDEN_FUNCTIONS.contains(word)) {
+                throw new IllegalArgumentException(GUARD_REJECT_MSG + "：包含不允许的函数 " + word);
+            }
+        }
+    }
+
+    /**
+     * LOAD/SHARE 是否处于语句或加锁上下文：LOAD DATA / LOAD XML，FOR SHARE / IN SHARE MODE
+     */
+    private static boolean inStatementContext(List<Token> tokens, int i) {
+        Token previous = i > 0 ? tokens.get(i - 1) : null;
+        Token next = i + 1 < tokens.size() ? tokens.get(i + 1) : null;
+        if (tokens.get(i).isWord("LOAD")) {
+            return next != null && (next.isWord("DATA") || next.isWord("XML"));
+        }
+        return previous != null && (previous.isWord("FOR")
+                || previous.isWord("IN") && next != null && next.isWord("MODE"));
+    }
+
+    /**
+     * LIMIT 处理：无顶层 LIMIT 则追加；已有则把行数封顶到 max-limit
+     * 支持 LIMIT n / LIMIT offset, n / LIMIT n OFFSET offset
+     */
+    private String applyLimit(String sql, List<Token> tokens) {
+        int depth = 0;
+        int limitIndex = -1;
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            if (token.isSymbol("(")) {
+                depth++;
+            } else if (token.isSymbol(")")) {
+                depth--;
+            } else if (depth == 0 && token.isWord("LIMIT")) {
+                limitIndex = i;
+            }
+        }
+        if (limitIndex == -1) {
+            return sql + " LIMIT " + maxLimit;
+        }
+
+        // 定位行数所在的 token
+        int rowCountIndex = limitIndex + 1;
+        if (rowCountIndex + 2 < tokens.size() && tokens.get(rowCountIndex + 1).isSymbol(",")) {
+            rowCountIndex += 2;
+        }
+        if (rowCountIndex >= tokens.size() || tokens.get(rowCountIndex).type() != Type.NUMBER) {
+            throw new IllegalArgumentException(GUARD_REJECT_MSG + "：无法识别的LIMIT子句");
+        }
+        Token rowCount = tokens.get(rowCountIndex);
+        long requested;
+        try {
+            requested = Long.parseLong(rowCount.text());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(GUARD_REJECT_MSG + "：LIMIT行数无效 " + rowCount.text());
+        }
+        if (requested <= maxLimit) {
+            return sql;
+        }
+        return sql.substring(0, rowCount.start()) + maxLimit + sql.substring(rowCount.end());
+    }
+
+    /**
+     * 在顶层第一个 SELECT 后注入 MAX_EXECUTION_TIME 提示（已有优化器提示或以括号开头的查询不处理）
+     */
+    private String applyExecutionTimeHint(String sql) {
+        if (maxExecutionTimeMs <= 0 || sql.contains("/*+")) {
+            return sql;
+        }
+        int depth = 0;
+        for (Token token : SqlTokenizer.tokenize(sql)) {
+            if (token.isSymbol("(")) {
+                depth++;
+            } else if (token.isSymbol(")")) {
+                depth--;
+            } else if (depth == 0 && token.isWord("SELECT")) {
+                return sql.substring(0, token.end())
+                        + " /*+ MAX_EXECUTION_TIME(" + maxExecutionTimeMs + ") */"
+                        + sql.substring(token.end());
+            }
+        }
+        return sql;
+    }
+
+    /**
+     * EXPLAIN 代价评估：按 select id 分组，组内行数相乘（连接），组间相加；
+     * 任一表全表扫描行数超限或总预估行数超限即拒绝。EXPLAIN 自身失败时放行（LIMIT 已生效）
+     */
+    private void checkExplainCost(String sql) {
+        List<Map<String, Object>> plan;
+        try {
+            plan = readReplicaRouter.read(jdbc -> jdbc.queryForList("EXPLAIN " + sql));
+        } catch (Exception e) {
+            log.warn("EXPLAIN 执行失败，跳过代价评估：{}", e.getMessage());
+            return;
+        }
+
+        Map<String, Double> rowsById = new LinkedHashMap<>();
+        for (Map<String, Object> row : plan) {
+            long rows = toLong(row.get("rows"));
+            String type = String.valueOf(row.get("type"));
+            if ("ALL".equalsIgnoreCase(type) && rows > maxFullScanRows) {
+                throw new IllegalArgumentException(GUARD_REJECT_MSG + "：表 " + row.get("table")
+                        + " 全表扫描预估 " + rows + " 行，超过上限 " + maxFullScanRows);
+            }
+            rowsById.merge(String.valueOf(row.get("id")), (double) Math.max(rows, 1), (a, b) -> a * b);
+        }
+        double estimated = rowsById.values().stream().mapToDouble(Double::doubleValue).sum();
+        log.debug("EXPLAIN 预估扫描行数：{}，SQL：{}", estimated, sql);
+        if (estimated > maxEstimatedRows) {
+            throw new IllegalArgumentException(GUARD_REJECT_MSG + "：预估扫描 " + (long) estimated
+                    + " 行，超过上限 " + maxEstimatedRows);
+        }
+    }
+
+    private long toLong(Object value) {
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        try {
+            return value == null ? 0 : Long.parseLong(value.toString());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
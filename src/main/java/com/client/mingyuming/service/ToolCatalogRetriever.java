@@ -0,0 +1,115 @@
+package com.client.mingyuming.service;
+
+import com.client.mingyuming.service.ToolRegistry.ParamSpec;
+import com.client.mingyuming.service.ToolRegistry.ToolSpec;
+import com.client.mingyuming.util.Bm25Index;
+import com.client.mingyuming.util.Bm25Index.Hit;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 工具清单裁剪：用 BM25 按问题给工具说明打分，得分接近最高分的工具视为相关，只把相关工具放进工具选择提示词；
+ * 最高分过低（问题与任何工具都不明显相关），或相关工具多于 top-k（裁剪会截断多工具链）时退回完整清单
+ */
+@Slf4j
+@Service
+public class ToolCatalogRetriever {
+
+    @Value("${tool.catalog.enabled:true}")
+    private boolean enabled;
+    @Value("${tool.catalog.top-k:2}")
+    private int topK;
+    @Value("${tool.catalog.min-score:1.0}")
+    private double minScore;
+    @Value("${tool.catalog.min-ratio:0.5}")
+    private double minRatio;
+
+    private final ToolRegistry toolRegistry;
+    private final MeterRegistry meterRegistry;
+    private final Bm25Index<String> index = new Bm25Index<>();
+
+    public ToolCatalogRetriever(ToolRegistry toolRegistry, MeterRegistry meterRegistry) {
+        this.toolRegistry = toolRegistry;
+        this.meterRegistry = meterRegistry;
+        for (ToolSpec spec : toolRegistry.all()) {
+            String params = spec.params().stream()
+                    .map(p -> p.name() + " " + p.description())
+                    .collect(Collectors.joining(" "));
+            index.add(spec.name(), String.join(" ", spec.name().replace('-', ' '), spec.description(), spec.keywords(), params));
+        }
+    }
+
+    /**
+     * 选出与问题相关的工具
+     * @param question   用户问题（含补充信息）
+     * @param candidates 可选工具名（结果按该顺序返回，保持提示词稳定）
+     * @param alwaysKeep 始终保留的工具（如兜底的知识问答）
+     * @return 裁剪后的工具名；不裁剪时返回全部候选
+     */
+    public List<String> select(String question, Collection<String> candidates, Collection<String> alwaysKeep) {
+        if (!enabled || topK <= 0 || topK >= candidates.size()) {
+            return List.copyOf(candidates);
+        }
+        List<Hit<String>> hits = index.search(question).stream()
+                .filter(hit -> candidates.contains(hit.item()))
+                .toList();
+        if (hits.isEmpty() || hits.get(0).score() < minScore) {
+            meterRegistry.counter("tool.catalog.select", "result", "fallback").increment();
+            log.info("工具清单检索得分过低（{}），使用完整清单", hits.isEmpty() ? 0 : String.format("%.2f", hits.get(0).score()));
+            return List.copyOf(candidates);
+        }
+        double threshold = Math.max(minScore, hits.get(0).score() * minRatio);
+        List<Hit<String>> relevant = hits.stream().filter(hit -> hit.score() >= threshold).toList();
+        if (relevant.size() > topK) {
+            meterRegistry.counter("tool.catalog.select", "result", "ambiguous").increment();
+            log.info("工具清单检索相关工具 {} 个（多于 top-k={}），使用完整清单", relevant.size(), topK);
+            return List.copyOf(candidates);
+        }
+        Set<String> selected = new LinkedHashSet<>(alwaysKeep);
+        relevant.forEach(hit -> selected.add(hit.item()));
+        List<String> ordered = candidates.stream().filter(selected::contains).toList();
+        meterRegistry.counter("tool.catalog.select", "result", "pruned").increment();
+        log.info("工具清单裁剪：{} → {}", candidates.size(), ordered);
+        return ordered;
+    }
+
+    /**
+     * HARD 难度工具选择清单：每个工具一行，含参数约束
+     */
+    public String buildCatalog(List<String> toolNames) {
+        StringBuilder catalog = new StringBuilder();
+        int index = 1;
+        for (String name : toolNames) {
+            ToolSpec spec = toolRegistry.get(name);
+            if (spec == null) {
+                continue;
+            }
+            catalog.append(index++).append(". ").append(spec.name()).append("：").append(spec.description());
+            if (spec.params().isEmpty()) {
+                catalog.append("，无参数");
+            } else {
+                catalog.append("，参数：").append(spec.params().stream()
+                        .map(this::describeParam)
+                        .collect(Collectors.joining("、")));
+            }
+            catalog.append('\n');
+        }
+        return catalog.toString();
+    }
+
+    private String describeParam(ParamSpec param) {
+        StringBuilder text = new StringBuilder(param.name()).append("（").append(param.description());
+        if (!param.enumValues().isEmpty()) {
+            text.append("，可选值：").append(String.join("/", param.enumValues()));
+        }
+        return text.append(param.required() ? "，必填" : "，可选").append("）").toString();
+    }
+}
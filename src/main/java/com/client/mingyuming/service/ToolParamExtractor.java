@@ -0,0 +1,327 @@
+package com.client.mingyuming.service;
+
+import com.google.gson.Gson;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 确定性工具参数提取：问题中工具类型明确、必填参数唯一且格式合法时，直接构造工具决策 JSON，
+ * 省去一次工具决策大模型调用；任何歧义（多个候选工具、同一参数多个取值、缺参）均返回空，交由大模型处理
+ */
+@Slf4j
+@Service
+public class ToolParamExtractor {
+
+    // 工具触发词
+    private static final Map<String, Pattern> TOOL_TRIGGERS = Map.of(
+            "credit-card-tool", Pattern.compile("信用卡"),
+            "exchange-rate-tool", Pattern.compile("汇率|兑换|换成|换算|兑"),
+            "utility-bill-tool", Pattern.compile("水费|电费|燃气费|煤气费|水电煤|户号"),
+            "user-asset-tool", Pattern.compile("资产|房产|名下"),
+            "payment-order-tool", Pattern.compile("支付订单|收款码|创建订单|下单"),
+            ChatService.CURRENT_DATE_TOOL, Pattern.compile("今天几号|今天日期|当前日期|今天是几月几|现在日期|今天是什么日子"),
+            ChatService.CALCULATOR_TOOL, Pattern.compile("计算|等于多少|结果是多少|等于几")
+    );
+
+    private static final Pattern CARD_NUMBER = Pattern.compile("(?<!\\d)\\d{16,19}(?!\\d)");
+    private static final Pattern ID_CARD = Pattern.compile("(?<![0-9A-Za-z])\\d{17}[0-9Xx](?![0-9A-Za-z])");
+    private static final Pattern HOUSEHOLD_ID = Pattern.compile("(?<![0-9A-Za-z])[A-Z]{2}\\d{6,}(?!\\d)");
+    private static final Pattern MERCHANT_ID = Pattern.compile("(?<![0-9A-Za-z])M\\d+(?!\\d)");
+    private static final Pattern ORDER_ID = Pattern.compile("(?<![0-9A-Za-z])ORD\\w+");
+    private static final Pattern MONTH = Pattern.compile("(?<!\\d)(\\d{4})\\s*[-/年]\\s*(\\d{1,2})(?:\\s*月)?(?!\\d)");
+    private static final Pattern AMOUNT_YUAN = Pattern.compile("(\\d+(?:\\.\\d+)?)\\s*元");
+    private static final Pattern EXPRESSION = Pattern.compile("(?:sqrt|[0-9.()（）+\\-*/^×÷\\s])+");
+    // 形如算式但实为日期/年份区间（2025-09、2023-2024）
+    private static final Pattern DATE_LIKE = Pattern.compile("\\d{4}\\s*-\\s*\\d{1,4}(\\s*-\\s*\\d{1,2})?");
+    // 汇率问题中方向不明确的说法（如“需要多少美元才能换100人民币”）
+    private static final Pattern REVERSE_EXCHANGE = Pattern.compile("需要多少|要多少|才能");
+
+    // 货币名称 → 代码
+    private static final Map<String, String> CURRENCIES = new LinkedHashMap<>();
+
+    static {
+        CURRENCIES.put("人民币", "CNY");
+        CURRENCIES.put("美元", "USD");
+        CURRENCIES.put("美金", "USD");
+        CURRENCIES.put("欧元", "EUR");
+        CURRENCIES.put("日元", "JPY");
+        CURRENCIES.put("英镑", "GBP");
+        CURRENCIES.put("韩元", "KRW");
+        for (String code : List.of("USD", "CNY", "EUR", "JPY", "GBP", "KRW")) {
+            CURRENCIES.put(code, code);
+        }
+    }
+
+    private static final Pattern CURRENCY = Pattern.compile(
+            "(\\d+(?:\\.\\d+)?)?\\s*(万)?\\s*(" + String.join("|", CURRENCIES.keySet()) + ")");
+
+    @Value("${tool.extractor.enabled:true}")
+    private boolean enabled;
+
+    private final ToolRegistry toolRegistry;
+    private final MeterRegistry meterRegistry;
+    private final Gson gson = new Gson();
+
+    public ToolParamExtractor(ToolRegistry toolRegistry, MeterRegistry meterRegistry) {
+        this.toolRegistry = toolRegistry;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 提取结果
+     * @param toolName 工具名
+     * @param params   参数（已按 ToolRegistry 约束校验）
+     */
+    public record Extraction(String toolName, Map<String, Object> params) {
+    }
+
+    /**
+     * HARD 难度决策 JSON：{"toolName":"...","parameters":{...}}
+     */
+    public Optional<String> extractDecision(String question, String content) {
+        return extract(question, content).map(e -> {
+            Map<String, Object> decision = new LinkedHashMap<>();
+            decision.put("toolName", e.toolName());
+            decision.put("parameters", e.params());
+            return gson.toJson(decision);
+        });
+    }
+
+    /**
+     * 工具调用指令 JSON（参数与 toolName 同级）：{"toolName":"...","cardNumber":"..."}
+     */
+    public Optional<String> extractToolCommand(String question, String content) {
+        return extract(question, content).map(e -> {
+            Map<String, Object> command = new LinkedHashMap<>();
+            command.put("toolName", e.toolName());
+            command.putAll(e.params());
+            return gson.toJson(command);
+        });
+    }
+
+    public Optional<Extraction> extract(String question, String content) {
+        if (!enabled || question == null || question.isBlank()) {
+            return Optional.empty();
+        }
+        String text = content == null || content.isBlank() ? question : question + "\n" + content;
+
+        List<String> candidates = new ArrayList<>();
+        TOOL_TRIGGERS.forEach((tool, trigger) -> {
+            if (trigger.matcher(text).find()) {
+                candidates.add(tool);
+            }
+        });
+        // 信用卡账单与资产查询常同时出现“信用卡”，带身份证号时按资产查询
+        if (candidates.contains("credit-card-tool") && candidates.contains("user-asset-tool")) {
+            candidates.remove(ID_CARD.matcher(text).find() ? "credit-card-tool" : "user-asset-tool");
+        }
+        if (candidates.size() != 1) {
+            return miss(candidates.isEmpty() ? "no_tool" : "multi_tool");
+        }
+
+        String toolName = candidates.get(0);
+        Map<String, Object> params = switch (toolName) {
+            case "credit-card-tool" -> creditCardParams(text);
+            case "exchange-rate-tool" -> exchangeRateParams(text);
+            case "utility-bill-tool" -> utilityBillParams(text);
+            case "user-asset-tool" -> userAssetParams(text);
+            case "payment-order-tool" -> paymentOrderParams(text);
+            case ChatService.CURRENT_DATE_TOOL -> new LinkedHashMap<>();
+            case ChatService.CALCULATOR_TOOL -> calculatorParams(question);
+            default -> null;
+        };
+        if (params == null) {
+            return miss("ambiguous_param");
+        }
+        if (!toolRegistry.validate(toolName, params)) {
+            return miss("invalid_param");
+        }
+        log.info("本地提取工具参数：{} {}", toolName, params);
+        meterRegistry.counter("tool.extractor", "result", "hit", "tool", toolName).increment();
+        return Optional.of(new Extraction(toolName, params));
+    }
+
+    private Optional<Extraction> miss(String reason) {
+        meterRegistry.counter("tool.extractor", "result", reason, "tool", "none").increment();
+        return Optional.empty();
+    }
+
+    private Map<String, Object> creditCardParams(String text) {
+        Set<String> cards = all(CARD_NUMBER, text, 0);
+        // 18 位身份证号也落在卡号长度范围内：提到身份证时，身份证形态的号码不作卡号
+        if (text.contains("身份证")) {
+            cards.removeIf(number -> ID_CARD.matcher(number).matches());
+        }
+        String card = cards.size() == 1 ? cards.iterator().next() : null;
+        String month = uniqueMonth(text);
+        if (card == null || month == null) {
+            return null;
+        }
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("cardNumber", card);
+        params.put("month", month);
+        return params;
+    }
+
+    /**
+     * 按出现顺序取两种货币：先出现的为源货币，其前面的数字为金额；
+     * 问题含数字但不在源货币前（如“人民币100元换成美元”）时金额无法确定，返回空
+     */
+    private Map<String, Object> exchangeRateParams(String text) {
+        if (REVERSE_EXCHANGE.matcher(text).find()) {
+            return null;
+        }
+        List<String> codes = new ArrayList<>();
+        BigDecimal amount = null;
+        Matcher matcher = CURRENCY.matcher(text);
+        while (matcher.find()) {
+            String code = CURRENCIES.get(matcher.group(3));
+            if (codes.contains(code)) {
+                continue;
+            }
+            if (codes.isEmpty() && matcher.group(1) != null) {
+                amount = new BigDecimal(matcher.group(1));
+                if (matcher.group(2) != null) {
+                    amount = amount.multiply(BigDecimal.valueOf(10_000));
+                }
+            }
+            codes.add(code);
+        }
+        if (codes.size() != 2 || (amount == null && text.matches("(?s).*\\d.*"))) {
+            return null;
+        }
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("fromCurrency", codes.get(0));
+        params.put("toCurrency", codes.get(1));
+        if (amount != null) {
+            params.put("amount", amount.stripTrailingZeros().toPlainString());
+        }
+        return params;
+    }
+
+    private Map<String, Object> utilityBillParams(String text) {
+        String householdId = unique(HOUSEHOLD_ID, text);
+        String month = uniqueMonth(text);
+        if (householdId == null || month == null) {
+            return null;
+        }
+        Set<String> types = new LinkedHashSet<>();
+        if (text.contains("水费") || text.contains("用水")) {
+            types.add("water");
+        }
+        if (text.contains("电费") || text.contains("用电")) {
+            types.add("electricity");
+        }
+        if (text.contains("燃气") || text.contains("煤气")) {
+            types.add("gas");
+        }
+        if (types.size() > 1) {
+            return null;
+        }
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("householdId", householdId);
+        params.put("month", month);
+        types.forEach(type -> params.put("utilityType", type));
+        return params;
+    }
+
+    private Map<String, Object> userAssetParams(String text) {
+        String customerId = unique(ID_CARD, text);
+        if (customerId == null) {
+            return null;
+        }
+        boolean household = text.contains("房产") || text.contains("房屋");
+        boolean card = text.contains("信用卡") || text.contains("卡资产");
+        if (household && card) {
+            return null;
+        }
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("customerId", customerId);
+        if (household) {
+            params.put("assetType", "household");
+        } else if (card) {
+            params.put("assetType", "card");
+        }
+        return params;
+    }
+
+    private Map<String, Object> paymentOrderParams(String text) {
+        String merchantId = unique(MERCHANT_ID, text);
+        String orderId = unique(ORDER_ID, text);
+        if (merchantId == null || orderId == null) {
+            return null;
+        }
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("merchantId", merchantId);
+        params.put("orderId", orderId);
+        Set<String> amounts = all(AMOUNT_YUAN, text, 1);
+        if (amounts.size() > 1) {
+            return null;
+        }
+        amounts.forEach(amount -> params.put("amount", amount));
+        return params;
+    }
+
+    /**
+     * 计算表达式：问题中唯一一段含运算符的算式（只在问题本身中查找，不看选项）
+     */
+    private Map<String, Object> calculatorParams(String question) {
+        List<String> expressions = new ArrayList<>();
+        Matcher matcher = EXPRESSION.matcher(question);
+        while (matcher.find()) {
+            String candidate = matcher.group().trim();
+            if (candidate.matches(".*\\d.*") && candidate.matches(".*[+\\-*/^×÷].*|.*sqrt.*")
+                    && !DATE_LIKE.matcher(candidate).matches()) {
+                expressions.add(candidate);
+            }
+        }
+        if (expressions.size() != 1) {
+            return null;
+        }
+        String expression = expressions.get(0)
+                .replace('×', '*').replace('÷', '/').replace('（', '(').replace('）', ')');
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("expression", expression);
+        return params;
+    }
+
+    private String uniqueMonth(String text) {
+        Set<String> months = new LinkedHashSet<>();
+        Matcher matcher = MONTH.matcher(text);
+        while (matcher.find()) {
+            int month = Integer.parseInt(matcher.group(2));
+            if (month < 1 || month > 12) {
+                return null;
+            }
+            months.add(matcher.group(1) + "-" + String.format("%02d", month));
+        }
+        return months.size() == 1 ? months.iterator().next() : null;
+    }
+
+    private static String unique(Pattern pattern, String text) {
+        Set<String> values = all(pattern, text, 0);
+        return values.size() == 1 ? values.iterator().next() : null;
+    }
+
+    private static Set<String> all(Pattern pattern, String text, int group) {
+        Set<String> values = new LinkedHashSet<>();
+        Matcher matcher = pattern.matcher(text);
+        while (matcher.find()) {
+            values.add(matcher.group(group));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,136 @@
+package com.client.mingyuming.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 工具清单：工具名、用途说明及参数约束（必填/枚举/格式），供本地参数提取与校验复用
+ */
+@Component
+public class ToolRegistry {
+
+    /**
+     * 参数约束
+     * @param name        参数名
+     * @param type        string / number
+     * @param required    是否必填
+     * @param pattern     取值格式（null 表示不限）
+     * @param enumValues  可选值（空表示不限）
+     * @param maxLength   取值最大长度（用于约束解码和估算生成 token 数）
+     * @param description 参数说明
+     */
+    public record ParamSpec(String name, String type, boolean required, Pattern pattern,
+                            List<String> enumValues, int maxLength, String description) {
+
+        public boolean accepts(Object value) {
+            if (value == null) {
+                return !required;
+            }
+            String text = value.toString();
+            if (pattern != null && !pattern.matcher(text).matches()) {
+                return false;
+            }
+            return enumValues.isEmpty() || enumValues.contains(text);
+        }
+    }
+
+    /**
+     * 工具定义
+     * @param name        工具名
+     * @param description 用途说明
+     * @param keywords    检索用关键词与示例值（工具清单裁剪时与问题做 BM25 匹配）
+     * @param params      参数约束（有序）
+     */
+    public record ToolSpec(String name, String description, String keywords, List<ParamSpec> params) {
+    }
+
+    private final Map<String, ToolSpec> tools = new LinkedHashMap<>();
+
+    public ToolRegistry() {
+        register(new ToolSpec(ChatService.DATA_QUERY_TOOL, "处理需要查询数据库的问题",
+                "统计 查询 数据 交易 金额 笔数 总额 客户 商户 机构 排名 最多 最高 最低 平均 占比 同比 环比 年度 季度",
+                List.of()));
+        register(new ToolSpec(ChatService.KNOWLEDGE_QA_TOOL, "处理常识性问题",
+                "是什么 什么是 定义 含义 概念 规定 原则 区别 为什么 如何 怎么 哪些 属于 业务 知识 银联",
+                List.of()));
+        register(new ToolSpec("credit-card-tool", "查询信用卡月度账单",
+                "信用卡 账单 月度账单 卡号 账单月 还款 应还 最低还款 截止日期 6211111111111111 2025-09",
+                List.of(
+                        required("cardNumber", "\\d{16,19}", 19, "信用卡号，纯数字字符串"),
+                        required("month", "\\d{4}-(0[1-9]|1[0-2])", 7, "账单月，格式YYYY-MM"))));
+        register(new ToolSpec("exchange-rate-tool", "汇率查询与转换",
+                "汇率 兑换 换算 换成 折合 货币 外币 美元 人民币 欧元 日元 英镑 韩元 USD CNY EUR JPY GBP KRW",
+                List.of(
+                        requiredEnum("fromCurrency", List.of("USD", "CNY", "EUR", "JPY", "GBP", "KRW"), "源货币代码"),
+                        requiredEnum("toCurrency", List.of("USD", "CNY", "EUR", "JPY", "GBP", "KRW"), "目标货币代码"),
+                        optional("amount", "number", "\\d+(\\.\\d+)?", List.of(), 16, "转换金额，默认1"))));
+        register(new ToolSpec("utility-bill-tool", "查询水电煤月度账单",
+                "水电煤 水费 电费 燃气费 煤气 用水 用电 用量 户号 缴费 账单 BJ001234567 2025-09",
+                List.of(
+                        required("householdId", "[A-Z]{2}\\d{6,}", 20, "户号"),
+                        required("month", "\\d{4}-(0[1-9]|1[0-2])", 7, "账单月，格式YYYY-MM"),
+                        optional("utilityType", "string", null, List.of("electricity", "water", "gas"), 11, "账单类型，默认electricity"))));
+        register(new ToolSpec("user-asset-tool", "查询用户资产",
+                "用户 资产 名下 房产 信用卡资产 身份证 客户 几张卡 110101199003072845",
+                List.of(
+                        required("customerId", "\\d{17}[0-9Xx]", 18, "用户ID，身份证号"),
+                        optional("assetType", "string", null, List.of("card", "household"), 9, "资产类型，默认card"))));
+        register(new ToolSpec("payment-order-tool", "创建支付订单",
+                "支付 订单 创建订单 下单 收款码 二维码 商户号 订单号 M123456 ORD2025001",
+                List.of(
+                        required("merchantId", "M\\d+", 20, "商户号"),
+                        required("orderId", "ORD\\w+", 32, "订单号"),
+                        optional("amount", "number", "\\d+(\\.\\d+)?", List.of(), 16, "订单金额"))));
+        register(new ToolSpec(ChatService.CURRENT_DATE_TOOL, "获取当前日期（东八区，YYYY-MM-DD）",
+                "今天 当前日期 日期 几号 星期 现在 今日",
+                List.of()));
+        register(new ToolSpec(ChatService.CALCULATOR_TOOL, "计算数学表达式（四则运算、sqrt、^）",
+                "计算 等于 结果 加 减 乘 除 平方根 开方 次方 sqrt + - * / ^ 3+5*2",
+                List.of(required("expression", "[0-9A-Za-z.+\\-*/^()%\\s]+", 128, "数学表达式字符串"))));
+    }
+
+    public ToolSpec get(String name) {
+        return tools.get(name);
+    }
+
+    public List<ToolSpec> all() {
+        return List.copyOf(tools.values());
+    }
+
+    /**
+     * 按工具约束校验参数：必填齐全、取值合法、无未定义参数
+     */
+    public boolean validate(String toolName, Map<String, Object> params) {
+        ToolSpec spec = tools.get(toolName);
+        if (spec == null) {
+            return false;
+        }
+        for (ParamSpec param : spec.params()) {
+            if (!param.accepts(params.get(param.name()))) {
+                return false;
+            }
+        }
+        return spec.params().stream().map(ParamSpec::name).toList().containsAll(params.keySet());
+    }
+
+    private void register(ToolSpec spec) {
+        tools.put(spec.name(), spec);
+    }
+
+    private static ParamSpec required(String name, String regex, int maxLength, String description) {
+        return new ParamSpec(name, "string", true, Pattern.compile(regex), List.of(), maxLength, description);
+    }
+
+    private static ParamSpec requiredEnum(String name, List<String> values, String description) {
+        int maxLength = values.stream().mapToInt(String::length).max().orElse(0);
+        return new ParamSpec(name, "string", true, null, values, maxLength, description);
+    }
+
+    private static ParamSpec optional(String name, String type, String regex, List<String> values, int maxLength, String description) {
+        return new ParamSpec(name, type, false, regex == null ? null : Pattern.compile(regex), values, maxLength, description);
+    }
+}
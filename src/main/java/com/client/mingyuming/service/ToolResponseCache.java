@@ -0,0 +1,123 @@
+package com.client.mingyuming.service;
+
+import com.client.mingyuming.config.ToolCacheProperties;
+import com.client.mingyuming.util.TtlCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * 工具 API 响应缓存：按“工具名 + 排序后的参数”缓存原始响应（只读），TTL 按工具配置
+ * （汇率秒级；账单查询已结账月份使用 closed-month-ttl 长期缓存），总容量超限按 LRU 淘汰；
+ * 创建支付订单等有副作用的工具始终不缓存
+ */
+@Slf4j
+@Service
+public class ToolResponseCache {
+
+    // 有副作用的工具：无论配置如何都不缓存
+    private static final String PAYMENT_ORDER_TOOL = "payment-order-tool";
+    private static final ZoneId ZONE = ZoneId.of("Asia/Shanghai");
+
+    private final ToolCacheProperties properties;
+    private final MeterRegistry meterRegistry;
+    // 按字符串形式长度估算字节数（UTF-16 每字符 2 字节，外加记录本身的固定开销）
+    private final TtlCache<String, Map<String, Object>> cache;
+
+    public ToolResponseCache(ToolCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.cache = new TtlCache<>(properties.getMaxBytes(), (key, value) -> 2L * (key.length() + value.toString().length()) + 64);
+        Gauge.builder("tool.cache.size", cache, TtlCache::size).register(meterRegistry);
+        Gauge.builder("tool.cache.weight", cache, TtlCache::weight).baseUnit("bytes").register(meterRegistry);
+        FunctionCounter.builder("tool.cache.evictions", cache, TtlCache::evictions).register(meterRegistry);
+    }
+
+    /**
+     * 查询缓存
+     * @return 未命中、已过期或该工具不缓存时为空
+     */
+    public Optional<Map<String, Object>> get(String toolName, Map<String, Object> params) {
+        if (ttlFor(toolName, params).isEmpty()) {
+            record(toolName, "bypass");
+            return Optional.empty();
+        }
+        Map<String, Object> value = cache.get(key(toolName, params));
+        record(toolName, value == null ? "miss" : "hit");
+        return Optional.ofNullable(value);
+    }
+
+    /**
+     * 写入缓存（调用方只写入成功的响应）
+     */
+    public void put(String toolName, Map<String, Object> params, Map<String, Object> response) {
+        ttlFor(toolName, params).ifPresent(ttl ->
+                cache.put(key(toolName, params), Collections.unmodifiableMap(response), ttl.toNanos()));
+    }
+
+    /**
+     * 工具的缓存时间：payment-order-tool 及未配置的工具不缓存；
+     * 带 month 参数且早于当前月（已结账）的账单使用 closed-month-ttl
+     */
+    private Optional<Duration> ttlFor(String toolName, Map<String, Object> params) {
+        if (!properties.isEnabled() || PAYMENT_ORDER_TOOL.equals(toolName)) {
+            return Optional.empty();
+        }
+        Duration ttl = properties.getTtl().get(toolName);
+        if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+            return Optional.empty();
+        }
+        Object month = params.get("month");
+        if (month != null && isClosedMonth(month.toString())) {
+            return Optional.of(properties.getClosedMonthTtl().compareTo(ttl) > 0 ? properties.getClosedMonthTtl() : ttl);
+        }
+        return Optional.of(ttl);
+    }
+
+    private boolean isClosedMonth(String month) {
+        try {
+            return YearMonth.parse(month.trim()).isBefore(YearMonth.now(ZONE));
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 缓存键：工具名 + 按参数名排序的参数；数字统一为最简形式（100.0 与 100 视为相同）
+     */
+    static String key(String toolName, Map<String, Object> params) {
+        return toolName + "?" + new TreeMap<>(params).entrySet().stream()
+                .map(e -> e.getKey() + "=" + normalize(e.getValue()))
+                .collect(Collectors.joining("&"));
+    }
+
+    private static String normalize(Object value) {
+        if (value instanceof Number number) {
+            try {
+                return new BigDecimal(number.toString()).stripTrailingZeros().toPlainString();
+            } catch (NumberFormatException e) {
+                return number.toString();
+            }
+        }
+        return String.valueOf(value).trim();
+    }
+
+    private void record(String toolName, String result) {
+        Counter.builder("tool.cache.requests").tag("tool", toolName).tag("result", result)
+                .register(meterRegistry).increment();
+    }
+}
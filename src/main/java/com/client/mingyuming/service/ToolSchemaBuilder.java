@@ -0,0 +1,201 @@
+package com.client.mingyuming.service;
+
+import com.client.mingyuming.service.ToolRegistry.ParamSpec;
+import com.client.mingyuming.service.ToolRegistry.ToolSpec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 由工具清单生成工具决策的 JSON Schema（供模型服务做约束解码），并据此估算生成所需的 max_tokens
+ */
+@Component
+public class ToolSchemaBuilder {
+
+    // toolName=none 时 message 的最大长度
+    private static final int NONE_MESSAGE_MAX_LENGTH = 64;
+    private static final int NONE_ERROR_MAX_LENGTH = 32;
+    // 自由文本按每字 2 个 token 估算（中文），其余按每字符 1 个 token 估算（上界）
+    private static final int FREE_TEXT_TOKENS_PER_CHAR = 2;
+    private static final int NUMBER_MAX_LENGTH = 16;
+    private static final int TOKEN_MARGIN = 8;
+    // 多工具调用：id 格式、单个调用的参数值长度与参数个数（估算用）
+    private static final String CALL_ID_PATTERN = "[a-z][a-z0-9_]{0,11}";
+    private static final int CALL_ID_MAX_LENGTH = 12;
+    private static final int CALL_PARAM_MAX_LENGTH = 48;
+    private static final int FREE_PARAMS_ESTIMATE = 3;
+    private static final int PARAM_NAME_ESTIMATE = 16;
+
+    @Value("${tool.parallel.enabled:true}")
+    private boolean multiToolEnabled;
+    @Value("${tool.parallel.max-calls:4}")
+    private int maxToolCalls;
+
+    private final ToolRegistry toolRegistry;
+
+    public ToolSchemaBuilder(ToolRegistry toolRegistry) {
+        this.toolRegistry = toolRegistry;
+    }
+
+    /**
+     * 工具决策 Schema
+     * @param toolNames 允许的工具（与提示词中的工具清单一致）
+     * @param nested    true：参数放在 parameters 对象中（HARD 难度，清单含两个以上业务工具时另允许 toolCalls 多工具调用）；false：参数与 toolName 同级
+     */
+    public Map<String, Object> decisionSchema(Collection<String> toolNames, boolean nested) {
+        List<Object> variants = new ArrayList<>();
+        for (String name : toolNames) {
+            ToolSpec spec = toolRegistry.get(name);
+            if (spec == null) {
+                continue;
+            }
+            Map<String, Object> paramProperties = new LinkedHashMap<>();
+            List<String> paramRequired = new ArrayList<>();
+            for (ParamSpec param : spec.params()) {
+                paramProperties.put(param.name(), paramSchema(param));
+                if (param.required()) {
+                    paramRequired.add(param.name());
+                }
+            }
+
+            Map<String, Object> properties = new LinkedHashMap<>();
+            List<String> required = new ArrayList<>();
+            properties.put("toolName", Map.of("const", name));
+            required.add("toolName");
+            if (nested) {
+                properties.put("parameters", objectSchema(paramProperties, paramRequired));
+                required.add("parameters");
+            } else {
+                properties.putAll(paramProperties);
+                required.addAll(paramRequired);
+            }
+            variants.add(objectSchema(properties, required));
+        }
+
+        // 无需工具
+        Map<String, Object> noneProperties = new LinkedHashMap<>();
+        noneProperties.put("toolName", Map.of("const", "none"));
+        noneProperties.put("message", Map.of("type", "string", "maxLength", NONE_MESSAGE_MAX_LENGTH));
+        noneProperties.put("error", Map.of("type", "string", "maxLength", NONE_ERROR_MAX_LENGTH));
+        variants.add(objectSchema(noneProperties, List.of("toolName")));
+
+        if (nested && allowsToolCalls(toolNames)) {
+            variants.add(toolCallsSchema(toolNames));
+        }
+        return Map.of("anyOf", variants);
+    }
+
+    /**
+     * 嵌套格式的决策是否允许 toolCalls 多工具调用（提示词据此决定是否说明该格式）：
+     * toolCalls 分支的长度上界远大于单工具分支（max_tokens 会直接取到上限），只在开启多工具且清单含两个以上业务工具时允许
+     */
+    public boolean allowsToolCalls(Collection<String> toolNames) {
+        long businessTools = toolNames.stream().filter(name -> !ChatService.KNOWLEDGE_QA_TOOL.equals(name)).count();
+        return multiToolEnabled && maxToolCalls > 1 && businessTools > 1;
+    }
+
+    /**
+     * 多工具调用：toolCalls 数组，每项含 id、toolName、parameters（值可为 ${id.field} 引用，故只约束为字符串或数字）及 dependsOn
+     */
+    private Map<String, Object> toolCallsSchema(Collection<String> toolNames) {
+        Map<String, Object> idSchema = Map.of("type", "string", "pattern", "^" + CALL_ID_PATTERN + "$",
+                "maxLength", CALL_ID_MAX_LENGTH);
+        Map<String, Object> paramValue = Map.of("anyOf", List.of(
+                Map.of("type", "string", "maxLength", CALL_PARAM_MAX_LENGTH),
+                Map.of("type", "number")));
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("type", "object");
+        parameters.put("additionalProperties", paramValue);
+
+        Map<String, Object> callProperties = new LinkedHashMap<>();
+        callProperties.put("id", idSchema);
+        callProperties.put("toolName", Map.of("enum", List.copyOf(toolNames)));
+        callProperties.put("parameters", parameters);
+        callProperties.put("dependsOn", Map.of("type", "array", "items", idSchema, "maxItems", maxToolCalls - 1));
+
+        Map<String, Object> toolCalls = new LinkedHashMap<>();
+        toolCalls.put("type", "array");
+        toolCalls.put("items", objectSchema(callProperties, List.of("id", "toolName", "parameters")));
+        toolCalls.put("minItems", 2);
+        toolCalls.put("maxItems", maxToolCalls);
+        return objectSchema(new LinkedHashMap<>(Map.of("toolCalls", toolCalls)), List.of("toolCalls"));
+    }
+
+    /**
+     * 按 Schema 估算输出的最大 token 数：各分支取最长的紧凑 JSON 长度
+     */
+    public int estimateMaxTokens(Map<String, Object> schema) {
+        return estimate(schema) + TOKEN_MARGIN;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int estimate(Map<String, Object> schema) {
+        if (schema.containsKey("anyOf")) {
+            return ((List<Map<String, Object>>) schema.get("anyOf")).stream().mapToInt(this::estimate).max().orElse(0);
+        }
+        if (schema.containsKey("const")) {
+            return schema.get("const").toString().length() + 2;
+        }
+        if (schema.containsKey("enum")) {
+            return ((List<String>) schema.get("enum")).stream().mapToInt(String::length).max().orElse(0) + 2;
+        }
+        String type = (String) schema.get("type");
+        if ("array".equals(type)) {
+            int maxItems = (Integer) schema.getOrDefault("maxItems", 1);
+            return 2 + maxItems * (estimate((Map<String, Object>) schema.get("items")) + 1);
+        }
+        if ("object".equals(type) && !schema.containsKey("properties")) {
+            // 自由键值对象（多工具调用的 parameters）按固定参数个数估算
+            Map<String, Object> valueSchema = (Map<String, Object>) schema.get("additionalProperties");
+            return 2 + FREE_PARAMS_ESTIMATE * (PARAM_NAME_ESTIMATE + 6 + estimate(valueSchema));
+        }
+        if ("object".equals(type)) {
+            Map<String, Map<String, Object>> properties = (Map<String, Map<String, Object>>) schema.get("properties");
+            int length = 2;
+            for (Map.Entry<String, Map<String, Object>> property : properties.entrySet()) {
+                // 键名引号、冒号、逗号，以及语法允许的分隔空白
+                length += property.getKey().length() + 6 + estimate(property.getValue());
+            }
+            return length;
+        }
+        if ("number".equals(type)) {
+            return NUMBER_MAX_LENGTH;
+        }
+        int maxLength = (Integer) schema.getOrDefault("maxLength", NONE_MESSAGE_MAX_LENGTH);
+        return (schema.containsKey("pattern") ? maxLength : maxLength * FREE_TEXT_TOKENS_PER_CHAR) + 2;
+    }
+
+    private Map<String, Object> paramSchema(ParamSpec param) {
+        Map<String, Object> schema = new LinkedHashMap<>();
+        if ("number".equals(param.type())) {
+            schema.put("type", "number");
+            return schema;
+        }
+        schema.put("type", "string");
+        if (!param.enumValues().isEmpty()) {
+            schema.put("enum", param.enumValues());
+            return schema;
+        }
+        if (param.pattern() != null) {
+            schema.put("pattern", "^" + param.pattern().pattern() + "$");
+        }
+        if (param.maxLength() > 0) {
+            schema.put("maxLength", param.maxLength());
+        }
+        return schema;
+    }
+
+    private Map<String, Object> objectSchema(Map<String, Object> properties, List<String> required) {
+        Map<String, Object> schema = new LinkedHashMap<>();
+        schema.put("type", "object");
+        schema.put("properties", properties);
+        schema.put("required", required);
+        schema.put("additionalProperties", false);
+        return schema;
+    }
+}
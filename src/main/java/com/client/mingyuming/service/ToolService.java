@@ -1,5 +1,6 @@
 package com.client.mingyuming.service;
 
+import com.client.mingyuming.util.PipelineEvents;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.jexl3.*;
 import org.springframework.stereotype.Service;
@@ -32,6 +33,9 @@ public class ToolService {
             return PARAM_ERROR_MSG + "：计算表达式不能为空";
         }
 
+        PipelineEvents.Calculate event = new PipelineEvents.Calculate();
+        event.begin();
+        event.input(expression);
         try {
             // 1. 表达式预处理（统一格式，支持 sqrt、指数等）
             String processedExpr = preprocessExpression(expression);
@@ -44,13 +48,18 @@ public class ToolService {
             Object result = jexlExpr.evaluate(new MapContext());
 
             // 4. 格式化结果（整数转 long，避免 10.0 这类显示）
-            return formatResult(result);
+            String formatted = formatResult(result);
+            event.finish(result == null ? PipelineEvents.EMPTY : PipelineEvents.SUCCESS, formatted);
+            return formatted;
 
         } catch (JexlException e) {
             // 捕获表达式语法错误（如括号不匹配、无效运算符）
             log.error("JEXL 表达式错误：{}", expression, e);
-            return PARAM_ERROR_MSG + "：无效表达式（" + e.getMessage().split("\n")[0] + "）";
+            String message = PARAM_ERROR_MSG + "：无效表达式（" + e.getMessage().split("\n")[0] + "）";
+            event.finish(PipelineEvents.FALLBACK, message);
+            return message;
         } catch (Exception e) {
+            event.fail(e);
             log.error("计算工具异常", e);
             return SYSTEM_ERROR_MSG;
         }
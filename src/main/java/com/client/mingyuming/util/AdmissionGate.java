@@ -0,0 +1,228 @@
+package com.client.mingyuming.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * /api/exam 入口准入控制：限制同时处理的请求数，超出的请求进入按截止时间排序的有界队列（最早截止先处理），
+ * 排队中或出队时剩余时间已不足以完成处理（按近期处理耗时估算）的请求立即卸载，
+ * 使过载时已接纳的请求仍能在截止前完成，而不是全部一起超时
+ */
+@Slf4j
+@Component
+public class AdmissionGate {
+
+    // 处理耗时 EWMA 的平滑系数
+    private static final double EWMA_ALPHA = 0.2;
+
+    private final boolean enabled;
+    private final int maxInflight;
+    private final int maxQueue;
+    private final long minServiceMs;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // 截止时间早的先出队，相同截止时间按到达顺序
+    private final PriorityQueue<Waiter> queue = new PriorityQueue<>(
+            Comparator.comparingLong(Waiter::deadline).thenComparingLong(Waiter::sequence));
+    private int inflight;
+    private long sequence;
+    private volatile double serviceEwmaMs;
+
+    private final Timer admittedQueueTime;
+    private final Timer shedQueueTime;
+    private final MeterRegistry meterRegistry;
+
+    public AdmissionGate(MeterRegistry meterRegistry,
+                         @Value("${exam.admission.enabled:true}") boolean enabled,
+                         @Value("${exam.admission.max-inflight:16}") int maxInflight,
+                         @Value("${exam.admission.max-queue:64}") int maxQueue,
+                         @Value("${exam.admission.min-service-ms:1000}") long minServiceMs) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.maxInflight = maxInflight;
+        this.maxQueue = maxQueue;
+        this.minServiceMs = minServiceMs;
+        this.serviceEwmaMs = minServiceMs;
+        admittedQueueTime = Timer.builder("exam.admission.queue").tag("outcome", "admitted")
+                .publishPercentiles(0.5, 0.99).register(meterRegistry);
+        shedQueueTime = Timer.builder("exam.admission.queue").tag("outcome", "shed")
+                .publishPercentiles(0.5, 0.99).register(meterRegistry);
+        Gauge.builder("exam.admission.inflight", this, AdmissionGate::getInflight).register(meterRegistry);
+        Gauge.builder("exam.admission.queued", this, AdmissionGate::getQueued).register(meterRegistry);
+        Gauge.builder("exam.admission.service.ewma", this, g -> g.serviceEwmaMs).baseUnit("ms").register(meterRegistry);
+    }
+
+    /**
+     * 排队者：由 release 移交名额（granted）或判定卸载（shedReason）后唤醒
+     */
+    private final class Waiter {
+        private final long deadline;
+        private final long sequence;
+        private final Condition condition = lock.newCondition();
+        private boolean granted;
+        private String shedReason;
+
+        private Waiter(long deadline, long sequence) {
+            this.deadline = deadline;
+            this.sequence = sequence;
+        }
+
+        long deadline() {
+            return deadline;
+        }
+
+        long sequence() {
+            return sequence;
+        }
+    }
+
+    /**
+     * 已接纳请求的处理名额，处理结束后必须 close
+     */
+    public final class Permit implements AutoCloseable {
+        private final long admittedAt = System.nanoTime();
+        // 准入关闭时发放的名额不占用 inflight
+        private final boolean counted;
+        private boolean closed;
+
+        private Permit(boolean counted) {
+            this.counted = counted;
+        }
+
+        @Override
+        public void close() {
+            if (closed || !counted) {
+                return;
+            }
+            closed = true;
+            release(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - admittedAt));
+        }
+    }
+
+    /**
+     * 申请处理名额：有空闲直接接纳，否则按截止时间排队，直到获得名额或确定无法按时完成
+     * @throws AdmissionRejectedException 队列已满或剩余时间不足（卸载）
+     */
+    public Permit acquire() {
+        if (!enabled) {
+            return new Permit(false);
+        }
+        long enqueuedAt = System.nanoTime();
+        Long requestDeadline = RequestDeadline.get();
+        long deadline = requestDeadline == null ? Long.MAX_VALUE : requestDeadline;
+
+        lock.lock();
+        try {
+            if (inflight < maxInflight && queue.isEmpty()) {
+                inflight++;
+                admittedQueueTime.record(0, TimeUnit.NANOSECONDS);
+                return new Permit(true);
+            }
+            if (!canFinish(deadline)) {
+                throw shed("deadline", enqueuedAt, "剩余时间不足以完成处理");
+            }
+            if (queue.size() >= maxQueue) {
+                throw shed("queue-full", enqueuedAt, "排队请求已达上限 " + maxQueue);
+            }
+
+            Waiter waiter = new Waiter(deadline, sequence++);
+            queue.add(waiter);
+            try {
+                while (!waiter.granted && waiter.shedReason == null) {
+                    // 最晚等到“截止时间 - 预计处理耗时”，之后即便获得名额也无法按时完成
+                    long waitMs = deadline == Long.MAX_VALUE ? 1_000 : deadline - (long) serviceEwmaMs - System.currentTimeMillis();
+                    if (waitMs <= 0) {
+                        queue.remove(waiter);
+                        waiter.shedReason = "expired";
+                        break;
+                    }
+                    waiter.condition.await(waitMs, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (!waiter.granted) {
+                    queue.remove(waiter);
+                    waiter.shedReason = "interrupted";
+                }
+            }
+            if (waiter.granted) {
+                // 名额已由 release 计入 inflight
+                admittedQueueTime.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                return new Permit(true);
+            }
+            throw shed(waiter.shedReason, enqueuedAt, "排队期间剩余时间已不足以完成处理");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 释放名额：记录处理耗时，并把名额直接移交给队首仍能按时完成的请求（其余队首请求卸载）
+     */
+    private void release(long serviceMs) {
+        serviceEwmaMs = Math.max(minServiceMs, EWMA_ALPHA * serviceMs + (1 - EWMA_ALPHA) * serviceEwmaMs);
+        lock.lock();
+        try {
+            inflight--;
+            while (!queue.isEmpty() && inflight < maxInflight) {
+                Waiter next = queue.poll();
+                if (canFinish(next.deadline)) {
+                    next.granted = true;
+                    inflight++;
+                } else {
+                    next.shedReason = "expired";
+                }
+                next.condition.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean canFinish(long deadline) {
+        return deadline == Long.MAX_VALUE || deadline - System.currentTimeMillis() >= serviceEwmaMs;
+    }
+
+    private AdmissionRejectedException shed(String reason, long enqueuedAt, String message) {
+        shedQueueTime.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+        Counter.builder("exam.admission.shed").tag("reason", reason).register(meterRegistry).increment();
+        log.warn("准入卸载[{}]：{}（在途 {}，排队 {}，预计处理 {}ms）", reason, message, inflight, queue.size(), (long) serviceEwmaMs);
+        return new AdmissionRejectedException(reason, message);
+    }
+
+    /**
+     * 卸载响应的建议重试间隔（秒）：约一个预计处理耗时后名额才可能空出
+     */
+    public long retryAfterSeconds() {
+        return Math.max(1, (long) Math.ceil(serviceEwmaMs / 1000));
+    }
+
+    public int getInflight() {
+        lock.lock();
+        try {
+            return inflight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
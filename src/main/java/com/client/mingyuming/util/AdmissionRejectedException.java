@@ -0,0 +1,20 @@
+package com.client.mingyuming.util;
+
+/**
+ * 入口准入拒绝：排队已满，或按剩余时间已无法在截止前完成，直接卸载不进入处理
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String reason;
+
+    public AdmissionRejectedException(String reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+}
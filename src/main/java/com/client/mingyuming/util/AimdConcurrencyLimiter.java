@@ -0,0 +1,71 @@
+package com.client.mingyuming.util;
+
+/**
+ * AIMD 自适应并发限制器：请求正常完成且在途接近上限时加性增长（每轮 +1），
+ * 超时/慢调用时乘性缩减，使并发上限跟随上游实际处理能力变化；超过上限的请求直接拒绝
+ */
+public class AimdConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdMs;
+
+    private double limit;
+    private int inFlight;
+
+    public AimdConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio, long latencyThresholdMs) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdMs = latencyThresholdMs;
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * 正常完成：延迟超过阈值按过载处理，否则在利用率过半时加性增长
+     */
+    public synchronized void onSuccess(long latencyMs) {
+        if (latencyMs > latencyThresholdMs) {
+            decrease();
+        } else if (inFlight * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+        inFlight--;
+    }
+
+    /**
+     * 过载信号（超时、连接失败、5xx）：乘性缩减
+     */
+    public synchronized void onDropped() {
+        decrease();
+        inFlight--;
+    }
+
+    /**
+     * 与上游负载无关的失败（参数错误等）：仅释放名额
+     */
+    public synchronized void onIgnored() {
+        inFlight--;
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    private void decrease() {
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+}
@@ -0,0 +1,103 @@
+package com.client.mingyuming.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 小型 BM25 检索：中文按单字+二元组、英文按单词（小写）、数字按位数形态（#d16 表示16位数字）切词
+ */
+public class Bm25Index<T> {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final List<T> items = new ArrayList<>();
+    private final List<Map<String, Integer>> termFreqs = new ArrayList<>();
+    private final Map<String, Integer> docFreqs = new HashMap<>();
+    private int totalLength;
+
+    /**
+     * 检索结果
+     */
+    public record Hit<T>(T item, double score) {
+    }
+
+    public void add(T item, String text) {
+        List<String> tokens = tokenize(text);
+        Map<String, Integer> tf = new HashMap<>();
+        tokens.forEach(token -> tf.merge(token, 1, Integer::sum));
+        tf.keySet().forEach(token -> docFreqs.merge(token, 1, Integer::sum));
+        items.add(item);
+        termFreqs.add(tf);
+        totalLength += tokens.size();
+    }
+
+    /**
+     * 按得分降序返回全部文档
+     */
+    public List<Hit<T>> search(String query) {
+        List<String> queryTokens = tokenize(query).stream().distinct().toList();
+        double avgLength = items.isEmpty() ? 1 : (double) totalLength / items.size();
+        List<Hit<T>> hits = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            Map<String, Integer> tf = termFreqs.get(i);
+            int length = tf.values().stream().mapToInt(Integer::intValue).sum();
+            double score = 0;
+            for (String token : queryTokens) {
+                Integer freq = tf.get(token);
+                if (freq == null) {
+                    continue;
+                }
+                int df = docFreqs.get(token);
+                double idf = Math.log(1 + (items.size() - df + 0.5) / (df + 0.5));
+                score += idf * freq * (K1 + 1) / (freq + K1 * (1 - B + B * length / avgLength));
+            }
+            hits.add(new Hit<>(items.get(i), score));
+        }
+        hits.sort(Comparator.comparingDouble((Hit<T> h) -> h.score()).reversed());
+        return hits;
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (Character.isIdeographic(c)) {
+                tokens.add(String.valueOf(c));
+                if (i + 1 < text.length() && Character.isIdeographic(text.charAt(i + 1))) {
+                    tokens.add(text.substring(i, i + 2));
+                }
+                i++;
+            } else if (isAsciiLetter(c)) {
+                int start = i;
+                while (i < text.length() && isAsciiLetter(text.charAt(i))) {
+                    i++;
+                }
+                tokens.add(text.substring(start, i).toLowerCase());
+            } else if (c >= '0' && c <= '9') {
+                int start = i;
+                while (i < text.length() && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+                    i++;
+                }
+                tokens.add("#d" + (i - start));
+            } else {
+                if ("+*/^".indexOf(c) >= 0) {
+                    tokens.add(String.valueOf(c));
+                }
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+}
@@ -0,0 +1,158 @@
+package com.client.mingyuming.util;
+
+/**
+ * 基于计数滑动窗口的熔断器：失败率或慢调用率超过阈值即打开，打开期间快速失败，
+ * 冷却后进入半开状态放行少量探测请求，全部成功（且不慢）则关闭，任一失败或慢调用重新打开；
+ * 每次状态切换递增代数，许可携带申请时的代数，切换前发放的许可的结果不再计入当前状态
+ */
+public class CircuitBreaker {
+
+    /**
+     * tryAcquire 拒绝时的返回值
+     */
+    public static final long REJECTED = -1;
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int windowSize;
+    private final int minCalls;
+    private final double failureRateThreshold;
+    private final long slowCallMs;
+    private final double slowCallRateThreshold;
+    private final long openDurationMs;
+    private final int halfOpenCalls;
+
+    // 环形窗口：0=成功，1=失败，2=慢调用（成功但超时阈值）
+    private final byte[] window;
+    private int windowIndex;
+    private int recorded;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    public CircuitBreaker(int windowSize, int minCalls, double failureRateThreshold, long slowCallMs,
+                          double slowCallRateThreshold, long openDurationMs, int halfOpenCalls) {
+        this.windowSize = windowSize;
+        this.minCalls = minCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallMs = slowCallMs;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.openDurationMs = openDurationMs;
+        this.halfOpenCalls = halfOpenCalls;
+        this.window = new byte[windowSize];
+    }
+
+    /**
+     * 申请调用许可：返回许可代数，结果回报时原样传回；打开状态（冷却未结束）或半开探测名额用尽时返回 REJECTED
+     */
+    public synchronized long tryAcquire() {
+        if (state == State.CLOSED) {
+            return generation;
+        }
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openDurationMs) {
+                return REJECTED;
+            }
+            // 冷却结束，转半开
+            state = State.HALF_OPEN;
+            generation++;
+            halfOpenPermits = halfOpenCalls;
+            halfOpenSuccesses = 0;
+        }
+        // 半开：占用一个探测名额
+        if (halfOpenPermits <= 0) {
+            return REJECTED;
+        }
+        halfOpenPermits--;
+        return generation;
+    }
+
+    public synchronized void onSuccess(long permit, long latencyMs) {
+        if (permit != generation) {
+            return;
+        }
+        boolean slow = latencyMs > slowCallMs;
+        if (state == State.HALF_OPEN) {
+            // 慢探测说明上游仍未恢复
+            if (slow) {
+                open();
+            } else if (++halfOpenSuccesses >= halfOpenCalls) {
+                reset();
+            }
+            return;
+        }
+        record(slow ? (byte) 2 : (byte) 0);
+    }
+
+    public synchronized void onFailure(long permit) {
+        if (permit != generation) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record((byte) 1);
+    }
+
+    /**
+     * 已获取许可但未发起调用（如被并发限制拒绝）：归还半开探测名额，不计入统计
+     */
+    public synchronized void release(long permit) {
+        if (permit == generation && state == State.HALF_OPEN) {
+            halfOpenPermits++;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(byte outcome) {
+        if (recorded == windowSize) {
+            byte evicted = window[windowIndex];
+            if (evicted == 1) {
+                failures--;
+            } else if (evicted == 2) {
+                slowCalls--;
+            }
+        } else {
+            recorded++;
+        }
+        window[windowIndex] = outcome;
+        windowIndex = (windowIndex + 1) % windowSize;
+        if (outcome == 1) {
+            failures++;
+        } else if (outcome == 2) {
+            slowCalls++;
+        }
+
+        if (state == State.CLOSED && recorded >= minCalls
+                && ((double) failures / recorded >= failureRateThreshold
+                || (double) slowCalls / recorded >= slowCallRateThreshold)) {
+            open();
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        generation++;
+        openedAt = System.currentTimeMillis();
+    }
+
+    private void reset() {
+        state = State.CLOSED;
+        generation++;
+        recorded = 0;
+        windowIndex = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+}
@@ -0,0 +1,104 @@
+package com.client.mingyuming.util;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 意图线性模型（多分类 softmax 回归）：特征为稀疏的字符串特征（关键词/正则/字二元组），
+ * 权重可由人工规则初始化，再用记录的大模型分类结果做 SGD 训练
+ */
+public class IntentModel {
+
+    // 类别顺序固定，权重数组下标与之对应
+    public static final List<String> LABELS = List.of("knowledge_qa", "tool_call", "data_query");
+
+    private double[] bias = new double[LABELS.size()];
+    private Map<String, double[]> weights = new HashMap<>();
+
+    /**
+     * 预测结果
+     * @param label      概率最大的类别
+     * @param confidence 该类别的 softmax 概率
+     */
+    public record Prediction(String label, double confidence) {
+    }
+
+    /**
+     * 训练样本
+     */
+    public record Sample(Collection<String> features, String label) {
+    }
+
+    public void setBias(String label, double value) {
+        bias[LABELS.indexOf(label)] = value;
+    }
+
+    public void addWeight(String feature, String label, double value) {
+        weights.computeIfAbsent(feature, f -> new double[LABELS.size()])[LABELS.indexOf(label)] += value;
+    }
+
+    public int featureCount() {
+        return weights.size();
+    }
+
+    public Prediction predict(Collection<String> features) {
+        double[] probs = probabilities(features);
+        int best = 0;
+        for (int i = 1; i < probs.length; i++) {
+            if (probs[i] > probs[best]) {
+                best = i;
+            }
+        }
+        return new Prediction(LABELS.get(best), probs[best]);
+    }
+
+    /**
+     * SGD 训练（交叉熵 + L2），在当前权重基础上继续更新
+     */
+    public void train(List<Sample> samples, int epochs, double learningRate, double l2) {
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            for (Sample sample : samples) {
+                int target = LABELS.indexOf(sample.label());
+                if (target < 0) {
+                    continue;
+                }
+                double[] probs = probabilities(sample.features());
+                for (int k = 0; k < probs.length; k++) {
+                    double gradient = probs[k] - (k == target ? 1 : 0);
+                    bias[k] -= learningRate * gradient;
+                    for (String feature : sample.features()) {
+                        double[] w = weights.computeIfAbsent(feature, f -> new double[LABELS.size()]);
+                        w[k] -= learningRate * (gradient + l2 * w[k]);
+                    }
+                }
+            }
+        }
+    }
+
+    private double[] probabilities(Collection<String> features) {
+        double[] scores = bias.clone();
+        for (String feature : features) {
+            double[] w = weights.get(feature);
+            if (w != null) {
+                for (int k = 0; k < scores.length; k++) {
+                    scores[k] += w[k];
+                }
+            }
+        }
+        double max = Double.NEGATIVE_INFINITY;
+        for (double score : scores) {
+            max = Math.max(max, score);
+        }
+        double sum = 0;
+        for (int k = 0; k < scores.length; k++) {
+            scores[k] = Math.exp(scores[k] - max);
+            sum += scores[k];
+        }
+        for (int k = 0; k < scores.length; k++) {
+            scores[k] /= sum;
+        }
+        return scores;
+    }
+}
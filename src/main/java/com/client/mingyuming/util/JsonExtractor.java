@@ -0,0 +1,195 @@
+package com.client.mingyuming.util;
+
+import java.nio.CharBuffer;
+
+/**
+ * 从大模型输出中提取最后一个完整的顶层 JSON 对象（适配先描述后输出 JSON、或输出多段 JSON 的场景）
+ * 正向扫描：跟踪字符串（双引号/单引号）、转义、嵌套括号与注释；对象外的文字（含其中的引号/括号）不参与配对，
+ * 其后不是键、引号、“}”或注释的“{”视为描述文字。
+ * 通常直接返回原文的切片（不拷贝）；仅当对象内含注释、单引号字符串或字符串内换行时，才对该对象重写一次
+ */
+public final class JsonExtractor {
+
+    private JsonExtractor() {
+    }
+
+    /**
+     * @param text 大模型原始输出
+     * @return 最后一个完整顶层对象；未找到时返回原文
+     */
+    public static CharSequence extractLastObject(CharSequence text) {
+        if (text == null) {
+            return null;
+        }
+        Scan scan = new Scan();
+        int from = 0;
+        // 扫描结束时仍有未闭合的对象（如描述文字中的孤立“{”），从其后一位继续扫描
+        while (from < text.length()) {
+            int unclosed = scan.run(text, from);
+            if (unclosed == -1) {
+                break;
+            }
+            from = unclosed + 1;
+        }
+        if (scan.lastStart == -1) {
+            return text;
+        }
+        return scan.lastDirty ? rewrite(text, scan.lastStart, scan.lastEnd) : CharBuffer.wrap(text, scan.lastStart, scan.lastEnd);
+    }
+
+    /**
+     * 扫描状态：记录最后一个完整顶层对象的位置
+     */
+    private static final class Scan {
+        int lastStart = -1;
+        int lastEnd = -1;
+        boolean lastDirty;
+
+        /**
+         * @return 扫描结束时未闭合对象的起始位置；全部闭合返回 -1
+         */
+        int run(CharSequence text, int from) {
+            int length = text.length();
+            int depth = 0;
+            int start = -1;
+            boolean dirty = false;        // 当前对象是否需要重写
+            char quote = 0;               // 当前字符串的引号，0 表示不在字符串中
+
+            String string = text instanceof String str ? str : null;
+            for (int i = from; i < length; i++) {
+                if (depth == 0) {
+                    // 对象外直接跳到下一个“{”（String.indexOf 为内建优化实现）
+                    i = string != null ? string.indexOf('{', i) : indexOf(text, "{", i);
+                    if (i == -1) {
+                        break;
+                    }
+                    if (!opensObject(text, i)) {
+                        // 描述文字中的“{”（其后不是键、引号、“}”或注释），不作为对象起点
+                        continue;
+                    }
+                    depth = 1;
+                    start = i;
+                    dirty = false;
+                    continue;
+                }
+                char c = text.charAt(i);
+                if (quote != 0) {
+                    if (c == '\\') {
+                        i++;
+                    } else if (c == quote) {
+                        quote = 0;
+                    } else if (c == '\n' || c == '\r') {
+                        dirty = true;
+                    }
+                    continue;
+                }
+                switch (c) {
+                    case '"' -> quote = '"';
+                    case '\'' -> {
+                        quote = '\'';
+                        dirty = true;
+                    }
+                    case '/' -> {
+                        char next = i + 1 < length ? text.charAt(i + 1) : 0;
+                        if (next == '/') {
+                            dirty = true;
+                            while (i + 1 < length && text.charAt(i + 1) != '\n') {
+                                i++;
+                            }
+                        } else if (next == '*') {
+                            dirty = true;
+                            int close = indexOf(text, "*/", i + 2);
+                            i = close == -1 ? length : close + 1;
+                        }
+                    }
+                    case '{', '[' -> depth++;
+                    case '}', ']' -> {
+                        if (--depth == 0 && c == '}') {
+                            lastStart = start;
+                            lastEnd = i + 1;
+                            lastDirty = dirty;
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+            return depth > 0 ? start : -1;
+        }
+    }
+
+    /**
+     * “{”之后第一个非空白字符是否可能开始对象内容：引号（键）、“}”（空对象）或注释
+     */
+    private static boolean opensObject(CharSequence text, int brace) {
+        for (int i = brace + 1; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                return c == '"' || c == '\'' || c == '}' || c == '/';
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 重写为标准 JSON：去注释、单引号字符串转双引号、字符串内换行转空格
+     */
+    private static String rewrite(CharSequence text, int from, int to) {
+        StringBuilder out = new StringBuilder(to - from);
+        char quote = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (quote != 0) {
+                if (c == '\\' && i + 1 < to) {
+                    char next = text.charAt(++i);
+                    // 单引号字符串中的 \' 在 JSON 中无需转义
+                    if (quote == '\'' && next == '\'') {
+                        out.append('\'');
+                    } else {
+                        out.append(c).append(next);
+                    }
+                } else if (c == quote) {
+                    out.append('"');
+                    quote = 0;
+                } else if (c == '"') {
+                    out.append("\\\"");
+                } else if (c == '\n' || c == '\r') {
+                    out.append(' ');
+                } else {
+                    out.append(c);
+                }
+                continue;
+            }
+            if (c == '"' || c == '\'') {
+                quote = c;
+                out.append('"');
+            } else if (c == '/' && i + 1 < to && text.charAt(i + 1) == '/') {
+                while (i + 1 < to && text.charAt(i + 1) != '\n') {
+                    i++;
+                }
+            } else if (c == '/' && i + 1 < to && text.charAt(i + 1) == '*') {
+                int close = indexOf(text, "*/", i + 2);
+                i = close == -1 ? to : close + 1;
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    private static int indexOf(CharSequence text, String target, int from) {
+        for (int i = from; i + target.length() <= text.length(); i++) {
+            boolean match = true;
+            for (int j = 0; j < target.length(); j++) {
+                if (text.charAt(i + j) != target.charAt(j)) {
+                    match = false;
+                    break;
+                }
+            }
+            if (match) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,58 @@
+package com.client.mingyuming.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 关键词字典树：一次扫描找出文本中出现的全部关键词（允许重叠，如“信用卡账单”与“账单”同时命中）
+ */
+public class KeywordTrie<V> {
+
+    private final Node<V> root = new Node<>();
+
+    private static final class Node<V> {
+        final Map<Character, Node<V>> children = new HashMap<>();
+        String keyword;
+        V value;
+    }
+
+    /**
+     * 命中结果
+     * @param keyword 命中的关键词
+     * @param value   关键词关联的值
+     * @param start   在文本中的起始位置
+     */
+    public record Match<V>(String keyword, V value, int start) {
+    }
+
+    public void put(String keyword, V value) {
+        Node<V> node = root;
+        for (int i = 0; i < keyword.length(); i++) {
+            node = node.children.computeIfAbsent(keyword.charAt(i), c -> new Node<>());
+        }
+        node.keyword = keyword;
+        node.value = value;
+    }
+
+    public List<Match<V>> findAll(String text) {
+        List<Match<V>> matches = new ArrayList<>();
+        if (text == null) {
+            return matches;
+        }
+        for (int start = 0; start < text.length(); start++) {
+            Node<V> node = root;
+            for (int i = start; i < text.length(); i++) {
+                node = node.children.get(text.charAt(i));
+                if (node == null) {
+                    break;
+                }
+                if (node.keyword != null) {
+                    matches.add(new Match<>(node.keyword, node.value, start));
+                }
+            }
+        }
+        return matches;
+    }
+}
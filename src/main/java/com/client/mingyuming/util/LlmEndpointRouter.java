@@ -0,0 +1,203 @@
+package com.client.mingyuming.util;
+
+import com.client.mingyuming.config.LlmRoutingProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 大模型多实例路由：同一逻辑模型（本地大模型 openai、RAGFlow）的多个实例间负载均衡，
+ * 支持最少在途 / 延迟加权两种策略；健康探测与调用失败摘除故障节点，调用延迟 EWMA 超限摘除慢节点，
+ * 探测恢复后重新加入（慢节点需先过冷却期）。未配置实例池的逻辑模型直接使用原 base-url
+ */
+@Slf4j
+@Component
+public class LlmEndpointRouter {
+
+    private static final double EWMA_ALPHA = 0.2;
+
+    private final LlmRoutingProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, List<Endpoint>> pools = new LinkedHashMap<>();
+    private RestTemplate probeTemplate;
+
+    public LlmEndpointRouter(LlmRoutingProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 单个实例状态
+     */
+    static final class Endpoint {
+        final String pool;
+        final String baseUrl;
+        final String healthUrl;
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger consecutiveFailures = new AtomicInteger();
+        volatile boolean healthy = true;
+        volatile double ewmaLatencyMs = 1.0;
+        // 慢节点摘除的冷却截止时间（System.nanoTime），之前探测成功也不重新加入
+        volatile long cooldownUntilNanos;
+        volatile boolean coolingDown;
+
+        Endpoint(String pool, String baseUrl, String healthUrl) {
+            this.pool = pool;
+            this.baseUrl = baseUrl;
+            this.healthUrl = healthUrl;
+        }
+
+        void recordLatency(long latencyMs) {
+            ewmaLatencyMs = ewmaLatencyMs * (1 - EWMA_ALPHA) + Math.max(latencyMs, 1) * EWMA_ALPHA;
+        }
+
+        boolean coolingDown() {
+            if (coolingDown && System.nanoTime() - cooldownUntilNanos >= 0) {
+                coolingDown = false;
+            }
+            return coolingDown;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(properties.getProbeTimeoutMs());
+        factory.setReadTimeout(properties.getProbeTimeoutMs());
+        probeTemplate = new RestTemplate(factory);
+
+        properties.getPools().forEach((poolName, pool) -> {
+            List<Endpoint> endpoints = new ArrayList<>();
+            for (String url : pool.getEndpoints()) {
+                String baseUrl = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+                Endpoint endpoint = new Endpoint(poolName, baseUrl, baseUrl + pool.getHealthPath());
+                endpoints.add(endpoint);
+
+                Gauge.builder("llm.routing.inflight", endpoint.inFlight, AtomicInteger::get)
+                        .tag("pool", poolName).tag("endpoint", baseUrl).register(meterRegistry);
+                Gauge.builder("llm.routing.healthy", endpoint, e -> e.healthy ? 1 : 0)
+                        .tag("pool", poolName).tag("endpoint", baseUrl).register(meterRegistry);
+                Gauge.builder("llm.routing.latency.ewma", endpoint, e -> e.ewmaLatencyMs)
+                        .tag("pool", poolName).tag("endpoint", baseUrl).baseUnit("milliseconds").register(meterRegistry);
+            }
+            if (!endpoints.isEmpty()) {
+                pools.put(poolName, endpoints);
+            }
+        });
+        log.info("大模型路由初始化完成：{}，策略={}", pools.keySet(), properties.getStrategy());
+    }
+
+    /**
+     * 在选中的实例上执行调用
+     * @param pool           逻辑模型名（openai / ragflow）
+     * @param defaultBaseUrl 未配置实例池时使用的原 base-url
+     * @param call           入参为选中实例的 base-url
+     */
+    public <T> T execute(String pool, String defaultBaseUrl, Function<String, T> call) {
+        List<Endpoint> endpoints = pools.get(pool);
+        if (endpoints == null) {
+            return call.apply(defaultBaseUrl);
+        }
+
+        Endpoint endpoint = select(endpoints);
+        endpoint.inFlight.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            T result = call.apply(endpoint.baseUrl);
+            endpoint.recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            endpoint.consecutiveFailures.set(0);
+            checkSlow(endpoint);
+            return result;
+        } catch (ResourceAccessException | HttpServerErrorException e) {
+            // 连接失败、超时、5xx 计入节点失败；重试由 UpstreamGuard 负责，重新选择实例
+            markFailure(endpoint, e.getMessage());
+            throw e;
+        } finally {
+            endpoint.inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * 选择实例：least-outstanding 取在途最少（平局取延迟低），ewma 取 EWMA 延迟 ×（在途+1）最小；
+     * 全部摘除时在全部实例中选择，避免整体不可用
+     */
+    private Endpoint select(List<Endpoint> endpoints) {
+        Comparator<Endpoint> comparator = "ewma".equals(properties.getStrategy())
+                ? Comparator.comparingDouble(e -> e.ewmaLatencyMs * (e.inFlight.get() + 1))
+                : Comparator.<Endpoint>comparingInt(e -> e.inFlight.get()).thenComparingDouble(e -> e.ewmaLatencyMs);
+        return endpoints.stream()
+                .filter(e -> e.healthy)
+                .min(comparator)
+                .orElseGet(() -> endpoints.stream().min(comparator).orElseThrow());
+    }
+
+    /**
+     * 健康探测：失败累计达到阈值则摘除；已摘除的实例探测成功后重新加入（慢节点需已过冷却期），
+     * 延迟 EWMA 重置为池内最低值，让其重新接收流量并重新度量（仍慢会再次摘除并重新冷却）
+     */
+    @Scheduled(fixedDelayString = "${llm.routing.health-check-interval-ms:5000}")
+    public void healthCheck() {
+        for (List<Endpoint> endpoints : pools.values()) {
+            for (Endpoint endpoint : endpoints) {
+                try {
+                    probeTemplate.getForEntity(endpoint.healthUrl, String.class);
+                    endpoint.consecutiveFailures.set(0);
+                    if (!endpoint.healthy && !endpoint.coolingDown()) {
+                        endpoint.ewmaLatencyMs = endpoints.stream()
+                                .filter(e -> e.healthy)
+                                .mapToDouble(e -> e.ewmaLatencyMs)
+                                .min().orElse(1.0);
+                        endpoint.healthy = true;
+                        log.info("大模型实例[{}]{} 恢复，重新加入路由", endpoint.pool, endpoint.baseUrl);
+                    }
+                } catch (Exception e) {
+                    markFailure(endpoint, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void checkSlow(Endpoint endpoint) {
+        long slowEjectionMs = properties.getSlowEjectionMs();
+        if (slowEjectionMs > 0 && endpoint.healthy && endpoint.ewmaLatencyMs > slowEjectionMs) {
+            endpoint.cooldownUntilNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getSlowEjectionCooldownMs());
+            endpoint.coolingDown = true;
+            eject(endpoint, "slow", "延迟 EWMA " + (long) endpoint.ewmaLatencyMs + "ms 超过 " + slowEjectionMs + "ms，冷却 "
+                    + properties.getSlowEjectionCooldownMs() + "ms");
+        }
+    }
+
+    private void markFailure(Endpoint endpoint, String reason) {
+        int failures = endpoint.consecutiveFailures.incrementAndGet();
+        if (endpoint.healthy && failures >= properties.getFailureThreshold()) {
+            eject(endpoint, "failure", "连续失败 " + failures + " 次：" + reason);
+        }
+    }
+
+    private void eject(Endpoint endpoint, String reason, String detail) {
+        endpoint.healthy = false;
+        Counter.builder("llm.routing.ejections").tag("pool", endpoint.pool).tag("endpoint", endpoint.baseUrl)
+                .tag("reason", reason).register(meterRegistry).increment();
+        log.warn("大模型实例[{}]{} 摘除，{}", endpoint.pool, endpoint.baseUrl, detail);
+    }
+}
@@ -20,6 +20,14 @@ import java.util.function.Function;
 public class LlmHttpUtil {
     @Autowired
     RestTemplate restTemplate;
+    @Autowired
+    UpstreamGuard upstreamGuard;
+    @Autowired
+    UpstreamCallCoalescer upstreamCallCoalescer;
+    @Autowired
+    LlmEndpointRouter llmEndpointRouter;
+    @Autowired
+    RagflowSessionPool ragflowSessionPool;
     private final Gson gson = new GsonBuilder()
             .setPrettyPrinting()
             .create();
@@ -36,24 +44,33 @@ public class LlmHttpUtil {
             String question,
             Function<String, T> answerProcessor) {
 
+        PipelineEvents.RagflowCall event = new PipelineEvents.RagflowCall();
+        event.begin();
+        event.modelName = modelName;
+        event.chatId = chatId;
+        event.input(question);
         try {
             // 参数校验
             validateParams(modelName, baseUrl, chatId, authorization, question);
 
             // 构建请求URL
             String requestUrl = baseUrl + "/api/v1/chats/" + chatId + "/completions";
-            log.info("【{}】调用URL：{}，会话ID：{}", modelName, requestUrl, sessionId);
+            log.info("【{}】调用URL：{}", modelName, requestUrl);
 
-            // 构建请求实体
-            HttpEntity<String> requestEntity = buildRequestEntity(authorization, sessionId, question);
-
-            // 执行请求并解析响应
-            String trimmedAnswer = executeRequestAndParseResponse(modelName, requestUrl, requestEntity);
+            // 执行请求并解析响应（相同问题的并发调用合并；每个 chat-id 独立熔断与并发限制；配置多实例时按路由选择实例）
+            String upstream = "ragflow:" + chatId;
+            String trimmedAnswer = upstreamCallCoalescer.execute(upstream, requestUrl, question,
+                    () -> upstreamGuard.execute(upstream,
+                            () -> llmEndpointRouter.execute("ragflow", baseUrl, endpoint -> executeWithSession(
+                                    modelName, endpoint, chatId, sessionId, authorization, question))));
 
-            // 差异化处理并返回
-            return answerProcessor.apply(trimmedAnswer);
+            // 差异化处理并返回（处理失败同样记为该阶段失败）
+            T result = answerProcessor.apply(trimmedAnswer);
+            event.finish(PipelineEvents.SUCCESS, trimmedAnswer);
+            return result;
 
         } catch (Exception e) {
+            event.fail(e);
             log.error("【{}】调用失败：{}", modelName, e.getMessage(), e);
             throw new RuntimeException("【" + modelName + "】调用失败：" + e.getMessage());
         }
@@ -93,6 +110,26 @@ public class LlmHttpUtil {
         return new HttpEntity<>(gson.toJson(requestBody), headers);
     }
 
+    /**
+     * 从会话池租用会话执行一次调用，结束后归还（失败的会话直接轮换）
+     */
+    private String executeWithSession(String modelName, String endpoint, String chatId, String sessionId,
+                                      String authorization, String question) {
+        RagflowSessionPool.Lease lease = ragflowSessionPool.lease(endpoint, chatId, authorization, sessionId);
+        log.debug("【{}】会话ID：{}（池内会话：{}）", modelName, lease.id(), lease.pooled());
+        boolean success = false;
+        try {
+            // 构建请求实体
+            HttpEntity<String> requestEntity = buildRequestEntity(authorization, lease.id(), question);
+            String answer = executeRequestAndParseResponse(
+                    modelName, endpoint + "/api/v1/chats/" + chatId + "/completions", requestEntity);
+            success = true;
+            return answer;
+        } finally {
+            ragflowSessionPool.release(lease, success);
+        }
+    }
+
     /**
      * 执行请求并解析响应（复用：统一解析逻辑）
      */
@@ -110,7 +147,7 @@ public class LlmHttpUtil {
         int code = ((Number) responseMap.getOrDefault("code", -1)).intValue();
         if (code != 0) {
             String msg = (String) responseMap.getOrDefault("message", "未知错误");
-            throw new RuntimeException("业务码异常：" + code + "，消息：" + msg);
+            throw new UpstreamBusinessException(code, "业务码异常：" + code + "，消息：" + msg);
         }
 
         Map<String, Object> data = (Map<String, Object>) responseMap.get("data");
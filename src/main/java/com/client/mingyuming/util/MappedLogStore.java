@@ -0,0 +1,543 @@
+package com.client.mingyuming.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * 持久化字符串键值存储：数据追加写入日志文件（同一键重复写入时旧记录成为垃圾），
+ * 键 → 日志偏移量的开放寻址哈希索引放在内存映射文件中，重启时直接映射使用，无需重放全部日志。
+ * <p>
+ * 文件格式：
+ * <ul>
+ *   <li>日志：16 字节文件头（魔数、版本、代号）+ 记录 [长度 int][CRC32 int][键长 int][键][值]</li>
+ *   <li>索引：32 字节文件头（魔数、版本、槽数、键数、已落盘日志长度、代号）+ 槽 [键哈希 long][偏移量 long]</li>
+ * </ul>
+ * 写入只进入页缓存，由 sync 批量 fsync（崩溃最多丢失最近一个批次）；启动时校验代号，
+ * 并从索引记录的已落盘长度起重放日志尾部、截断不完整的记录。读取时校验 CRC 与键，哈希冲突或失效槽按未命中处理。
+ * 压缩将存活记录写入新日志与新索引后原子替换。
+ */
+@Slf4j
+public class MappedLogStore implements Closeable {
+
+    private static final int LOG_MAGIC = 0x414C4F47;   // "ALOG"
+    private static final int INDEX_MAGIC = 0x41494458; // "AIDX"
+    private static final int VERSION = 1;
+    private static final int LOG_HEADER_BYTES = 16;
+    private static final int INDEX_HEADER_BYTES = 32;
+    private static final int SLOT_BYTES = 16;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+    private static final int INITIAL_SLOTS = 1024;
+    // 键数超过槽数的该比例时扩容
+    private static final double MAX_LOAD = 0.6;
+
+    // 索引文件头字段偏移
+    private static final int IDX_CAPACITY = 8;
+    private static final int IDX_COUNT = 12;
+    private static final int IDX_SYNCED = 16;
+    private static final int IDX_EPOCH = 24;
+
+    private final Path logPath;
+    private final Path indexPath;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private FileChannel logChannel;
+    private long logLength;
+    private long epoch;
+    private FileChannel indexChannel;
+    private MappedByteBuffer index;
+    private int capacity;
+    private int count;
+    // 索引引用的记录总字节数（其余为可压缩的垃圾）
+    private long liveBytes;
+    private boolean dirty;
+
+    private MappedLogStore(Path dir, String name) {
+        this.logPath = dir.resolve(name + ".log");
+        this.indexPath = dir.resolve(name + ".idx");
+    }
+
+    /**
+     * 打开（不存在时创建）存储
+     * @param dir  存储目录
+     * @param name 文件名前缀（生成 name.log 与 name.idx）
+     */
+    public static MappedLogStore open(Path dir, String name) throws IOException {
+        Files.createDirectories(dir);
+        MappedLogStore store = new MappedLogStore(dir, name);
+        store.load();
+        return store;
+    }
+
+    private void load() throws IOException {
+        logChannel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (logChannel.size() < LOG_HEADER_BYTES) {
+            epoch = System.currentTimeMillis();
+            writeLogHeader(logChannel, epoch);
+            logChannel.force(true);
+        } else {
+            ByteBuffer header = readFully(logChannel, 0, LOG_HEADER_BYTES);
+            if (header.getInt(0) != LOG_MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException("日志文件格式不匹配：" + logPath);
+            }
+            epoch = header.getLong(8);
+        }
+        logLength = logChannel.size();
+
+        long replayFrom = LOG_HEADER_BYTES;
+        if (openIndex()) {
+            replayFrom = index.getLong(IDX_SYNCED);
+        } else {
+            createIndex(INITIAL_SLOTS);
+        }
+        long valid = replay(replayFrom);
+        if (valid < logLength) {
+            log.warn("日志尾部 {} 字节不完整（上次未正常落盘），已截断：{}", logLength - valid, logPath);
+            logChannel.truncate(valid);
+            logLength = valid;
+        }
+        // 槽随写入直接进入映射内存，头部键数只在 sync 时更新：崩溃后两者可能不一致，按槽重新统计
+        liveBytes = 0;
+        count = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            if (index.getLong(slotPosition(slot)) == 0) {
+                continue;
+            }
+            count++;
+            ByteBuffer header = readRecordHeader(slotOffset(slot));
+            liveBytes += header == null ? 0 : RECORD_HEADER_BYTES + header.getInt(0);
+        }
+        dirty = true;
+        sync();
+    }
+
+    /**
+     * 映射已有索引；文件缺失、格式或代号不匹配、已落盘长度超出日志时返回 false（需重建）
+     */
+    private boolean openIndex() throws IOException {
+        if (!Files.exists(indexPath) || Files.size(indexPath) < INDEX_HEADER_BYTES) {
+            return false;
+        }
+        FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        int slots = buffer.getInt(IDX_CAPACITY);
+        boolean valid = buffer.getInt(0) == INDEX_MAGIC && buffer.getInt(4) == VERSION
+                && slots > 0 && Integer.bitCount(slots) == 1
+                && channel.size() == INDEX_HEADER_BYTES + (long) slots * SLOT_BYTES
+                && buffer.getLong(IDX_EPOCH) == epoch
+                && buffer.getLong(IDX_SYNCED) >= LOG_HEADER_BYTES && buffer.getLong(IDX_SYNCED) <= logLength;
+        if (!valid) {
+            channel.close();
+            log.warn("索引文件与日志不匹配，按日志重建：{}", indexPath);
+            return false;
+        }
+        indexChannel = channel;
+        index = buffer;
+        capacity = slots;
+        count = buffer.getInt(IDX_COUNT);
+        return true;
+    }
+
+    /**
+     * 从 from 起顺序读取日志记录写入索引，返回最后一条完整记录的结束位置
+     */
+    private long replay(long from) throws IOException {
+        long position = from;
+        while (position + RECORD_HEADER_BYTES <= logLength) {
+            Record record = readRecord(position);
+            if (record == null) {
+                break;
+            }
+            indexPut(hash(record.key()), record.key(), position);
+            position += RECORD_HEADER_BYTES + record.payloadLength();
+        }
+        return position;
+    }
+
+    /**
+     * 查询
+     * @return 不存在时为 null
+     */
+    public String get(String key) throws IOException {
+        lock.readLock().lock();
+        try {
+            long hash = hash(key);
+            for (int slot = slotFor(hash), probes = 0; probes < capacity; slot = (slot + 1) & (capacity - 1), probes++) {
+                long slotHash = index.getLong(slotPosition(slot));
+                if (slotHash == 0) {
+                    return null;
+                }
+                if (slotHash == hash) {
+                    Record record = readRecord(slotOffset(slot));
+                    if (record != null && record.key().equals(key)) {
+                        return record.value();
+                    }
+                }
+            }
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 写入（覆盖同键旧值），数据在下一次 sync 时落盘
+     */
+    public void put(String key, String value) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+        int payloadLength = 4 + keyBytes.length + valueBytes.length;
+        if (payloadLength > MAX_RECORD_BYTES) {
+            throw new IllegalArgumentException("记录过大：" + payloadLength + " 字节");
+        }
+        ByteBuffer payload = ByteBuffer.allocate(payloadLength).putInt(keyBytes.length).put(keyBytes).put(valueBytes).flip();
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + payloadLength)
+                .putInt(payloadLength).putInt((int) crc.getValue()).put(payload).flip();
+
+        lock.writeLock().lock();
+        try {
+            long offset = logLength;
+            writeFully(logChannel, record, offset);
+            logLength += record.capacity();
+            liveBytes += record.capacity();
+            indexPut(hash(key), key, offset);
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 落盘：fsync 日志后再更新索引中的已落盘长度并刷新索引，未写入新数据时不做任何操作
+     */
+    public void sync() throws IOException {
+        long synced;
+        lock.writeLock().lock();
+        try {
+            if (!dirty) {
+                return;
+            }
+            dirty = false;
+            synced = logLength;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // fsync 放在锁外，期间读写不受影响
+        logChannel.force(false);
+        lock.writeLock().lock();
+        try {
+            index.putLong(IDX_SYNCED, synced);
+            index.putInt(IDX_COUNT, count);
+            index.force();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 垃圾（被覆盖的旧记录）占比达到阈值且日志超过 minBytes 时压缩
+     * @return 是否执行了压缩
+     */
+    public boolean compactIfNeeded(long minBytes, double garbageRatio) throws IOException {
+        lock.writeLock().lock();
+        try {
+            long dataBytes = logLength - LOG_HEADER_BYTES;
+            if (logLength < minBytes || dataBytes <= 0 || (double) (dataBytes - liveBytes) / dataBytes < garbageRatio) {
+                return false;
+            }
+            long before = logLength;
+            compact();
+            log.info("压缩完成：{} → {} 字节，{} 个键", before, logLength, count);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 存活记录按槽顺序写入新日志并建立新索引（新代号），fsync 后依次原子替换日志与索引；
+     * 两次替换之间崩溃时代号不匹配，启动时按日志重建索引
+     */
+    private void compact() throws IOException {
+        Path tmpLog = logPath.resolveSibling(logPath.getFileName() + ".compact");
+        Path tmpIndex = indexPath.resolveSibling(indexPath.getFileName() + ".compact");
+        long newEpoch = Math.max(epoch + 1, System.currentTimeMillis());
+        int newCapacity = capacityFor(count);
+
+        try (FileChannel newLog = FileChannel.open(tmpLog, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+             FileChannel newIndexChannel = FileChannel.open(tmpIndex, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            writeLogHeader(newLog, newEpoch);
+            MappedByteBuffer newIndex = mapNewIndex(newIndexChannel, newCapacity, newEpoch);
+            long position = LOG_HEADER_BYTES;
+            int live = 0;
+            for (int slot = 0; slot < capacity; slot++) {
+                long slotHash = index.getLong(slotPosition(slot));
+                long offset = slotOffset(slot);
+                ByteBuffer header = slotHash == 0 ? null : readRecordHeader(offset);
+                if (header == null) {
+                    continue;
+                }
+                ByteBuffer raw = readFully(logChannel, offset, RECORD_HEADER_BYTES + header.getInt(0));
+                writeFully(newLog, raw, position);
+                rawSlotPut(newIndex, newCapacity, slotHash, position);
+                position += raw.capacity();
+                live++;
+            }
+            newIndex.putInt(IDX_COUNT, live);
+            newIndex.putLong(IDX_SYNCED, position);
+            newLog.force(true);
+            newIndex.force();
+        }
+
+        logChannel.close();
+        indexChannel.close();
+        Files.move(tmpLog, logPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        Files.move(tmpIndex, indexPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        logChannel = FileChannel.open(logPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        logLength = logChannel.size();
+        liveBytes = logLength - LOG_HEADER_BYTES;
+        epoch = newEpoch;
+        indexChannel = FileChannel.open(indexPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexChannel.size());
+        capacity = newCapacity;
+        count = index.getInt(IDX_COUNT);
+        dirty = false;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long logBytes() {
+        lock.readLock().lock();
+        try {
+            return logLength;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long liveBytes() {
+        lock.readLock().lock();
+        try {
+            return liveBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        sync();
+        lock.writeLock().lock();
+        try {
+            logChannel.close();
+            indexChannel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // -------------------------- 索引 --------------------------
+
+    /**
+     * 写入索引：同键（哈希相同且记录键相同）覆盖偏移量并扣除旧记录的存活字节，否则占用空槽
+     */
+    private void indexPut(long hash, String key, long offset) throws IOException {
+        if (count + 1 > capacity * MAX_LOAD) {
+            resizeIndex(capacity * 2);
+        }
+        for (int slot = slotFor(hash); ; slot = (slot + 1) & (capacity - 1)) {
+            int position = slotPosition(slot);
+            long slotHash = index.getLong(position);
+            if (slotHash == 0) {
+                index.putLong(position, hash);
+                index.putLong(position + 8, offset);
+                count++;
+                return;
+            }
+            if (slotHash == hash) {
+                long previous = index.getLong(position + 8);
+                Record record = readRecord(previous);
+                if (record == null || record.key().equals(key)) {
+                    liveBytes -= record == null ? 0 : RECORD_HEADER_BYTES + record.payloadLength();
+                    index.putLong(position + 8, offset);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void createIndex(int slots) throws IOException {
+        if (indexChannel != null) {
+            indexChannel.close();
+        }
+        indexChannel = FileChannel.open(indexPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index = mapNewIndex(indexChannel, slots, epoch);
+        capacity = slots;
+        count = 0;
+    }
+
+    /**
+     * 扩容：槽中已有哈希与偏移量，直接重新散列到新文件后原子替换
+     */
+    private void resizeIndex(int slots) throws IOException {
+        Path tmp = indexPath.resolveSibling(indexPath.getFileName() + ".resize");
+        FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer resized = mapNewIndex(channel, slots, epoch);
+        for (int slot = 0; slot < capacity; slot++) {
+            long slotHash = index.getLong(slotPosition(slot));
+            if (slotHash != 0) {
+                rawSlotPut(resized, slots, slotHash, slotOffset(slot));
+            }
+        }
+        resized.putInt(IDX_COUNT, count);
+        resized.putLong(IDX_SYNCED, index.getLong(IDX_SYNCED));
+        resized.force();
+        Files.move(tmp, indexPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        indexChannel.close();
+        indexChannel = channel;
+        index = resized;
+        capacity = slots;
+    }
+
+    private static MappedByteBuffer mapNewIndex(FileChannel channel, int slots, long epoch) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, INDEX_HEADER_BYTES + (long) slots * SLOT_BYTES);
+        buffer.putInt(0, INDEX_MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(IDX_CAPACITY, slots);
+        buffer.putInt(IDX_COUNT, 0);
+        buffer.putLong(IDX_SYNCED, LOG_HEADER_BYTES);
+        buffer.putLong(IDX_EPOCH, epoch);
+        return buffer;
+    }
+
+    private static void rawSlotPut(MappedByteBuffer buffer, int slots, long hash, long offset) {
+        for (int slot = (int) (hash & (slots - 1)); ; slot = (slot + 1) & (slots - 1)) {
+            int position = INDEX_HEADER_BYTES + slot * SLOT_BYTES;
+            if (buffer.getLong(position) == 0) {
+                buffer.putLong(position, hash);
+                buffer.putLong(position + 8, offset);
+                return;
+            }
+        }
+    }
+
+    private static int capacityFor(int keys) {
+        int slots = INITIAL_SLOTS;
+        while (keys + 1 > slots * MAX_LOAD) {
+            slots *= 2;
+        }
+        return slots;
+    }
+
+    private int slotFor(long hash) {
+        return (int) (hash & (capacity - 1));
+    }
+
+    private static int slotPosition(int slot) {
+        return INDEX_HEADER_BYTES + slot * SLOT_BYTES;
+    }
+
+    private long slotOffset(int slot) {
+        return index.getLong(slotPosition(slot) + 8);
+    }
+
+    /**
+     * FNV-1a 64 位哈希（0 表示空槽，映射为 1）
+     */
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    // -------------------------- 日志 --------------------------
+
+    private record Record(String key, String value, int payloadLength) {
+    }
+
+    /**
+     * 读取并校验记录，越界、长度异常或 CRC 不符时返回 null
+     */
+    private Record readRecord(long offset) throws IOException {
+        ByteBuffer header = readRecordHeader(offset);
+        if (header == null) {
+            return null;
+        }
+        int payloadLength = header.getInt(0);
+        ByteBuffer payload = readFully(logChannel, offset + RECORD_HEADER_BYTES, payloadLength);
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != header.getInt(4)) {
+            return null;
+        }
+        int keyLength = payload.getInt(0);
+        if (keyLength < 0 || keyLength > payloadLength - 4) {
+            return null;
+        }
+        byte[] bytes = payload.array();
+        return new Record(new String(bytes, 4, keyLength, StandardCharsets.UTF_8),
+                new String(bytes, 4 + keyLength, payloadLength - 4 - keyLength, StandardCharsets.UTF_8), payloadLength);
+    }
+
+    private ByteBuffer readRecordHeader(long offset) throws IOException {
+        if (offset < LOG_HEADER_BYTES || offset + RECORD_HEADER_BYTES > logLength) {
+            return null;
+        }
+        ByteBuffer header = readFully(logChannel, offset, RECORD_HEADER_BYTES);
+        int payloadLength = header.getInt(0);
+        if (payloadLength < 4 || payloadLength > MAX_RECORD_BYTES || offset + RECORD_HEADER_BYTES + payloadLength > logLength) {
+            return null;
+        }
+        return header;
+    }
+
+    private static void writeLogHeader(FileChannel channel, long epoch) throws IOException {
+        writeFully(channel, ByteBuffer.allocate(LOG_HEADER_BYTES).putInt(LOG_MAGIC).putInt(VERSION).putLong(epoch).flip(), 0);
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("读取越界：" + position);
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+    }
+}
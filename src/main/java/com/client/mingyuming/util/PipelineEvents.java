@@ -0,0 +1,175 @@
+package com.client.mingyuming.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 处理链路各阶段的 JFR 事件（RAGFlow 调用、本地大模型生成、工具分发、SQL 执行、计算器），
+ * 记录模型/工具名、输入输出字节数与结果，用于在线上录制中把慢请求与 GC、线程状态对照；
+ * 未开启录制时 isEnabled() 为 false，调用方跳过字节数统计，开销可忽略。录制配置见 resources/jfr/pipeline.jfc
+ */
+public final class PipelineEvents {
+
+    public static final String SUCCESS = "success";
+    public static final String EMPTY = "empty";
+    public static final String FALLBACK = "fallback";
+    public static final String ERROR = "error";
+    public static final String TIMEOUT = "timeout";
+    public static final String REJECTED = "rejected";
+
+    private PipelineEvents() {
+    }
+
+    /**
+     * 阶段事件公共字段：调用方 begin() 后设置输入，结束时调用 finish 提交
+     */
+    @Category({"Mingyuming", "Pipeline"})
+    @StackTrace(false)
+    public abstract static class StageEvent extends Event {
+        @Label("Bytes In")
+        @DataAmount
+        public long bytesIn;
+
+        @Label("Bytes Out")
+        @DataAmount
+        public long bytesOut;
+
+        @Label("Outcome")
+        @Description("success / empty / fallback / error / timeout / rejected")
+        public String outcome;
+
+        // 已提交（transient 字段不写入录制）
+        private transient boolean finished;
+
+        /**
+         * 记录输入字节数（未开启录制时不计算）
+         */
+        public void input(String text) {
+            if (isEnabled()) {
+                bytesIn = utf8Length(text);
+            }
+        }
+
+        /**
+         * 结束并提交
+         * @param outcome 结果
+         * @param output  输出文本（用于字节数，可为 null）
+         */
+        public void finish(String outcome, String output) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            end();
+            if (shouldCommit()) {
+                this.outcome = outcome;
+                this.bytesOut = utf8Length(output);
+                commit();
+            }
+        }
+
+        /**
+         * 异常结束并提交（结果按异常类型归类）
+         */
+        public void fail(Throwable error) {
+            finish(outcome(error), null);
+        }
+    }
+
+    @Name("mingyuming.RagflowCall")
+    @Label("RAGFlow Call")
+    @Description("LlmHttpUtil.call：RAGFlow 对话接口调用（含合并、保护、路由与会话租用）")
+    public static final class RagflowCall extends StageEvent {
+        @Label("Model Name")
+        public String modelName;
+
+        @Label("Chat Id")
+        public String chatId;
+    }
+
+    @Name("mingyuming.LlmGenerate")
+    @Label("LLM Generate")
+    @Description("LLMService 本地大模型生成（generateResponse / 约束解码）")
+    public static final class LlmGenerate extends StageEvent {
+        @Label("Model Name")
+        public String modelName;
+
+        @Label("Prompt Name")
+        public String promptName;
+
+        @Label("Structured")
+        public boolean structured;
+    }
+
+    @Name("mingyuming.ToolDispatch")
+    @Label("Tool Dispatch")
+    @Description("ChatService 工具分发（决策工具执行与工具指令调用）")
+    public static final class ToolDispatch extends StageEvent {
+        @Label("Tool Name")
+        public String toolName;
+    }
+
+    @Name("mingyuming.SqlQuery")
+    @Label("SQL Query")
+    @Description("MysqlQueryService.executeQuery")
+    public static final class SqlQuery extends StageEvent {
+        @Label("Parameterized")
+        public boolean parameterized;
+
+        @Label("Rows")
+        public int rows;
+    }
+
+    @Name("mingyuming.Calculate")
+    @Label("Calculate")
+    @Description("ToolService.calculate")
+    public static final class Calculate extends StageEvent {
+    }
+
+    /**
+     * 异常归类：上游保护拒绝 / 超时 / 其他错误
+     */
+    public static String outcome(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof UpstreamRejectedException || cause instanceof AdmissionRejectedException) {
+                return REJECTED;
+            }
+            if (cause instanceof TimeoutException || cause instanceof SocketTimeoutException) {
+                return TIMEOUT;
+            }
+        }
+        return ERROR;
+    }
+
+    /**
+     * UTF-8 编码后的字节数（不分配数组）
+     */
+    static long utf8Length(String text) {
+        if (text == null) {
+            return 0;
+        }
+        long bytes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,244 @@
+package com.client.mingyuming.util;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * RAGFlow 会话池：每个（实例, chat-id）维护一组通过 API 创建的会话，每次调用租用一个，
+ * 对话轮数或存活时间达到上限后轮换（旧会话由定时任务批量删除），避免所有请求追加到同一会话导致历史无限增长；
+ * 创建失败或等待超时时回退到配置的 session-id
+ */
+@Slf4j
+@Component
+public class RagflowSessionPool {
+
+    private static final long CREATE_BACKOFF_MS = 30_000;
+    private static final long WAIT_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    @Value("${ragflow.session-pool.enabled:true}")
+    private boolean enabled;
+    @Value("${ragflow.session-pool.max-sessions:8}")
+    private int maxSessions;
+    @Value("${ragflow.session-pool.max-turns:20}")
+    private int maxTurns;
+    @Value("${ragflow.session-pool.max-age-ms:1800000}")
+    private long maxAgeMs;
+    @Value("${ragflow.session-pool.lease-timeout-ms:2000}")
+    private long leaseTimeoutMs;
+
+    private final RestTemplate restTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Gson gson = new Gson();
+    private final Map<String, ChatPool> pools = new ConcurrentHashMap<>();
+
+    public RagflowSessionPool(RestTemplate restTemplate, MeterRegistry meterRegistry) {
+        this.restTemplate = restTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 租用的会话
+     * @param id       RAGFlow session_id
+     * @param pooled   是否为池内会话（回退的配置 session-id 为 false，归还时不处理）
+     */
+    public record Lease(String id, boolean pooled, ChatPool pool, long createdAt, int turns) {
+    }
+
+    /**
+     * 单个（实例, chat-id）的会话池
+     */
+    final class ChatPool {
+        final String chatId;
+        final String sessionsUrl;
+        final String authorization;
+        final LinkedBlockingDeque<Lease> idle = new LinkedBlockingDeque<>();
+        final ConcurrentLinkedQueue<String> retired = new ConcurrentLinkedQueue<>();
+        final AtomicInteger size = new AtomicInteger();
+        // 创建失败后的退避截止时间（期间直接使用配置的会话，不重复请求创建接口）
+        volatile long createBackoffUntil;
+        final Timer leaseWait;
+        final Counter created;
+        final Counter fallback;
+
+        ChatPool(String baseUrl, String chatId, String authorization) {
+            this.chatId = chatId;
+            this.sessionsUrl = baseUrl + "/api/v1/chats/" + chatId + "/sessions";
+            this.authorization = authorization;
+            this.leaseWait = Timer.builder("ragflow.session.lease.wait").tag("chat_id", chatId)
+                    .publishPercentiles(0.5, 0.99).register(meterRegistry);
+            this.created = Counter.builder("ragflow.session.created").tag("chat_id", chatId).register(meterRegistry);
+            this.fallback = Counter.builder("ragflow.session.fallback").tag("chat_id", chatId).register(meterRegistry);
+            Gauge.builder("ragflow.session.pool.size", size, AtomicInteger::get).tag("chat_id", chatId).register(meterRegistry);
+            Gauge.builder("ragflow.session.pool.idle", idle, LinkedBlockingDeque::size).tag("chat_id", chatId).register(meterRegistry);
+        }
+    }
+
+    /**
+     * 租用会话：优先取空闲会话，池未满时新建，否则在租用超时（不超过请求剩余时间）内等待归还
+     * @param baseUrl          RAGFlow 实例地址（会话归属于实例）
+     * @param fallbackSession  配置的 session-id（关闭会话池、创建失败或等待超时时使用）
+     */
+    public Lease lease(String baseUrl, String chatId, String authorization, String fallbackSession) {
+        if (!enabled) {
+            return new Lease(fallbackSession, false, null, 0, 0);
+        }
+        ChatPool pool = pools.computeIfAbsent(baseUrl + "|" + chatId, k -> new ChatPool(baseUrl, chatId, authorization));
+        long start = System.nanoTime();
+        long waitMs = Math.max(0, Math.min(leaseTimeoutMs, RequestDeadline.remainingMillis()));
+        long waitUntil = start + TimeUnit.MILLISECONDS.toNanos(waitMs);
+        try {
+            Lease lease = pool.idle.pollFirst();
+            while (true) {
+                if (lease != null && !expired(lease)) {
+                    return lease;
+                }
+                if (lease != null) {
+                    retire(lease, "age");
+                    lease = pool.idle.pollFirst();
+                    continue;
+                }
+                if (System.currentTimeMillis() >= pool.createBackoffUntil && tryReserve(pool)) {
+                    try {
+                        return new Lease(createSession(pool), true, pool, System.currentTimeMillis(), 0);
+                    } catch (Exception e) {
+                        pool.size.decrementAndGet();
+                        pool.createBackoffUntil = System.currentTimeMillis() + CREATE_BACKOFF_MS;
+                        log.warn("RAGFlow会话创建失败（chat-id={}），使用配置的会话：{}", chatId, e.getMessage());
+                        pool.fallback.increment();
+                        return new Lease(fallbackSession, false, null, 0, 0);
+                    }
+                }
+                long remaining = waitUntil - System.nanoTime();
+                if (remaining <= 0) {
+                    log.warn("RAGFlow会话池已满（chat-id={}），等待 {}ms 超时，使用配置的会话", chatId, waitMs);
+                    pool.fallback.increment();
+                    return new Lease(fallbackSession, false, null, 0, 0);
+                }
+                // 轮换只释放名额、不放回空闲队列，分段等待以便名额释放后新建会话
+                lease = pool.idle.pollFirst(Math.min(remaining, WAIT_SLICE_NANOS), TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pool.fallback.increment();
+            return new Lease(fallbackSession, false, null, 0, 0);
+        } finally {
+            pool.leaseWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 归还会话：调用失败（会话可能已失效）或达到轮数/存活上限则轮换，否则放回池中（后进先出，复用热会话）
+     */
+    public void release(Lease lease, boolean success) {
+        if (lease == null || !lease.pooled()) {
+            return;
+        }
+        Lease used = new Lease(lease.id(), true, lease.pool(), lease.createdAt(), lease.turns() + 1);
+        if (!success) {
+            retire(used, "failure");
+        } else if (used.turns() >= maxTurns) {
+            retire(used, "turns");
+        } else if (expired(used)) {
+            retire(used, "age");
+        } else {
+            lease.pool().idle.offerFirst(used);
+        }
+    }
+
+    /**
+     * 定时清理：空闲会话超龄轮换，已轮换的会话批量删除（不占用请求线程）
+     */
+    @Scheduled(fixedDelayString = "${ragflow.session-pool.cleanup-interval-ms:60000}")
+    public void cleanup() {
+        for (ChatPool pool : pools.values()) {
+            pool.idle.removeIf(lease -> {
+                if (expired(lease)) {
+                    retire(lease, "age");
+                    return true;
+                }
+                return false;
+            });
+            List<String> ids = new ArrayList<>();
+            for (String id; (id = pool.retired.poll()) != null; ) {
+                ids.add(id);
+            }
+            if (ids.isEmpty()) {
+                continue;
+            }
+            try {
+                restTemplate.exchange(pool.sessionsUrl, HttpMethod.DELETE,
+                        new HttpEntity<>(gson.toJson(Map.of("ids", ids)), headers(pool.authorization)), String.class);
+                log.info("RAGFlow会话清理（chat-id={}）：删除 {} 个", pool.chatId, ids.size());
+            } catch (Exception e) {
+                log.warn("RAGFlow会话删除失败（chat-id={}）：{}", pool.chatId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 占用一个会话名额（池内会话数不超过 max-sessions）
+     */
+    private boolean tryReserve(ChatPool pool) {
+        for (int size = pool.size.get(); size < maxSessions; size = pool.size.get()) {
+            if (pool.size.compareAndSet(size, size + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean expired(Lease lease) {
+        return maxAgeMs > 0 && System.currentTimeMillis() - lease.createdAt() >= maxAgeMs;
+    }
+
+    private void retire(Lease lease, String reason) {
+        lease.pool().size.decrementAndGet();
+        lease.pool().retired.add(lease.id());
+        Counter.builder("ragflow.session.rotations").tag("chat_id", lease.pool().chatId).tag("reason", reason)
+                .register(meterRegistry).increment();
+        log.debug("RAGFlow会话轮换（chat-id={}，原因={}，轮数={}）：{}", lease.pool().chatId, reason, lease.turns(), lease.id());
+    }
+
+    private String createSession(ChatPool pool) {
+        String body = gson.toJson(Map.of("name", "pool-" + Long.toString(System.nanoTime(), 36)));
+        ResponseEntity<String> response = restTemplate.exchange(pool.sessionsUrl, HttpMethod.POST,
+                new HttpEntity<>(body, headers(pool.authorization)), String.class);
+        Map<String, Object> responseMap = gson.fromJson(response.getBody(), new TypeToken<Map<String, Object>>() {}.getType());
+        int code = ((Number) responseMap.getOrDefault("code", -1)).intValue();
+        if (code != 0 || !(responseMap.get("data") instanceof Map<?, ?> data) || data.get("id") == null) {
+            throw new RuntimeException("创建会话失败：" + response.getBody());
+        }
+        pool.created.increment();
+        return data.get("id").toString();
+    }
+
+    private HttpHeaders headers(String authorization) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("Authorization", authorization);
+        return headers;
+    }
+}
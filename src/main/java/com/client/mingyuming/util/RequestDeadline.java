@@ -0,0 +1,77 @@
+package com.client.mingyuming.util;
+
+import org.slf4j.MDC;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * 请求截止时间上下文（ThreadLocal）：由 DeadlineInterceptor 在请求入口设置，
+ * 重试、排队等逻辑据此判断剩余时间；提交到线程池的任务需用 wrap 传递（同时传递 MDC 中的 logId 与 RequestOutcome 标记）
+ */
+public final class RequestDeadline {
+
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    private RequestDeadline() {
+    }
+
+    public static void set(long deadlineMillis) {
+        DEADLINE.set(deadlineMillis);
+    }
+
+    public static void clear() {
+        DEADLINE.remove();
+    }
+
+    /**
+     * 截止时间（毫秒时间戳），未设置返回 null
+     */
+    public static Long get() {
+        return DEADLINE.get();
+    }
+
+    /**
+     * 剩余时间（毫秒），未设置截止时间时返回 Long.MAX_VALUE
+     */
+    public static long remainingMillis() {
+        Long deadline = DEADLINE.get();
+        return deadline == null ? Long.MAX_VALUE : deadline - System.currentTimeMillis();
+    }
+
+    /**
+     * 包装任务：在执行线程上恢复提交线程的截止时间、MDC 和请求结果标记
+     */
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        Long deadline = DEADLINE.get();
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        RequestOutcome.Outcome outcome = RequestOutcome.current();
+        return () -> {
+            Long previous = DEADLINE.get();
+            Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+            RequestOutcome.Outcome previousOutcome = RequestOutcome.current();
+            RequestOutcome.restore(outcome);
+            if (deadline != null) {
+                DEADLINE.set(deadline);
+            }
+            if (mdc != null) {
+                MDC.setContextMap(mdc);
+            }
+            try {
+                return task.call();
+            } finally {
+                if (previous == null) {
+                    DEADLINE.remove();
+                } else {
+                    DEADLINE.set(previous);
+                }
+                if (previousMdc == null) {
+                    MDC.clear();
+                } else {
+                    MDC.setContextMap(previousMdc);
+                }
+                RequestOutcome.restore(previousOutcome);
+            }
+        };
+    }
+}
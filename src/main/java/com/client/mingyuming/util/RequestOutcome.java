@@ -0,0 +1,63 @@
+package com.client.mingyuming.util;
+
+/**
+ * 请求结果标记（ThreadLocal）：流水线任一步骤以失败提示或兜底内容代替真实结果时调用 fail，
+ * 最终答案据此判断能否写入答案库；由 ExamController 在请求开始时 begin、结束时 clear，
+ * 提交到线程池的任务经 RequestDeadline.wrap 传递（多线程共享同一标记）
+ */
+public final class RequestOutcome {
+
+    private static final ThreadLocal<Outcome> CURRENT = new ThreadLocal<>();
+
+    /**
+     * 单个请求的标记，记录首个失败原因
+     */
+    static final class Outcome {
+        private volatile String failure;
+    }
+
+    private RequestOutcome() {
+    }
+
+    public static void begin() {
+        CURRENT.set(new Outcome());
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * 标记本次请求的答案含失败/兜底内容（未 begin 时忽略）
+     */
+    public static void fail(String reason) {
+        Outcome outcome = CURRENT.get();
+        if (outcome != null && outcome.failure == null) {
+            outcome.failure = reason;
+        }
+    }
+
+    public static boolean failed() {
+        return failure() != null;
+    }
+
+    /**
+     * 首个失败原因，未失败或未 begin 时返回 null
+     */
+    public static String failure() {
+        Outcome outcome = CURRENT.get();
+        return outcome == null ? null : outcome.failure;
+    }
+
+    static Outcome current() {
+        return CURRENT.get();
+    }
+
+    static void restore(Outcome outcome) {
+        if (outcome == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(outcome);
+        }
+    }
+}
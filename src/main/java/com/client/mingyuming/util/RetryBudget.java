@@ -0,0 +1,47 @@
+package com.client.mingyuming.util;
+
+/**
+ * 全局重试预算（令牌桶）：每个首发请求存入 ratio 个令牌，每次重试消耗 1 个，
+ * 另按 minPerSecond 匀速补充保底令牌；上游整体故障时重试量被限制在首发量的 ratio 倍以内，避免放大故障
+ */
+public class RetryBudget {
+
+    private final double ratio;
+    private final double minPerSecond;
+    private final double maxTokens;
+
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+
+    public RetryBudget(double ratio, double minPerSecond, double maxTokens) {
+        this.ratio = ratio;
+        this.minPerSecond = minPerSecond;
+        this.maxTokens = maxTokens;
+        this.tokens = maxTokens;
+    }
+
+    public synchronized void onRequest() {
+        refill();
+        tokens = Math.min(maxTokens, tokens + ratio);
+    }
+
+    public synchronized boolean tryAcquireRetry() {
+        refill();
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    public synchronized double getTokens() {
+        refill();
+        return tokens;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(maxTokens, tokens + (now - lastRefillNanos) / 1_000_000_000.0 * minPerSecond);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,47 @@
+package com.client.mingyuming.util;
+
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 单个上游的重试策略：错误分类 + 指数退避（Full Jitter）
+ * @param maxAttempts    最大尝试次数（含首次，1 表示不重试）
+ * @param baseDelayMs    退避基数
+ * @param maxDelayMs     单次退避上限
+ * @param retryableCodes 可重试的上游业务码（如 RAGFlow code）
+ */
+public record RetryPolicy(int maxAttempts, long baseDelayMs, long maxDelayMs, Set<Integer> retryableCodes) {
+
+    public static final RetryPolicy NO_RETRY = new RetryPolicy(1, 0, 0, Set.of());
+
+    /**
+     * 可重试：连接重置/超时、5xx、429、配置的业务码；熔断/限流拒绝与其他 4xx 不重试
+     */
+    public boolean isRetryable(Throwable e) {
+        if (e instanceof UpstreamRejectedException) {
+            return false;
+        }
+        if (e instanceof ResourceAccessException || e instanceof HttpServerErrorException) {
+            return true;
+        }
+        if (e instanceof HttpStatusCodeException statusException) {
+            return statusException.getStatusCode().value() == 429;
+        }
+        if (e instanceof UpstreamBusinessException businessException) {
+            return retryableCodes.contains(businessException.getCode());
+        }
+        return false;
+    }
+
+    /**
+     * 第 attempt 次重试前的退避时间：[0, min(maxDelay, base * 2^(attempt-1))) 均匀随机
+     */
+    public long backoffMillis(int attempt) {
+        long cap = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt - 1, 20));
+        return cap <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cap);
+    }
+}
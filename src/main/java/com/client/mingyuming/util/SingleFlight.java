@@ -0,0 +1,69 @@
+package com.client.mingyuming.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight：同一 key 同时只有一个调用在途，并发的相同调用共享该调用的结果（含异常），
+ * 调用结束即移除，不做结果缓存
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param key      合并键
+     * @param supplier 实际调用（仅 leader 执行）
+     * @param onShared 作为 follower 复用在途调用时的回调（用于统计节省的调用数）
+     */
+    public V execute(K key, Supplier<V> supplier, Runnable onShared) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            onShared.run();
+            return await(existing);
+        }
+        try {
+            V value = supplier.get();
+            mine.complete(value);
+            return value;
+        } catch (Throwable e) {
+            // Error 也要完成共享结果，否则 follower 会一直等待
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    public int size() {
+        return inFlight.size();
+    }
+
+    /**
+     * follower 等待 leader 结果，最多等到当前请求的截止时间
+     */
+    private V await(CompletableFuture<V> future) {
+        try {
+            long remaining = RequestDeadline.remainingMillis();
+            return remaining == Long.MAX_VALUE ? future.get() : future.get(Math.max(remaining, 1), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new RuntimeException("等待合并中的相同请求超时");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待合并中的相同请求被中断");
+        }
+    }
+}
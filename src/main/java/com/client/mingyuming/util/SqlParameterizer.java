@@ -0,0 +1,163 @@
+package com.client.mingyuming.util;
+
+import com.client.mingyuming.util.SqlTokenizer.Token;
+import com.client.mingyuming.util.SqlTokenizer.Type;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * SQL 参数化：把字符串/数字字面量提取为绑定参数，得到“模板 + 参数”，
+ * 让同构查询复用同一条服务端预编译语句（注释与优化器提示原样保留）
+ */
+public final class SqlParameterizer {
+
+    // 后面紧跟的字符串不能替换为占位符（类型化字面量、AS 别名、ESCAPE 字符等；省略 AS 的别名见 isImplicitAlias）
+    private static final Set<String> KEEP_STRING_AFTER = Set.of(
+            "DATE", "TIME", "TIMESTAMP", "AS", "ESCAPE", "COLLATE", "SEPARATOR"
+    );
+
+    // 选择列表中其后的字符串是表达式的一部分而非别名的关键字
+    private static final Set<String> EXPRESSION_KEYWORDS = Set.of(
+            "SELECT", "DISTINCT", "ALL", "CASE", "WHEN", "THEN", "ELSE", "LIKE", "REGEXP", "RLIKE", "IN", "IS",
+            "NOT", "AND", "OR", "XOR", "BETWEEN", "INTERVAL", "DIV", "MOD", "BINARY"
+    );
+
+    // 结束 ORDER BY / GROUP BY 子句的关键字
+    private static final Set<String> BY_CLAUSE_END = Set.of(
+            "LIMIT", "HAVING", "UNION", "WINDOW", "WITH", "FOR", "INTO", "ORDER"
+    );
+
+    /**
+     * 参数化结果
+     * @param template 带 ? 占位符的 SQL
+     * @param params   按占位符顺序排列的参数
+     * @param key      用于统计的模板归一化形式（空白折叠）
+     */
+    public record SqlTemplate(String template, List<Object> params, String key) {
+    }
+
+    private SqlParameterizer() {
+    }
+
+    public static SqlTemplate parameterize(String sql) {
+        List<Token> tokens = SqlTokenizer.tokenize(sql);
+        StringBuilder template = new StringBuilder(sql.length());
+        List<Object> params = new ArrayList<>();
+        int copied = 0;
+        int depth = 0;
+        int byClauseDepth = -1; // 所在 ORDER BY / GROUP BY 子句的括号深度，-1 表示不在子句中
+        Deque<Integer> selectListDepths = new ArrayDeque<>(); // 尚未遇到 FROM 的 SELECT 所在括号深度
+
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            Token previous = i > 0 ? tokens.get(i - 1) : null;
+
+            // 跟踪 ORDER BY / GROUP BY 子句：其中的数字是列序号，必须保留字面量
+            if (token.isSymbol("(")) {
+                depth++;
+            } else if (token.isSymbol(")")) {
+                if (depth-- == byClauseDepth) {
+                    byClauseDepth = -1;
+                }
+                while (!selectListDepths.isEmpty() && selectListDepths.peek() > depth) {
+                    selectListDepths.pop();
+                }
+            } else if (token.isWord("SELECT")) {
+                selectListDepths.push(depth);
+            } else if (token.isWord("FROM") && !selectListDepths.isEmpty() && selectListDepths.peek() == depth) {
+                selectListDepths.pop();
+            } else if (token.isWord("BY") && previous != null && (previous.isWord("ORDER") || previous.isWord("GROUP"))) {
+                byClauseDepth = depth;
+            } else if (depth == byClauseDepth && token.type() == Type.WORD && BY_CLAUSE_END.contains(token.upper())) {
+                byClauseDepth = -1;
+            }
+            boolean inByClause = byClauseDepth != -1;
+
+            Object param = null;
+            boolean inSelectList = !selectListDepths.isEmpty() && selectListDepths.peek() == depth;
+            if (token.type() == Type.STRING && !(previous != null && previous.type() == Type.WORD
+                    && KEEP_STRING_AFTER.contains(previous.upper()))
+                    && !(inSelectList && isImplicitAlias(previous, i + 1 < tokens.size() ? tokens.get(i + 1) : null))) {
+                param = unquote(token.text());
+            } else if (token.type() == Type.NUMBER && !inByClause) {
+                param = parseNumber(token.text());
+            }
+            if (param == null) {
+                continue;
+            }
+            template.append(sql, copied, token.start()).append('?');
+            copied = token.end();
+            params.add(param);
+        }
+        template.append(sql, copied, sql.length());
+        String text = template.toString().trim();
+        return new SqlTemplate(text, params, text.replaceAll("\\s+", " "));
+    }
+
+    /**
+     * 选择列表中省略 AS 的字符串别名（如 SUM(x) '总额'、name '姓名'）：紧跟在表达式之后，且其后是逗号、FROM 或语句结束
+     */
+    private static boolean isImplicitAlias(Token previous, Token next) {
+        if (previous == null) {
+            return false;
+        }
+        boolean afterExpression = switch (previous.type()) {
+            case QUOTED_IDENT, NUMBER, STRING -> true;
+            case WORD -> !EXPRESSION_KEYWORDS.contains(previous.upper());
+            case SYMBOL -> previous.isSymbol(")");
+        };
+        return afterExpression && (next == null || next.isSymbol(",") || next.isSymbol(")")
+                || next.isSymbol(";") || next.isWord("FROM"));
+    }
+
+    /**
+     * 去掉引号并还原转义（'' / \' / \\ / \n 等）
+     */
+    private static String unquote(String literal) {
+        char quote = literal.charAt(0);
+        StringBuilder value = new StringBuilder(literal.length());
+        for (int i = 1; i < literal.length() - 1; i++) {
+            char c = literal.charAt(i);
+            if (c == '\\' && i + 1 < literal.length() - 1) {
+                char next = literal.charAt(++i);
+                switch (next) {
+                    case 'n' -> value.append('\n');
+                    case 't' -> value.append('\t');
+                    case 'r' -> value.append('\r');
+                    case '0' -> value.append('\0');
+                    // LIKE 中的 \% \_ 需保留反斜杠
+                    case '%', '_' -> value.append('\\').append(next);
+                    default -> value.append(next);
+                }
+            } else if (c == quote && i + 1 < literal.length() - 1 && literal.charAt(i + 1) == quote) {
+                value.append(quote);
+                i++;
+            } else {
+                value.append(c);
+            }
+        }
+        return value.toString();
+    }
+
+    /**
+     * 整数转 Long，小数转 BigDecimal；十六进制等特殊写法返回 null（保留字面量）
+     */
+    private static Object parseNumber(String text) {
+        try {
+            if (text.startsWith("0x") || text.startsWith("0X")) {
+                return null;
+            }
+            if (text.indexOf('.') == -1 && text.indexOf('e') == -1 && text.indexOf('E') == -1) {
+                return Long.parseLong(text);
+            }
+            return new BigDecimal(text);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
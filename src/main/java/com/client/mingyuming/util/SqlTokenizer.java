@@ -0,0 +1,212 @@
+package com.client.mingyuming.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 轻量 SQL 词法分析器（MySQL 方言）：切分关键字/标识符、字符串、数字与符号，跳过注释
+ * 仅做词法层面的切分，供 SQL 防护、Schema 校验、参数化模板等场景复用，不做完整语法解析
+ */
+public final class SqlTokenizer {
+
+    public enum Type {
+        WORD,          // 关键字或未加引号的标识符
+        QUOTED_IDENT,  // 反引号标识符
+        STRING,        // 单/双引号字符串字面量
+        NUMBER,        // 数字字面量
+        SYMBOL         // 运算符、括号、逗号、分号等
+    }
+
+    /**
+     * 单个词法单元（start/end 为原始 SQL 中的下标，end 不包含）
+     */
+    public record Token(Type type, String text, int start, int end) {
+
+        public boolean isWord(String word) {
+            return type == Type.WORD && text.equalsIgnoreCase(word);
+        }
+
+        public boolean isSymbol(String symbol) {
+            return type == Type.SYMBOL && text.equals(symbol);
+        }
+
+        public String upper() {
+            return text.toUpperCase(Locale.ROOT);
+        }
+
+        /**
+         * 标识符名（反引号标识符去掉引号）
+         */
+        public String identifier() {
+            return type == Type.QUOTED_IDENT ? text.substring(1, text.length() - 1).replace("``", "`") : text;
+        }
+    }
+
+    private static final String[] MULTI_CHAR_SYMBOLS = {"<=>", "<=", ">=", "<>", "!=", ":=", "||", "&&", "<<", ">>", "->>", "->"};
+
+    private SqlTokenizer() {
+    }
+
+    /**
+     * 切分 SQL；遇到未闭合的字符串/注释或 MySQL 可执行注释（/*! ... *&#47;）时抛出 IllegalArgumentException
+     */
+    public static List<Token> tokenize(String sql) {
+        List<Token> tokens = new ArrayList<>();
+        if (sql == null) {
+            return tokens;
+        }
+        int len = sql.length();
+        int i = 0;
+        while (i < len) {
+            char c = sql.charAt(i);
+            // 1. 空白
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            // 2. 注释：-- 、#、/* */
+            if (c == '-' && i + 1 < len && sql.charAt(i + 1) == '-'
+                    && (i + 2 >= len || Character.isWhitespace(sql.charAt(i + 2)))) {
+                i = skipLine(sql, i);
+                continue;
+            }
+            if (c == '#') {
+                i = skipLine(sql, i);
+                continue;
+            }
+            if (c == '/' && i + 1 < len && sql.charAt(i + 1) == '*') {
+                if (i + 2 < len && sql.charAt(i + 2) == '!') {
+                    throw new IllegalArgumentException("不支持MySQL可执行注释（/*!...*/）");
+                }
+                int close = sql.indexOf("*/", i + 2);
+                if (close == -1) {
+                    throw new IllegalArgumentException("注释未闭合");
+                }
+                i = close + 2;
+                continue;
+            }
+            // 3. 字符串字面量
+            if (c == '\'' || c == '"') {
+                int end = skipQuoted(sql, i, c, true);
+                tokens.add(new Token(Type.STRING, sql.substring(i, end), i, end));
+                i = end;
+                continue;
+            }
+            // 4. 反引号标识符
+            if (c == '`') {
+                int end = skipQuoted(sql, i, c, false);
+                tokens.add(new Token(Type.QUOTED_IDENT, sql.substring(i, end), i, end));
+                i = end;
+                continue;
+            }
+            // 5. 数字（含小数、科学计数、十六进制）
+            if (Character.isDigit(c) || (c == '.' && i + 1 < len && Character.isDigit(sql.charAt(i + 1)))) {
+                int end = scanNumber(sql, i);
+                // 数字开头但后面紧跟字母的（如 1abc）在 MySQL 中是标识符
+                if (end < len && isWordChar(sql.charAt(end))) {
+                    end = scanWord(sql, end);
+                    tokens.add(new Token(Type.WORD, sql.substring(i, end), i, end));
+                } else {
+                    tokens.add(new Token(Type.NUMBER, sql.substring(i, end), i, end));
+                }
+                i = end;
+                continue;
+            }
+            // 6. 关键字/标识符
+            if (isWordChar(c)) {
+                int end = scanWord(sql, i);
+                tokens.add(new Token(Type.WORD, sql.substring(i, end), i, end));
+                i = end;
+                continue;
+            }
+            // 7. 符号
+            String symbol = matchSymbol(sql, i);
+            tokens.add(new Token(Type.SYMBOL, symbol, i, i + symbol.length()));
+            i += symbol.length();
+        }
+        return tokens;
+    }
+
+    private static int skipLine(String sql, int i) {
+        int newline = sql.indexOf('\n', i);
+        return newline == -1 ? sql.length() : newline + 1;
+    }
+
+    private static int skipQuoted(String sql, int start, char quote, boolean backslashEscape) {
+        int i = start + 1;
+        int len = sql.length();
+        while (i < len) {
+            char c = sql.charAt(i);
+            if (backslashEscape && c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (c == quote) {
+                // 连续两个引号表示转义
+                if (i + 1 < len && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        throw new IllegalArgumentException("引号未闭合：" + quote);
+    }
+
+    private static int scanNumber(String sql, int start) {
+        int len = sql.length();
+        int i = start;
+        if (sql.charAt(i) == '0' && i + 1 < len && (sql.charAt(i + 1) == 'x' || sql.charAt(i + 1) == 'X')) {
+            i += 2;
+            while (i < len && Character.digit(sql.charAt(i), 16) != -1) {
+                i++;
+            }
+            return i;
+        }
+        while (i < len && Character.isDigit(sql.charAt(i))) {
+            i++;
+        }
+        if (i < len && sql.charAt(i) == '.') {
+            i++;
+            while (i < len && Character.isDigit(sql.charAt(i))) {
+                i++;
+            }
+        }
+        if (i < len && (sql.charAt(i) == 'e' || sql.charAt(i) == 'E')) {
+            int j = i + 1;
+            if (j < len && (sql.charAt(j) == '+' || sql.charAt(j) == '-')) {
+                j++;
+            }
+            if (j < len && Character.isDigit(sql.charAt(j))) {
+                i = j;
+                while (i < len && Character.isDigit(sql.charAt(i))) {
+                    i++;
+                }
+            }
+        }
+        return i;
+    }
+
+    private static int scanWord(String sql, int start) {
+        int i = start;
+        while (i < sql.length() && isWordChar(sql.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    private static String matchSymbol(String sql, int i) {
+        for (String symbol : MULTI_CHAR_SYMBOLS) {
+            if (sql.startsWith(symbol, i)) {
+                return symbol;
+            }
+        }
+        return String.valueOf(sql.charAt(i));
+    }
+}
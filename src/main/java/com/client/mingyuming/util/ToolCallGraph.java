@@ -0,0 +1,157 @@
+package com.client.mingyuming.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 多工具调用依赖图：解析决策中的 toolCalls（id / toolName / parameters / dependsOn），
+ * 校验 id 唯一、依赖存在且无环，按拓扑序返回节点；参数中的 ${id.field} 引用在依赖完成后替换为其结果字段
+ */
+public final class ToolCallGraph {
+
+    private static final Pattern REFERENCE = Pattern.compile("\\$\\{([A-Za-z0-9_-]+)\\.([A-Za-z0-9_.]+)}");
+
+    /**
+     * 单个工具调用
+     * @param dependsOn 显式依赖与参数中引用到的 id 的并集
+     */
+    public record Node(String id, String toolName, Map<String, Object> parameters, List<String> dependsOn) {
+    }
+
+    private ToolCallGraph() {
+    }
+
+    /**
+     * 解析并校验，返回拓扑序（同层保持原顺序）
+     * @param toolCalls 决策中的 toolCalls 数组
+     * @param maxCalls  单次决策允许的最大调用数
+     * @throws IllegalArgumentException 格式错误、id 重复、依赖不存在或存在环
+     */
+    @SuppressWarnings("unchecked")
+    public static List<Node> parse(List<?> toolCalls, int maxCalls) {
+        if (toolCalls == null || toolCalls.isEmpty()) {
+            throw new IllegalArgumentException("toolCalls为空");
+        }
+        if (toolCalls.size() > maxCalls) {
+            throw new IllegalArgumentException("工具调用数 " + toolCalls.size() + " 超过上限 " + maxCalls);
+        }
+
+        Map<String, Node> nodes = new LinkedHashMap<>();
+        for (int i = 0; i < toolCalls.size(); i++) {
+            if (!(toolCalls.get(i) instanceof Map<?, ?> call)) {
+                throw new IllegalArgumentException("toolCalls[" + i + "]格式错误");
+            }
+            Object toolName = call.get("toolName");
+            if (!(toolName instanceof String name) || name.isEmpty()) {
+                throw new IllegalArgumentException("toolCalls[" + i + "]缺少toolName");
+            }
+            String id = call.get("id") == null ? "call" + (i + 1) : call.get("id").toString();
+            Map<String, Object> parameters = call.get("parameters") instanceof Map<?, ?> params
+                    ? new LinkedHashMap<>((Map<String, Object>) params) : new LinkedHashMap<>();
+
+            List<String> dependsOn = new ArrayList<>();
+            if (call.get("dependsOn") instanceof List<?> deps) {
+                deps.forEach(dep -> addOnce(dependsOn, dep.toString()));
+            }
+            for (Object value : parameters.values()) {
+                if (value instanceof String text) {
+                    Matcher matcher = REFERENCE.matcher(text);
+                    while (matcher.find()) {
+                        addOnce(dependsOn, matcher.group(1));
+                    }
+                }
+            }
+            if (nodes.put(id, new Node(id, name, parameters, List.copyOf(dependsOn))) != null) {
+                throw new IllegalArgumentException("工具调用id重复：" + id);
+            }
+        }
+        return topologicalOrder(nodes);
+    }
+
+    /**
+     * 替换参数中的 ${id.field} 引用：整个值为单个引用时保留原类型（如数字），否则按字符串拼接
+     * @param results 已完成调用的结果字段（id → 字段）
+     * @throws IllegalArgumentException 引用的字段不存在
+     */
+    public static Map<String, Object> resolve(Map<String, Object> parameters, Map<String, Map<String, Object>> results) {
+        Map<String, Object> resolved = new LinkedHashMap<>();
+        parameters.forEach((name, value) -> {
+            if (!(value instanceof String text) || !text.contains("${")) {
+                resolved.put(name, value);
+                return;
+            }
+            Matcher matcher = REFERENCE.matcher(text);
+            if (matcher.matches()) {
+                resolved.put(name, lookup(results, matcher.group(1), matcher.group(2)));
+                return;
+            }
+            StringBuilder builder = new StringBuilder();
+            matcher.reset();
+            while (matcher.find()) {
+                matcher.appendReplacement(builder,
+                        Matcher.quoteReplacement(String.valueOf(lookup(results, matcher.group(1), matcher.group(2)))));
+            }
+            matcher.appendTail(builder);
+            resolved.put(name, builder.toString());
+        });
+        return resolved;
+    }
+
+    private static Object lookup(Map<String, Map<String, Object>> results, String id, String path) {
+        Object current = results.get(id);
+        for (String key : path.split("\\.")) {
+            if (!(current instanceof Map<?, ?> map) || !map.containsKey(key)) {
+                throw new IllegalArgumentException("引用的结果字段不存在：${" + id + "." + path + "}");
+            }
+            current = map.get(key);
+        }
+        return current;
+    }
+
+    /**
+     * Kahn 拓扑排序，检测缺失依赖与环
+     */
+    private static List<Node> topologicalOrder(Map<String, Node> nodes) {
+        Map<String, Integer> inDegree = new HashMap<>();
+        Map<String, List<String>> dependents = new HashMap<>();
+        for (Node node : nodes.values()) {
+            inDegree.put(node.id(), node.dependsOn().size());
+            for (String dep : node.dependsOn()) {
+                if (!nodes.containsKey(dep)) {
+                    throw new IllegalArgumentException("工具调用 " + node.id() + " 依赖不存在：" + dep);
+                }
+                dependents.computeIfAbsent(dep, k -> new ArrayList<>()).add(node.id());
+            }
+        }
+
+        Deque<String> ready = new ArrayDeque<>();
+        nodes.keySet().stream().filter(id -> inDegree.get(id) == 0).forEach(ready::add);
+        List<Node> ordered = new ArrayList<>(nodes.size());
+        while (!ready.isEmpty()) {
+            String id = ready.poll();
+            ordered.add(nodes.get(id));
+            for (String dependent : dependents.getOrDefault(id, List.of())) {
+                if (inDegree.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        if (ordered.size() != nodes.size()) {
+            throw new IllegalArgumentException("工具调用存在循环依赖");
+        }
+        return ordered;
+    }
+
+    private static void addOnce(List<String> list, String value) {
+        if (!list.contains(value)) {
+            list.add(value);
+        }
+    }
+}
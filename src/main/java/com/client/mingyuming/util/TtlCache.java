@@ -0,0 +1,100 @@
+package com.client.mingyuming.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * 带逐条过期时间与容量上限的 LRU 缓存：每条记录单独指定 TTL，
+ * 总权重（由 weigher 估算，如字节数）超过上限时淘汰最久未访问的记录
+ */
+public final class TtlCache<K, V> {
+
+    private record Entry<V>(V value, long expiresAtNanos, long weight) {
+    }
+
+    private final long maxWeight;
+    private final ToLongBiFunction<K, V> weigher;
+    // access-order：迭代顺序即最久未访问在前
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long weight;
+    private long evictions;
+
+    public TtlCache(long maxWeight, ToLongBiFunction<K, V> weigher) {
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    /**
+     * 取未过期的值，不存在或已过期返回 null（过期记录顺带删除）
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAtNanos >= 0) {
+            entries.remove(key);
+            weight -= entry.weight;
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * 写入并指定存活时间；单条超过容量上限或 TTL 非正时不缓存
+     */
+    public synchronized void put(K key, V value, long ttlNanos) {
+        long entryWeight = weigher.applyAsLong(key, value);
+        if (ttlNanos <= 0 || entryWeight > maxWeight) {
+            return;
+        }
+        Entry<V> previous = entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos, entryWeight));
+        if (previous != null) {
+            weight -= previous.weight;
+        }
+        weight += entryWeight;
+        evict();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long weight() {
+        return weight;
+    }
+
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    /**
+     * 超过容量时先清理已过期记录，仍超出则按 LRU 淘汰
+     */
+    private void evict() {
+        if (weight <= maxWeight) {
+            return;
+        }
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> {
+            if (now - entry.expiresAtNanos >= 0) {
+                weight -= entry.weight;
+                return true;
+            }
+            return false;
+        });
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (weight > maxWeight && iterator.hasNext()) {
+            weight -= iterator.next().getValue().weight;
+            iterator.remove();
+            evictions++;
+        }
+    }
+}
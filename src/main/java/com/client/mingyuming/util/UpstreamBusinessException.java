@@ -0,0 +1,20 @@
+package com.client.mingyuming.util;
+
+/**
+ * 上游业务码异常（HTTP 200 但响应 code != 0，如 RAGFlow）
+ */
+public class UpstreamBusinessException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int code;
+
+    public UpstreamBusinessException(int code, String message) {
+        super(message);
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+}
@@ -0,0 +1,63 @@
+package com.client.mingyuming.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 上游调用合并：相同端点 + chat-id + 归一化问题的并发调用只发一次，其余共享在途结果；
+ * upstream.singleflight.calls{role=follower} 即为节省的上游调用数
+ */
+@Component
+public class UpstreamCallCoalescer {
+
+    @Value("${resilience.single-flight.enabled:true}")
+    private boolean enabled;
+
+    private final MeterRegistry meterRegistry;
+    private final SingleFlight<String, Object> singleFlight = new SingleFlight<>();
+    private final Map<String, Counter[]> counters = new ConcurrentHashMap<>();
+
+    public UpstreamCallCoalescer(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("upstream.singleflight.inflight", singleFlight, SingleFlight::size).register(meterRegistry);
+    }
+
+    /**
+     * @param upstream 上游标识（与 UpstreamGuard 一致，用于指标）
+     * @param endpoint 端点（URL，含 chat-id / 模型）
+     * @param question 请求内容（归一化后参与合并键）
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String upstream, String endpoint, String question, Supplier<T> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        Counter[] roleCounters = counters.computeIfAbsent(upstream, u -> new Counter[]{
+                Counter.builder("upstream.singleflight.calls").tag("upstream", u).tag("role", "leader").register(meterRegistry),
+                Counter.builder("upstream.singleflight.calls").tag("upstream", u).tag("role", "follower").register(meterRegistry)
+        });
+        String key = endpoint + "|" + normalize(question);
+        return (T) singleFlight.execute(key, () -> {
+            roleCounters[0].increment();
+            return call.get();
+        }, roleCounters[1]::increment);
+    }
+
+    /**
+     * 归一化：NFKC（全角转半角）、去首尾空白、连续空白折叠
+     */
+    static String normalize(String question) {
+        if (question == null) {
+            return "";
+        }
+        return Normalizer.normalize(question, Normalizer.Form.NFKC).strip().replaceAll("\\s+", " ");
+    }
+}
@@ -0,0 +1,203 @@
+package com.client.mingyuming.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 上游调用保护：每个上游（RAGFlow chat-id、本地大模型、各工具 API）独立的熔断器 + AIMD 并发限制器，
+ * 熔断打开或并发超限时抛出 UpstreamRejectedException，由调用方走原有兜底答案；
+ * 可重试错误按上游类型（ragflow/openai/tool）的策略做带抖动的指数退避重试，受全局重试预算和请求剩余时间约束
+ */
+@Slf4j
+@Component
+public class UpstreamGuard {
+
+    @Value("${resilience.breaker.window-size:20}")
+    private int windowSize;
+    @Value("${resilience.breaker.min-calls:10}")
+    private int minCalls;
+    @Value("${resilience.breaker.failure-rate-threshold:0.5}")
+    private double failureRateThreshold;
+    @Value("${resilience.breaker.slow-call-ms:20000}")
+    private long slowCallMs;
+    @Value("${resilience.breaker.slow-call-rate-threshold:0.8}")
+    private double slowCallRateThreshold;
+    @Value("${resilience.breaker.open-duration-ms:10000}")
+    private long openDurationMs;
+    @Value("${resilience.breaker.half-open-calls:3}")
+    private int halfOpenCalls;
+    @Value("${resilience.limiter.initial-limit:8}")
+    private int initialLimit;
+    @Value("${resilience.limiter.min-limit:1}")
+    private int minLimit;
+    @Value("${resilience.limiter.max-limit:64}")
+    private int maxLimit;
+    @Value("${resilience.limiter.backoff-ratio:0.7}")
+    private double backoffRatio;
+    @Value("${resilience.limiter.latency-threshold-ms:15000}")
+    private long latencyThresholdMs;
+
+    @Value("${resilience.retry.min-attempt-ms:2000}")
+    private long minAttemptMs;
+    @Value("${resilience.retry.no-retry-upstreams:}")
+    private Set<String> noRetryUpstreams;
+
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
+    private final RetryBudget retryBudget;
+    private final Map<String, Upstream> upstreams = new ConcurrentHashMap<>();
+    private final Map<String, RetryPolicy> retryPolicies = new ConcurrentHashMap<>();
+
+    public UpstreamGuard(MeterRegistry meterRegistry, Environment environment,
+                         @Value("${resilience.retry.budget-ratio:0.1}") double budgetRatio,
+                         @Value("${resilience.retry.budget-min-per-second:1}") double budgetMinPerSecond,
+                         @Value("${resilience.retry.budget-max-tokens:20}") double budgetMaxTokens) {
+        this.meterRegistry = meterRegistry;
+        this.environment = environment;
+        this.retryBudget = new RetryBudget(budgetRatio, budgetMinPerSecond, budgetMaxTokens);
+        Gauge.builder("upstream.retry.budget.tokens", retryBudget, RetryBudget::getTokens).register(meterRegistry);
+    }
+
+    /**
+     * 单个上游的保护状态
+     */
+    final class Upstream {
+        final CircuitBreaker breaker = new CircuitBreaker(windowSize, minCalls, failureRateThreshold,
+                slowCallMs, slowCallRateThreshold, openDurationMs, halfOpenCalls);
+        final AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(initialLimit, minLimit, maxLimit,
+                backoffRatio, latencyThresholdMs);
+        final Counter breakerRejected;
+        final Counter limiterRejected;
+        final Counter retried;
+        final Counter retryBudgetExhausted;
+        final Counter retryDeadlineExceeded;
+
+        Upstream(String name) {
+            Gauge.builder("upstream.limiter.limit", limiter, AimdConcurrencyLimiter::getLimit)
+                    .tag("upstream", name).register(meterRegistry);
+            Gauge.builder("upstream.limiter.inflight", limiter, AimdConcurrencyLimiter::getInFlight)
+                    .tag("upstream", name).register(meterRegistry);
+            Gauge.builder("upstream.breaker.state", breaker, b -> b.getState().ordinal())
+                    .tag("upstream", name).description("0=CLOSED,1=OPEN,2=HALF_OPEN").register(meterRegistry);
+            breakerRejected = Counter.builder("upstream.rejected").tag("upstream", name).tag("reason", "breaker-open").register(meterRegistry);
+            limiterRejected = Counter.builder("upstream.rejected").tag("upstream", name).tag("reason", "limit-exceeded").register(meterRegistry);
+            retried = Counter.builder("upstream.retry").tag("upstream", name).tag("outcome", "attempted").register(meterRegistry);
+            retryBudgetExhausted = Counter.builder("upstream.retry").tag("upstream", name).tag("outcome", "budget-exhausted").register(meterRegistry);
+            retryDeadlineExceeded = Counter.builder("upstream.retry").tag("upstream", name).tag("outcome", "deadline-exceeded").register(meterRegistry);
+        }
+    }
+
+    /**
+     * 在熔断器与并发限制保护下执行上游调用，可重试错误按策略退避重试
+     * @param upstream 上游标识（如 ragflow:{chatId}、openai、tool:{path}），冒号前为策略类型
+     */
+    public <T> T execute(String upstream, Supplier<T> call) {
+        Upstream state = upstreams.computeIfAbsent(upstream, Upstream::new);
+        RetryPolicy policy = noRetryUpstreams.contains(upstream) ? RetryPolicy.NO_RETRY : retryPolicy(upstream);
+        retryBudget.onRequest();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return executeOnce(upstream, state, call);
+            } catch (RuntimeException e) {
+                if (attempt >= policy.maxAttempts() || !policy.isRetryable(e)) {
+                    throw e;
+                }
+                long backoff = policy.backoffMillis(attempt);
+                if (RequestDeadline.remainingMillis() < backoff + minAttemptMs) {
+                    state.retryDeadlineExceeded.increment();
+                    throw e;
+                }
+                if (!retryBudget.tryAcquireRetry()) {
+                    state.retryBudgetExhausted.increment();
+                    log.warn("上游[{}]重试预算耗尽，不再重试：{}", upstream, e.getMessage());
+                    throw e;
+                }
+                state.retried.increment();
+                log.warn("上游[{}]第{}次调用失败，{}ms 后重试：{}", upstream, attempt, backoff, e.getMessage());
+                sleep(backoff, e);
+            }
+        }
+    }
+
+    /**
+     * 按上游类型读取重试策略：resilience.retry.{type}.max-attempts / base-delay-ms / max-delay-ms / retryable-codes
+     */
+    private RetryPolicy retryPolicy(String upstream) {
+        String type = upstream.contains(":") ? upstream.substring(0, upstream.indexOf(':')) : upstream;
+        return retryPolicies.computeIfAbsent(type, t -> {
+            String prefix = "resilience.retry." + t + ".";
+            Set<Integer> codes = new HashSet<>();
+            for (String code : environment.getProperty(prefix + "retryable-codes", "").split(",")) {
+                if (!code.isBlank()) {
+                    codes.add(Integer.parseInt(code.trim()));
+                }
+            }
+            return new RetryPolicy(
+                    environment.getProperty(prefix + "max-attempts", Integer.class, 1),
+                    environment.getProperty(prefix + "base-delay-ms", Long.class, 100L),
+                    environment.getProperty(prefix + "max-delay-ms", Long.class, 1000L),
+                    codes);
+        });
+    }
+
+    private void sleep(long millis, RuntimeException cause) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+
+    private <T> T executeOnce(String upstream, Upstream state, Supplier<T> call) {
+        long permit = state.breaker.tryAcquire();
+        if (permit == CircuitBreaker.REJECTED) {
+            state.breakerRejected.increment();
+            throw new UpstreamRejectedException(upstream, "熔断中");
+        }
+        if (!state.limiter.tryAcquire()) {
+            // 未发起调用，不计入熔断统计
+            state.breaker.release(permit);
+            state.limiterRejected.increment();
+            throw new UpstreamRejectedException(upstream, "并发超限（上限" + state.limiter.getLimit() + "）");
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            T result = call.get();
+            long latency = System.currentTimeMillis() - start;
+            state.limiter.onSuccess(latency);
+            state.breaker.onSuccess(permit, latency);
+            return result;
+        } catch (HttpClientErrorException e) {
+            // 4xx 是请求本身的问题，与上游健康无关
+            state.limiter.onIgnored();
+            state.breaker.onSuccess(permit, System.currentTimeMillis() - start);
+            throw e;
+        } catch (ResourceAccessException | HttpServerErrorException e) {
+            // 超时、连接失败、5xx：过载信号
+            state.limiter.onDropped();
+            state.breaker.onFailure(permit);
+            throw e;
+        } catch (RuntimeException e) {
+            state.limiter.onIgnored();
+            state.breaker.onFailure(permit);
+            throw e;
+        }
+    }
+}
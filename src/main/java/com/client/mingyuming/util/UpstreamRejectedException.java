@@ -0,0 +1,20 @@
+package com.client.mingyuming.util;
+
+/**
+ * 上游保护拒绝：熔断打开或并发超限时快速失败，不发起真实调用
+ */
+public class UpstreamRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String upstream;
+
+    public UpstreamRejectedException(String upstream, String reason) {
+        super("上游[" + upstream + "]" + reason + "，快速失败");
+        this.upstream = upstream;
+    }
+
+    public String getUpstream() {
+        return upstream;
+    }
+}
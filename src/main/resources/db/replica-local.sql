@@ -0,0 +1,14 @@
+-- 本地读库路由调试数据（replica-local profile：主库与各读库执行同一脚本，模拟主从同步后的数据）
+CREATE TABLE IF NOT EXISTS credit_card_bill (
+    id           BIGINT PRIMARY KEY AUTO_INCREMENT,
+    card_number  VARCHAR(32)    NOT NULL,
+    bill_month   VARCHAR(7)     NOT NULL,
+    total_amount DECIMAL(12, 2) NOT NULL,
+    status       VARCHAR(16)    NOT NULL
+);
+
+DELETE FROM credit_card_bill;
+INSERT INTO credit_card_bill (card_number, bill_month, total_amount, status) VALUES
+    ('6211111111111111', '2025-08', 12034.20, 'paid'),
+    ('6211111111111111', '2025-09', 15680.50, 'unpaid'),
+    ('6222222222222222', '2025-09', 3200.00, 'paid');
@@ -0,0 +1,118 @@
+package com.client.mingyuming.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AnswerShaperTest {
+
+    // 与 ChatService.formatResponse / 本地工具的输出格式一致
+    private static final String CREDIT_CARD = "信用卡账单（2025-09）：卡号=6211111111111111，总金额=15680.50CNY，状态=unpaid，截止日期=2025-10-15";
+    private static final String EXCHANGE = "汇率转换：100.00USD = 718.00CNY（汇率：7.18），更新时间=2025-10-18T10:00:00";
+    private static final String UTILITY = "水电煤账单（2025-09-electricity）：户号=BJ001234567，用量=286.80kWh（度），金额=143.40CNY，状态=paid";
+    private static final String ASSET = "用户资产（信用卡）：用户ID=110101199003072845，共2个信用卡资产";
+    private static final String PAYMENT = "支付订单创建成功：订单ID=PAY20251018001，商户号=M123456，金额=99.50CNY，状态=pending，过期时间=2025-10-18 12:30:00";
+    private static final String CALCULATOR = "计算结果：12.5";
+    private static final String CURRENT_DATE = "当前系统日期（东八区）：2025-10-18";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AnswerShaper shaper;
+
+    @BeforeEach
+    void setUp() {
+        shaper = new AnswerShaper(meterRegistry);
+        ReflectionTestUtils.setField(shaper, "enabled", true);
+    }
+
+    @Test
+    void parsesFieldsOfEachTool() {
+        assertEquals(Map.of("卡号", "6211111111111111", "总金额", "15680.50CNY", "状态", "unpaid", "截止日期", "2025-10-15"),
+                shaper.parseFields(CREDIT_CARD));
+        assertEquals(Map.of("更新时间", "2025-10-18T10:00:00", "兑换金额", "718.00", "汇率", "7.18"),
+                shaper.parseFields(EXCHANGE));
+        assertEquals(Map.of("户号", "BJ001234567", "用量", "286.80kWh", "金额", "143.40CNY", "状态", "paid"),
+                shaper.parseFields(UTILITY));
+        assertEquals(Map.of("用户ID", "110101199003072845", "数量", "2"), shaper.parseFields(ASSET));
+        assertEquals(Map.of("订单ID", "PAY20251018001", "商户号", "M123456", "金额", "99.50CNY", "状态", "pending",
+                "过期时间", "2025-10-18 12:30:00"), shaper.parseFields(PAYMENT));
+        assertEquals(Map.of("结果", "12.5"), shaper.parseFields(CALCULATOR));
+        assertEquals(Map.of("日期", "2025-10-18"), shaper.parseFields(CURRENT_DATE));
+    }
+
+    @Test
+    void parsesOptions() {
+        assertEquals(Map.of("A", "1111", "B", "15680.50", "C", "6211"), shaper.parseOptions("A. 1111 B. 15680.50 C. 6211"));
+        assertEquals(Map.of("A", "未还款", "B", "已还款"), shaper.parseOptions("A、未还款\nB、已还款"));
+        assertEquals(Map.of("A", "2025-10-15", "B", "2025-10-20"), shaper.parseOptions("A．2025-10-15 B）2025-10-20"));
+        assertEquals(Map.of(), shaper.parseOptions(null));
+    }
+
+    @Test
+    void selectsAskedField() {
+        Map<String, String> card = shaper.parseFields(CREDIT_CARD);
+        assertEquals("15680.50CNY", shaper.selectValue("该卡 2025-09 的账单总金额是多少？", card));
+        assertEquals("2025-10-15", shaper.selectValue("该账单的还款截止日期是哪天？", card));
+        assertEquals("unpaid", shaper.selectValue("该账单是否已还款？", card));
+        // 所问字段不在结果中
+        assertNull(shaper.selectValue("该卡号的后四位是多少？", card));
+        assertNull(shaper.selectValue("该账单的最低还款额为？", card));
+
+        Map<String, String> exchange = shaper.parseFields(EXCHANGE);
+        assertEquals("718.00", shaper.selectValue("100美元能换成多少人民币？", exchange));
+        assertEquals("7.18", shaper.selectValue("美元兑人民币的汇率是多少？", exchange));
+
+        Map<String, String> utility = shaper.parseFields(UTILITY);
+        assertEquals("286.80kWh", shaper.selectValue("该户 9 月用了多少度电？", utility));
+        assertEquals("143.40CNY", shaper.selectValue("该户 9 月电费金额是多少？", utility));
+        assertEquals("paid", shaper.selectValue("电费是否已缴费？", utility));
+
+        assertEquals("2", shaper.selectValue("该用户名下有几张信用卡？", shaper.parseFields(ASSET)));
+
+        Map<String, String> payment = shaper.parseFields(PAYMENT);
+        assertEquals("PAY20251018001", shaper.selectValue("创建的支付订单ID是什么？", payment));
+        assertEquals("2025-10-18 12:30:00", shaper.selectValue("该订单的过期时间是？", payment));
+        // 同时问金额与状态
+        assertNull(shaper.selectValue("订单金额和状态分别是什么？", payment));
+
+        assertEquals("12.5", shaper.selectValue("3+5*2-0.5等于多少？", shaper.parseFields(CALCULATOR)));
+        assertEquals("2025-10-18", shaper.selectValue("今天几号？", shaper.parseFields(CURRENT_DATE)));
+    }
+
+    @Test
+    void answersChoiceOnlyForAskedField() {
+        assertEquals(Optional.of("B"), shaper.shape("选择题", "该账单的总金额是多少？", "A. 1568.05 B. 15680.50 C. 0", CREDIT_CARD));
+        assertEquals(Optional.of("A"), shaper.shape("选择题", "该账单是否已还款？", "A. 未还款 B. 已还款", CREDIT_CARD));
+        assertEquals(Optional.of("C"), shaper.shape("选择题", "100美元能换成多少人民币？", "A. 100 B. 7.18 C. 718", EXCHANGE));
+    }
+
+    @Test
+    void missesChoiceWhenFieldIsUnknown() {
+        // 干扰项取自同一条记录的其他字段：不能因为某个选项等于某个字段就作答
+        assertMiss("选择题", "该卡号的后四位是多少？", "A. 1111 B. 15680.50 C. 6211", CREDIT_CARD, "ambiguous_field");
+        assertMiss("选择题", "该账单的最低还款额为？", "A. 1568.05 B. 15680.50 C. 0", CREDIT_CARD, "ambiguous_field");
+        assertMiss("选择题", "该账单的总金额是多少？", "A. 15680.50 B. 15680.5", CREDIT_CARD, "ambiguous_option");
+        assertMiss("选择题", "该账单的总金额是多少？", "无选项", CREDIT_CARD, "no_option");
+    }
+
+    @Test
+    void answersOpenQuestionWithBareValue() {
+        assertEquals(Optional.of("15680.50"), shaper.shape("问答题", "该账单的总金额是多少？", null, CREDIT_CARD));
+        assertEquals(Optional.of("286.80"), shaper.shape("问答题", "该户 9 月用了多少度电？", null, UTILITY));
+        assertEquals(Optional.of("2"), shaper.shape("问答题", "该用户名下有几张信用卡？", null, ASSET));
+        assertMiss("问答题", "该卡号的后四位是多少？", null, CREDIT_CARD, "ambiguous_field");
+        assertMiss("问答题", "结果是什么？", null, "工具调用失败", "no_field");
+    }
+
+    private void assertMiss(String category, String question, String content, String toolResult, String reason) {
+        double before = meterRegistry.counter("tool.answer.shaper", "result", reason).count();
+        assertEquals(Optional.empty(), shaper.shape(category, question, content, toolResult), question);
+        assertEquals(before + 1, meterRegistry.counter("tool.answer.shaper", "result", reason).count(), question);
+    }
+}
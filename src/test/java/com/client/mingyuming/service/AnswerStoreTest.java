@@ -0,0 +1,80 @@
+package com.client.mingyuming.service;
+
+import com.client.mingyuming.config.AnswerStoreProperties;
+import com.client.mingyuming.dto.ExamRequestDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AnswerStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private AnswerStore answerStore;
+
+    @AfterEach
+    void tearDown() {
+        if (answerStore != null) {
+            answerStore.close();
+        }
+    }
+
+    @Test
+    void savesAndMatchesNormalizedQuestion() {
+        answerStore = open(60_000);
+        answerStore.save(request("信用卡 6211111111111111 的 9 月账单是多少？"), "1234.56");
+        assertEquals(Optional.of("1234.56"), answerStore.lookup(request("信用卡6211111111111111的9月账单是多少")));
+        assertEquals(Optional.empty(), answerStore.lookup(request("信用卡6211111111111112的9月账单是多少")));
+    }
+
+    @Test
+    void skipsFallbackAndVolatileAnswers() {
+        answerStore = open(60_000);
+        answerStore.save(request("问题一"), "系统繁忙，请稍后重试：超时");
+        answerStore.save(request("今天是几号"), "2026-10-18");
+        assertEquals(Optional.empty(), answerStore.lookup(request("问题一")));
+        assertEquals(Optional.empty(), answerStore.lookup(request("今天是几号")));
+    }
+
+    @Test
+    void expiresAfterTtl() {
+        answerStore = open(1_000);
+        long now = System.currentTimeMillis();
+        assertEquals("答案", answerStore.unwrap(now + "\u0002答案", now + 1_000));
+        assertNull(answerStore.unwrap(now + "\u0002答案", now + 1_001));
+        // 旧格式（无保存时间）启用有效期时视为过期
+        assertNull(answerStore.unwrap("答案", now));
+    }
+
+    @Test
+    void neverExpiresWithoutTtl() {
+        answerStore = open(0);
+        assertEquals("答案", answerStore.unwrap("0\u0002答案", System.currentTimeMillis()));
+        assertEquals("答案", answerStore.unwrap("答案", System.currentTimeMillis()));
+    }
+
+    private AnswerStore open(long ttlMs) {
+        AnswerStoreProperties properties = new AnswerStoreProperties();
+        properties.setDir(dir.toString());
+        properties.setTtlMs(ttlMs);
+        AnswerStore store = new AnswerStore(properties, new SimpleMeterRegistry());
+        store.open();
+        return store;
+    }
+
+    private static ExamRequestDTO request(String question) {
+        ExamRequestDTO request = new ExamRequestDTO();
+        request.setPaper("TEST");
+        request.setCategory("问答");
+        request.setQuestion(question);
+        return request;
+    }
+}
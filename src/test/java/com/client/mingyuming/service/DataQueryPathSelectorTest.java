@@ -0,0 +1,149 @@
+package com.client.mingyuming.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DataQueryPathSelectorTest {
+
+    private static final String QUESTION = "2025年9月信用卡交易总金额是多少";
+    private static final String ANSWER = "2025年9月信用卡交易总金额为 15680.50 元";
+
+    private DataQueryPathSelector selector;
+
+    @BeforeEach
+    void setUp() {
+        selector = new DataQueryPathSelector(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(selector, "enabled", true);
+        ReflectionTestUtils.setField(selector, "minSamples", 10.0);
+        ReflectionTestUtils.setField(selector, "confidence", 0.8);
+        ReflectionTestUtils.setField(selector, "exploreRate", 0.0);
+        ReflectionTestUtils.setField(selector, "decay", 1.0);
+        ReflectionTestUtils.setField(selector, "domainKeywords", List.of("信用卡", "交易", "电费"));
+    }
+
+    @Test
+    void wilsonLowerBound() {
+        assertEquals(0, DataQueryPathSelector.lowerBound(0, 0));
+        // n=10 全胜：1 / (1 + z²/n)
+        assertEquals(1 / (1 + 1.64 * 1.64 / 10), DataQueryPathSelector.lowerBound(10, 10), 1e-9);
+        assertTrue(DataQueryPathSelector.lowerBound(50, 100) < 0.5);
+        // 同样胜率，样本越多下界越高
+        assertTrue(DataQueryPathSelector.lowerBound(18, 20) > DataQueryPathSelector.lowerBound(9, 10));
+        assertTrue(DataQueryPathSelector.lowerBound(180, 200) > 0.85);
+    }
+
+    @Test
+    void learnsUntilEnoughSamples() {
+        assertPlan("BOTH", "learning");
+        recordSqlWins(9);
+        assertPlan("BOTH", "learning");
+    }
+
+    @Test
+    void becomesConfidentInWinningPath() {
+        recordSqlWins(20);
+        assertPlan("SQL", "confident");
+
+        selector = newSelectorWith("exploreRate", 1.0);
+        recordSqlWins(20);
+        assertPlan("BOTH", "explore");
+    }
+
+    @Test
+    void staysUncertainWhenPathsAlternate() {
+        for (int i = 0; i < 40; i++) {
+            String close = "结果：15680.50";
+            String off = "结果：15000";
+            selector.recordBoth(plan(), i % 2 == 0 ? close : off, i % 2 == 0 ? off : close, ANSWER);
+        }
+        assertPlan("BOTH", "uncertain");
+    }
+
+    @Test
+    void equallyGoodPathsBothWin() {
+        for (int i = 0; i < 20; i++) {
+            selector.recordBoth(plan(), "结果：15680.50", "结果：15680.50", ANSWER);
+        }
+        // 两条路径都可采纳时优先只跑 SQL 路径
+        assertPlan("SQL", "confident");
+    }
+
+    @Test
+    void singlePathFailuresRevertToBoth() {
+        recordSqlWins(20);
+        DataQueryPathSelector.Plan plan = selector.choose(QUESTION);
+        assertEquals(DataQueryPathSelector.Mode.SQL, plan.mode());
+        for (int i = 0; i < 3; i++) {
+            selector.recordSingleFailure(plan);
+        }
+        assertPlan("BOTH", "uncertain");
+    }
+
+    @Test
+    void decayForgetsOldResults() {
+        // 衰减 0.5：有效样本数不超过 2，永远达不到 min-samples
+        ReflectionTestUtils.setField(selector, "decay", 0.5);
+        recordSqlWins(50);
+        assertPlan("BOTH", "learning");
+    }
+
+    @Test
+    void ignoresFailedFinalAnswerAndDisabledSelector() {
+        for (int i = 0; i < 20; i++) {
+            selector.recordBoth(plan(), "结果：15680.50", "路径2执行失败：执行超时", "数据查询工具执行失败：超时");
+        }
+        assertPlan("BOTH", "learning");
+
+        ReflectionTestUtils.setField(selector, "enabled", false);
+        assertPlan("BOTH", "disabled");
+    }
+
+    @Test
+    void classifiesFailuresAndShapes() {
+        assertTrue(DataQueryPathSelector.failed(null));
+        assertTrue(DataQueryPathSelector.failed(DataQueryPathSelector.NOT_RUN));
+        assertTrue(DataQueryPathSelector.failed("路径1执行失败：执行超时"));
+        assertTrue(DataQueryPathSelector.failed("我没找到答案"));
+        assertFalse(DataQueryPathSelector.failed("15680.50"));
+
+        assertEquals("信用卡:agg|date", selector.shape(QUESTION));
+        assertEquals("交易:rank|group", selector.shape("各商户交易笔数最多的是哪家"));
+        assertEquals("other:plain", selector.shape("列出商户名称"));
+    }
+
+    /**
+     * 路径1 结果与最终答案一致、路径2 失败
+     */
+    private void recordSqlWins(int times) {
+        for (int i = 0; i < times; i++) {
+            selector.recordBoth(plan(), "[{\"total\":15680.50}]", "路径2执行失败：执行超时", ANSWER);
+        }
+    }
+
+    private DataQueryPathSelector.Plan plan() {
+        return new DataQueryPathSelector.Plan(selector.shape(QUESTION), DataQueryPathSelector.Mode.BOTH, "learning");
+    }
+
+    private void assertPlan(String mode, String reason) {
+        DataQueryPathSelector.Plan plan = selector.choose(QUESTION);
+        assertEquals(mode, plan.mode().name());
+        assertEquals(reason, plan.reason());
+    }
+
+    private DataQueryPathSelector newSelectorWith(String field, Object value) {
+        DataQueryPathSelector fresh = new DataQueryPathSelector(new SimpleMeterRegistry());
+        for (String name : List.of("enabled", "minSamples", "confidence", "exploreRate", "decay", "domainKeywords")) {
+            ReflectionTestUtils.setField(fresh, name, ReflectionTestUtils.getField(selector, name));
+        }
+        ReflectionTestUtils.setField(fresh, field, value);
+        return fresh;
+    }
+}
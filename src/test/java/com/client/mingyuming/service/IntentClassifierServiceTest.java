@@ -0,0 +1,106 @@
+package com.client.mingyuming.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.client.mingyuming.service.IntentClassifierService.DATA_QUERY;
+import static com.client.mingyuming.service.IntentClassifierService.KNOWLEDGE_QA;
+import static com.client.mingyuming.service.IntentClassifierService.TOOL_CALL;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntentClassifierServiceTest {
+
+    private static final String[][] DECISIONS = {
+            {"信用卡账单日是什么意思", KNOWLEDGE_QA},
+            {"账单分期的含义是什么", KNOWLEDGE_QA},
+            {"电费账单中的阶梯电价如何计算", KNOWLEDGE_QA},
+            {"什么是汇率风险", KNOWLEDGE_QA},
+            {"查询信用卡6211111111111111在2025-09的账单", TOOL_CALL},
+            {"卡号6222222222222222的2025-08账单是多少", TOOL_CALL},
+            {"户号SH12345678的电费是多少", TOOL_CALL},
+            {"100 USD 兑换 CNY 是多少", TOOL_CALL},
+            {"统计2025年交易笔数最多的商户", DATA_QUERY},
+            {"各城市客户数占比是多少", DATA_QUERY},
+    };
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void extractsKeywordPatternAndBigramFeatures() {
+        IntentClassifierService service = service(false);
+        Set<String> features = service.extractFeatures("信用卡6211111111111111的2025-09账单");
+        assertTrue(features.containsAll(Set.of("kw:账单", "re:card", "re:month", "bi:信用", "bi:账单")), features.toString());
+        assertFalse(features.contains("re:id_card"));
+
+        // 18 位身份证号同时落在卡号长度范围内
+        Set<String> idCard = service.extractFeatures("身份证11010119900101123X的资产");
+        assertTrue(idCard.containsAll(Set.of("kw:身份证", "kw:资产", "re:id_card")), idCard.toString());
+
+        assertTrue(service.extractFeatures("M12345 ORD001 3+4").containsAll(Set.of("re:merchant", "re:order", "re:expression")));
+        assertTrue(service.extractFeatures(null).isEmpty());
+    }
+
+    @Test
+    void seedModelNeverShortCircuits() {
+        IntentClassifierService service = service(true);
+        // 规则初始权重在知识题上也可能给出高置信度的工具调用
+        assertEquals(TOOL_CALL, service.classifyLocally("信用卡账单日是什么意思").requestType());
+        assertFalse(service.isTrained());
+        assertNull(service.confidentLocal("信用卡账单日是什么意思"));
+        assertNull(service.confidentLocal("查询信用卡6211111111111111在2025-09的账单"));
+    }
+
+    @Test
+    void trainedModelIsUsedAfterReload() throws Exception {
+        writeDecisionLog();
+        IntentClassifierService service = service(true);
+        Map<String, Object> summary = service.train(50, 0.1);
+        assertEquals(DECISIONS.length, summary.get("samples"));
+        assertEquals(1.0, summary.get("trainAccuracy"));
+        assertTrue(service.isTrained());
+        for (String[] decision : DECISIONS) {
+            assertEquals(decision[1], service.classifyLocally(decision[0]).requestType(), decision[0]);
+        }
+
+        IntentClassifierService reloaded = service(true);
+        assertTrue(reloaded.isTrained());
+        assertEquals(KNOWLEDGE_QA, reloaded.classifyLocally("信用卡账单日是什么意思").requestType());
+        assertNotNull(reloaded.confidentLocal("卡号6222222222222222的2025-08账单是多少"));
+
+        // 关闭本地识别时始终交给大模型
+        assertNull(service(false).confidentLocal("卡号6222222222222222的2025-08账单是多少"));
+    }
+
+    private IntentClassifierService service(boolean localEnabled) {
+        IntentClassifierService service = new IntentClassifierService(null, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "localEnabled", localEnabled);
+        ReflectionTestUtils.setField(service, "confidenceThreshold", 0.6);
+        ReflectionTestUtils.setField(service, "modelPath", dir.resolve("intent-model.json").toString());
+        ReflectionTestUtils.setField(service, "decisionLogPath", dir.resolve("intent-decisions.jsonl").toString());
+        service.init();
+        return service;
+    }
+
+    private void writeDecisionLog() throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (String[] decision : DECISIONS) {
+            lines.add("{\"timestamp\":0,\"question\":\"" + decision[0] + "\",\"requestType\":\"" + decision[1] + "\"}");
+        }
+        Files.write(dir.resolve("intent-decisions.jsonl"), lines, StandardCharsets.UTF_8);
+    }
+}
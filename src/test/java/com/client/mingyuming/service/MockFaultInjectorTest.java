@@ -0,0 +1,53 @@
+package com.client.mingyuming.service;
+
+import com.client.mingyuming.service.MockFaultInjector.FaultProfile;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MockFaultInjectorTest {
+
+    private final MockFaultInjector injector = new MockFaultInjector();
+
+    @Test
+    void clampsOutOfRangeProfile() {
+        FaultProfile profile = new FaultProfile();
+        profile.setLatencyMs(Long.MAX_VALUE);
+        profile.setStddevMs(-1);
+        profile.setMaxLatencyMs(3_600_000);
+        profile.setTimeoutMs(3_600_000);
+        profile.setSigma(50);
+        profile.setErrorRate(2);
+        profile.setTimeoutRate(-0.5);
+        profile.setErrorStatus(200);
+
+        FaultProfile applied = injector.setProfile("credit-card", profile);
+        assertEquals(MockFaultInjector.MAX_DELAY_MS, applied.getLatencyMs());
+        assertEquals(0, applied.getStddevMs());
+        assertEquals(MockFaultInjector.MAX_DELAY_MS, applied.getMaxLatencyMs());
+        assertEquals(MockFaultInjector.MAX_DELAY_MS, applied.getTimeoutMs());
+        assertEquals(MockFaultInjector.MAX_SIGMA, applied.getSigma());
+        assertEquals(1.0, applied.getErrorRate());
+        assertEquals(0.0, applied.getTimeoutRate());
+        assertEquals(500, applied.getErrorStatus());
+        assertEquals(applied, injector.profile("credit-card"));
+    }
+
+    @Test
+    void keepsValidProfile() {
+        FaultProfile profile = new FaultProfile();
+        profile.setDistribution("long-tail");
+        profile.setLatencyMs(200);
+        profile.setTimeoutMs(10_000);
+        profile.setErrorRate(0.05);
+        profile.setErrorStatus(503);
+
+        FaultProfile applied = injector.setProfile("*", profile);
+        assertEquals(200, applied.getLatencyMs());
+        assertEquals(10_000, applied.getTimeoutMs());
+        assertEquals(0.05, applied.getErrorRate());
+        assertEquals(503, applied.getErrorStatus());
+        // 未单独配置的端点使用默认配置
+        assertEquals(applied, injector.profile("exchange-rate"));
+    }
+}
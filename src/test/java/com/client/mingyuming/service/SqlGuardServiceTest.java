@@ -0,0 +1,59 @@
+package com.client.mingyuming.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SqlGuardServiceTest {
+
+    private SqlGuardService guard;
+
+    @BeforeEach
+    void setUp() {
+        // 关闭 EXPLAIN 与执行时长提示，只验证词法层面的校验与 LIMIT 改写
+        guard = new SqlGuardService(null);
+        ReflectionTestUtils.setField(guard, "enabled", true);
+        ReflectionTestUtils.setField(guard, "maxLimit", 100L);
+        ReflectionTestUtils.setField(guard, "explainEnabled", false);
+        ReflectionTestUtils.setField(guard, "maxExecutionTimeMs", 0L);
+    }
+
+    @Test
+    void appendsOrCapsLimit() {
+        assertEquals("SELECT * FROM t LIMIT 100", guard.guard("SELECT * FROM t;"));
+        assertEquals("SELECT * FROM t LIMIT 10", guard.guard("SELECT * FROM t LIMIT 10"));
+        assertEquals("SELECT * FROM t LIMIT 5, 100", guard.guard("SELECT * FROM t LIMIT 5, 5000"));
+        assertEquals("SELECT * FROM (SELECT * FROM t LIMIT 5000) x LIMIT 100",
+                guard.guard("SELECT * FROM (SELECT * FROM t LIMIT 5000) x"));
+    }
+
+    @Test
+    void rejectsWritesAndMultipleStatements() {
+        assertRejected("DELETE FROM t");
+        assertRejected("SELECT 1; DROP TABLE t");
+        assertRejected("SELECT * INTO OUTFILE '/tmp/x' FROM t");
+        assertRejected("SELECT * FROM t FOR UPDATE");
+        assertRejected("SELECT SLEEP(10)");
+    }
+
+    @Test
+    void allowsShareAndLoadAsIdentifiers() {
+        assertEquals("SELECT share, load FROM fund WHERE share > 0 LIMIT 100",
+                guard.guard("SELECT share, load FROM fund WHERE share > 0"));
+        assertEquals("SELECT SUM(t.share) AS share FROM t LIMIT 100", guard.guard("SELECT SUM(t.share) AS share FROM t"));
+    }
+
+    @Test
+    void rejectsShareAndLoadInLockingOrStatementContext() {
+        assertRejected("SELECT * FROM t FOR SHARE");
+        assertRejected("SELECT * FROM t LOCK IN SHARE MODE");
+        assertRejected("SELECT 1 FROM t LOAD DATA");
+    }
+
+    private void assertRejected(String sql) {
+        assertThrows(IllegalArgumentException.class, () -> guard.guard(sql), sql);
+    }
+}
@@ -0,0 +1,62 @@
+package com.client.mingyuming.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ToolCatalogRetrieverTest {
+
+    private final ToolRegistry toolRegistry = new ToolRegistry();
+    private final List<String> all = toolRegistry.all().stream().map(ToolRegistry.ToolSpec::name).toList();
+    private ToolCatalogRetriever retriever;
+
+    @BeforeEach
+    void setUp() {
+        retriever = new ToolCatalogRetriever(toolRegistry, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(retriever, "enabled", true);
+        ReflectionTestUtils.setField(retriever, "topK", 2);
+        ReflectionTestUtils.setField(retriever, "minScore", 1.0);
+        ReflectionTestUtils.setField(retriever, "minRatio", 0.5);
+    }
+
+    @Test
+    void prunesToRelevantTools() {
+        List<String> selected = retriever.select("查询信用卡 6211111111111111 在 2025-09 的账单",
+                all, List.of(ChatService.KNOWLEDGE_QA_TOOL));
+        assertTrue(selected.contains("credit-card-tool"), selected.toString());
+        assertTrue(selected.contains(ChatService.KNOWLEDGE_QA_TOOL), selected.toString());
+        assertTrue(selected.size() < all.size(), selected.toString());
+    }
+
+    @Test
+    void keepsBothToolsOfChain() {
+        List<String> selected = retriever.select("信用卡 6211111111111111 2025-09 账单金额换成美元是多少",
+                all, List.of(ChatService.KNOWLEDGE_QA_TOOL));
+        assertTrue(selected.containsAll(List.of("credit-card-tool", "exchange-rate-tool")), selected.toString());
+    }
+
+    @Test
+    void keepsSingleToolWithClearLead() {
+        assertEquals(List.of(ChatService.KNOWLEDGE_QA_TOOL, "exchange-rate-tool"),
+                retriever.select("100美元换成人民币是多少", all, List.of(ChatService.KNOWLEDGE_QA_TOOL)));
+    }
+
+    @Test
+    void fallsBackWhenNothingRelevant() {
+        assertEquals(all, retriever.select("你好", all, List.of(ChatService.KNOWLEDGE_QA_TOOL)));
+    }
+
+    @Test
+    void fallsBackWhenNextToolIsClose() {
+        // 四个工具得分接近最高分：top-2 会截断多工具链
+        List<String> selected = retriever.select("用户 110101199003072845 名下信用卡 2025-09 账单、水电煤户号 BJ001234567 电费，合计换成美元",
+                all, List.of(ChatService.KNOWLEDGE_QA_TOOL));
+        assertEquals(all, selected);
+    }
+}
@@ -0,0 +1,163 @@
+package com.client.mingyuming.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ToolParamExtractorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ToolParamExtractor extractor;
+
+    @BeforeEach
+    void setUp() {
+        extractor = new ToolParamExtractor(new ToolRegistry(), meterRegistry);
+        ReflectionTestUtils.setField(extractor, "enabled", true);
+    }
+
+    @Test
+    void extractsCreditCardBill() {
+        assertHit("credit-card-tool", Map.of("cardNumber", "6211111111111111", "month", "2025-09"),
+                "查询信用卡6211111111111111在2025年9月的账单");
+        assertHit("credit-card-tool", Map.of("cardNumber", "6211111111111111", "month", "2025-09"),
+                "信用卡 6211111111111111 2025-09 账单总金额是多少");
+        // 身份证号（18 位）不当作卡号
+        assertHit("credit-card-tool", Map.of("cardNumber", "6211111111111111", "month", "2025-09"),
+                "身份证110101199003072845的客户，信用卡6211111111111111在2025-09的账单是多少");
+    }
+
+    @Test
+    void missesAmbiguousCreditCardBill() {
+        assertMiss("信用卡6211111111111111在2025-09和2025-10的账单合计多少", "ambiguous_param");
+        assertMiss("信用卡6211111111111111和6222222222222222在2025-09的账单", "ambiguous_param");
+        assertMiss("信用卡6211111111111111的账单是多少", "ambiguous_param");
+        // 只有身份证号，没有卡号
+        assertMiss("身份证110101199003072845的信用卡2025-09账单是多少", "ambiguous_param");
+    }
+
+    @Test
+    void extractsExchangeRate() {
+        assertHit("exchange-rate-tool", Map.of("fromCurrency", "USD", "toCurrency", "CNY", "amount", "100"),
+                "100美元兑换人民币是多少");
+        assertHit("exchange-rate-tool", Map.of("fromCurrency", "CNY", "toCurrency", "EUR", "amount", "15000"),
+                "1.5万人民币能换成多少欧元");
+        assertHit("exchange-rate-tool", Map.of("fromCurrency", "GBP", "toCurrency", "JPY"),
+                "英镑兑日元的汇率是多少");
+        assertHit("exchange-rate-tool", Map.of("fromCurrency", "USD", "toCurrency", "KRW", "amount", "20"),
+                "20 USD 换算成韩元");
+    }
+
+    @Test
+    void missesAmbiguousExchangeRate() {
+        assertMiss("需要多少美元才能兑换100人民币", "ambiguous_param");
+        assertMiss("一万日元要多少人民币才能兑换到", "ambiguous_param");
+        assertMiss("美元的汇率是多少", "ambiguous_param");
+        assertMiss("100美元兑换人民币和欧元分别是多少", "ambiguous_param");
+        // 金额不在源货币前面，无法确定换算金额
+        assertMiss("人民币100元换成美元是多少", "ambiguous_param");
+    }
+
+    @Test
+    void extractsUtilityBill() {
+        assertHit("utility-bill-tool", Map.of("householdId", "BJ001234567", "month", "2025-09", "utilityType", "electricity"),
+                "户号BJ001234567在2025年9月的电费是多少");
+        assertHit("utility-bill-tool", Map.of("householdId", "SH12345678", "month", "2025-08"),
+                "查询户号SH12345678 2025/8 的缴费账单");
+    }
+
+    @Test
+    void missesAmbiguousUtilityBill() {
+        assertMiss("户号BJ001234567在2025-09的水费和电费", "ambiguous_param");
+        assertMiss("户号BJ001234567的电费是多少", "ambiguous_param");
+        assertMiss("户号BJ001234567在2025-13的电费", "ambiguous_param");
+    }
+
+    @Test
+    void extractsUserAsset() {
+        assertHit("user-asset-tool", Map.of("customerId", "110101199003072845", "assetType", "household"),
+                "身份证110101199003072845名下有几套房产");
+        // 同时提到信用卡时，有身份证号按资产查询
+        assertHit("user-asset-tool", Map.of("customerId", "11010119900307284X", "assetType", "card"),
+                "身份证11010119900307284X名下的信用卡资产有哪些");
+    }
+
+    @Test
+    void missesAmbiguousUserAsset() {
+        assertMiss("我名下有哪些资产", "ambiguous_param");
+        assertMiss("身份证110101199003072845名下的房产和信用卡资产", "ambiguous_param");
+        // 没有身份证号时按信用卡账单处理，缺卡号与月份
+        assertMiss("名下信用卡资产有多少", "ambiguous_param");
+    }
+
+    @Test
+    void extractsPaymentOrder() {
+        assertHit("payment-order-tool", Map.of("merchantId", "M123456", "orderId", "ORD2025001", "amount", "99.5"),
+                "为商户M123456创建支付订单ORD2025001，金额99.5元");
+        assertHit("payment-order-tool", Map.of("merchantId", "M123456", "orderId", "ORD2025001"),
+                "商户M123456下单，订单号ORD2025001");
+    }
+
+    @Test
+    void missesAmbiguousPaymentOrder() {
+        assertMiss("为商户M123456创建支付订单ORD2025001，金额99元或100元", "ambiguous_param");
+        assertMiss("为商户M123456创建支付订单", "ambiguous_param");
+    }
+
+    @Test
+    void extractsCalculatorExpression() {
+        assertHit(ChatService.CALCULATOR_TOOL, Map.of("expression", "3+5*2"), "计算3+5*2等于多少");
+        assertHit(ChatService.CALCULATOR_TOOL, Map.of("expression", "(3+5)*2/4"), "（3+5）×2÷4等于多少");
+        assertHit(ChatService.CALCULATOR_TOOL, Map.of("expression", "sqrt(16)+2^3"), "计算sqrt(16)+2^3");
+    }
+
+    @Test
+    void missesCalculatorWithoutSingleExpression() {
+        // 年份区间、年月不是算式
+        assertMiss("计算2023-2024年的增长率", "ambiguous_param");
+        assertMiss("计算2025-09的平均值", "ambiguous_param");
+        assertMiss("计算3+5和4*2", "ambiguous_param");
+        assertMiss("计算16的平方根", "ambiguous_param");
+    }
+
+    @Test
+    void extractsCurrentDate() {
+        assertHit(ChatService.CURRENT_DATE_TOOL, Map.of(), "今天几号");
+    }
+
+    @Test
+    void missesWithoutSingleTool() {
+        assertMiss("什么是银联", "no_tool");
+        assertMiss("信用卡6211111111111111在2025-09的账单换成美元是多少", "multi_tool");
+        assertTrue(extractor.extract(" ", null).isEmpty());
+        ReflectionTestUtils.setField(extractor, "enabled", false);
+        assertTrue(extractor.extract("今天几号", null).isEmpty());
+    }
+
+    @Test
+    void buildsDecisionJson() {
+        assertEquals(Optional.of("{\"toolName\":\"credit-card-tool\",\"parameters\":{\"cardNumber\":\"6211111111111111\",\"month\":\"2025-09\"}}"),
+                extractor.extractDecision("信用卡6211111111111111在2025-09的账单", null));
+        assertEquals(Optional.of("{\"toolName\":\"credit-card-tool\",\"cardNumber\":\"6211111111111111\",\"month\":\"2025-09\"}"),
+                extractor.extractToolCommand("信用卡6211111111111111在2025-09的账单", null));
+    }
+
+    private void assertHit(String toolName, Map<String, Object> params, String question) {
+        Optional<ToolParamExtractor.Extraction> extraction = extractor.extract(question, null);
+        assertTrue(extraction.isPresent(), question);
+        assertEquals(toolName, extraction.get().toolName(), question);
+        assertEquals(params, extraction.get().params(), question);
+    }
+
+    private void assertMiss(String question, String reason) {
+        double before = meterRegistry.counter("tool.extractor", "result", reason, "tool", "none").count();
+        assertEquals(Optional.empty(), extractor.extract(question, null), question);
+        assertEquals(before + 1, meterRegistry.counter("tool.extractor", "result", reason, "tool", "none").count(), question);
+    }
+}
@@ -0,0 +1,66 @@
+package com.client.mingyuming.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ToolSchemaBuilderTest {
+
+    private ToolSchemaBuilder builder;
+
+    @BeforeEach
+    void setUp() {
+        builder = new ToolSchemaBuilder(new ToolRegistry());
+        ReflectionTestUtils.setField(builder, "multiToolEnabled", true);
+        ReflectionTestUtils.setField(builder, "maxToolCalls", 4);
+    }
+
+    @Test
+    void singleBusinessToolHasNoToolCallsBranch() {
+        Map<String, Object> schema = builder.decisionSchema(List.of(ChatService.KNOWLEDGE_QA_TOOL, "credit-card-tool"), true);
+        assertEquals(3, branches(schema).size());
+        assertFalse(builder.allowsToolCalls(List.of(ChatService.KNOWLEDGE_QA_TOOL, "credit-card-tool")));
+        assertTrue(branches(schema).stream().noneMatch(this::isToolCalls));
+        // 单工具分支的上界远小于全局 max-tokens（512）
+        assertTrue(builder.estimateMaxTokens(schema) < 256, String.valueOf(builder.estimateMaxTokens(schema)));
+    }
+
+    @Test
+    void multipleBusinessToolsAllowToolCalls() {
+        Map<String, Object> schema = builder.decisionSchema(
+                List.of(ChatService.KNOWLEDGE_QA_TOOL, "credit-card-tool", "exchange-rate-tool"), true);
+        assertTrue(branches(schema).stream().anyMatch(this::isToolCalls));
+        assertTrue(builder.allowsToolCalls(List.of(ChatService.KNOWLEDGE_QA_TOOL, "credit-card-tool", "exchange-rate-tool")));
+    }
+
+    @Test
+    void disabledMultiToolHasNoToolCallsBranch() {
+        ReflectionTestUtils.setField(builder, "multiToolEnabled", false);
+        List<String> tools = List.of("credit-card-tool", "exchange-rate-tool");
+        assertFalse(builder.allowsToolCalls(tools));
+        assertTrue(branches(builder.decisionSchema(tools, true)).stream().noneMatch(this::isToolCalls));
+    }
+
+    @Test
+    void flatSchemaNeverHasToolCalls() {
+        Map<String, Object> schema = builder.decisionSchema(List.of("credit-card-tool", "exchange-rate-tool"), false);
+        assertTrue(branches(schema).stream().noneMatch(this::isToolCalls));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> branches(Map<String, Object> schema) {
+        return (List<Map<String, Object>>) schema.get("anyOf");
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean isToolCalls(Map<String, Object> branch) {
+        return ((Map<String, Object>) branch.get("properties")).containsKey("toolCalls");
+    }
+}
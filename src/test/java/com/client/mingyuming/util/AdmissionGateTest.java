@@ -0,0 +1,147 @@
+package com.client.mingyuming.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionGateTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        RequestDeadline.clear();
+    }
+
+    @Test
+    void disabledGateAdmitsEverything() {
+        AdmissionGate gate = new AdmissionGate(meterRegistry, false, 1, 0, 1000);
+        try (AdmissionGate.Permit first = gate.acquire(); AdmissionGate.Permit second = gate.acquire()) {
+            assertEquals(0, gate.getInflight());
+        }
+        assertEquals(0, gate.getInflight());
+    }
+
+    @Test
+    void shedsWhenQueueIsFull() {
+        AdmissionGate gate = new AdmissionGate(meterRegistry, true, 1, 0, 1000);
+        try (AdmissionGate.Permit permit = gate.acquire()) {
+            assertEquals(1, gate.getInflight());
+            AdmissionRejectedException e = assertThrows(AdmissionRejectedException.class, gate::acquire);
+            assertEquals("queue-full", e.getReason());
+        }
+        assertEquals(0, gate.getInflight());
+        assertEquals(1, meterRegistry.counter("exam.admission.shed", "reason", "queue-full").count());
+    }
+
+    @Test
+    void shedsImmediatelyWhenDeadlineTooClose() {
+        AdmissionGate gate = new AdmissionGate(meterRegistry, true, 1, 8, 1000);
+        try (AdmissionGate.Permit permit = gate.acquire()) {
+            RequestDeadline.set(System.currentTimeMillis() + 200);
+            AdmissionRejectedException e = assertThrows(AdmissionRejectedException.class, gate::acquire);
+            assertEquals("deadline", e.getReason());
+            assertEquals(0, gate.getQueued());
+        }
+    }
+
+    @Test
+    void closeIsIdempotent() {
+        AdmissionGate gate = new AdmissionGate(meterRegistry, true, 2, 8, 1000);
+        AdmissionGate.Permit permit = gate.acquire();
+        gate.acquire();
+        permit.close();
+        permit.close();
+        assertEquals(1, gate.getInflight());
+    }
+
+    @Test
+    void releaseHandsPermitToQueuedRequest() throws Exception {
+        AdmissionGate gate = new AdmissionGate(meterRegistry, true, 1, 8, 10);
+        AdmissionGate.Permit first = gate.acquire();
+        Future<AdmissionGate.Permit> queued = executor.submit(() -> acquire(gate, null));
+        awaitQueued(gate, 1);
+        assertFalse(queued.isDone());
+
+        first.close();
+        AdmissionGate.Permit second = queued.get(5, TimeUnit.SECONDS);
+        assertEquals(1, gate.getInflight());
+        assertEquals(0, gate.getQueued());
+        second.close();
+        assertEquals(0, gate.getInflight());
+    }
+
+    @Test
+    void earliestDeadlineIsAdmittedFirst() throws Exception {
+        AdmissionGate gate = new AdmissionGate(meterRegistry, true, 1, 8, 10);
+        AdmissionGate.Permit first = gate.acquire();
+        long now = System.currentTimeMillis();
+        Future<AdmissionGate.Permit> late = executor.submit(() -> acquire(gate, now + 20_000));
+        awaitQueued(gate, 1);
+        Future<AdmissionGate.Permit> early = executor.submit(() -> acquire(gate, now + 10_000));
+        awaitQueued(gate, 2);
+
+        first.close();
+        early.get(5, TimeUnit.SECONDS).close();
+        late.get(5, TimeUnit.SECONDS).close();
+        assertEquals(0, gate.getInflight());
+    }
+
+    @Test
+    void shedsQueuedRequestOnceItCannotFinish() throws Exception {
+        AdmissionGate gate = new AdmissionGate(meterRegistry, true, 1, 8, 100);
+        try (AdmissionGate.Permit permit = gate.acquire()) {
+            long deadline = System.currentTimeMillis() + 400;
+            Future<AdmissionGate.Permit> queued = executor.submit(() -> acquire(gate, deadline));
+            ExecutionException e = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(AdmissionRejectedException.class, e.getCause());
+            assertEquals("expired", ((AdmissionRejectedException) e.getCause()).getReason());
+            // 在截止前至少预留一个预计处理耗时
+            assertTrue(System.currentTimeMillis() <= deadline);
+            assertEquals(0, gate.getQueued());
+            assertEquals(1, gate.getInflight());
+        }
+    }
+
+    @Test
+    void retryAfterFollowsServiceEstimate() {
+        assertEquals(1, new AdmissionGate(meterRegistry, true, 1, 8, 200).retryAfterSeconds());
+        assertEquals(3, new AdmissionGate(new SimpleMeterRegistry(), true, 1, 8, 2500).retryAfterSeconds());
+    }
+
+    private static AdmissionGate.Permit acquire(AdmissionGate gate, Long deadline) {
+        if (deadline != null) {
+            RequestDeadline.set(deadline);
+        }
+        try {
+            return gate.acquire();
+        } finally {
+            RequestDeadline.clear();
+        }
+    }
+
+    private static void awaitQueued(AdmissionGate gate, int expected) throws InterruptedException, TimeoutException {
+        long until = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (gate.getQueued() < expected) {
+            if (System.nanoTime() > until) {
+                throw new TimeoutException("queued " + gate.getQueued() + " < " + expected);
+            }
+            Thread.sleep(5);
+        }
+    }
+}
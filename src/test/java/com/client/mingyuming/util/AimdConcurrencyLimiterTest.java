@@ -0,0 +1,62 @@
+package com.client.mingyuming.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AimdConcurrencyLimiterTest {
+
+    @Test
+    void rejectsAboveLimit() {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(2, 1, 10, 0.5, 1000);
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        limiter.onIgnored();
+        assertEquals(1, limiter.getInFlight());
+        assertEquals(2, limiter.getLimit());
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void increasesAdditivelyWhenUtilized() {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(2, 1, 3, 0.5, 1000);
+        // 每轮（约 limit 次成功）加 1，直到上限
+        for (int i = 0; i < 20; i++) {
+            limiter.tryAcquire();
+            limiter.tryAcquire();
+            limiter.onSuccess(10);
+            limiter.onSuccess(10);
+        }
+        assertEquals(3, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void doesNotIncreaseWhenIdle() {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(8, 1, 64, 0.5, 1000);
+        for (int i = 0; i < 50; i++) {
+            limiter.tryAcquire();
+            limiter.onSuccess(10);
+        }
+        assertEquals(8, limiter.getLimit());
+    }
+
+    @Test
+    void backsOffOnDropAndSlowCall() {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(8, 2, 64, 0.5, 1000);
+        limiter.tryAcquire();
+        limiter.onDropped();
+        assertEquals(4, limiter.getLimit());
+        limiter.tryAcquire();
+        limiter.onSuccess(5000);
+        assertEquals(2, limiter.getLimit());
+        // 不低于下限
+        limiter.tryAcquire();
+        limiter.onDropped();
+        assertEquals(2, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+}
@@ -0,0 +1,119 @@
+package com.client.mingyuming.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class CircuitBreakerTest {
+
+    // 窗口 4、至少 4 次调用、失败率/慢调用率 50%、慢调用阈值 100ms、半开探测 2 次
+    private static CircuitBreaker breaker(long openDurationMs) {
+        return new CircuitBreaker(4, 4, 0.5, 100, 0.5, openDurationMs, 2);
+    }
+
+    @Test
+    void opensOnFailureRateAndFailsFast() {
+        CircuitBreaker breaker = breaker(60_000);
+        for (int i = 0; i < 2; i++) {
+            breaker.onSuccess(breaker.tryAcquire(), 10);
+        }
+        breaker.onFailure(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.onFailure(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+    }
+
+    @Test
+    void opensOnSlowCallRate() {
+        CircuitBreaker breaker = breaker(60_000);
+        breaker.onSuccess(breaker.tryAcquire(), 10);
+        breaker.onSuccess(breaker.tryAcquire(), 10);
+        breaker.onSuccess(breaker.tryAcquire(), 500);
+        breaker.onSuccess(breaker.tryAcquire(), 500);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void halfOpenClosesAfterFastProbes() {
+        CircuitBreaker breaker = openBreaker();
+        long first = breaker.tryAcquire();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        long second = breaker.tryAcquire();
+        // 探测名额用尽
+        assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+
+        breaker.onSuccess(first, 10);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onSuccess(second, 10);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertNotEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+    }
+
+    @Test
+    void halfOpenReopensOnFailureOrSlowProbe() {
+        CircuitBreaker breaker = openBreaker();
+        breaker.onFailure(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        breaker = openBreaker();
+        breaker.onSuccess(breaker.tryAcquire(), 500);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void releaseReturnsHalfOpenPermit() {
+        CircuitBreaker breaker = openBreaker();
+        long first = breaker.tryAcquire();
+        long second = breaker.tryAcquire();
+        breaker.release(second);
+        long third = breaker.tryAcquire();
+        assertNotEquals(CircuitBreaker.REJECTED, third);
+        breaker.onSuccess(first, 10);
+        breaker.onSuccess(third, 10);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void ignoresOutcomesOfPermitsFromEarlierState() {
+        CircuitBreaker breaker = breaker(0);
+        long stale = breaker.tryAcquire();
+        tripOpen(breaker);
+
+        long probe = breaker.tryAcquire();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        // CLOSED 期间发出的调用迟到的失败不应重新打开
+        breaker.onFailure(stale);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        // 也不应替半开计入成功
+        breaker.onSuccess(stale, 10);
+        breaker.onSuccess(probe, 10);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onSuccess(breaker.tryAcquire(), 10);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        // 已被重新打开淘汰的半开探测结果同样忽略
+        long lateProbe = breaker.tryAcquire();
+        tripOpen(breaker);
+        breaker.tryAcquire();
+        breaker.onFailure(lateProbe);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    /**
+     * 冷却时长为 0 的已打开熔断器：下一次 tryAcquire 即转半开
+     */
+    private static CircuitBreaker openBreaker() {
+        CircuitBreaker breaker = breaker(0);
+        tripOpen(breaker);
+        return breaker;
+    }
+
+    private static void tripOpen(CircuitBreaker breaker) {
+        for (int i = 0; i < 4; i++) {
+            breaker.onFailure(breaker.tryAcquire());
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+}
@@ -0,0 +1,59 @@
+package com.client.mingyuming.util;
+
+import com.client.mingyuming.util.IntentModel.Prediction;
+import com.client.mingyuming.util.IntentModel.Sample;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntentModelTest {
+
+    @Test
+    void predictsSoftmaxOfBiasAndWeights() {
+        IntentModel model = new IntentModel();
+        Prediction empty = model.predict(Set.of());
+        assertEquals("knowledge_qa", empty.label());
+        assertEquals(1.0 / 3, empty.confidence(), 1e-9);
+
+        model.setBias("knowledge_qa", 0.5);
+        model.addWeight("kw:账单", "tool_call", 2.0);
+        model.addWeight("kw:账单", "tool_call", 1.0);
+        assertEquals("knowledge_qa", model.predict(Set.of("bi:未知")).label());
+
+        Prediction bill = model.predict(Set.of("kw:账单"));
+        double expected = Math.exp(3.0) / (Math.exp(0.5) + Math.exp(3.0) + 1);
+        assertEquals("tool_call", bill.label());
+        assertEquals(expected, bill.confidence(), 1e-9);
+        assertEquals(1, model.featureCount());
+    }
+
+    @Test
+    void trainingCorrectsSeedWeights() {
+        IntentModel model = new IntentModel();
+        model.addWeight("kw:账单", "tool_call", 3.0);
+        List<Sample> samples = List.of(
+                new Sample(Set.of("kw:账单", "kw:是什么"), "knowledge_qa"),
+                new Sample(Set.of("kw:账单", "kw:含义"), "knowledge_qa"),
+                new Sample(Set.of("kw:账单", "re:card"), "tool_call"),
+                new Sample(Set.of("kw:统计", "kw:交易笔数"), "data_query"));
+        assertEquals("tool_call", model.predict(Set.of("kw:账单", "kw:是什么")).label());
+
+        model.train(samples, 100, 0.1, 1e-4);
+        for (Sample sample : samples) {
+            assertEquals(sample.label(), model.predict(sample.features()).label(), sample.toString());
+        }
+        assertTrue(model.predict(Set.of("kw:账单", "re:card")).confidence() > 0.5);
+    }
+
+    @Test
+    void trainingSkipsUnknownLabels() {
+        IntentModel model = new IntentModel();
+        model.train(List.of(new Sample(Set.of("kw:x"), "unknown")), 10, 0.1, 0);
+        assertEquals(0, model.featureCount());
+        assertEquals(1.0 / 3, model.predict(Set.of("kw:x")).confidence(), 1e-9);
+    }
+}
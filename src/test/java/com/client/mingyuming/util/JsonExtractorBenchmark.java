@@ -0,0 +1,61 @@
+package com.client.mingyuming.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JsonExtractor 与原 preprocessJson 的对比（手动运行，不参与 mvn test）：
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/test-cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/test-cp.txt) org.openjdk.jmh.Main JsonExtractorBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonExtractorBenchmark {
+
+    /**
+     * decision：单工具决策；prose：先描述后输出 JSON；commented：带注释与单引号需重写；multi：多工具调用
+     */
+    @Param({"decision", "prose", "commented", "multi"})
+    public String shape;
+
+    private String text;
+
+    @Setup
+    public void setUp() {
+        text = switch (shape) {
+            case "decision" -> "{\"toolName\":\"credit-card-tool\",\"parameters\":{\"cardNumber\":\"6211111111111111\",\"month\":\"2025-09\"}}";
+            case "prose" -> "根据用户问题，需要查询信用卡账单。用户提供了卡号和月份，因此选择 credit-card-tool。\n".repeat(4)
+                    + "```json\n{\"toolName\":\"credit-card-tool\",\"parameters\":{\"cardNumber\":\"6211111111111111\",\"month\":\"2025-09\"}}\n```";
+            case "commented" -> "{\n  'toolName': 'calculator-tool', // 计算器\n  /* 表达式 */ 'parameters': {'expression': '3^2+sqrt(16)'}\n}";
+            default -> "{\"toolCalls\":[{\"id\":\"bill\",\"toolName\":\"credit-card-tool\",\"parameters\":{\"cardNumber\":\"6211111111111111\",\"month\":\"2025-09\"}},"
+                    + "{\"id\":\"fx\",\"toolName\":\"exchange-rate-tool\",\"parameters\":{\"fromCurrency\":\"CNY\",\"toCurrency\":\"USD\",\"amount\":\"${bill.total_amount}\"},\"dependsOn\":[\"bill\"]}]}";
+        };
+    }
+
+    @Benchmark
+    public String extractor() {
+        return JsonExtractor.extractLastObject(text).toString();
+    }
+
+    @Benchmark
+    public String legacy() {
+        return JsonExtractorTest.legacyPreprocessJson(text);
+    }
+}
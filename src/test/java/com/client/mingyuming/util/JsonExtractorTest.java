@@ -0,0 +1,183 @@
+package com.client.mingyuming.util;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class JsonExtractorTest {
+
+    private static final String[] PREFIXES = {
+            "", "好的，结果如下：\n", "```json\n", "思考：需要调用 {工具} 吗？是的。\n", "说明：用 \"引号\" 和 'it's' 描述\n",
+            "{\"toolName\":\"draft\"}\n最终：", "未闭合的 { 说明文字\n"
+    };
+    private static final String[] SUFFIXES = {"", "\n```", "\n以上。", " 注意：} 不是结尾", "\n"};
+
+    @Test
+    void returnsLastTopLevelObject() {
+        String text = "先给出草稿 {\"a\":1}，最终答案：{\"b\":{\"c\":[1,{\"d\":2}]}} 完毕";
+        assertEquals("{\"b\":{\"c\":[1,{\"d\":2}]}}", JsonExtractor.extractLastObject(text).toString());
+    }
+
+    @Test
+    void keepsNestedParametersWhole() {
+        String text = "{\"toolName\":\"credit-card-tool\",\"parameters\":{\"cardNumber\":\"6211\",\"month\":\"2025-09\"}}";
+        assertEquals(text, JsonExtractor.extractLastObject(text).toString());
+    }
+
+    @Test
+    void ignoresBracesInsideStrings() {
+        String text = "{\"message\":\"形如 {a} 或 } 的文本\",\"n\":1}";
+        assertEquals(text, JsonExtractor.extractLastObject(text).toString());
+    }
+
+    @Test
+    void normalizesCommentsSingleQuotesAndNewlines() {
+        String text = "{\n  'toolName': 'calculator-tool', // 计算器\n  /* 表达式 */ \"expression\": \"1+\n2\",\n  'note': 'it\\'s \"ok\"'\n}";
+        JsonObject parsed = JsonParser.parseString(JsonExtractor.extractLastObject(text).toString()).getAsJsonObject();
+        assertEquals("calculator-tool", parsed.get("toolName").getAsString());
+        assertEquals("1+ 2", parsed.get("expression").getAsString());
+        assertEquals("it's \"ok\"", parsed.get("note").getAsString());
+    }
+
+    @Test
+    void returnsInputWhenNoObject() {
+        String text = "没有 JSON，只有一个 { 和文字";
+        assertSame(text, JsonExtractor.extractLastObject(text));
+        assertNull(JsonExtractor.extractLastObject(null));
+    }
+
+    /**
+     * 随机嵌套对象 + 随机前后缀：提取结果必须解析为原对象
+     */
+    @Test
+    void fuzzRoundTrip() {
+        Random random = new Random(20261018L);
+        for (int i = 0; i < 20_000; i++) {
+            JsonObject expected = randomObject(random, 0);
+            String text = PREFIXES[random.nextInt(PREFIXES.length)] + render(expected, random)
+                    + SUFFIXES[random.nextInt(SUFFIXES.length)];
+            String extracted = JsonExtractor.extractLastObject(text).toString();
+            JsonElement actual;
+            try {
+                actual = JsonParser.parseString(extracted);
+            } catch (RuntimeException e) {
+                throw new AssertionError("input: " + text + "\nextracted: " + extracted, e);
+            }
+            assertEquals(expected, actual, text);
+        }
+    }
+
+    /**
+     * 与原 preprocessJson（反向找最后一对 {}，再正则清理）对比：原实现能正确处理的扁平对象，结果一致
+     */
+    @Test
+    void matchesLegacyOnFlatObjects() {
+        Random random = new Random(7L);
+        for (int i = 0; i < 5_000; i++) {
+            JsonObject object = new JsonObject();
+            int fields = 1 + random.nextInt(5);
+            for (int f = 0; f < fields; f++) {
+                object.add("k" + f, randomPrimitive(random, false));
+            }
+            String text = PREFIXES[random.nextInt(3)] + object + SUFFIXES[random.nextInt(3)];
+            assertEquals(JsonParser.parseString(legacyPreprocessJson(text)),
+                    JsonParser.parseString(JsonExtractor.extractLastObject(text).toString()), text);
+        }
+    }
+
+    /**
+     * 原实现对嵌套对象只取最内层，新实现取完整对象
+     */
+    @Test
+    void fixesLegacyNestedCut() {
+        String text = "{\"toolName\":\"user-asset-tool\",\"parameters\":{\"customerId\":\"C1\"}}";
+        assertEquals("{\"customerId\":\"C1\"}}", legacyPreprocessJson(text));
+        assertEquals(text, JsonExtractor.extractLastObject(text).toString());
+    }
+
+    private static JsonObject randomObject(Random random, int depth) {
+        JsonObject object = new JsonObject();
+        int fields = random.nextInt(5);
+        for (int f = 0; f < fields; f++) {
+            object.add("k" + f + randomText(random, true), randomValue(random, depth + 1));
+        }
+        return object;
+    }
+
+    private static JsonElement randomValue(Random random, int depth) {
+        int kind = depth > 3 ? 0 : random.nextInt(4);
+        if (kind == 1) {
+            return randomObject(random, depth);
+        }
+        if (kind == 2) {
+            JsonArray array = new JsonArray();
+            int size = random.nextInt(4);
+            for (int i = 0; i < size; i++) {
+                array.add(randomValue(random, depth + 1));
+            }
+            return array;
+        }
+        return randomPrimitive(random, true);
+    }
+
+    private static JsonPrimitive randomPrimitive(Random random, boolean special) {
+        return switch (random.nextInt(3)) {
+            case 0 -> new JsonPrimitive(random.nextInt(100_000));
+            case 1 -> new JsonPrimitive(random.nextBoolean());
+            default -> new JsonPrimitive(randomText(random, special));
+        };
+    }
+
+    /**
+     * 随机文本：可选包含括号、引号、反斜杠、注释符号与换行等易混淆字符
+     */
+    private static String randomText(Random random, boolean special) {
+        String alphabet = special ? "ab中文{}[]\"'\\/:,*\n " : "abc中文12 ";
+        StringBuilder builder = new StringBuilder();
+        int length = random.nextInt(8);
+        for (int i = 0; i < length; i++) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 渲染为文本：随机使用紧凑或缩进格式
+     */
+    private static String render(JsonObject object, Random random) {
+        return random.nextBoolean() ? object.toString()
+                : new com.google.gson.GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create().toJson(object);
+    }
+
+    /**
+     * 原 LLMService.preprocessJson（对比基准）
+     */
+    static String legacyPreprocessJson(String json) {
+        if (json == null || json.trim().isEmpty()) {
+            return json;
+        }
+        int lastJsonEnd = json.lastIndexOf("}");
+        int lastJsonStart = -1;
+        if (lastJsonEnd != -1) {
+            lastJsonStart = json.lastIndexOf("{", lastJsonEnd);
+        }
+        if (lastJsonStart != -1 && lastJsonEnd != -1 && lastJsonStart < lastJsonEnd) {
+            json = json.substring(lastJsonStart, lastJsonEnd + 1);
+        } else {
+            return json;
+        }
+        String noCommentJson = json.replaceAll("//.*|/\\*[\\s\\S]*?\\*/", "");
+        String noSingleQuoteJson = noCommentJson.replaceAll("'", "\"");
+        String trimJson = noSingleQuoteJson.trim();
+        return trimJson.replaceAll("\\r?\\n", " ");
+    }
+}
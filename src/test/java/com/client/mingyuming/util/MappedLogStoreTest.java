@@ -0,0 +1,137 @@
+package com.client.mingyuming.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedLogStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void reopensWithoutReplay() throws IOException {
+        try (MappedLogStore store = MappedLogStore.open(dir, "answers")) {
+            store.put("k1", "答案1");
+            store.put("k2", "答案2");
+            store.put("k1", "答案1'");
+            assertEquals("答案1'", store.get("k1"));
+            assertNull(store.get("missing"));
+        }
+        try (MappedLogStore store = MappedLogStore.open(dir, "answers")) {
+            assertEquals(2, store.size());
+            assertEquals("答案1'", store.get("k1"));
+            assertEquals("答案2", store.get("k2"));
+        }
+    }
+
+    /**
+     * 模拟崩溃：未 sync 的写入已在页缓存（日志文件中）但索引的已落盘长度停在上次 sync，
+     * 另有一条只写了一半的记录；重新打开时重放日志尾部并截断不完整的记录
+     */
+    @Test
+    void replaysUnsyncedTailAndTruncatesTornRecord() throws IOException {
+        Path crashed = dir.resolve("crashed");
+        try (MappedLogStore store = MappedLogStore.open(dir, "answers")) {
+            store.put("synced", "v1");
+            store.sync();
+            store.put("unsynced", "v2");
+            store.put("synced", "v1'");
+            // 进程“崩溃”时磁盘上的状态：复制文件而不调用 close（close 会 sync）
+            Files.createDirectories(crashed);
+            Files.copy(dir.resolve("answers.log"), crashed.resolve("answers.log"));
+            Files.copy(dir.resolve("answers.idx"), crashed.resolve("answers.idx"));
+        }
+        long completeLength = Files.size(crashed.resolve("answers.log"));
+        // 半条记录：声明 100 字节负载但只写入 10 字节
+        byte[] torn = new byte[18];
+        torn[3] = 100;
+        Files.write(crashed.resolve("answers.log"), torn, StandardOpenOption.APPEND);
+
+        try (MappedLogStore store = MappedLogStore.open(crashed, "answers")) {
+            assertEquals(completeLength, store.logBytes());
+            assertEquals("v1'", store.get("synced"));
+            assertEquals("v2", store.get("unsynced"));
+            assertEquals(2, store.size());
+            store.put("after", "v3");
+        }
+        try (MappedLogStore store = MappedLogStore.open(crashed, "answers")) {
+            assertEquals("v3", store.get("after"));
+            assertEquals("v1'", store.get("synced"));
+        }
+    }
+
+    /**
+     * 索引丢失或与日志代号不匹配时按日志重建
+     */
+    @Test
+    void rebuildsIndexFromLog() throws IOException {
+        try (MappedLogStore store = MappedLogStore.open(dir, "answers")) {
+            store.put("a", "1");
+            store.put("b", "2");
+        }
+        Files.delete(dir.resolve("answers.idx"));
+        try (MappedLogStore store = MappedLogStore.open(dir, "answers")) {
+            assertEquals("1", store.get("a"));
+            assertEquals("2", store.get("b"));
+            assertEquals(2, store.size());
+        }
+        // 损坏的索引（代号不符）
+        Files.write(dir.resolve("answers.idx"), new byte[64]);
+        try (MappedLogStore store = MappedLogStore.open(dir, "answers")) {
+            assertEquals("2", store.get("b"));
+        }
+    }
+
+    @Test
+    void compactsGarbageAndSurvivesReopen() throws IOException {
+        try (MappedLogStore store = MappedLogStore.open(dir, "answers")) {
+            for (int round = 0; round < 20; round++) {
+                for (int key = 0; key < 50; key++) {
+                    store.put("k" + key, "round" + round + "-" + "x".repeat(key));
+                }
+            }
+            long before = store.logBytes();
+            assertFalse(store.compactIfNeeded(before + 1, 0.5), "未达到最小日志大小不压缩");
+            assertTrue(store.compactIfNeeded(0, 0.5));
+            assertTrue(store.logBytes() < before / 10, store.logBytes() + " vs " + before);
+            assertEquals(store.logBytes() - 16, store.liveBytes());
+            assertEquals(50, store.size());
+            assertEquals("round19-xxx", store.get("k3"));
+            assertFalse(store.compactIfNeeded(0, 0.5), "无垃圾时不再压缩");
+            // 压缩后继续写入
+            store.put("k3", "new");
+        }
+        try (MappedLogStore store = MappedLogStore.open(dir, "answers")) {
+            assertEquals(50, store.size());
+            assertEquals("new", store.get("k3"));
+            assertEquals("round19-" + "x".repeat(49), store.get("k49"));
+        }
+    }
+
+    @Test
+    void growsIndexBeyondInitialCapacity() throws IOException {
+        int keys = 5_000;
+        try (MappedLogStore store = MappedLogStore.open(dir, "answers")) {
+            for (int i = 0; i < keys; i++) {
+                store.put("key-" + i, "value-" + i);
+            }
+            assertEquals(keys, store.size());
+        }
+        try (MappedLogStore store = MappedLogStore.open(dir, "answers")) {
+            assertEquals(keys, store.size());
+            for (int i = 0; i < keys; i += 97) {
+                assertEquals("value-" + i, store.get("key-" + i));
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.client.mingyuming.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryBudgetTest {
+
+    @Test
+    void limitsRetriesToRatioOfRequests() {
+        RetryBudget budget = new RetryBudget(0.5, 0, 2);
+        assertTrue(budget.tryAcquireRetry());
+        assertTrue(budget.tryAcquireRetry());
+        assertFalse(budget.tryAcquireRetry());
+
+        budget.onRequest();
+        assertFalse(budget.tryAcquireRetry());
+        budget.onRequest();
+        assertTrue(budget.tryAcquireRetry());
+        assertFalse(budget.tryAcquireRetry());
+    }
+
+    @Test
+    void capsTokensAtMax() {
+        RetryBudget budget = new RetryBudget(1, 0, 2);
+        for (int i = 0; i < 10; i++) {
+            budget.onRequest();
+        }
+        assertTrue(budget.tryAcquireRetry());
+        assertTrue(budget.tryAcquireRetry());
+        assertFalse(budget.tryAcquireRetry());
+    }
+
+    @Test
+    void refillsAtMinimumRate() throws InterruptedException {
+        RetryBudget budget = new RetryBudget(0, 50, 1);
+        assertTrue(budget.tryAcquireRetry());
+        assertFalse(budget.tryAcquireRetry());
+        Thread.sleep(60);
+        assertTrue(budget.tryAcquireRetry());
+    }
+}
@@ -0,0 +1,42 @@
+package com.client.mingyuming.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryPolicyTest {
+
+    private final RetryPolicy policy = new RetryPolicy(3, 100, 250, Set.of(102));
+
+    @Test
+    void classifiesErrors() {
+        assertTrue(policy.isRetryable(new ResourceAccessException("timeout")));
+        assertTrue(policy.isRetryable(new HttpServerErrorException(HttpStatus.BAD_GATEWAY)));
+        assertTrue(policy.isRetryable(new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS)));
+        assertTrue(policy.isRetryable(new UpstreamBusinessException(102, "busy")));
+
+        assertFalse(policy.isRetryable(new HttpClientErrorException(HttpStatus.BAD_REQUEST)));
+        assertFalse(policy.isRetryable(new UpstreamBusinessException(101, "bad")));
+        assertFalse(policy.isRetryable(new UpstreamRejectedException("openai", "熔断中")));
+        assertFalse(policy.isRetryable(new IllegalStateException()));
+    }
+
+    @Test
+    void backoffIsJitteredAndCapped() {
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(policy.backoffMillis(1) < 100);
+            assertTrue(policy.backoffMillis(2) < 200);
+            assertTrue(policy.backoffMillis(3) < 250);
+            assertTrue(policy.backoffMillis(60) < 250);
+        }
+        assertEquals(0, RetryPolicy.NO_RETRY.backoffMillis(1));
+    }
+}
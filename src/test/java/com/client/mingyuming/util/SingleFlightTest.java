@@ -0,0 +1,132 @@
+package com.client.mingyuming.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final CountDownLatch leaderStarted = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger shared = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+        RequestDeadline.clear();
+    }
+
+    @Test
+    void followerSharesLeaderResult() throws Exception {
+        Future<String> leader = submit("k", blockingThen(() -> "v"));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+        Future<String> follower = submit("k", () -> "follower-should-not-run");
+        awaitShared(1);
+
+        release.countDown();
+        assertEquals("v", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("v", follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+        assertEquals(0, singleFlight.size());
+    }
+
+    @Test
+    void differentKeysDoNotShare() {
+        assertEquals("a", singleFlight.execute("a", () -> "a", shared::incrementAndGet));
+        assertEquals("b", singleFlight.execute("b", () -> "b", shared::incrementAndGet));
+        assertEquals(0, shared.get());
+        assertEquals(0, singleFlight.size());
+    }
+
+    @Test
+    void followerSeesLeaderException() throws Exception {
+        IllegalStateException failure = new IllegalStateException("boom");
+        Future<String> leader = submit("k", blockingThen(() -> {
+            throw failure;
+        }));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+        Future<String> follower = submit("k", () -> "x");
+        awaitShared(1);
+
+        release.countDown();
+        assertSame(failure, assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS)).getCause());
+        assertSame(failure, assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS)).getCause());
+        assertEquals(0, singleFlight.size());
+    }
+
+    @Test
+    void followerSeesLeaderError() throws Exception {
+        Future<String> leader = submit("k", blockingThen(() -> {
+            throw new StackOverflowError();
+        }));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+        // 无截止时间：follower 走不限时等待，leader 抛 Error 时也必须被唤醒
+        Future<String> follower = submit("k", () -> "x");
+        awaitShared(1);
+
+        release.countDown();
+        assertInstanceOf(StackOverflowError.class,
+                assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS)).getCause());
+        assertInstanceOf(StackOverflowError.class,
+                assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS)).getCause());
+        assertEquals(0, singleFlight.size());
+    }
+
+    @Test
+    void followerGivesUpAtDeadline() throws Exception {
+        submit("k", blockingThen(() -> "v"));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+        RequestDeadline.set(System.currentTimeMillis() + 100);
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> singleFlight.execute("k", () -> "x", shared::incrementAndGet));
+        assertEquals("等待合并中的相同请求超时", e.getMessage());
+        assertEquals(1, singleFlight.size());
+    }
+
+    private Future<String> submit(String key, Supplier<String> supplier) {
+        return executor.submit(() -> singleFlight.execute(key, supplier, shared::incrementAndGet));
+    }
+
+    /**
+     * leader 调用：计数并等待放行后再执行 body
+     */
+    private Supplier<String> blockingThen(Supplier<String> body) {
+        return () -> {
+            calls.incrementAndGet();
+            leaderStarted.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return body.get();
+        };
+    }
+
+    private void awaitShared(int expected) throws InterruptedException {
+        long until = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (shared.get() < expected && System.nanoTime() < until) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, shared.get());
+    }
+}
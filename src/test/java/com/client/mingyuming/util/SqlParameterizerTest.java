@@ -0,0 +1,71 @@
+package com.client.mingyuming.util;
+
+import com.client.mingyuming.util.SqlParameterizer.SqlTemplate;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SqlParameterizerTest {
+
+    @Test
+    void extractsStringAndNumberLiterals() {
+        SqlTemplate template = SqlParameterizer.parameterize(
+                "SELECT name FROM user WHERE city = 'Beijing' AND age > 30 AND score >= 9.5");
+        assertEquals("SELECT name FROM user WHERE city = ? AND age > ? AND score >= ?", template.template());
+        assertEquals(List.of("Beijing", 30L, new BigDecimal("9.5")), template.params());
+    }
+
+    @Test
+    void sameShapeSharesTemplate() {
+        assertEquals(SqlParameterizer.parameterize("SELECT * FROM t WHERE id = 1").key(),
+                SqlParameterizer.parameterize("SELECT *   FROM t WHERE id =  2").key());
+    }
+
+    @Test
+    void unescapesStringLiterals() {
+        SqlTemplate template = SqlParameterizer.parameterize("SELECT 1 FROM t WHERE a = 'it''s' AND b = 'x\\'y' AND c LIKE 'a\\_%'");
+        assertEquals(List.of(1L, "it's", "x'y", "a\\_%"), template.params());
+    }
+
+    @Test
+    void keepsOrderAndGroupByOrdinals() {
+        SqlTemplate template = SqlParameterizer.parameterize(
+                "SELECT a, COUNT(*) FROM t WHERE b = 3 GROUP BY 1 ORDER BY 2 DESC LIMIT 10");
+        assertEquals("SELECT a, COUNT(*) FROM t WHERE b = ? GROUP BY 1 ORDER BY 2 DESC LIMIT ?", template.template());
+        assertEquals(List.of(3L, 10L), template.params());
+    }
+
+    @Test
+    void keepsTypedLiteralsAndAsAliases() {
+        SqlTemplate template = SqlParameterizer.parameterize(
+                "SELECT SUM(amount) AS '总额' FROM bill WHERE day >= DATE '2025-09-01' AND note LIKE 'a|%' ESCAPE '|'");
+        assertEquals("SELECT SUM(amount) AS '总额' FROM bill WHERE day >= DATE '2025-09-01' AND note LIKE ? ESCAPE '|'",
+                template.template());
+        assertEquals(List.of("a|%"), template.params());
+    }
+
+    @Test
+    void keepsImplicitStringAliasesInSelectList() {
+        SqlTemplate template = SqlParameterizer.parameterize(
+                "SELECT SUM(x) '总额', name '姓名', `id` \"编号\" FROM t WHERE name = '张三'");
+        assertEquals("SELECT SUM(x) '总额', name '姓名', `id` \"编号\" FROM t WHERE name = ?", template.template());
+        assertEquals(List.of("张三"), template.params());
+    }
+
+    @Test
+    void keepsImplicitAliasesInSubquerySelectList() {
+        SqlTemplate template = SqlParameterizer.parameterize(
+                "SELECT * FROM (SELECT COUNT(*) '数量' FROM t WHERE type = 'a') x WHERE 1 = 1");
+        assertEquals("SELECT * FROM (SELECT COUNT(*) '数量' FROM t WHERE type = ?) x WHERE ? = ?", template.template());
+    }
+
+    @Test
+    void parameterizesSelectListExpressions() {
+        SqlTemplate template = SqlParameterizer.parameterize(
+                "SELECT 'x', IF(a > 0, 'pos', 'neg'), CASE WHEN b = 1 THEN 'one' ELSE 'other' END, c LIKE 'a%' FROM t");
+        assertEquals("SELECT ?, IF(a > ?, ?, ?), CASE WHEN b = ? THEN ? ELSE ? END, c LIKE ? FROM t", template.template());
+    }
+}
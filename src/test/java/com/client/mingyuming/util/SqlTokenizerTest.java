@@ -0,0 +1,50 @@
+package com.client.mingyuming.util;
+
+import com.client.mingyuming.util.SqlTokenizer.Token;
+import com.client.mingyuming.util.SqlTokenizer.Type;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SqlTokenizerTest {
+
+    @Test
+    void splitsWordsStringsNumbersAndSymbols() {
+        List<Token> tokens = SqlTokenizer.tokenize("SELECT `user name`, 'it''s', 1.5e3 FROM t WHERE a<=>b");
+        assertEquals(List.of(Type.WORD, Type.QUOTED_IDENT, Type.SYMBOL, Type.STRING, Type.SYMBOL, Type.NUMBER,
+                Type.WORD, Type.WORD, Type.WORD, Type.WORD, Type.SYMBOL, Type.WORD),
+                tokens.stream().map(Token::type).toList());
+        assertEquals("user name", tokens.get(1).identifier());
+        assertEquals("'it''s'", tokens.get(3).text());
+        assertEquals("1.5e3", tokens.get(5).text());
+        assertEquals("<=>", tokens.get(10).text());
+    }
+
+    @Test
+    void skipsComments() {
+        List<Token> tokens = SqlTokenizer.tokenize("SELECT 1 -- 注释\n# 注释\n/* 块 */ FROM t");
+        assertEquals(List.of("SELECT", "1", "FROM", "t"), tokens.stream().map(Token::text).toList());
+    }
+
+    @Test
+    void keepsOffsetsIntoOriginalSql() {
+        String sql = "SELECT  name FROM t";
+        Token name = SqlTokenizer.tokenize(sql).get(1);
+        assertEquals("name", sql.substring(name.start(), name.end()));
+    }
+
+    @Test
+    void treatsDigitLeadingWordAsIdentifier() {
+        assertEquals(Type.WORD, SqlTokenizer.tokenize("SELECT 1abc").get(1).type());
+    }
+
+    @Test
+    void rejectsExecutableCommentsAndUnclosedLiterals() {
+        assertThrows(IllegalArgumentException.class, () -> SqlTokenizer.tokenize("SELECT /*! SLEEP(1) */ 1"));
+        assertThrows(IllegalArgumentException.class, () -> SqlTokenizer.tokenize("SELECT 'abc"));
+        assertThrows(IllegalArgumentException.class, () -> SqlTokenizer.tokenize("SELECT 1 /* abc"));
+    }
+}
@@ -0,0 +1,81 @@
+package com.client.mingyuming.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ToolCallGraphTest {
+
+    @Test
+    void ordersByDependenciesAndKeepsOriginalOrderWithinLayer() {
+        List<ToolCallGraph.Node> nodes = ToolCallGraph.parse(List.of(
+                call("fx", "exchange-rate-tool", Map.of("amount", "${bill.total_amount}"), List.of()),
+                call("bill", "credit-card-tool", Map.of("cardNumber", "6211111111111111"), List.of()),
+                call("water", "utility-bill-tool", Map.of("householdId", "BJ001234567"), List.of()),
+                call("sum", "calculator-tool", Map.of("expression", "${bill.total_amount}+${water.amount}"), List.of("fx"))), 4);
+        assertEquals(List.of("bill", "water", "fx", "sum"), nodes.stream().map(ToolCallGraph.Node::id).toList());
+        // 参数中的引用并入依赖
+        assertEquals(List.of("bill"), nodes.get(2).dependsOn());
+        assertEquals(List.of("fx", "bill", "water"), nodes.get(3).dependsOn());
+    }
+
+    @Test
+    void assignsIdsWhenMissing() {
+        List<ToolCallGraph.Node> nodes = ToolCallGraph.parse(List.of(
+                Map.of("toolName", "current-date-tool"), Map.of("toolName", "calculator-tool")), 4);
+        assertEquals(List.of("call1", "call2"), nodes.stream().map(ToolCallGraph.Node::id).toList());
+    }
+
+    @Test
+    void rejectsInvalidGraphs() {
+        assertThrows(IllegalArgumentException.class, () -> ToolCallGraph.parse(List.of(), 4));
+        assertThrows(IllegalArgumentException.class, () -> ToolCallGraph.parse(List.of("x"), 4));
+        assertThrows(IllegalArgumentException.class, () -> ToolCallGraph.parse(List.of(Map.of("id", "a")), 4));
+        assertThrows(IllegalArgumentException.class, () -> ToolCallGraph.parse(List.of(
+                call("a", "t", Map.of(), List.of()), call("b", "t", Map.of(), List.of()), call("c", "t", Map.of(), List.of())), 2));
+        // id 重复
+        assertThrows(IllegalArgumentException.class, () -> ToolCallGraph.parse(List.of(
+                call("a", "t", Map.of(), List.of()), call("a", "t", Map.of(), List.of())), 4));
+        // 依赖不存在
+        assertThrows(IllegalArgumentException.class, () -> ToolCallGraph.parse(List.of(
+                call("a", "t", Map.of("x", "${missing.value}"), List.of())), 4));
+        // 自依赖与环
+        assertThrows(IllegalArgumentException.class, () -> ToolCallGraph.parse(List.of(
+                call("a", "t", Map.of(), List.of("a"))), 4));
+        assertThrows(IllegalArgumentException.class, () -> ToolCallGraph.parse(List.of(
+                call("a", "t", Map.of(), List.of("b")), call("b", "t", Map.of("x", "${a.v}"), List.of())), 4));
+    }
+
+    @Test
+    void resolvesReferences() {
+        Map<String, Map<String, Object>> results = Map.of(
+                "bill", Map.of("total_amount", 1234.5, "card", Map.of("last4", "1111")));
+        Map<String, Object> resolved = ToolCallGraph.resolve(Map.of(
+                "amount", "${bill.total_amount}",
+                "note", "尾号${bill.card.last4}，金额${bill.total_amount}",
+                "toCurrency", "USD",
+                "count", 2), results);
+        // 整个值为单个引用时保留原类型
+        assertEquals(1234.5, resolved.get("amount"));
+        assertEquals("尾号1111，金额1234.5", resolved.get("note"));
+        assertEquals("USD", resolved.get("toCurrency"));
+        assertEquals(2, resolved.get("count"));
+    }
+
+    @Test
+    void rejectsMissingReferenceField() {
+        Map<String, Map<String, Object>> results = Map.of("bill", Map.of("total_amount", 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> ToolCallGraph.resolve(Map.of("amount", "${bill.amount}"), results));
+        assertThrows(IllegalArgumentException.class,
+                () -> ToolCallGraph.resolve(Map.of("amount", "${bill.total_amount.value}"), results));
+    }
+
+    private static Map<String, Object> call(String id, String toolName, Map<String, Object> parameters, List<String> dependsOn) {
+        return Map.of("id", id, "toolName", toolName, "parameters", parameters, "dependsOn", dependsOn);
+    }
+}